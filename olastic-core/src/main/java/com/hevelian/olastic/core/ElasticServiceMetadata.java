@@ -10,6 +10,7 @@ import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
 
 import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlEdmProvider;
 import com.hevelian.olastic.core.edm.ElasticEdmProvider;
+import com.hevelian.olastic.core.elastic.cost.QueryCostPolicy;
 
 /**
  * Custom implementation of {@link ServiceMetadata} to provide own
@@ -22,6 +23,7 @@ public class ElasticServiceMetadata implements ServiceMetadata {
     private ElasticEdmProvider edm;
     private final List<EdmxReference> references;
     private final ServiceMetadataETagSupport serviceMetadataETagSupport;
+    private QueryCostPolicy costPolicy = new QueryCostPolicy();
 
     /**
      * Initialize fields.
@@ -59,4 +61,12 @@ public class ElasticServiceMetadata implements ServiceMetadata {
     public ServiceMetadataETagSupport getServiceMetadataETagSupport() {
         return serviceMetadataETagSupport;
     }
+
+    public QueryCostPolicy getCostPolicy() {
+        return costPolicy;
+    }
+
+    public void setCostPolicy(QueryCostPolicy costPolicy) {
+        this.costPolicy = costPolicy;
+    }
 }
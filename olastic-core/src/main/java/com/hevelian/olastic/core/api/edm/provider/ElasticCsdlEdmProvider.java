@@ -37,6 +37,7 @@ import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.elastic.mappings.DefaultElasticToCsdlMapper;
 import com.hevelian.olastic.core.elastic.mappings.ElasticToCsdlMapper;
 import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.mappings.MultiFieldMapper;
 
 /**
  * {@link CsdlAbstractEdmProvider} implementation that generates the
@@ -57,6 +58,7 @@ public abstract class ElasticCsdlEdmProvider extends CsdlAbstractEdmProvider {
     private final NestedTypeMapper nestedTypeMapper;
     private final MappingMetaDataProvider mappingMetaDataProvider;
     private FullQualifiedName containerName;
+    private final ForeignKeys foreignKeys = new ForeignKeys();
 
     /**
      * Initializes mapping metadata provider with default
@@ -197,6 +199,8 @@ public abstract class ElasticCsdlEdmProvider extends CsdlAbstractEdmProvider {
             ParsedMapWrapper esTypeProperties = new ParsedMapWrapper(metaData.sourceAsMap())
                     .mapValue(ElasticConstants.PROPERTIES_PROPERTY);
             List<CsdlProperty> properties = new ArrayList<>();
+            MultiFieldMapper multiFieldMapper = new MultiFieldMapper(
+                    mappingMetaDataProvider.getIndexSettings(index));
             for (String esFieldName : esTypeProperties.getMap().keySet()) {
                 String name = csdlMapper.esFieldToCsdlProperty(index, type, esFieldName);
                 ParsedMapWrapper fieldMap = esTypeProperties.mapValue(esFieldName);
@@ -210,7 +214,8 @@ public abstract class ElasticCsdlEdmProvider extends CsdlAbstractEdmProvider {
                 Integer precision = EdmPrimitiveTypeKind.DateTimeOffset.getFullQualifiedName()
                         .equals(typeFQN) ? DATETIME_PRECISION : null;
                 properties.add(new ElasticCsdlProperty().setESIndex(index).setESType(type)
-                        .setESField(esFieldName).setName(name).setType(typeFQN)
+                        .setMultiFields(multiFieldMapper.map(fieldMap)).setESField(esFieldName)
+                        .setName(name).setType(typeFQN)
                         .setAnnotations(annotations).setPrecision(precision)
                         .setCollection(csdlMapper.esFieldIsCollection(index, type, esFieldName)));
             }
@@ -261,6 +266,7 @@ public abstract class ElasticCsdlEdmProvider extends CsdlAbstractEdmProvider {
                 navigationProperties.add(navProp);
             }
         }
+        navigationProperties.addAll(foreignKeys.getNavigationProperties(index, type, csdlMapper));
         return navigationProperties;
     }
 
@@ -448,6 +454,15 @@ public abstract class ElasticCsdlEdmProvider extends CsdlAbstractEdmProvider {
         return csdlMapper;
     }
 
+    /**
+     * Gets foreign key relations, which are exposed as navigation properties.
+     *
+     * @return foreign keys registry
+     */
+    public ForeignKeys getForeignKeys() {
+        return foreignKeys;
+    }
+
     public NestedTypeMapper getNestedTypeMapper() {
         return nestedTypeMapper;
     }
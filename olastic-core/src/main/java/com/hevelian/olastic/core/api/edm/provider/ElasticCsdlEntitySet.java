@@ -2,6 +2,8 @@ package com.hevelian.olastic.core.api.edm.provider;
 
 import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
 
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+
 /**
  * Elasticsearch Entity Set implementation.
  * 
@@ -12,6 +14,12 @@ public class ElasticCsdlEntitySet extends CsdlEntitySet
 
     private String esIndex;
     private String esType;
+    private String dateRounding = ElasticConstants.DEFAULT_DATE_ROUNDING;
+    private int joinResolutionLimit = ElasticConstants.DEFAULT_JOIN_RESOLUTION_LIMIT;
+    private int maxPageSize = ElasticConstants.DEFAULT_MAX_PAGE_SIZE;
+    private int deepSkipThreshold = ElasticConstants.DEFAULT_DEEP_SKIP_THRESHOLD;
+    private boolean approximateCount;
+    private int countSampleSize = ElasticConstants.DEFAULT_COUNT_SAMPLE_SIZE;
 
     @Override
     public String getESType() {
@@ -35,6 +43,151 @@ public class ElasticCsdlEntitySet extends CsdlEntitySet
         return this;
     }
 
+    /**
+     * Gets date math time unit current time in filters is rounded to.
+     * 
+     * @return time unit, or null if current time isn't rounded
+     */
+    public String getDateRounding() {
+        return dateRounding;
+    }
+
+    /**
+     * Sets date math time unit current time in filters is rounded to, e.g. m
+     * or h. Rounded queries are the same for requests sent within the same
+     * time unit, so Elasticsearch can reuse their cached results.
+     * 
+     * @param dateRounding
+     *            time unit, or null to use exact current time
+     * @return current entity set
+     */
+    public ElasticCsdlEntitySet setDateRounding(String dateRounding) {
+        this.dateRounding = dateRounding;
+        return this;
+    }
+
+    /**
+     * Gets maximum number of joined documents, which ids are resolved before
+     * executing the request.
+     * 
+     * @return limit of resolved documents, zero if it's disabled
+     */
+    public int getJoinResolutionLimit() {
+        return joinResolutionLimit;
+    }
+
+    /**
+     * Sets maximum number of joined documents, which ids are resolved before
+     * executing the request. If has_child or has_parent query of this entity
+     * set matches at most this number of documents, it's replaced with ids or
+     * _parent terms of matched documents, which is much cheaper than join.
+     * 
+     * @param joinResolutionLimit
+     *            limit of resolved documents, zero to always use joins
+     * @return current entity set
+     */
+    public ElasticCsdlEntitySet setJoinResolutionLimit(int joinResolutionLimit) {
+        this.joinResolutionLimit = joinResolutionLimit;
+        return this;
+    }
+
+    /**
+     * Gets maximum number of entities returned in one page of collection.
+     * 
+     * @return maximum page size
+     */
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    /**
+     * Sets maximum number of entities returned in one page of collection.
+     * Larger $top, or odata.maxpagesize preference, is served page by page
+     * with next links, so a client can't make shards collect and sort
+     * arbitrary large pages.
+     * 
+     * @param maxPageSize
+     *            maximum page size
+     * @return current entity set
+     */
+    public ElasticCsdlEntitySet setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+        return this;
+    }
+
+    /**
+     * Gets $skip, from which entities are skipped with search_after instead
+     * of from/size.
+     * 
+     * @return deep skip threshold
+     */
+    public int getDeepSkipThreshold() {
+        return deepSkipThreshold;
+    }
+
+    /**
+     * Sets $skip, from which entities are skipped with search_after instead
+     * of from/size. With from/size every shard collects and sorts all skipped
+     * hits, while search_after walks over them in strides, retrieving only
+     * their sort values.
+     * 
+     * @param deepSkipThreshold
+     *            deep skip threshold
+     * @return current entity set
+     */
+    public ElasticCsdlEntitySet setDeepSkipThreshold(int deepSkipThreshold) {
+        this.deepSkipThreshold = deepSkipThreshold;
+        return this;
+    }
+
+    /**
+     * Checks whether counts of entity set are estimated by default, even
+     * without approximate count preference.
+     * 
+     * @return true if counts are approximate
+     */
+    public boolean isApproximateCount() {
+        return approximateCount;
+    }
+
+    /**
+     * Sets whether counts of entity set are estimated by default. It suits
+     * huge entity sets, where an exact count of a broad filter makes every
+     * shard visit all matched documents.
+     * 
+     * @param approximateCount
+     *            true to estimate counts
+     * @return current entity set
+     */
+    public ElasticCsdlEntitySet setApproximateCount(boolean approximateCount) {
+        this.approximateCount = approximateCount;
+        return this;
+    }
+
+    /**
+     * Gets number of matched documents, after which sampled shard stops
+     * counting, when count is estimated.
+     * 
+     * @return count sample size
+     */
+    public int getCountSampleSize() {
+        return countSampleSize;
+    }
+
+    /**
+     * Sets number of matched documents, after which sampled shard stops
+     * counting, when count is estimated. Bigger sample gives more precise
+     * estimation, but costs more.
+     * 
+     * @param countSampleSize
+     *            count sample size
+     * @return current entity set
+     */
+    public ElasticCsdlEntitySet setCountSampleSize(int countSampleSize) {
+        this.countSampleSize = countSampleSize;
+        return this;
+    }
+
     @Override
     public CsdlEntitySet setName(String name) {
         if (esType == null) {
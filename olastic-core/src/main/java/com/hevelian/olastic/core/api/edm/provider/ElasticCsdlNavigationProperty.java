@@ -12,6 +12,8 @@ public class ElasticCsdlNavigationProperty extends CsdlNavigationProperty
 
     private String esIndex;
     private String esType;
+    private String esField;
+    private String esTargetField;
 
     @Override
     public String getESType() {
@@ -35,4 +37,59 @@ public class ElasticCsdlNavigationProperty extends CsdlNavigationProperty
         return this;
     }
 
+    /**
+     * Gets field of the current type, which links to the target type.
+     * 
+     * @return field name, or null if navigation is parent/child relation
+     */
+    public String getESField() {
+        return esField;
+    }
+
+    /**
+     * Sets field of the current type, which links to the target type.
+     * 
+     * @param esField
+     *            field name
+     * @return current navigation property
+     */
+    public ElasticCsdlNavigationProperty setESField(String esField) {
+        this.esField = esField;
+        return this;
+    }
+
+    /**
+     * Gets field of the target type, which values are equal to values of
+     * {@link #getESField()}.
+     * 
+     * @return target field name, or null if navigation is parent/child
+     *         relation
+     */
+    public String getESTargetField() {
+        return esTargetField;
+    }
+
+    /**
+     * Sets field of the target type, which values are equal to values of
+     * {@link #getESField()}.
+     * 
+     * @param esTargetField
+     *            target field name
+     * @return current navigation property
+     */
+    public ElasticCsdlNavigationProperty setESTargetField(String esTargetField) {
+        this.esTargetField = esTargetField;
+        return this;
+    }
+
+    /**
+     * Checks whether navigation is foreign key relation instead of parent/child
+     * relation.
+     * 
+     * @return true if navigation links documents by field values
+     */
+    public boolean isForeignKey() {
+        return esField != null && esTargetField != null;
+    }
+
 }
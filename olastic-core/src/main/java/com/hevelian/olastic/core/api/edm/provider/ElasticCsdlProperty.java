@@ -1,8 +1,12 @@
 package com.hevelian.olastic.core.api.edm.provider;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
 
 import com.google.common.base.Objects;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
 
 /**
  * Elasticsearch CSDL property implementation.
@@ -15,11 +19,28 @@ public class ElasticCsdlProperty extends CsdlProperty
     private String esIndex;
     private String esType;
     private String esField;
+    private List<MultiField> multiFields = new ArrayList<>();
 
     public String getESField() {
         return esField;
     }
 
+    public List<MultiField> getMultiFields() {
+        return multiFields;
+    }
+
+    /**
+     * Sets elasticsearch multi-fields of the field.
+     * 
+     * @param multiFields
+     *            multi-fields
+     * @return current instance
+     */
+    public ElasticCsdlProperty setMultiFields(List<MultiField> multiFields) {
+        this.multiFields = multiFields;
+        return this;
+    }
+
     /**
      * Sets elasticsearch field name.
      * 
@@ -0,0 +1,100 @@
+package com.hevelian.olastic.core.api.edm.provider;
+
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+
+import lombok.Getter;
+
+/**
+ * Relation between types, which documents are linked by field values instead
+ * of parent/child mapping, e.g. book.publisherId referring to id of publisher.
+ * Types can be in different indices. Relation is exposed as navigation
+ * property of the source type, and optionally as partner navigation property
+ * of the target type.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class ForeignKey {
+
+    private final String index;
+    private final String type;
+    private final String field;
+    private final String targetIndex;
+    private final String targetType;
+    private String targetField = ElasticConstants.ID_FIELD_NAME;
+    private String name;
+    private String partner;
+
+    /**
+     * Constructor to initialize relation, which field refers to id of target
+     * type.
+     *
+     * @param index
+     *            index of source type
+     * @param type
+     *            source type
+     * @param field
+     *            keyword field of source type with foreign key
+     * @param targetIndex
+     *            index of target type
+     * @param targetType
+     *            target type
+     */
+    public ForeignKey(String index, String type, String field, String targetIndex,
+            String targetType) {
+        this.index = index;
+        this.type = type;
+        this.field = field;
+        this.targetIndex = targetIndex;
+        this.targetType = targetType;
+        this.name = targetType;
+    }
+
+    /**
+     * Sets field of target type foreign key refers to. Navigation from source
+     * to target is single valued only if it refers to id.
+     *
+     * @param targetField
+     *            keyword field of target type
+     * @return current foreign key
+     */
+    public ForeignKey setTargetField(String targetField) {
+        this.targetField = targetField;
+        return this;
+    }
+
+    /**
+     * Sets name of navigation property from source to target type. By default
+     * it's target type name.
+     *
+     * @param name
+     *            navigation property name
+     * @return current foreign key
+     */
+    public ForeignKey setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Sets name of navigation property from target to source type.
+     *
+     * @param partner
+     *            navigation property name, if null, target type has no
+     *            navigation to source type
+     * @return current foreign key
+     */
+    public ForeignKey setPartner(String partner) {
+        this.partner = partner;
+        return this;
+    }
+
+    /**
+     * Checks whether navigation from source to target type is collection.
+     *
+     * @return true if foreign key doesn't refer to id of target type
+     */
+    public boolean isCollection() {
+        return !ElasticConstants.ID_FIELD_NAME.equals(targetField);
+    }
+}
@@ -0,0 +1,80 @@
+package com.hevelian.olastic.core.api.edm.provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.hevelian.olastic.core.elastic.mappings.ElasticToCsdlMapper;
+
+/**
+ * Registry of {@link ForeignKey} relations, which creates navigation
+ * properties for them.
+ *
+ * @author rdidyk
+ */
+public class ForeignKeys {
+
+    private final List<ForeignKey> relations = new ArrayList<>();
+
+    /**
+     * Adds foreign key relation, which is exposed as navigation property.
+     * Related types can be in different indices.
+     *
+     * @param foreignKey
+     *            foreign key relation
+     * @return current registry
+     */
+    public ForeignKeys add(ForeignKey foreignKey) {
+        relations.add(foreignKey);
+        return this;
+    }
+
+    public List<ForeignKey> getAll() {
+        return Collections.unmodifiableList(relations);
+    }
+
+    /**
+     * Creates navigation properties of the type for all relations it's source
+     * or partner target of.
+     *
+     * @param index
+     *            ES index
+     * @param type
+     *            ES type
+     * @param csdlMapper
+     *            ES to CSDL mapper
+     * @return list of navigation properties
+     */
+    public List<ElasticCsdlNavigationProperty> getNavigationProperties(String index, String type,
+            ElasticToCsdlMapper csdlMapper) {
+        List<ElasticCsdlNavigationProperty> navigationProperties = new ArrayList<>();
+        for (ForeignKey foreignKey : relations) {
+            if (index.equals(foreignKey.getIndex()) && type.equals(foreignKey.getType())) {
+                ElasticCsdlNavigationProperty navProp = new ElasticCsdlNavigationProperty()
+                        .setESIndex(foreignKey.getTargetIndex())
+                        .setESType(foreignKey.getTargetType()).setESField(foreignKey.getField())
+                        .setESTargetField(foreignKey.getTargetField());
+                navProp.setName(foreignKey.getName())
+                        .setType(csdlMapper.esTypeToEntityType(foreignKey.getTargetIndex(),
+                                foreignKey.getTargetType()))
+                        .setCollection(foreignKey.isCollection())
+                        .setPartner(foreignKey.getPartner());
+                navigationProperties.add(navProp);
+            }
+            boolean isTarget = index.equals(foreignKey.getTargetIndex())
+                    && type.equals(foreignKey.getTargetType());
+            if (isTarget && foreignKey.getPartner() != null) {
+                ElasticCsdlNavigationProperty navProp = new ElasticCsdlNavigationProperty()
+                        .setESIndex(foreignKey.getIndex()).setESType(foreignKey.getType())
+                        .setESField(foreignKey.getTargetField())
+                        .setESTargetField(foreignKey.getField());
+                navProp.setName(foreignKey.getPartner())
+                        .setType(csdlMapper.esTypeToEntityType(foreignKey.getIndex(),
+                                foreignKey.getType()))
+                        .setCollection(true).setPartner(foreignKey.getName());
+                navigationProperties.add(navProp);
+            }
+        }
+        return navigationProperties;
+    }
+}
@@ -19,8 +19,10 @@ import org.apache.olingo.server.api.uri.queryoption.expression.Member;
 import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
 import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
 
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.DatePart;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.MemberHandler;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.DateMathMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.LiteralMember;
 
 /**
@@ -34,6 +36,25 @@ public class ElasticSearchExpressionVisitor implements ExpressionVisitor<Express
      * "pages" and "words" resource.
      */
     private HashMap<String, UriResource> collectionResourceCache = new HashMap<>();
+    private final String dateRounding;
+
+    /**
+     * Constructor to initialize visitor that doesn't round current time.
+     */
+    public ElasticSearchExpressionVisitor() {
+        this(null);
+    }
+
+    /**
+     * Constructor to initialize rounding of current time.
+     * 
+     * @param dateRounding
+     *            date math time unit now() is rounded to, e.g. m, if null,
+     *            current time isn't rounded
+     */
+    public ElasticSearchExpressionVisitor(String dateRounding) {
+        this.dateRounding = dateRounding;
+    }
 
     @Override
     public ExpressionMember visitBinaryOperator(BinaryOperatorKind operator, ExpressionMember left,
@@ -64,6 +85,45 @@ public class ElasticSearchExpressionVisitor implements ExpressionVisitor<Express
         case LT:
             expressionMember = left.lt(right);
             break;
+        default:
+            expressionMember = visitArithmeticOperator(operator, left, right);
+            break;
+        }
+        return expressionMember;
+    }
+
+    /**
+     * Visits arithmetic binary operator.
+     * 
+     * @param operator
+     *            operator kind
+     * @param left
+     *            left operand
+     * @param right
+     *            right operand
+     * @return result of the operation
+     * @throws ODataApplicationException
+     *             if operator isn't arithmetic or it can't be applied
+     */
+    private ExpressionMember visitArithmeticOperator(BinaryOperatorKind operator,
+            ExpressionMember left, ExpressionMember right) throws ODataApplicationException {
+        ExpressionMember expressionMember = null;
+        switch (operator) {
+        case ADD:
+            expressionMember = left.add(right);
+            break;
+        case SUB:
+            expressionMember = left.sub(right);
+            break;
+        case MUL:
+            expressionMember = left.mul(right);
+            break;
+        case DIV:
+            expressionMember = left.div(right);
+            break;
+        case MOD:
+            expressionMember = left.mod(right);
+            break;
         default:
             return throwNotImplemented("Unsupported binary operator");
         }
@@ -81,19 +141,72 @@ public class ElasticSearchExpressionVisitor implements ExpressionVisitor<Express
     public ExpressionMember visitMethodCall(MethodKind methodCall,
             List<ExpressionMember> parameters)
             throws ExpressionVisitException, ODataApplicationException {
+        ExpressionMember expressionMember = null;
         switch (methodCall) {
         case CONTAINS:
-            return parameters.get(0).contains(parameters.get(1));
+            expressionMember = parameters.get(0).contains(parameters.get(1));
+            break;
         case STARTSWITH:
-            return parameters.get(0).startsWith(parameters.get(1));
+            expressionMember = parameters.get(0).startsWith(parameters.get(1));
+            break;
         case ENDSWITH:
-            return parameters.get(0).endsWith(parameters.get(1));
+            expressionMember = parameters.get(0).endsWith(parameters.get(1));
+            break;
         case DATE:
-            return parameters.get(0).date();
+            expressionMember = parameters.get(0).date();
+            break;
+        case TOLOWER:
+            expressionMember = parameters.get(0).toLower();
+            break;
+        case LENGTH:
+            expressionMember = parameters.get(0).length();
+            break;
+        case INDEXOF:
+            expressionMember = parameters.get(0).indexOf(parameters.get(1));
+            break;
+        case SUBSTRING:
+            expressionMember = parameters.get(0).substring(parameters.get(1),
+                    parameters.size() > 2 ? parameters.get(2) : null);
+            break;
         default:
-            return throwNotImplemented(
-                    String.format("Method call %s is not implemented", methodCall));
+            expressionMember = visitDateMethodCall(methodCall, parameters);
+            break;
         }
+        return expressionMember;
+    }
+
+    /**
+     * Visits date method call, e.g. now() or year(birthDate).
+     * 
+     * @param methodCall
+     *            method kind
+     * @param parameters
+     *            method parameters
+     * @return result of the method call
+     * @throws ODataApplicationException
+     *             if method isn't date method or it can't be applied
+     */
+    private ExpressionMember visitDateMethodCall(MethodKind methodCall,
+            List<ExpressionMember> parameters) throws ODataApplicationException {
+        ExpressionMember expressionMember = null;
+        DatePart part = DatePart.of(methodCall);
+        switch (methodCall) {
+        case NOW:
+            expressionMember = DateMathMember.now(dateRounding);
+            break;
+        case MINDATETIME:
+            expressionMember = DateMathMember.minDateTime();
+            break;
+        case MAXDATETIME:
+            expressionMember = DateMathMember.maxDateTime();
+            break;
+        default:
+            expressionMember = part != null ? parameters.get(0).datePart(part)
+                    : throwNotImplemented(
+                            String.format("Method call %s is not implemented", methodCall));
+            break;
+        }
+        return expressionMember;
     }
 
     @Override
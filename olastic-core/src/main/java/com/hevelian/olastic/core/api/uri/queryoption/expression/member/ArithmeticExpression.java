@@ -0,0 +1,66 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression.member;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Interface for arithmetic expressions.
+ * 
+ * @author rdidyk
+ */
+public interface ArithmeticExpression {
+
+    /**
+     * Adds other expression member to current one.
+     * 
+     * @param expressionMember
+     *            member to add
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember add(ExpressionMember expressionMember) throws ODataApplicationException;
+
+    /**
+     * Subtracts other expression member from current one.
+     * 
+     * @param expressionMember
+     *            member to subtract
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember sub(ExpressionMember expressionMember) throws ODataApplicationException;
+
+    /**
+     * Multiplies current member by other one.
+     * 
+     * @param expressionMember
+     *            multiplier
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember mul(ExpressionMember expressionMember) throws ODataApplicationException;
+
+    /**
+     * Divides current member by other one.
+     * 
+     * @param expressionMember
+     *            divisor
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember div(ExpressionMember expressionMember) throws ODataApplicationException;
+
+    /**
+     * Gets remainder of division of current member by other one.
+     * 
+     * @param expressionMember
+     *            divisor
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember mod(ExpressionMember expressionMember) throws ODataApplicationException;
+}
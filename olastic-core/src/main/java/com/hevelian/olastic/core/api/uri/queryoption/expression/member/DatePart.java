@@ -0,0 +1,50 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression.member;
+
+import java.util.Locale;
+
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+
+/**
+ * Parts of the date, that can be extracted by OData date functions.
+ * 
+ * @author rdidyk
+ */
+public enum DatePart {
+    /** Year of the date. */
+    YEAR,
+    /** Month of the year, from 1 to 12. */
+    MONTH,
+    /** Day of the month. */
+    DAY,
+    /** Hour of the day. */
+    HOUR,
+    /** Minute of the hour. */
+    MINUTE,
+    /** Second of the minute. */
+    SECOND;
+
+    /**
+     * Gets date part extracted by method.
+     * 
+     * @param method
+     *            method kind
+     * @return date part, or null if method doesn't extract date part
+     */
+    public static DatePart of(MethodKind method) {
+        for (DatePart part : values()) {
+            if (part.name().equals(method.name())) {
+                return part;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets name of the date part, the same as name of OData function.
+     * 
+     * @return lower case name
+     */
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
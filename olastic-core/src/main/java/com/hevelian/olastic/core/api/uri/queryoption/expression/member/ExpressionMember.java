@@ -5,6 +5,7 @@ package com.hevelian.olastic.core.api.uri.queryoption.expression.member;
  * should have common root interface. This root interface is used in
  * ElasticSearchExpressionVisitor class as a generic type.
  */
-public interface ExpressionMember extends LogicalExpression, LambdaExpression, MethodExpression {
+public interface ExpressionMember extends LogicalExpression, LambdaExpression, MethodExpression,
+        ArithmeticExpression {
 
 }
@@ -34,12 +34,16 @@ import org.apache.olingo.server.core.uri.UriInfoImpl;
 
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ChildMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ExpressionResult;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ForeignKeyPrimitiveMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.NestedMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ParentWrapperMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ParentPrimitiveMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.PrimitiveMember;
 import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.edm.ElasticEdmNavigationProperty;
 import com.hevelian.olastic.core.edm.ElasticEdmProperty;
+import com.hevelian.olastic.core.elastic.builders.ForeignKeyQueryBuilder;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
 
 /**
  * Processes raw olingo expression member data.
@@ -155,6 +159,10 @@ public class MemberHandler {
             boolean isParentNestedLambdaVar = resourceParts.stream()
                     .anyMatch(part -> part instanceof UriResourceComplexProperty);
             List<String> navigationTypes = collectNavigationTypes();
+            if (resourceParts.size() > 2 && hasForeignKeyNavigation()) {
+                return throwNotImplemented(
+                        "Lambda through foreign key navigation is not implemented");
+            }
             if (isParentNestedLambdaVar) {
                 // navigation parent nested collection
                 // book?$filter=author/_dimension/any(d:d/name eq 'Validity')
@@ -206,6 +214,16 @@ public class MemberHandler {
                 .get(resourceParts.size() - 2);
         ElasticEdmEntityType entityType = (ElasticEdmEntityType) preLastNavResource.getProperty()
                 .getType();
+        if (preLastNavResource.getProperty() instanceof ElasticEdmNavigationProperty) {
+            ElasticEdmNavigationProperty navigation =
+                    (ElasticEdmNavigationProperty) preLastNavResource.getProperty();
+            if (navigation.isForeignKey()) {
+                // author?$filter=publisher/any(p:p/name eq 'Penguin')
+                return new ExpressionResult(new ForeignKeyQueryBuilder(navigation.getESField(),
+                        entityType.getESIndex(), entityType.getESType(),
+                        lambdaResult.getQueryBuilder(), navigation.getESTargetField()));
+            }
+        }
         return new ChildMember(entityType.getESType(), lambdaResult.getQueryBuilder()).any();
     }
 
@@ -244,8 +262,11 @@ public class MemberHandler {
         if (firstPart instanceof UriResourceNavigation) {
             EdmProperty lastProperty = ((UriResourceProperty) lastPart).getProperty();
             PrimitiveMember primitiveMember = new PrimitiveMember(
-                    ((ElasticEdmProperty) lastProperty).getEField(), lastProperty.getAnnotations());
-            return new ParentPrimitiveMember(collectNavigationTypes(), primitiveMember);
+                    ((ElasticEdmProperty) lastProperty).getEField(), lastProperty.getAnnotations(),
+                    lastProperty.getType(), getMultiFields(lastProperty));
+            return hasForeignKeyNavigation()
+                    ? new ForeignKeyPrimitiveMember(collectNavigations(), primitiveMember)
+                    : new ParentPrimitiveMember(collectNavigationTypes(), primitiveMember);
         } else if (firstPart instanceof UriResourceLambdaVariable
                 && ((UriResourcePartTyped) firstPart).getType().getKind() == EdmTypeKind.COMPLEX) {
             // filtering by complex type collection
@@ -254,7 +275,8 @@ public class MemberHandler {
             String parentPathPrefix = pathToMember != null ? pathToMember + NESTED_PATH_SEPARATOR
                     : "";
             String nestedPath = parentPathPrefix + lastProperty.getName();
-            return new PrimitiveMember(nestedPath, lastProperty.getAnnotations());
+            return new PrimitiveMember(nestedPath, lastProperty.getAnnotations(),
+                    lastProperty.getType(), getMultiFields(lastProperty));
         } else if (firstPart instanceof UriResourceLambdaVariable
                 && ((UriResourcePartTyped) firstPart).getType()
                         .getKind() == EdmTypeKind.PRIMITIVE) {
@@ -263,16 +285,23 @@ public class MemberHandler {
             String nestedPath = pathToMember != null ? pathToMember : "";
             UriResource parentResource = collectionResourceCache.get(pathToMember);
 
-            return new PrimitiveMember(nestedPath, getAnnotations(parentResource));
+            return new PrimitiveMember(nestedPath, getAnnotations(parentResource),
+                    ((UriResourcePartTyped) firstPart).getType(), Collections.emptyList());
         } else {
             // simple primitive expression or expression inside lambda for
             // retrieving children
             EdmProperty lastProperty = ((UriResourceProperty) lastPart).getProperty();
             return new PrimitiveMember(((ElasticEdmProperty) lastProperty).getEField(),
-                    lastProperty.getAnnotations());
+                    lastProperty.getAnnotations(), lastProperty.getType(),
+                    getMultiFields(lastProperty));
         }
     }
 
+    private static List<MultiField> getMultiFields(EdmProperty property) {
+        return property instanceof ElasticEdmProperty
+                ? ((ElasticEdmProperty) property).getMultiFields() : Collections.emptyList();
+    }
+
     private List<String> collectNavigationTypes() {
         return resourceParts.stream().filter(UriResourceNavigation.class::isInstance)
                 .map(part -> ((ElasticEdmEntityType) ((UriResourceNavigation) part).getProperty()
@@ -280,6 +309,20 @@ public class MemberHandler {
                 .collect(Collectors.toList());
     }
 
+    private List<ElasticEdmNavigationProperty> collectNavigations() {
+        return resourceParts.stream().filter(UriResourceNavigation.class::isInstance)
+                .map(part -> (ElasticEdmNavigationProperty) ((UriResourceNavigation) part)
+                        .getProperty())
+                .collect(Collectors.toList());
+    }
+
+    private boolean hasForeignKeyNavigation() {
+        return resourceParts.stream().filter(UriResourceNavigation.class::isInstance)
+                .map(part -> ((UriResourceNavigation) part).getProperty())
+                .anyMatch(property -> property instanceof ElasticEdmNavigationProperty
+                        && ((ElasticEdmNavigationProperty) property).isForeignKey());
+    }
+
     private List<EdmAnnotation> getAnnotations(UriResource uriResource) {
         if (uriResource instanceof UriResourceNavigation) {
             return ((UriResourceNavigation) uriResource).getProperty().getAnnotations();
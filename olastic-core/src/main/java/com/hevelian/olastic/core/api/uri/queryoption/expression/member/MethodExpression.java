@@ -50,4 +50,59 @@ public interface MethodExpression {
      *             odata app exception
      */
     ExpressionMember date() throws ODataApplicationException;
+
+    /**
+     * Converts string value to lower case.
+     *
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember toLower() throws ODataApplicationException;
+
+    /**
+     * Extracts part of the date.
+     *
+     * @param part
+     *            date part to extract
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember datePart(DatePart part) throws ODataApplicationException;
+
+    /**
+     * Gets length of string value.
+     *
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember length() throws ODataApplicationException;
+
+    /**
+     * Gets index of other member in current one.
+     *
+     * @param expressionMember
+     *            method parameter - literal
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember indexOf(ExpressionMember expressionMember) throws ODataApplicationException;
+
+    /**
+     * Gets substring of string value.
+     *
+     * @param start
+     *            zero-based start index - literal
+     * @param length
+     *            length of substring - literal, or null to get rest of the
+     *            string
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             odata app exception
+     */
+    ExpressionMember substring(ExpressionMember start, ExpressionMember length)
+            throws ODataApplicationException;
 }
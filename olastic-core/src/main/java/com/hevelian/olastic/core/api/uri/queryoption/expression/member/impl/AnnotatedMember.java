@@ -1,21 +1,34 @@
 package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
+import static com.hevelian.olastic.core.elastic.ElasticConstants.EPOCH_MILLIS_FORMAT;
 import static com.hevelian.olastic.core.elastic.ElasticConstants.ID_FIELD_NAME;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addDocValuesKeywordIfNeeded;
 import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addKeywordIfNeeded;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addSuffix;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.findDocValuesField;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.findMultiField;
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.existsQuery;
 import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
 import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 
 import org.apache.olingo.commons.api.edm.EdmAnnotation;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -31,6 +44,21 @@ public abstract class AnnotatedMember extends BaseMember {
 
     private final String field;
     private final List<EdmAnnotation> annotations;
+    private final EdmType edmType;
+    private final List<MultiField> multiFields;
+    private final boolean lowercase;
+
+    /**
+     * Initialize fields for member without multi-fields.
+     * 
+     * @param field
+     *            field name
+     * @param annotations
+     *            annotations list
+     */
+    public AnnotatedMember(String field, List<EdmAnnotation> annotations) {
+        this(field, annotations, null, Collections.emptyList(), false);
+    }
 
     /**
      * Gets query for equals and not equals operations.
@@ -43,7 +71,7 @@ public abstract class AnnotatedMember extends BaseMember {
      */
     protected QueryBuilder getEqQuery(ExpressionMember expressionMember)
             throws ODataApplicationException {
-        Object value = ((LiteralMember) expressionMember).getValue();
+        Object value = getLiteralValue(expressionMember);
         if (getField().equals(ID_FIELD_NAME)) {
             if (value == null) {
                 throw new ODataApplicationException("Id value can not be null",
@@ -51,13 +79,95 @@ public abstract class AnnotatedMember extends BaseMember {
             }
             return idsQuery().addIds(value.toString());
         } else {
-            String fieldName = addKeywordIfNeeded(getField(), getAnnotations());
+            String fieldName = getKeywordField();
             if (value == null) {
                 return boolQuery().mustNot(existsQuery(fieldName));
+            } else if (isDate()) {
+                return rangeQuery(fieldName).gte(value).lte(value).format(EPOCH_MILLIS_FORMAT);
+            } else if (lowercase && !isLowercase(value.toString())) {
+                return new MatchNoneQueryBuilder();
             } else {
                 return termQuery(fieldName, value);
             }
         }
     }
 
+    /**
+     * Gets literal value bound to the type of this member.
+     * 
+     * @param expressionMember
+     *            literal member
+     * @return typed value
+     * @throws ODataApplicationException
+     *             if literal can't be converted to the type of this member
+     */
+    protected Object getLiteralValue(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return ((LiteralMember) expressionMember).getValue(edmType);
+    }
+
+    /**
+     * Checks whether member is date, so bound values are in epoch millis.
+     * 
+     * @return true if member has date type, false otherwise
+     */
+    protected boolean isDate() {
+        return edmType != null && (edmType.getFullQualifiedName()
+                .equals(EdmPrimitiveTypeKind.DateTimeOffset.getFullQualifiedName())
+                || edmType.getFullQualifiedName()
+                        .equals(EdmPrimitiveTypeKind.Date.getFullQualifiedName()));
+    }
+
+    /**
+     * Gets name of the field, that contains whole not analyzed value. For
+     * lowercased member it's keyword multi-field with lowercase normalizer.
+     * 
+     * @return keyword field name
+     * @throws ODataApplicationException
+     *             if member is lowercased and field doesn't have lowercase
+     *             keyword multi-field
+     */
+    protected String getKeywordField() throws ODataApplicationException {
+        if (lowercase) {
+            MultiField multiField = findMultiField(multiFields, Kind.KEYWORD, true, null)
+                    .orElse(null);
+            return multiField != null ? addSuffix(field, multiField.getName())
+                    : throwNotImplemented(String.format(
+                            "Field %s doesn't have lowercase keyword multi-field", field));
+        }
+        return addKeywordIfNeeded(field, annotations, multiFields);
+    }
+
+    /**
+     * Gets name of the field, that contains whole not analyzed value in doc
+     * values, so it can be read by scripts. Text multi-fields with keyword
+     * analyzer have no doc values.
+     * 
+     * @return keyword field name with doc values
+     * @throws ODataApplicationException
+     *             if member is lowercased and field doesn't have lowercase
+     *             keyword multi-field with doc values
+     */
+    protected String getDocValuesField() throws ODataApplicationException {
+        if (lowercase) {
+            MultiField multiField = findDocValuesField(multiFields, true).orElse(null);
+            return multiField != null ? addSuffix(field, multiField.getName())
+                    : throwNotImplemented(String.format(
+                            "Field %s doesn't have lowercase keyword multi-field", field));
+        }
+        return addDocValuesKeywordIfNeeded(field, annotations, multiFields);
+    }
+
+    /**
+     * Checks whether value doesn't have upper case characters, so it can be
+     * found in lowercased field.
+     * 
+     * @param value
+     *            value to check
+     * @return true if value is lowercased, false otherwise
+     */
+    protected static boolean isLowercase(String value) {
+        return value.toLowerCase(Locale.ROOT).equals(value);
+    }
+
 }
@@ -1,15 +1,23 @@
 package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
 import static com.hevelian.olastic.core.elastic.ElasticConstants.WILDCARD_CHAR;
-import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addKeywordIfNeeded;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addSuffix;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.findMultiField;
 import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
 import static org.elasticsearch.index.query.QueryBuilders.prefixQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
 import static org.elasticsearch.index.query.QueryBuilders.wildcardQuery;
 
+import java.util.Optional;
+
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.DatePart;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
 
 /**
  * Base common class for any expression member.
@@ -97,45 +105,138 @@ public abstract class BaseMember implements ExpressionMember {
         return throwNotImplemented();
     }
 
+    @Override
+    public ExpressionMember toLower() throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember datePart(DatePart part) throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember add(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember sub(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember mul(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember div(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember mod(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember length() throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember indexOf(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
+    @Override
+    public ExpressionMember substring(ExpressionMember start, ExpressionMember length)
+            throws ODataApplicationException {
+        return throwNotImplemented();
+    }
+
     /**
-     * Builds contains query based on {@link AnnotatedMember} and value.
+     * Builds contains query based on {@link AnnotatedMember} and value. If
+     * field has n-gram multi-field which indexes grams of value length, term
+     * query on it is used, otherwise wildcard query is built.
      * 
      * @param member
      *            annotated member with field and annotations
      * @param value
      *            contains value
      * @return query builder instance
+     * @throws ODataApplicationException
+     *             if lowercased member can't be searched
      */
-    protected QueryBuilder buildContainsQuery(AnnotatedMember member, Object value) {
-        return wildcardQuery(addKeywordIfNeeded(member.getField(), member.getAnnotations()),
-                WILDCARD_CHAR + value + WILDCARD_CHAR);
+    protected QueryBuilder buildContainsQuery(AnnotatedMember member, Object value)
+            throws ODataApplicationException {
+        String text = String.valueOf(value);
+        if (member.isLowercase() && !AnnotatedMember.isLowercase(text)) {
+            return new MatchNoneQueryBuilder();
+        }
+        Optional<MultiField> ngram = findMultiField(member.getMultiFields(), Kind.NGRAM,
+                member.isLowercase(), text);
+        return ngram.isPresent()
+                ? termQuery(addSuffix(member.getField(), ngram.get().getName()), text)
+                : wildcardQuery(member.getKeywordField(), WILDCARD_CHAR + text + WILDCARD_CHAR);
     }
 
     /**
-     * Builds starts with query based on {@link AnnotatedMember} and value.
+     * Builds starts with query based on {@link AnnotatedMember} and value. If
+     * field has edge n-gram multi-field which indexes prefixes of value
+     * length, term query on it is used, otherwise prefix query is built.
      * 
      * @param member
      *            annotated member with field and annotations
      * @param value
      *            starts with value
      * @return query builder instance
+     * @throws ODataApplicationException
+     *             if lowercased member can't be searched
      */
-    protected QueryBuilder buildStartsWithQuery(AnnotatedMember member, String value) {
-        return prefixQuery(addKeywordIfNeeded(member.getField(), member.getAnnotations()), value);
+    protected QueryBuilder buildStartsWithQuery(AnnotatedMember member, String value)
+            throws ODataApplicationException {
+        if (member.isLowercase() && !AnnotatedMember.isLowercase(value)) {
+            return new MatchNoneQueryBuilder();
+        }
+        Optional<MultiField> edgeNgram = findMultiField(member.getMultiFields(),
+                Kind.EDGE_NGRAM, member.isLowercase(), value);
+        return edgeNgram.isPresent()
+                ? termQuery(addSuffix(member.getField(), edgeNgram.get().getName()), value)
+                : prefixQuery(member.getKeywordField(), value);
     }
 
     /**
-     * Builds ends with query based on {@link AnnotatedMember} and value.
+     * Builds ends with query based on {@link AnnotatedMember} and value. If
+     * field has multi-field with reversed value, prefix query on it is used,
+     * otherwise wildcard query is built.
      * 
      * @param member
      *            annotated member with field and annotations
      * @param value
      *            ends with value
      * @return query builder instance
+     * @throws ODataApplicationException
+     *             if lowercased member can't be searched
      */
-    protected QueryBuilder buildEndsWithQuery(AnnotatedMember member, String value) {
-        return wildcardQuery(addKeywordIfNeeded(member.getField(), member.getAnnotations()),
-                WILDCARD_CHAR + value);
+    protected QueryBuilder buildEndsWithQuery(AnnotatedMember member, String value)
+            throws ODataApplicationException {
+        if (member.isLowercase() && !AnnotatedMember.isLowercase(value)) {
+            return new MatchNoneQueryBuilder();
+        }
+        Optional<MultiField> reverse = findMultiField(member.getMultiFields(), Kind.REVERSE,
+                member.isLowercase(), null);
+        return reverse.isPresent()
+                ? prefixQuery(addSuffix(member.getField(), reverse.get().getName()),
+                        new StringBuilder(value).reverse().toString())
+                : wildcardQuery(member.getKeywordField(), WILDCARD_CHAR + value);
     }
 
 }
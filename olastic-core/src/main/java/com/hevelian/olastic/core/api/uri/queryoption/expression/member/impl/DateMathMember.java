@@ -0,0 +1,186 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
+
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+
+/**
+ * Date literal represented by Elasticsearch date math expression, e.g.
+ * now-1d/m. Expressions relative to current time are rounded, so the same
+ * filter sent at different moments produces the same query, which can be
+ * cached by Elasticsearch.
+ *
+ * @author rdidyk
+ */
+public class DateMathMember extends LiteralMember {
+
+    /** Anchor of expressions relative to current time. */
+    public static final String NOW = "now";
+    /** Minimum date time in epoch millis: 0001-01-01T00:00:00Z. */
+    public static final long MIN_DATE_TIME = -62135596800000L;
+    /** Maximum date time in epoch millis: 9999-12-31T23:59:59.999Z. */
+    public static final long MAX_DATE_TIME = 253402300799999L;
+
+    private static final String ANCHOR_SEPARATOR = "||";
+    private static final String ROUNDING_SEPARATOR = "/";
+    private static final String DAY_ROUNDING = "d";
+    private static final String DURATION_PREFIX = "duration'";
+    private static final int MAX_DURATION_PRECISION = 12;
+    private static final EdmPrimitiveType DATE_TIME_OFFSET = EdmPrimitiveTypeFactory
+            .getInstance(EdmPrimitiveTypeKind.DateTimeOffset);
+    private static final EdmPrimitiveType DURATION = EdmPrimitiveTypeFactory
+            .getInstance(EdmPrimitiveTypeKind.Duration);
+    private static final long[] UNIT_SECONDS = { 86400, 3600, 60, 1 };
+    private static final String[] UNITS = { "d", "h", "m", "s" };
+
+    private final String anchor;
+    private final String math;
+    private final String rounding;
+
+    /**
+     * Initialize fields.
+     *
+     * @param anchor
+     *            date the math is applied to, now or epoch millis
+     * @param math
+     *            added and subtracted time units, e.g. -1d+2h
+     * @param rounding
+     *            time unit to round result to, if null, result isn't rounded
+     */
+    public DateMathMember(String anchor, String math, String rounding) {
+        super(toExpression(anchor, math, rounding), DATE_TIME_OFFSET);
+        this.anchor = anchor;
+        this.math = math;
+        this.rounding = rounding;
+    }
+
+    /**
+     * Creates member for current time.
+     *
+     * @param rounding
+     *            time unit to round current time to, if null, it isn't rounded
+     * @return date math member
+     */
+    public static DateMathMember now(String rounding) {
+        return new DateMathMember(NOW, "", rounding);
+    }
+
+    /**
+     * Creates member for minimum date time.
+     *
+     * @return date math member
+     */
+    public static DateMathMember minDateTime() {
+        return new DateMathMember(Long.toString(MIN_DATE_TIME), "", null);
+    }
+
+    /**
+     * Creates member for maximum date time.
+     *
+     * @return date math member
+     */
+    public static DateMathMember maxDateTime() {
+        return new DateMathMember(Long.toString(MAX_DATE_TIME), "", null);
+    }
+
+    /**
+     * Date math expression is passed to Elasticsearch as is, it's resolved on
+     * the shards.
+     */
+    @Override
+    public Object getValue(EdmType propertyType) {
+        return getValue();
+    }
+
+    @Override
+    public DateMathMember add(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return new DateMathMember(anchor, math + toMath(expressionMember, false), rounding);
+    }
+
+    @Override
+    public DateMathMember sub(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return new DateMathMember(anchor, math + toMath(expressionMember, true), rounding);
+    }
+
+    @Override
+    public DateMathMember date() {
+        return new DateMathMember(anchor, math, DAY_ROUNDING);
+    }
+
+    private static String toExpression(String anchor, String math, String rounding) {
+        StringBuilder expression = new StringBuilder(anchor);
+        boolean hasMath = !math.isEmpty() || rounding != null;
+        if (hasMath && !NOW.equals(anchor)) {
+            expression.append(ANCHOR_SEPARATOR);
+        }
+        expression.append(math);
+        if (rounding != null) {
+            expression.append(ROUNDING_SEPARATOR).append(rounding);
+        }
+        return expression.toString();
+    }
+
+    /**
+     * Converts duration literal to date math time units.
+     *
+     * @param expressionMember
+     *            duration literal
+     * @param negate
+     *            whether duration is subtracted
+     * @return date math, e.g. +1d+2h
+     * @throws ODataApplicationException
+     *             if member isn't duration literal or duration has fractional
+     *             seconds
+     */
+    private static String toMath(ExpressionMember expressionMember, boolean negate)
+            throws ODataApplicationException {
+        if (!(expressionMember instanceof LiteralMember)
+                || expressionMember instanceof DateMathMember) {
+            return throwNotImplemented("Only durations can be added to dates.");
+        }
+        BigDecimal seconds = parseDuration(((LiteralMember) expressionMember).getValue());
+        if (seconds.stripTrailingZeros().scale() > 0) {
+            return throwNotImplemented("Fractional seconds are not supported in date math.");
+        }
+        long total = seconds.longValueExact();
+        String sign = (total < 0) != negate ? "-" : "+";
+        total = Math.abs(total);
+        StringBuilder math = new StringBuilder();
+        for (int i = 0; i < UNITS.length; i++) {
+            long amount = total / UNIT_SECONDS[i];
+            if (amount > 0) {
+                math.append(sign).append(amount).append(UNITS[i]);
+            }
+            total %= UNIT_SECONDS[i];
+        }
+        return math.toString();
+    }
+
+    private static BigDecimal parseDuration(Object value) throws ODataApplicationException {
+        String duration = String.valueOf(value);
+        if (duration.startsWith(DURATION_PREFIX)) {
+            duration = duration.substring(DURATION_PREFIX.length(), duration.length() - 1);
+        }
+        try {
+            return DURATION.valueOfString(duration, null, null, MAX_DURATION_PRECISION, null,
+                    null, BigDecimal.class);
+        } catch (EdmPrimitiveTypeException e) {
+            throw new ODataApplicationException(
+                    String.format("Value %s is not valid duration literal.", duration),
+                    HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
+
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.DatePart;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+import com.hevelian.olastic.core.elastic.scripts.StoredScript;
+
+import lombok.Getter;
+
+/**
+ * Represents part of the date property, e.g. year(birthDate). Comparisons are
+ * compiled by {@link DatePartsResult}, so comparisons of the year, alone or
+ * together with the month and the day, are rewritten to range queries on the
+ * date field, which use index directly. Other parts can't be expressed by a
+ * single range, so they are compared by {@link StoredScript#DATE_PART} script.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class DatePartMember extends BaseMember {
+
+    private static final EdmPrimitiveType INT32 = EdmPrimitiveTypeFactory
+            .getInstance(EdmPrimitiveTypeKind.Int32);
+
+    private final AnnotatedMember member;
+    private final DatePart part;
+
+    /**
+     * Initialize fields.
+     *
+     * @param member
+     *            date property member
+     * @param part
+     *            part of the date
+     */
+    public DatePartMember(AnnotatedMember member, DatePart part) {
+        this.member = member;
+        this.part = part;
+    }
+
+    @Override
+    public ExpressionResult eq(ExpressionMember expressionMember) throws ODataApplicationException {
+        return getResult(DatePartsResult.EQ, expressionMember);
+    }
+
+    @Override
+    public ExpressionResult ne(ExpressionMember expressionMember) throws ODataApplicationException {
+        return new ExpressionResult(boolQuery()
+                .mustNot(getResult(DatePartsResult.EQ, expressionMember).getQueryBuilder()));
+    }
+
+    @Override
+    public ExpressionResult ge(ExpressionMember expressionMember) throws ODataApplicationException {
+        return getResult(DatePartsResult.GE, expressionMember);
+    }
+
+    @Override
+    public ExpressionResult gt(ExpressionMember expressionMember) throws ODataApplicationException {
+        return getResult(DatePartsResult.GT, expressionMember);
+    }
+
+    @Override
+    public ExpressionResult le(ExpressionMember expressionMember) throws ODataApplicationException {
+        return getResult(DatePartsResult.LE, expressionMember);
+    }
+
+    @Override
+    public ExpressionResult lt(ExpressionMember expressionMember) throws ODataApplicationException {
+        return getResult(DatePartsResult.LT, expressionMember);
+    }
+
+    private DatePartsResult getResult(String operator, ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return new DatePartsResult(new DatePartsResult.Comparison(member.getField(), part,
+                operator, getPartValue(expressionMember)));
+    }
+
+    private int getPartValue(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        if (!(expressionMember instanceof LiteralMember)) {
+            return throwNotImplemented(
+                    String.format("Only literals can be compared with %s.", part.getName()));
+        }
+        Object value = ((LiteralMember) expressionMember).getValue(INT32);
+        if (!(value instanceof Integer)) {
+            throw new ODataApplicationException(
+                    String.format("Value of %s has to be integer.", part.getName()),
+                    HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+        return (Integer) value;
+    }
+}
@@ -0,0 +1,289 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
+
+import static com.hevelian.olastic.core.elastic.ElasticConstants.EPOCH_MILLIS_FORMAT;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.scriptQuery;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.DatePart;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+import com.hevelian.olastic.core.elastic.scripts.StoredScript;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of conjunction, which contains comparisons of date parts. All
+ * comparisons of one date field are compiled together: comparisons of the
+ * year, of the month when the year is fixed by equality, and of the day when
+ * the month is fixed too, are intersected to a single range query, e.g.
+ * {@code year(d) eq 2017 and month(d) ge 6} matches dates from 2017-06-01 till
+ * 2018-01-01. Only the rest of comparisons is checked by
+ * {@link StoredScript#DATE_PART} script.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class DatePartsResult extends ExpressionResult {
+
+    /** Equals operator. */
+    static final String EQ = "eq";
+    /** Greater than operator. */
+    static final String GT = "gt";
+    /** Greater than or equals operator. */
+    static final String GE = "ge";
+    /** Less than operator. */
+    static final String LT = "lt";
+    /** Less than or equals operator. */
+    static final String LE = "le";
+    /** Years, which periods are compared by range. */
+    private static final int MIN_YEAR = -9999;
+    private static final int MAX_YEAR = 9999;
+    private static final int MONTHS = 12;
+
+    private final List<QueryBuilder> queries;
+    private final List<Comparison> comparisons;
+
+    /**
+     * Initialize result with single comparison.
+     *
+     * @param comparison
+     *            comparison of date part
+     */
+    public DatePartsResult(Comparison comparison) {
+        this(Collections.emptyList(), Collections.singletonList(comparison));
+    }
+
+    /**
+     * Initialize result with queries and comparisons of date parts, that
+     * all have to match.
+     *
+     * @param queries
+     *            other queries of conjunction
+     * @param comparisons
+     *            comparisons of date parts
+     */
+    public DatePartsResult(List<QueryBuilder> queries, List<Comparison> comparisons) {
+        super(getQuery(queries, comparisons));
+        this.queries = queries;
+        this.comparisons = comparisons;
+    }
+
+    @Override
+    public ExpressionResult and(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        List<QueryBuilder> allQueries = new ArrayList<>(queries);
+        List<Comparison> allComparisons = new ArrayList<>(comparisons);
+        if (expressionMember instanceof DatePartsResult) {
+            DatePartsResult other = (DatePartsResult) expressionMember;
+            allQueries.addAll(other.getQueries());
+            allComparisons.addAll(other.getComparisons());
+        } else {
+            allQueries.add(((ExpressionResult) expressionMember).getQueryBuilder());
+        }
+        return new DatePartsResult(allQueries, allComparisons);
+    }
+
+    /**
+     * Gets query, which matches all queries and comparisons.
+     *
+     * @param queries
+     *            queries
+     * @param comparisons
+     *            comparisons of date parts
+     * @return single query, or bool query if there are several of them
+     */
+    private static QueryBuilder getQuery(List<QueryBuilder> queries,
+            List<Comparison> comparisons) {
+        List<QueryBuilder> clauses = new ArrayList<>(queries);
+        Map<String, List<Comparison>> fields = new LinkedHashMap<>();
+        for (Comparison comparison : comparisons) {
+            fields.computeIfAbsent(comparison.getField(), k -> new ArrayList<>())
+                    .add(comparison);
+        }
+        for (List<Comparison> fieldComparisons : fields.values()) {
+            clauses.addAll(getFieldQueries(fieldComparisons));
+        }
+        if (clauses.size() == 1) {
+            return clauses.get(0);
+        }
+        BoolQueryBuilder query = boolQuery();
+        clauses.forEach(query::must);
+        return query;
+    }
+
+    /**
+     * Gets queries for comparisons of one field: range query for all
+     * comparisons, that can be expressed by range, and scripts for others.
+     *
+     * @param comparisons
+     *            comparisons of the field
+     * @return queries
+     */
+    private static List<QueryBuilder> getFieldQueries(List<Comparison> comparisons) {
+        Integer year = getFixedValue(comparisons, DatePart.YEAR, MIN_YEAR, MAX_YEAR);
+        Integer month = year != null ? getFixedValue(comparisons, DatePart.MONTH, 1, MONTHS) : null;
+        List<QueryBuilder> queries = new ArrayList<>();
+        RangeQueryBuilder range = null;
+        for (Comparison comparison : comparisons) {
+            LocalDate start = getStart(comparison, year, month);
+            if (start == null) {
+                queries.add(getScriptQuery(comparison));
+            } else {
+                if (range == null) {
+                    range = rangeQuery(comparison.getField()).format(EPOCH_MILLIS_FORMAT);
+                    queries.add(0, range);
+                }
+                LocalDate end = start.plus(1, getUnit(comparison.getPart()));
+                restrict(range, comparison.getOperator(), toMillis(start), toMillis(end));
+            }
+        }
+        return queries;
+    }
+
+    /**
+     * Gets value, which date part is fixed to by equality comparison.
+     *
+     * @param comparisons
+     *            comparisons of the field
+     * @param part
+     *            date part
+     * @param min
+     *            minimal valid value
+     * @param max
+     *            maximal valid value
+     * @return value, or null if part isn't compared for equality with valid
+     *         value
+     */
+    private static Integer getFixedValue(List<Comparison> comparisons, DatePart part, int min,
+            int max) {
+        for (Comparison comparison : comparisons) {
+            boolean isValid = comparison.getValue() >= min && comparison.getValue() <= max;
+            if (comparison.getPart() == part && EQ.equals(comparison.getOperator()) && isValid) {
+                return comparison.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets first day of the period, that compared date part denotes.
+     *
+     * @param comparison
+     *            comparison of date part
+     * @param year
+     *            fixed year, or null
+     * @param month
+     *            fixed month, or null
+     * @return first day of the period, or null if comparison can't be
+     *         expressed by range
+     */
+    private static LocalDate getStart(Comparison comparison, Integer year, Integer month) {
+        int value = comparison.getValue();
+        LocalDate start = null;
+        if (comparison.getPart() == DatePart.YEAR && value >= MIN_YEAR && value <= MAX_YEAR) {
+            start = LocalDate.of(value, 1, 1);
+        } else if (comparison.getPart() == DatePart.MONTH && year != null && value >= 1
+                && value <= MONTHS) {
+            start = LocalDate.of(year, value, 1);
+        } else if (comparison.getPart() == DatePart.DAY && month != null && value >= 1
+                && value <= LocalDate.of(year, month, 1).lengthOfMonth()) {
+            start = LocalDate.of(year, month, value);
+        }
+        return start;
+    }
+
+    private static ChronoUnit getUnit(DatePart part) {
+        if (part == DatePart.YEAR) {
+            return ChronoUnit.YEARS;
+        }
+        return part == DatePart.MONTH ? ChronoUnit.MONTHS : ChronoUnit.DAYS;
+    }
+
+    /**
+     * Restricts range to dates, which period is compared with the period
+     * from start till end.
+     *
+     * @param range
+     *            range query
+     * @param operator
+     *            comparison operator
+     * @param start
+     *            start of the period, inclusive
+     * @param end
+     *            end of the period, exclusive
+     */
+    private static void restrict(RangeQueryBuilder range, String operator, long start,
+            long end) {
+        switch (operator) {
+        case GT:
+            restrictLower(range, end);
+            break;
+        case GE:
+            restrictLower(range, start);
+            break;
+        case LT:
+            restrictUpper(range, start);
+            break;
+        case LE:
+            restrictUpper(range, end);
+            break;
+        default:
+            restrictLower(range, start);
+            restrictUpper(range, end);
+            break;
+        }
+    }
+
+    private static void restrictLower(RangeQueryBuilder range, long value) {
+        if (range.from() == null || (Long) range.from() < value) {
+            range.gte(value);
+        }
+    }
+
+    private static void restrictUpper(RangeQueryBuilder range, long value) {
+        if (range.to() == null || (Long) range.to() > value) {
+            range.lt(value);
+        }
+    }
+
+    private static long toMillis(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private static QueryBuilder getScriptQuery(Comparison comparison) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("field", comparison.getField());
+        params.put("part", comparison.getPart().getName());
+        params.put("op", comparison.getOperator());
+        params.put("value", comparison.getValue());
+        return scriptQuery(StoredScript.DATE_PART.toScript(params));
+    }
+
+    /**
+     * Comparison of date part of the field with the value.
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class Comparison {
+        private final String field;
+        private final DatePart part;
+        private final String operator;
+        private final int value;
+    }
+}
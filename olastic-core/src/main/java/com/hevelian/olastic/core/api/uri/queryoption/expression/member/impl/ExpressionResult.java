@@ -1,37 +1,89 @@
 package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.nestedQuery;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.search.join.ScoreMode;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.elasticsearch.index.query.QueryBuilder;
 
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
- * Represents the result of expression.
- * 
+ * Represents the result of expression. If result is nested query, its path and
+ * inner query are kept, so nested queries on the same path can be merged.
+ *
  * @author Taras Kohut
  */
-@AllArgsConstructor
 @Getter
 public class ExpressionResult extends BaseMember {
 
     private final QueryBuilder queryBuilder;
+    private final String nestedPath;
+    private final QueryBuilder nestedQuery;
+
+    /**
+     * Initialize result with query.
+     *
+     * @param queryBuilder
+     *            result query
+     */
+    public ExpressionResult(QueryBuilder queryBuilder) {
+        this.queryBuilder = queryBuilder;
+        this.nestedPath = null;
+        this.nestedQuery = null;
+    }
+
+    /**
+     * Initialize result with nested query.
+     *
+     * @param nestedPath
+     *            path of nested documents
+     * @param nestedQuery
+     *            query nested documents have to match
+     */
+    public ExpressionResult(String nestedPath, QueryBuilder nestedQuery) {
+        this.queryBuilder = nestedQuery(nestedPath, nestedQuery, ScoreMode.None);
+        this.nestedPath = nestedPath;
+        this.nestedQuery = nestedQuery;
+    }
 
     @Override
     public ExpressionResult and(ExpressionMember expressionMember)
             throws ODataApplicationException {
+        if (expressionMember instanceof DatePartsResult) {
+            // keeps comparisons of date parts together with following ones
+            DatePartsResult other = (DatePartsResult) expressionMember;
+            List<QueryBuilder> queries = new ArrayList<>();
+            queries.add(queryBuilder);
+            queries.addAll(other.getQueries());
+            return new DatePartsResult(queries, other.getComparisons());
+        }
+        // any(a) and any(b) can be matched by different nested documents, so
+        // nested queries are never merged here
         return new ExpressionResult(boolQuery().must(queryBuilder)
                 .must(((ExpressionResult) expressionMember).getQueryBuilder()));
     }
 
+    /**
+     * Any nested document matches one of the queries if and only if any nested
+     * document matches their disjunction, so nested queries on the same path
+     * are merged to a single nested query.
+     */
     @Override
     public ExpressionResult or(ExpressionMember expressionMember) throws ODataApplicationException {
+        ExpressionResult other = (ExpressionResult) expressionMember;
+        if (nestedPath != null && nestedPath.equals(other.getNestedPath())) {
+            return new ExpressionResult(nestedPath,
+                    boolQuery().should(nestedQuery).should(other.getNestedQuery()));
+        }
         return new ExpressionResult(boolQuery().should(queryBuilder)
-                .should(((ExpressionResult) expressionMember).getQueryBuilder()));
+                .should(other.getQueryBuilder()));
     }
 
     @Override
@@ -0,0 +1,67 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
+
+import static org.elasticsearch.index.query.QueryBuilders.hasParentQuery;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.stream.Collectors;
+
+import org.elasticsearch.index.query.QueryBuilder;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.edm.ElasticEdmNavigationProperty;
+import com.hevelian.olastic.core.elastic.builders.ForeignKeyQueryBuilder;
+
+/**
+ * Wraps the data needed for building query by property of the type, which is
+ * reached through navigation chain with foreign key relations. Parent/child
+ * navigations of the chain are joined with has_parent query as in
+ * {@link ParentPrimitiveMember}.
+ *
+ * @author rdidyk
+ */
+public class ForeignKeyPrimitiveMember extends ParentPrimitiveMember {
+
+    private final List<ElasticEdmNavigationProperty> navigations;
+
+    /**
+     * Initialize fields.
+     *
+     * @param navigations
+     *            navigation properties from filtered type to the property
+     * @param primitiveMember
+     *            primitive member instance
+     */
+    public ForeignKeyPrimitiveMember(List<ElasticEdmNavigationProperty> navigations,
+            PrimitiveMember primitiveMember) {
+        super(navigations.stream().map(ForeignKeyPrimitiveMember::getTargetType)
+                .map(ElasticEdmEntityType::getESType).collect(Collectors.toList()),
+                primitiveMember);
+        this.navigations = navigations;
+    }
+
+    @Override
+    public ExpressionResult buildParentQuery(QueryBuilder query) {
+        ListIterator<ElasticEdmNavigationProperty> iterator = navigations
+                .listIterator(navigations.size());
+        QueryBuilder resultQuery = query;
+        while (iterator.hasPrevious()) {
+            ElasticEdmNavigationProperty navigation = iterator.previous();
+            ElasticEdmEntityType target = getTargetType(navigation);
+            resultQuery = navigation.isForeignKey()
+                    ? new ForeignKeyQueryBuilder(navigation.getESField(), target.getESIndex(),
+                            target.getESType(), resultQuery, navigation.getESTargetField())
+                    : hasParentQuery(target.getESType(), resultQuery, false);
+        }
+        return new ExpressionResult(resultQuery);
+    }
+
+    @Override
+    public ForeignKeyPrimitiveMember toLower() {
+        return new ForeignKeyPrimitiveMember(navigations, getPrimitiveMember().toLower());
+    }
+
+    private static ElasticEdmEntityType getTargetType(ElasticEdmNavigationProperty navigation) {
+        return (ElasticEdmEntityType) navigation.getType();
+    }
+}
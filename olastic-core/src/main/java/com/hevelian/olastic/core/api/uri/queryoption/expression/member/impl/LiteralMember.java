@@ -1,14 +1,27 @@
 package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
+
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmString;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.core.uri.parser.UriTokenizer;
 import org.apache.olingo.server.core.uri.parser.UriTokenizer.TokenKind;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Wraps olingo literal data. All methods in this class are used when literal is
@@ -20,8 +33,31 @@ import java.util.List;
 public class LiteralMember extends BaseMember {
 
     private static final String SINGLE_QUOTE = "'";
-    private String value;
-    private EdmType edmType;
+    /** Maximum precision of fractional seconds allowed in date literals. */
+    private static final int MAX_DATE_PRECISION = 12;
+    private static final Map<FullQualifiedName, Class<?>> JAVA_TYPES = new HashMap<>();
+
+    static {
+        for (EdmPrimitiveTypeKind kind : Arrays.asList(EdmPrimitiveTypeKind.Byte,
+                EdmPrimitiveTypeKind.SByte, EdmPrimitiveTypeKind.Int16,
+                EdmPrimitiveTypeKind.Int32)) {
+            JAVA_TYPES.put(kind.getFullQualifiedName(), Integer.class);
+        }
+        for (EdmPrimitiveTypeKind kind : Arrays.asList(EdmPrimitiveTypeKind.Single,
+                EdmPrimitiveTypeKind.Double, EdmPrimitiveTypeKind.Decimal)) {
+            JAVA_TYPES.put(kind.getFullQualifiedName(), Double.class);
+        }
+        JAVA_TYPES.put(EdmPrimitiveTypeKind.Int64.getFullQualifiedName(), Long.class);
+        JAVA_TYPES.put(EdmPrimitiveTypeKind.Boolean.getFullQualifiedName(), Boolean.class);
+        JAVA_TYPES.put(EdmPrimitiveTypeKind.Guid.getFullQualifiedName(), UUID.class);
+        JAVA_TYPES.put(EdmPrimitiveTypeKind.Date.getFullQualifiedName(), Calendar.class);
+        JAVA_TYPES.put(EdmPrimitiveTypeKind.DateTimeOffset.getFullQualifiedName(),
+                Calendar.class);
+    }
+
+    private final String value;
+    private final EdmType edmType;
+    private final Object parsedValue;
 
     /**
      * Initialize fields.
@@ -39,6 +75,72 @@ public class LiteralMember extends BaseMember {
         }
         this.edmType = edmType;
         this.value = value;
+        this.parsedValue = parseValue();
+    }
+
+    /**
+     * Gets value parsed from literal, string values are unquoted and
+     * unescaped, other values are returned as is.
+     *
+     * @return parsed value
+     */
+    public Object getValue() {
+        return parsedValue;
+    }
+
+    /**
+     * Gets value bound to the type of compared property. Numbers, booleans and
+     * GUIDs are converted to their Java types, dates are converted to epoch
+     * millis. If literal isn't compatible with property type, it's bound to
+     * its own type.
+     *
+     * @param propertyType
+     *            type of compared property, if null, parsed value is returned
+     * @return typed value
+     * @throws ODataApplicationException
+     *             if literal isn't valid value of the type
+     */
+    public Object getValue(EdmType propertyType) throws ODataApplicationException {
+        if (parsedValue == null || !(propertyType instanceof EdmPrimitiveType)
+                || !(edmType instanceof EdmPrimitiveType)) {
+            return parsedValue;
+        }
+        EdmPrimitiveType literalType = (EdmPrimitiveType) edmType;
+        EdmPrimitiveType type = ((EdmPrimitiveType) propertyType).isCompatible(literalType)
+                ? (EdmPrimitiveType) propertyType : literalType;
+        Class<?> javaType = JAVA_TYPES.get(type.getFullQualifiedName());
+        if (javaType == null) {
+            return parsedValue;
+        }
+        Object typedValue;
+        try {
+            // facets aren't restricted, value is validated by its type only
+            typedValue = type.valueOfString(value, null, null,
+                    javaType == Calendar.class ? MAX_DATE_PRECISION : null, Integer.MAX_VALUE,
+                    null, javaType);
+        } catch (EdmPrimitiveTypeException e) {
+            throw new ODataApplicationException(
+                    String.format("Value %s is not valid %s literal.", value,
+                            type.getFullQualifiedName().getFullQualifiedNameAsString()),
+                    HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+        }
+        if (typedValue instanceof Calendar) {
+            typedValue = ((Calendar) typedValue).getTimeInMillis();
+        } else if (typedValue instanceof UUID) {
+            typedValue = typedValue.toString();
+        }
+        return typedValue;
+    }
+
+    /**
+     * Gets value bound to its own literal type.
+     *
+     * @return typed value
+     * @throws ODataApplicationException
+     *             if literal isn't valid value of its type
+     */
+    public Object getTypedValue() throws ODataApplicationException {
+        return getValue(edmType);
     }
 
     /**
@@ -47,7 +149,7 @@ public class LiteralMember extends BaseMember {
      *
      * @return converted value
      */
-    public Object getValue() {
+    private Object parseValue() {
         UriTokenizer tokenizer = new UriTokenizer(value);
         if (tokenizer.next(UriTokenizer.TokenKind.StringValue) && edmType instanceof EdmString) {
             return value.substring(1, value.length() - 1).replaceAll("''", SINGLE_QUOTE);
@@ -94,4 +196,53 @@ public class LiteralMember extends BaseMember {
     public ExpressionMember lt(ExpressionMember expressionMember) throws ODataApplicationException {
         return expressionMember.gt(this);
     }
+
+    @Override
+    public ExpressionMember add(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return getOperand(expressionMember).add(this);
+    }
+
+    @Override
+    public ExpressionMember mul(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return getOperand(expressionMember).mul(this);
+    }
+
+    @Override
+    public ExpressionMember sub(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return ScriptMember.of(getOperand(expressionMember)).subFrom(this);
+    }
+
+    @Override
+    public ExpressionMember div(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return ScriptMember.of(getOperand(expressionMember)).divide(this);
+    }
+
+    @Override
+    public ExpressionMember mod(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return ScriptMember.of(getOperand(expressionMember)).modulo(this);
+    }
+
+    /**
+     * Gets other operand of arithmetic operation, constant expressions aren't
+     * evaluated.
+     * 
+     * @param expressionMember
+     *            right operand
+     * @return right operand
+     * @throws ODataApplicationException
+     *             if both operands are plain literals
+     */
+    private static ExpressionMember getOperand(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        boolean isPlainLiteral = expressionMember instanceof LiteralMember
+                && !(expressionMember instanceof DateMathMember);
+        return isPlainLiteral
+                ? throwNotImplemented("Arithmetic operations on literals are not supported.")
+                : expressionMember;
+    }
 }
@@ -1,8 +1,5 @@
 package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
-import static org.elasticsearch.index.query.QueryBuilders.nestedQuery;
-
-import org.apache.lucene.search.join.ScoreMode;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.elasticsearch.index.query.QueryBuilder;
 
@@ -21,7 +18,7 @@ public class NestedMember extends BaseMember {
 
     @Override
     public ExpressionResult any() throws ODataApplicationException {
-        return new ExpressionResult(nestedQuery(nestedPath, query, ScoreMode.None));
+        return new ExpressionResult(nestedPath, query);
     }
 
 }
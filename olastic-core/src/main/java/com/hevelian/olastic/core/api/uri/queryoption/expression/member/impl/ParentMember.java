@@ -8,6 +8,7 @@ import java.util.ListIterator;
 import org.elasticsearch.index.query.QueryBuilder;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 /**
  * Wraps the data for parent query building.
@@ -15,6 +16,7 @@ import lombok.AllArgsConstructor;
  * @author Ruslan Didyk
  */
 @AllArgsConstructor
+@Getter
 public abstract class ParentMember extends BaseMember {
 
     private final List<String> parentTypes;
@@ -65,19 +65,22 @@ public class ParentPrimitiveMember extends ParentMember {
     }
 
     @Override
-    public ExpressionResult contains(ExpressionMember right) {
+    public ExpressionResult contains(ExpressionMember right)
+            throws ODataApplicationException {
         ExpressionResult expressionResult = primitiveMember.contains(right);
         return buildParentQuery(expressionResult.getQueryBuilder());
     }
 
     @Override
-    public ExpressionResult startsWith(ExpressionMember right) {
+    public ExpressionResult startsWith(ExpressionMember right)
+            throws ODataApplicationException {
         ExpressionResult expressionResult = primitiveMember.startsWith(right);
         return buildParentQuery(expressionResult.getQueryBuilder());
     }
 
     @Override
-    public ExpressionResult endsWith(ExpressionMember right) {
+    public ExpressionResult endsWith(ExpressionMember right)
+            throws ODataApplicationException {
         ExpressionResult expressionResult = primitiveMember.endsWith(right);
         return buildParentQuery(expressionResult.getQueryBuilder());
     }
@@ -89,6 +92,11 @@ public class ParentPrimitiveMember extends ParentMember {
         return this;
     }
 
+    @Override
+    public ExpressionMember toLower() {
+        return new ParentPrimitiveMember(getParentTypes(), primitiveMember.toLower());
+    }
+
     public PrimitiveMember getPrimitiveMember() {
         return primitiveMember;
     }
@@ -1,14 +1,20 @@
 package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
+import static com.hevelian.olastic.core.elastic.ElasticConstants.EPOCH_MILLIS_FORMAT;
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
 
 import java.util.List;
 
 import org.apache.olingo.commons.api.edm.EdmAnnotation;
+import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.DatePart;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
 
 /**
  * Wraps raw olingo primitive.
@@ -29,6 +35,28 @@ public class PrimitiveMember extends AnnotatedMember {
         super(field, annotations);
     }
 
+    /**
+     * Initialize fields with type and multi-fields of the field.
+     * 
+     * @param field
+     *            field name
+     * @param annotations
+     *            annotations list
+     * @param edmType
+     *            property type, literals are bound to it
+     * @param multiFields
+     *            multi-fields from mapping
+     */
+    public PrimitiveMember(String field, List<EdmAnnotation> annotations, EdmType edmType,
+            List<MultiField> multiFields) {
+        super(field, annotations, edmType, multiFields, false);
+    }
+
+    private PrimitiveMember(String field, List<EdmAnnotation> annotations, EdmType edmType,
+            List<MultiField> multiFields, boolean lowercase) {
+        super(field, annotations, edmType, multiFields, lowercase);
+    }
+
     @Override
     public ExpressionResult eq(ExpressionMember expressionMember) throws ODataApplicationException {
         return new ExpressionResult(getEqQuery(expressionMember));
@@ -41,42 +69,41 @@ public class PrimitiveMember extends AnnotatedMember {
 
     @Override
     public ExpressionResult ge(ExpressionMember expressionMember) throws ODataApplicationException {
-        return new ExpressionResult(
-                rangeQuery(getField()).gte(((LiteralMember) expressionMember).getValue()));
+        return new ExpressionResult(getRangeQuery().gte(getLiteralValue(expressionMember)));
     }
 
     @Override
     public ExpressionResult gt(ExpressionMember expressionMember) throws ODataApplicationException {
-        return new ExpressionResult(
-                rangeQuery(getField()).gt(((LiteralMember) expressionMember).getValue()));
+        return new ExpressionResult(getRangeQuery().gt(getLiteralValue(expressionMember)));
     }
 
     @Override
     public ExpressionResult le(ExpressionMember expressionMember) throws ODataApplicationException {
-        return new ExpressionResult(
-                rangeQuery(getField()).lte(((LiteralMember) expressionMember).getValue()));
+        return new ExpressionResult(getRangeQuery().lte(getLiteralValue(expressionMember)));
     }
 
     @Override
     public ExpressionResult lt(ExpressionMember expressionMember) throws ODataApplicationException {
-        return new ExpressionResult(
-                rangeQuery(getField()).lt(((LiteralMember) expressionMember).getValue()));
+        return new ExpressionResult(getRangeQuery().lt(getLiteralValue(expressionMember)));
     }
 
     @Override
-    public ExpressionResult contains(ExpressionMember right) {
+    public ExpressionResult contains(ExpressionMember right)
+            throws ODataApplicationException {
         LiteralMember literal = (LiteralMember) right;
         return new ExpressionResult(buildContainsQuery(this, literal.getValue()));
     }
 
     @Override
-    public ExpressionResult startsWith(ExpressionMember right) {
+    public ExpressionResult startsWith(ExpressionMember right)
+            throws ODataApplicationException {
         LiteralMember literal = (LiteralMember) right;
         return new ExpressionResult(buildStartsWithQuery(this, (String) literal.getValue()));
     }
 
     @Override
-    public ExpressionResult endsWith(ExpressionMember right) {
+    public ExpressionResult endsWith(ExpressionMember right)
+            throws ODataApplicationException {
         LiteralMember literal = (LiteralMember) right;
         return new ExpressionResult(buildEndsWithQuery(this, (String) literal.getValue()));
     }
@@ -87,4 +114,76 @@ public class PrimitiveMember extends AnnotatedMember {
         // search by the timestamp, so no conversion is needed
         return this;
     }
+
+    @Override
+    public PrimitiveMember toLower() {
+        return new PrimitiveMember(getField(), getAnnotations(), getEdmType(), getMultiFields(),
+                true);
+    }
+
+    @Override
+    public DatePartMember datePart(DatePart part) throws ODataApplicationException {
+        if (!isDate()) {
+            throwNotImplemented(
+                    String.format("Function %s is supported only for dates.", part.getName()));
+        }
+        return new DatePartMember(this, part);
+    }
+
+    @Override
+    public ScriptMember add(ExpressionMember expressionMember) throws ODataApplicationException {
+        return toScript().add(expressionMember);
+    }
+
+    @Override
+    public ScriptMember sub(ExpressionMember expressionMember) throws ODataApplicationException {
+        return toScript().sub(expressionMember);
+    }
+
+    @Override
+    public ScriptMember mul(ExpressionMember expressionMember) throws ODataApplicationException {
+        return toScript().mul(expressionMember);
+    }
+
+    @Override
+    public ScriptMember div(ExpressionMember expressionMember) throws ODataApplicationException {
+        return toScript().div(expressionMember);
+    }
+
+    @Override
+    public ScriptMember mod(ExpressionMember expressionMember) throws ODataApplicationException {
+        return toScript().mod(expressionMember);
+    }
+
+    @Override
+    public ScriptMember length() throws ODataApplicationException {
+        return new ScriptMember(getDocValuesField()).length();
+    }
+
+    @Override
+    public ScriptMember indexOf(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        return new ScriptMember(getDocValuesField()).indexOf(expressionMember);
+    }
+
+    @Override
+    public ScriptMember substring(ExpressionMember start, ExpressionMember length)
+            throws ODataApplicationException {
+        return new ScriptMember(getDocValuesField()).substring(start, length);
+    }
+
+    /**
+     * Converts member to script member with raw numeric value of the field.
+     * 
+     * @return script member
+     */
+    public ScriptMember toScript() {
+        return new ScriptMember(getField());
+    }
+
+    private RangeQueryBuilder getRangeQuery() throws ODataApplicationException {
+        // lowercased value can be compared only in lowercased keyword field
+        RangeQueryBuilder query = rangeQuery(isLowercase() ? getKeywordField() : getField());
+        return isDate() ? query.format(EPOCH_MILLIS_FORMAT) : query;
+    }
 }
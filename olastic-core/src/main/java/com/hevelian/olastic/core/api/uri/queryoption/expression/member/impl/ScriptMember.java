@@ -0,0 +1,269 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
+
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.scriptQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
+import com.hevelian.olastic.core.elastic.scripts.StoredScript;
+
+import lombok.Getter;
+
+/**
+ * Represents field value transformed by arithmetic operations and string
+ * functions, e.g. price mul 2 or length(name). Comparison of such member is
+ * executed by {@link StoredScript#EXPRESSION} script. Operations and all
+ * literals are passed to the script as parameters, so the same compiled script
+ * is used for any expression.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class ScriptMember extends BaseMember {
+
+    private static final String ADD = "add";
+    private static final String SUB = "sub";
+    private static final String RSUB = "rsub";
+    private static final String MUL = "mul";
+    private static final String DIV = "div";
+    private static final String RDIV = "rdiv";
+    private static final String MOD = "mod";
+    private static final String RMOD = "rmod";
+    private static final String LENGTH = "length";
+    private static final String INDEXOF = "indexof";
+    private static final String SUBSTRING = "substring";
+    private static final int NO_LENGTH = -1;
+
+    private final String field;
+    private final List<String> operations;
+    private final List<Object> arguments;
+
+    /**
+     * Initialize member with raw field value.
+     *
+     * @param field
+     *            field with doc values
+     */
+    public ScriptMember(String field) {
+        this(field, Collections.emptyList(), Collections.emptyList());
+    }
+
+    private ScriptMember(String field, List<String> operations, List<Object> arguments) {
+        this.field = field;
+        this.operations = operations;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Converts member to script member, that can be used in arithmetic
+     * operations.
+     *
+     * @param expressionMember
+     *            primitive or script member
+     * @return script member
+     * @throws ODataApplicationException
+     *             if member can't be used in arithmetic operations
+     */
+    public static ScriptMember of(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        if (expressionMember instanceof ScriptMember) {
+            return (ScriptMember) expressionMember;
+        } else if (expressionMember instanceof PrimitiveMember) {
+            return ((PrimitiveMember) expressionMember).toScript();
+        }
+        return throwNotImplemented("Arithmetic operations are supported only for properties.");
+    }
+
+    @Override
+    public ScriptMember add(ExpressionMember expressionMember) throws ODataApplicationException {
+        return apply(ADD, getNumber(expressionMember));
+    }
+
+    @Override
+    public ScriptMember sub(ExpressionMember expressionMember) throws ODataApplicationException {
+        return apply(SUB, getNumber(expressionMember));
+    }
+
+    @Override
+    public ScriptMember mul(ExpressionMember expressionMember) throws ODataApplicationException {
+        return apply(MUL, getNumber(expressionMember));
+    }
+
+    @Override
+    public ScriptMember div(ExpressionMember expressionMember) throws ODataApplicationException {
+        return apply(DIV, getDivisor(expressionMember));
+    }
+
+    @Override
+    public ScriptMember mod(ExpressionMember expressionMember) throws ODataApplicationException {
+        return apply(MOD, getDivisor(expressionMember));
+    }
+
+    /**
+     * Subtracts current member from literal.
+     *
+     * @param literal
+     *            minuend
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             if literal isn't number
+     */
+    public ScriptMember subFrom(LiteralMember literal) throws ODataApplicationException {
+        return apply(RSUB, getNumber(literal));
+    }
+
+    /**
+     * Divides literal by current member.
+     *
+     * @param literal
+     *            dividend
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             if literal isn't number
+     */
+    public ScriptMember divide(LiteralMember literal) throws ODataApplicationException {
+        return apply(RDIV, getNumber(literal));
+    }
+
+    /**
+     * Gets remainder of division of literal by current member.
+     *
+     * @param literal
+     *            dividend
+     * @return result of the expression
+     * @throws ODataApplicationException
+     *             if literal isn't number
+     */
+    public ScriptMember modulo(LiteralMember literal) throws ODataApplicationException {
+        return apply(RMOD, getNumber(literal));
+    }
+
+    @Override
+    public ScriptMember length() {
+        return apply(LENGTH, null);
+    }
+
+    @Override
+    public ScriptMember indexOf(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        Object value = getLiteralValue(expressionMember);
+        if (!(value instanceof String)) {
+            throw badRequest("Argument of indexof has to be string.");
+        }
+        return apply(INDEXOF, value);
+    }
+
+    @Override
+    public ScriptMember substring(ExpressionMember start, ExpressionMember length)
+            throws ODataApplicationException {
+        int startIndex = getIndex(start);
+        int substringLength = length != null ? getIndex(length) : NO_LENGTH;
+        return apply(SUBSTRING, Arrays.asList(startIndex, substringLength));
+    }
+
+    @Override
+    public ExpressionResult eq(ExpressionMember expressionMember) throws ODataApplicationException {
+        return new ExpressionResult(getQuery("eq", expressionMember));
+    }
+
+    @Override
+    public ExpressionResult ne(ExpressionMember expressionMember) throws ODataApplicationException {
+        return new ExpressionResult(boolQuery().mustNot(getQuery("eq", expressionMember)));
+    }
+
+    @Override
+    public ExpressionResult ge(ExpressionMember expressionMember) throws ODataApplicationException {
+        return new ExpressionResult(getQuery("ge", expressionMember));
+    }
+
+    @Override
+    public ExpressionResult gt(ExpressionMember expressionMember) throws ODataApplicationException {
+        return new ExpressionResult(getQuery("gt", expressionMember));
+    }
+
+    @Override
+    public ExpressionResult le(ExpressionMember expressionMember) throws ODataApplicationException {
+        return new ExpressionResult(getQuery("le", expressionMember));
+    }
+
+    @Override
+    public ExpressionResult lt(ExpressionMember expressionMember) throws ODataApplicationException {
+        return new ExpressionResult(getQuery("lt", expressionMember));
+    }
+
+    private ScriptMember apply(String operation, Object argument) {
+        List<String> newOperations = new ArrayList<>(operations);
+        newOperations.add(operation);
+        List<Object> newArguments = new ArrayList<>(arguments);
+        newArguments.add(argument);
+        return new ScriptMember(field, newOperations, newArguments);
+    }
+
+    private QueryBuilder getQuery(String operator, ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        Object value = getLiteralValue(expressionMember);
+        if (!(value instanceof Number || value instanceof String)) {
+            throw badRequest("Result of expression can be compared only with number or string.");
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("field", field);
+        params.put("ops", operations);
+        params.put("args", arguments);
+        params.put("op", operator);
+        params.put("value", value);
+        return scriptQuery(StoredScript.EXPRESSION.toScript(params));
+    }
+
+    private static Object getLiteralValue(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        if (!(expressionMember instanceof LiteralMember)
+                || expressionMember instanceof DateMathMember) {
+            return throwNotImplemented("Only literals are supported as function arguments.");
+        }
+        return ((LiteralMember) expressionMember).getTypedValue();
+    }
+
+    private static Number getNumber(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        Object value = getLiteralValue(expressionMember);
+        if (!(value instanceof Number)) {
+            throw badRequest("Arithmetic operations are supported only for numbers.");
+        }
+        return (Number) value;
+    }
+
+    private static Number getDivisor(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        Number divisor = getNumber(expressionMember);
+        if (divisor.doubleValue() == 0) {
+            throw badRequest("Division by zero.");
+        }
+        return divisor;
+    }
+
+    private static int getIndex(ExpressionMember expressionMember)
+            throws ODataApplicationException {
+        Object value = getLiteralValue(expressionMember);
+        if (!(value instanceof Integer) || (Integer) value < 0) {
+            throw badRequest("Arguments of substring have to be non-negative integers.");
+        }
+        return (Integer) value;
+    }
+
+    private static ODataApplicationException badRequest(String message) {
+        return new ODataApplicationException(message, HttpStatusCode.BAD_REQUEST.getStatusCode(),
+                Locale.ROOT);
+    }
+}
@@ -58,6 +58,62 @@ public class ElasticEdmEntitySet extends EdmEntitySetImpl {
         return csdlEntitySet.getESType();
     }
 
+    /**
+     * Get's date math time unit current time in filters is rounded to.
+     * 
+     * @return time unit, or null if current time isn't rounded
+     */
+    public String getDateRounding() {
+        return csdlEntitySet.getDateRounding();
+    }
+
+    /**
+     * Get's maximum number of joined documents, which ids are resolved before
+     * executing the request.
+     * 
+     * @return limit of resolved documents, zero if it's disabled
+     */
+    public int getJoinResolutionLimit() {
+        return csdlEntitySet.getJoinResolutionLimit();
+    }
+
+    /**
+     * Get's maximum number of entities returned in one page of collection.
+     * 
+     * @return maximum page size
+     */
+    public int getMaxPageSize() {
+        return csdlEntitySet.getMaxPageSize();
+    }
+
+    /**
+     * Get's $skip, from which entities are skipped with search_after.
+     * 
+     * @return deep skip threshold
+     */
+    public int getDeepSkipThreshold() {
+        return csdlEntitySet.getDeepSkipThreshold();
+    }
+
+    /**
+     * Get's whether counts of entity set are estimated by default.
+     * 
+     * @return true if counts are approximate
+     */
+    public boolean isApproximateCount() {
+        return csdlEntitySet.isApproximateCount();
+    }
+
+    /**
+     * Get's number of matched documents, after which sampled shard stops
+     * counting, when count is estimated.
+     * 
+     * @return count sample size
+     */
+    public int getCountSampleSize() {
+        return csdlEntitySet.getCountSampleSize();
+    }
+
     @Override
     public ElasticEdmEntityType getEntityType() {
         EdmEntityType entityType = provider.getEntityType(new FullQualifiedName(
@@ -29,6 +29,8 @@ public class ElasticEdmEntityType extends EdmEntityTypeImpl {
     private ElasticCsdlEntityType csdlEntityType;
     private Map<String, ElasticEdmProperty> propertiesCash;
     private Map<String, ElasticEdmNavigationProperty> navigationPropertiesCash;
+    private Map<String, ElasticEdmProperty> fieldPropertiesCash;
+    private volatile HitDecoder hitDecoder;
 
     /**
      * Constructor to initialize entity type.
@@ -71,13 +73,29 @@ public class ElasticEdmEntityType extends EdmEntityTypeImpl {
      * @return found property
      */
     public ElasticEdmProperty findPropertyByEField(String esFieldName) {
-        for (Entry<String, ElasticEdmProperty> entry : getESProperties().entrySet()) {
-            ElasticEdmProperty property = entry.getValue();
-            if (property.getEField().equals(esFieldName)) {
-                return property;
+        if (fieldPropertiesCash == null) {
+            Map<String, ElasticEdmProperty> localProperties = new HashMap<>();
+            for (ElasticEdmProperty property : getESProperties().values()) {
+                localProperties.putIfAbsent(property.getEField(), property);
             }
+            fieldPropertiesCash = Collections.unmodifiableMap(localProperties);
+        }
+        return fieldPropertiesCash.get(esFieldName);
+    }
+
+    /**
+     * Gets decoder of search hit fields to properties of this type. Decoder is
+     * compiled with the first call and shared by all hits of the type.
+     * 
+     * @return hit decoder
+     */
+    public HitDecoder getHitDecoder() {
+        HitDecoder decoder = hitDecoder;
+        if (decoder == null) {
+            decoder = new HitDecoder(this, new PropertyCreator());
+            hitDecoder = decoder;
         }
-        return null;
+        return decoder;
     }
 
     /**
@@ -51,4 +51,34 @@ public class ElasticEdmNavigationProperty extends EdmNavigationPropertyImpl {
         }
         return typeImpl;
     }
+
+    /**
+     * Gets field of the current type, which links to the target type.
+     * 
+     * @return field name, or null if navigation is parent/child relation
+     */
+    public String getESField() {
+        return navigationProperty.getESField();
+    }
+
+    /**
+     * Gets field of the target type, which values are equal to values of
+     * {@link #getESField()}.
+     * 
+     * @return target field name, or null if navigation is parent/child
+     *         relation
+     */
+    public String getESTargetField() {
+        return navigationProperty.getESTargetField();
+    }
+
+    /**
+     * Checks whether navigation is foreign key relation instead of parent/child
+     * relation.
+     * 
+     * @return true if navigation links documents by field values
+     */
+    public boolean isForeignKey() {
+        return navigationProperty.isForeignKey();
+    }
 }
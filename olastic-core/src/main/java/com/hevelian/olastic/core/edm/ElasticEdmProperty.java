@@ -1,9 +1,12 @@
 package com.hevelian.olastic.core.edm;
 
+import java.util.List;
+
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.core.edm.EdmPropertyImpl;
 
 import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlProperty;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
 
 /**
  * Custom implementation of {@link EdmPropertyImpl} to provide behavior from
@@ -36,4 +39,13 @@ public class ElasticEdmProperty extends EdmPropertyImpl {
     public String getEField() {
         return csdlProperty.getESField();
     }
+
+    /**
+     * Get's Elasticsearch multi-fields of the field.
+     * 
+     * @return multi-fields list
+     */
+    public List<MultiField> getMultiFields() {
+        return csdlProperty.getMultiFields();
+    }
 }
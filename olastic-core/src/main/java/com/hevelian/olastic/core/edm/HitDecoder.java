@@ -0,0 +1,239 @@
+package com.hevelian.olastic.core.edm;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentParser.Token;
+
+import lombok.Getter;
+
+/**
+ * Decoder of search hit fields to properties of entity type. It's compiled
+ * once for the type: every Elasticsearch field is mapped to name of its
+ * property and converter of its primitive values, so decoding of a field is
+ * a hash lookup and a conversion, without searching properties and checking
+ * their EDM types for every hit. Lists and objects are created by
+ * {@link PropertyCreator}, as they're converted with properties of their
+ * complex type. Source of the hit can be decoded straight from its bytes,
+ * without reading it to a map.
+ *
+ * @author rdidyk
+ */
+public class HitDecoder {
+
+    /** Types, which JSON values are serialized the same as they're stored. */
+    private static final Set<EdmPrimitiveTypeKind> VERBATIM_TYPES = EnumSet.of(
+            EdmPrimitiveTypeKind.String, EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.SByte,
+            EdmPrimitiveTypeKind.Int16, EdmPrimitiveTypeKind.Int32, EdmPrimitiveTypeKind.Int64);
+
+    private final ElasticEdmEntityType entityType;
+    private final PropertyCreator propertyCreator;
+    private final Map<String, FieldDecoder> fields = new HashMap<>();
+
+    /**
+     * Constructor to compile decoder of the entity type.
+     *
+     * @param entityType
+     *            entity type
+     * @param propertyCreator
+     *            creator of properties with lists and objects
+     */
+    public HitDecoder(ElasticEdmEntityType entityType, PropertyCreator propertyCreator) {
+        this.entityType = entityType;
+        this.propertyCreator = propertyCreator;
+        for (ElasticEdmProperty property : entityType.getESProperties().values()) {
+            fields.putIfAbsent(property.getEField(), new FieldDecoder(property,
+                    propertyCreator.getValueConverter(property.getType())));
+        }
+    }
+
+    /**
+     * Decodes value of Elasticsearch field to property. Field without
+     * property is decoded to primitive property with the same name.
+     *
+     * @param field
+     *            Elasticsearch field name
+     * @param value
+     *            field value
+     * @return property instance
+     */
+    public Property decode(String field, Object value) {
+        FieldDecoder decoder = fields.get(field);
+        return decoder != null ? decode(decoder, value)
+                : new Property(null, field, ValueType.PRIMITIVE, value);
+    }
+
+    private Property decode(FieldDecoder decoder, Object value) {
+        if (value instanceof List || value instanceof Map) {
+            return propertyCreator.createProperty(decoder.getName(), value, entityType);
+        }
+        return decoder.decode(value);
+    }
+
+    /**
+     * Decodes source of search hit to properties of the entity, reading it
+     * token by token. Primitive values are converted right from the parser,
+     * only objects and arrays are read to maps and lists first. Fields
+     * without property are skipped with all their content.
+     *
+     * @param source
+     *            source of the hit
+     * @param entity
+     *            entity to add properties to
+     * @throws IOException
+     *             if source can't be parsed
+     */
+    public void decodeSource(BytesReference source, Entity entity) throws IOException {
+        try (XContentParser parser = createParser(source)) {
+            if (parser.nextToken() != Token.START_OBJECT) {
+                return;
+            }
+            while (parser.nextToken() == Token.FIELD_NAME) {
+                FieldDecoder decoder = fields.get(parser.currentName());
+                parser.nextToken();
+                if (decoder == null) {
+                    parser.skipChildren();
+                } else {
+                    entity.addProperty(decode(decoder, readValue(parser)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates parser of the hit source in the content type it's stored in.
+     *
+     * @param source
+     *            source of the hit
+     * @return parser
+     * @throws IOException
+     *             if parser can't be created
+     */
+    public static XContentParser createParser(BytesReference source) throws IOException {
+        return XContentHelper.createParser(NamedXContentRegistry.EMPTY, source,
+                XContentFactory.xContentType(source));
+    }
+
+    /**
+     * Reads current value of the parser. Objects are read to maps and arrays
+     * to lists.
+     *
+     * @param parser
+     *            parser, positioned on the value
+     * @return value
+     * @throws IOException
+     *             if value can't be parsed
+     */
+    public static Object readValue(XContentParser parser) throws IOException {
+        Token token = parser.currentToken();
+        Object value;
+        if (token == Token.START_OBJECT) {
+            value = parser.map();
+        } else if (token == Token.START_ARRAY) {
+            value = parser.list();
+        } else {
+            value = parser.objectText();
+        }
+        return value;
+    }
+
+    /**
+     * Checks whether Elasticsearch field is a property of the entity type.
+     *
+     * @param field
+     *            Elasticsearch field name
+     * @return true if field has property
+     */
+    public boolean hasProperty(String field) {
+        return fields.containsKey(field);
+    }
+
+    /**
+     * Gets property slot of Elasticsearch field.
+     *
+     * @param field
+     *            Elasticsearch field name
+     * @return field decoder, or null if field has no property
+     */
+    public FieldDecoder getField(String field) {
+        return fields.get(field);
+    }
+
+    /**
+     * Property slot of the field: the property, converter of its primitive
+     * values and whether its values can be written to JSON as they're read.
+     */
+    @Getter
+    public static final class FieldDecoder {
+        private final ElasticEdmProperty property;
+        private final Function<Object, Object> converter;
+        private final EdmPrimitiveTypeKind kind;
+        private final boolean isVerbatim;
+
+        private FieldDecoder(ElasticEdmProperty property, Function<Object, Object> converter) {
+            this.property = property;
+            this.converter = converter;
+            this.kind = property.isPrimitive()
+                    ? EdmPrimitiveTypeKind.valueOfFQN(property.getType().getFullQualifiedName())
+                    : null;
+            // values with facets are validated by serializer
+            boolean hasFacets = property.getMaxLength() != null
+                    || Boolean.FALSE.equals(property.isUnicode());
+            this.isVerbatim = VERBATIM_TYPES.contains(kind) && !property.isCollection()
+                    && !hasFacets;
+        }
+
+        /**
+         * Gets property name.
+         *
+         * @return property name
+         */
+        public String getName() {
+            return property.getName();
+        }
+
+        /**
+         * Checks whether current value of the source is a primitive value of
+         * primitive property, not null, object or array, which are decoded
+         * as properties.
+         *
+         * @param token
+         *            token of the value
+         * @return true if value is primitive
+         */
+        public boolean isPrimitiveValue(Token token) {
+            boolean isScalar = token != Token.START_OBJECT && token != Token.START_ARRAY
+                    && token != Token.VALUE_NULL;
+            return isScalar && kind != null && !property.isCollection();
+        }
+
+        /**
+         * Converts primitive value of the field to value of the property.
+         *
+         * @param value
+         *            field value
+         * @return property value
+         */
+        public Object convert(Object value) {
+            return converter.apply(value);
+        }
+
+        private Property decode(Object value) {
+            return new Property(null, getName(), ValueType.PRIMITIVE, converter.apply(value));
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import javax.xml.bind.DatatypeConverter;
 
@@ -17,6 +18,7 @@ import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmElement;
 import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmBoolean;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmDate;
@@ -49,26 +51,38 @@ public class PropertyCreator {
             return createComplexProperty(name, (Map<String, Object>) value,
                     entityType.getProperty(name));
         } else if (property != null) {
-            Object modifiedValue = value;
-            if (property.getType() instanceof EdmDate
-                    || property.getType() instanceof EdmDateTimeOffset) {
-                modifiedValue = value != null ? convertDateValue(value) : null;
-            } else if (property.getType() instanceof EdmBoolean && value instanceof Long) {
-                // When Elasticsearch aggregates data it return's boolean as
-                // number value (1,0), but when it searches then normal boolean
-                // value will be retrieved
-                modifiedValue = (Long) value != 0;
-            } else if (property.getType() instanceof EdmSingle && value instanceof Double) {
-                // Because Elasticsearch returns 'float' values as 'double'
-                // Link: https://github.com/elastic/elasticsearch/issues/25792
-                modifiedValue = new Float((Double) value);
-            }
-            return createPrimitiveProperty(name, modifiedValue);
+            return createPrimitiveProperty(name,
+                    getValueConverter(property.getType()).apply(value));
         } else {
             return createPrimitiveProperty(name, value);
         }
     }
 
+    /**
+     * Selects converter of primitive values, retrieved from Elasticsearch, to
+     * values of the EDM type. Values of types, which need no conversion, are
+     * returned as is.
+     * 
+     * @param type
+     *            EDM type of the property
+     * @return value converter
+     */
+    public Function<Object, Object> getValueConverter(EdmType type) {
+        if (type instanceof EdmDate || type instanceof EdmDateTimeOffset) {
+            return value -> value != null ? convertDateValue(value) : null;
+        } else if (type instanceof EdmBoolean) {
+            // When Elasticsearch aggregates data it return's boolean as
+            // number value (1,0), but when it searches then normal boolean
+            // value will be retrieved
+            return value -> value instanceof Long ? (Long) value != 0 : value;
+        } else if (type instanceof EdmSingle) {
+            // Because Elasticsearch returns 'float' values as 'double'
+            // Link: https://github.com/elastic/elasticsearch/issues/25792
+            return value -> value instanceof Double ? new Float((Double) value) : value;
+        }
+        return Function.identity();
+    }
+
     /**
      * Converts date object to {@link Calendar} instance depending on it type.
      * 
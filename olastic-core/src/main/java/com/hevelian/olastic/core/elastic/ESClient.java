@@ -1,5 +1,12 @@
 package com.hevelian.olastic.core.elastic;
 
+import static com.hevelian.olastic.core.elastic.utils.SearchRequestUtils.addSort;
+import static com.hevelian.olastic.core.elastic.utils.SearchRequestUtils.setFetchSource;
+import static com.hevelian.olastic.core.elastic.utils.SearchRequestUtils.setPagination;
+import static com.hevelian.olastic.core.elastic.utils.SearchRequestUtils.setRouting;
+import static com.hevelian.olastic.core.elastic.utils.SearchRequestUtils.setTerminateAfter;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -9,22 +16,29 @@ import java.util.stream.Collectors;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.action.search.MultiSearchRequestBuilder;
 import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.transport.NoNodeAvailableException;
 import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
-import org.elasticsearch.search.sort.SortOrder;
 
-import com.hevelian.olastic.core.elastic.pagination.Pagination;
-import com.hevelian.olastic.core.elastic.pagination.Sort;
 import com.hevelian.olastic.core.elastic.queries.AggregateQuery;
+import com.hevelian.olastic.core.elastic.queries.GetQuery;
 import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.elastic.scripts.StoredScriptRegistry;
 import com.hevelian.olastic.core.exceptions.SearchException;
 
 import lombok.extern.log4j.Log4j2;
@@ -40,6 +54,7 @@ public final class ESClient {
     private static ESClient instance;
 
     private Client client;
+    private final StoredScriptRegistry scriptRegistry = new StoredScriptRegistry();
 
     private ESClient(Client client) {
         this.client = client;
@@ -90,6 +105,8 @@ public final class ESClient {
         query.getAggregations().forEach(requestBuilder::addAggregation);
         query.getPipelineAggregations().forEach(requestBuilder::addAggregation);
         requestBuilder.setSize(0);
+        setTerminateAfter(requestBuilder, query);
+        setRouting(requestBuilder, query);
         return executeRequest(requestBuilder);
     }
 
@@ -106,27 +123,70 @@ public final class ESClient {
             throws ODataApplicationException {
         MultiSearchRequestBuilder multiSearchRequestBuilder = client.prepareMultiSearch();
         for (SearchQuery query : queries) {
-            Pagination pagination = query.getPagination();
             SearchRequestBuilder requestBuilder = client.prepareSearch(query.getIndex())
                     .setTypes(query.getTypes()).setQuery(query.getQueryBuilder());
-            if (pagination != null) {
-                List<Sort> orderBy = pagination.getOrderBy();
-                for (Sort sort : orderBy) {
-                    FieldSortBuilder sortQuery = SortBuilders.fieldSort(sort.getProperty())
-                            .order(SortOrder.valueOf(sort.getDirection().toString()));
-                    requestBuilder.addSort(sortQuery);
-                }
-                requestBuilder.setSize(pagination.getTop()).setFrom(pagination.getSkip());
-            }
-            Set<String> fields = query.getFields();
-            if (fields != null && !fields.isEmpty()) {
-                requestBuilder.setFetchSource(fields.toArray(new String[fields.size()]), null);
-            }
+            setPagination(requestBuilder, query.getPagination());
+            setFetchSource(requestBuilder, query);
+            setTerminateAfter(requestBuilder, query);
+            setRouting(requestBuilder, query);
             multiSearchRequestBuilder.add(requestBuilder);
         }
         return executeRequest(multiSearchRequestBuilder);
     }
 
+    /**
+     * Gets documents of the query with realtime get, so no search phase is
+     * executed. Single document is retrieved with get request, and chain of
+     * documents with multi get request. Only source of the last document is
+     * retrieved.
+     * 
+     * @param query
+     *            get query
+     * @return get responses of the documents in query order
+     * @throws ODataApplicationException
+     *             if any error appeared during executing request
+     */
+    public List<GetResponse> executeRequest(GetQuery query) throws ODataApplicationException {
+        String[] types = query.getTypes();
+        String[] ids = query.getIds();
+        String routing = query.getRouting().length > 0 ? query.getRouting()[0] : null;
+        Set<String> fields = query.getFields();
+        FetchSourceContext source = fields.isEmpty() ? FetchSourceContext.FETCH_SOURCE
+                : new FetchSourceContext(true, fields.toArray(new String[fields.size()]), null);
+        List<GetResponse> responses = new ArrayList<>();
+        try {
+            if (ids.length == 1) {
+                responses.add(client.prepareGet(query.getIndex(), types[0], ids[0])
+                        .setRouting(routing).setFetchSource(source.includes(), null).get());
+            } else {
+                MultiGetRequestBuilder request = client.prepareMultiGet();
+                for (int i = 0; i < ids.length; i++) {
+                    request.add(new MultiGetRequest.Item(query.getIndex(), types[i], ids[i])
+                            .routing(routing).fetchSourceContext(i == ids.length - 1 ? source
+                                    : FetchSourceContext.DO_NOT_FETCH_SOURCE));
+                }
+                for (MultiGetItemResponse item : request.get()) {
+                    if (item.isFailed()) {
+                        throw new SearchException(item.getFailure().getMessage());
+                    }
+                    responses.add(item.getResponse());
+                }
+            }
+        } catch (NoNodeAvailableException exception) {
+            log.error("Failed to get documents: ", exception);
+            throw new SearchException(exception.getDetailedMessage());
+        } catch (IndexNotFoundException exception) {
+            throw new ODataApplicationException(
+                    String.format("Index %s not found.", query.getIndex()),
+                    HttpStatusCode.NOT_FOUND.getStatusCode(), Locale.ROOT, exception,
+                    Integer.toString(HttpStatusCode.NOT_FOUND.getStatusCode()));
+        } finally {
+            log.debug(String.format("Getting documents %s of types %s from index %s",
+                    Arrays.toString(ids), Arrays.toString(types), query.getIndex()));
+        }
+        return responses;
+    }
+
     /**
      * Execute query request with filter and aggregations.
      * 
@@ -137,22 +197,12 @@ public final class ESClient {
      *             if any error appeared during executing request
      */
     public SearchResponse executeRequest(SearchQuery query) throws ODataApplicationException {
-        Pagination pagination = query.getPagination();
         SearchRequestBuilder requestBuilder = client.prepareSearch(query.getIndex())
                 .setTypes(query.getTypes()).setQuery(query.getQueryBuilder());
-        if (pagination != null) {
-            List<Sort> orderBy = pagination.getOrderBy();
-            for (Sort sort : orderBy) {
-                FieldSortBuilder sortQuery = SortBuilders.fieldSort(sort.getProperty())
-                        .order(SortOrder.valueOf(sort.getDirection().toString()));
-                requestBuilder.addSort(sortQuery);
-            }
-            requestBuilder.setSize(pagination.getTop()).setFrom(pagination.getSkip());
-        }
-        Set<String> fields = query.getFields();
-        if (fields != null && !fields.isEmpty()) {
-            requestBuilder.setFetchSource(fields.toArray(new String[fields.size()]), null);
-        }
+        setPagination(requestBuilder, query.getPagination());
+        setFetchSource(requestBuilder, query);
+        setTerminateAfter(requestBuilder, query);
+        setRouting(requestBuilder, query);
         return executeRequest(requestBuilder);
     }
 
@@ -165,8 +215,9 @@ public final class ESClient {
      * @throws ODataApplicationException
      *             if any error appeared during executing request
      */
-    protected SearchResponse executeRequest(SearchRequestBuilder request)
+    public SearchResponse executeRequest(SearchRequestBuilder request)
             throws ODataApplicationException {
+        scriptRegistry.registerReferenced(client, request.request().source());
         SearchResponse response = null;
         ElasticsearchException searchError = null;
         try {
@@ -203,6 +254,9 @@ public final class ESClient {
      */
     protected MultiSearchResponse executeRequest(MultiSearchRequestBuilder request)
             throws ODataApplicationException {
+        for (SearchRequest searchRequest : request.request().requests()) {
+            scriptRegistry.registerReferenced(client, searchRequest.source());
+        }
         MultiSearchResponse response = null;
         ElasticsearchException searchError = null;
         try {
@@ -227,6 +281,147 @@ public final class ESClient {
         return response;
     }
 
+    /**
+     * Counts documents matched by the query. No hits are retrieved, so the
+     * request is eligible for shard request cache, which is asked for
+     * explicitly.
+     * 
+     * @param query
+     *            search query, its pagination and fields are ignored
+     * @return ES search response with total hits only
+     * @throws ODataApplicationException
+     *             if any error appeared during executing request
+     */
+    public SearchResponse executeCount(SearchQuery query) throws ODataApplicationException {
+        SearchRequestBuilder requestBuilder = client.prepareSearch(query.getIndex())
+                .setTypes(query.getTypes()).setQuery(query.getQueryBuilder()).setSize(0)
+                .setFetchSource(false).setRequestCache(true);
+        setTerminateAfter(requestBuilder, query);
+        setRouting(requestBuilder, query);
+        return executeRequest(requestBuilder);
+    }
+
+    /**
+     * Skips hits of the query with search_after, in strides of the given size.
+     * Skipped hits are retrieved without _source, only their sort values are
+     * used, to continue search after them.
+     * 
+     * @param query
+     *            search query with pagination, which sort is unique
+     * @param skip
+     *            number of hits to skip
+     * @param stride
+     *            maximum number of hits skipped by one request
+     * @return sort values of the last skipped hit, or of the last hit if there
+     *         are less hits than skipped; null if there are no hits
+     * @throws ODataApplicationException
+     *             if any error appeared during executing request
+     */
+    public Object[] executeSkip(SearchQuery query, int skip, int stride)
+            throws ODataApplicationException {
+        Object[] searchAfter = query.getPagination().getSearchAfter();
+        int left = skip;
+        while (left > 0) {
+            int size = Math.min(left, stride);
+            SearchRequestBuilder requestBuilder = client.prepareSearch(query.getIndex())
+                    .setTypes(query.getTypes()).setQuery(query.getQueryBuilder())
+                    .setFetchSource(false).setSize(size);
+            addSort(requestBuilder, query.getPagination());
+            if (searchAfter != null) {
+                requestBuilder.searchAfter(searchAfter);
+            }
+            setTerminateAfter(requestBuilder, query);
+            setRouting(requestBuilder, query);
+            SearchHit[] hits = executeRequest(requestBuilder).getHits().getHits();
+            if (hits.length > 0) {
+                searchAfter = hits[hits.length - 1].getSortValues();
+            }
+            left = hits.length < size ? 0 : left - size;
+        }
+        return searchAfter;
+    }
+
+    /**
+     * Opens scroll of all documents matched by the query.
+     * 
+     * @param query
+     *            search query
+     * @param size
+     *            number of documents in one batch
+     * @return response with first batch and scroll id
+     * @throws ODataApplicationException
+     *             if any error appeared during executing request
+     */
+    public SearchResponse executeScroll(SearchQuery query, int size)
+            throws ODataApplicationException {
+        return executeScroll(query, size, 0, 1);
+    }
+
+    /**
+     * Opens one slice of the scroll of all documents matched by the query.
+     * Slices split documents into disjoint sets, which can be scrolled in
+     * parallel. Documents are sorted in index order, which is the cheapest way
+     * to scroll.
+     * 
+     * @param query
+     *            search query
+     * @param size
+     *            number of documents in one batch
+     * @param slice
+     *            id of the slice, from zero
+     * @param slices
+     *            number of slices, one if scroll isn't sliced
+     * @return response with first batch and scroll id of the slice
+     * @throws ODataApplicationException
+     *             if any error appeared during executing request
+     */
+    public SearchResponse executeScroll(SearchQuery query, int size, int slice, int slices)
+            throws ODataApplicationException {
+        SearchRequestBuilder requestBuilder = client.prepareSearch(query.getIndex())
+                .setTypes(query.getTypes()).setQuery(query.getQueryBuilder())
+                .setScroll(ElasticConstants.SCROLL_KEEP_ALIVE).setSize(size)
+                .addSort(SortBuilders.fieldSort(FieldSortBuilder.DOC_FIELD_NAME));
+        if (slices > 1) {
+            requestBuilder.slice(new SliceBuilder(slice, slices));
+        }
+        setFetchSource(requestBuilder, query);
+        setTerminateAfter(requestBuilder, query);
+        setRouting(requestBuilder, query);
+        return executeRequest(requestBuilder);
+    }
+
+    /**
+     * Retrieves next batch of the scroll.
+     * 
+     * @param scrollId
+     *            scroll id of previous batch
+     * @return response with next batch, empty if scroll is over
+     */
+    public SearchResponse continueScroll(String scrollId) {
+        try {
+            return client.prepareSearchScroll(scrollId)
+                    .setScroll(ElasticConstants.SCROLL_KEEP_ALIVE).execute().actionGet();
+        } catch (SearchPhaseExecutionException | NoNodeAvailableException exception) {
+            log.error("Failed to continue scroll: ", exception);
+            throw new SearchException(exception.getDetailedMessage());
+        }
+    }
+
+    /**
+     * Clears the scroll, to release its resources before keep alive expires.
+     * 
+     * @param scrollId
+     *            scroll id
+     */
+    public void clearScroll(String scrollId) {
+        try {
+            client.prepareClearScroll().addScrollId(scrollId).execute().actionGet();
+        } catch (ElasticsearchException | IllegalStateException exception) {
+            // interrupted request throws illegal state exception
+            log.warn("Failed to clear scroll: ", exception);
+        }
+    }
+
     public Client getClient() {
         return client;
     }
@@ -11,12 +11,16 @@ public final class ElasticConstants {
 
     /** Field data type property. */
     public static final String FIELD_DATATYPE_PROPERTY = "type";
+    /** Multi-fields property name. */
+    public static final String FIELDS_PROPERTY = "fields";
     /** Properties property name. */
     public static final String PROPERTIES_PROPERTY = "properties";
     /** Parent property name. */
     public static final String PARENT_PROPERTY = "_parent";
     /** ID field name. */
     public static final String ID_FIELD_NAME = "_id";
+    /** Unique field of type and id, used as sort tiebreaker. */
+    public static final String UID_FIELD_NAME = "_uid";
     /** Suffix for keyword (not-analyzed) field. */
     public static final String KEYWORD_SUFFIX = "keyword";
     /** Field suffix delimiter. */
@@ -30,6 +34,70 @@ public final class ElasticConstants {
      * of all of the other fields into one big string.
      */
     public static final String ALL_FIELD = "_all";
+    /** Date format of the values bound to date fields. */
+    public static final String EPOCH_MILLIS_FORMAT = "epoch_millis";
+    /** Response header with estimated cost of executed query. */
+    public static final String QUERY_COST_HEADER = "X-Query-Cost";
+    /** Default date math time unit current time in filters is rounded to. */
+    public static final String DEFAULT_DATE_ROUNDING = "m";
+    /**
+     * Default maximum number of inner documents, which ids are resolved
+     * instead of join query. Zero disables two-phase join resolution.
+     */
+    public static final int DEFAULT_JOIN_RESOLUTION_LIMIT = 0;
+    /** Default maximum number of documents matched by one foreign key join. */
+    public static final int DEFAULT_FOREIGN_KEY_FAN_OUT = 1000;
+    /**
+     * Maximum sum of $skip and $top of expanded child collection, which is
+     * retrieved with inner hits of the main request.
+     */
+    public static final int DEFAULT_INNER_HITS_LIMIT = 100;
+    /**
+     * Custom query option, which enables retrieving only nested objects
+     * matched by the filter instead of whole nested collection.
+     */
+    public static final String NESTED_MATCHES_OPTION = "nestedMatches";
+    /** Maximum number of matched nested objects retrieved per document. */
+    public static final int DEFAULT_NESTED_INNER_HITS_SIZE = 1000;
+    /** Default maximum number of entities in one page of collection. */
+    public static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+    /** Default $skip, from which collection is skipped with search_after. */
+    public static final int DEFAULT_DEEP_SKIP_THRESHOLD = 5000;
+    /**
+     * Default index.max_result_window of Elasticsearch: from + size of search
+     * request can't be bigger than it.
+     */
+    public static final int MAX_RESULT_WINDOW = 10000;
+    /**
+     * Preference to stream whole collection in one response, instead of
+     * returning it page by page.
+     */
+    public static final String STREAMING_PREFERENCE = "odata.streaming";
+    /** Number of documents retrieved by one scroll request. */
+    public static final int DEFAULT_SCROLL_SIZE = 1000;
+    /** Time to keep scroll alive between retrieving its batches. */
+    public static final String SCROLL_KEEP_ALIVE = "1m";
+    /**
+     * Maximum number of threads, which scroll slices of all exports together.
+     * Slices above the limit wait until other slices are finished.
+     */
+    public static final int MAX_SCROLL_THREADS = 16;
+    /**
+     * Preference to estimate count of entities instead of counting all of
+     * them.
+     */
+    public static final String APPROXIMATE_COUNT_PREFERENCE = "olastic.approximate-count";
+    /** Response header, which marks count of the response as estimated. */
+    public static final String COUNT_ESTIMATED_HEADER = "X-Count-Estimated";
+    /**
+     * Response header, which marks response of the query downgraded to fit the
+     * cost budget.
+     */
+    public static final String QUERY_DOWNGRADED_HEADER = "X-Query-Downgraded";
+    /** Default number of matched documents counted on the sampled shard. */
+    public static final int DEFAULT_COUNT_SAMPLE_SIZE = 10000;
+    /** Separator of inner hits name and its sequence number. */
+    public static final String INNER_HITS_NAME_SEPARATOR = "#";
 
     private ElasticConstants() {
     }
@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.search.join.ScoreMode;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriParameter;
 import org.apache.olingo.server.api.uri.UriResource;
@@ -21,6 +22,7 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.edm.ElasticEdmNavigationProperty;
 
 /**
  * Non-final builder class to create to Elasticsearch with possibility to
@@ -39,6 +41,8 @@ public class ESQueryBuilder<T extends ESQueryBuilder<T>> {
     protected QueryBuilder parentChildQuery;
     /** Filter query builders. */
     protected List<QueryBuilder> filters;
+    /** Routing values of shards, that contain all requested documents. */
+    protected List<String> routing;
 
     /**
      * Default constructor.
@@ -46,6 +50,7 @@ public class ESQueryBuilder<T extends ESQueryBuilder<T>> {
     public ESQueryBuilder() {
         this.query = QueryBuilders.boolQuery();
         this.filters = new ArrayList<>();
+        this.routing = new ArrayList<>();
     }
 
     /**
@@ -69,20 +74,71 @@ public class ESQueryBuilder<T extends ESQueryBuilder<T>> {
         if (nextSegment == null) {
             addIdQuery(esType, ids);
         } else {
-            if (nextSegment.getKind() == UriResourceKind.primitiveProperty) {
+            if (nextSegment.getKind() == UriResourceKind.primitiveProperty
+                    || nextSegment.getKind() == UriResourceKind.count) {
                 addIdQuery(esType, ids);
             } else {
-                if (((UriResourceNavigationPropertyImpl) nextSegment).getProperty()
-                        .isCollection()) {
-                    addParentQuery(esType, ids);
+                EdmNavigationProperty navigation = ((UriResourceNavigationPropertyImpl) nextSegment)
+                        .getProperty();
+                if (isForeignKey(navigation)) {
+                    addForeignKeyQuery(type, ids, (ElasticEdmNavigationProperty) navigation);
                 } else {
-                    addChildQuery(esType, ids);
+                    addRouting(segment, type, ids);
+                    if (navigation.isCollection()) {
+                        addParentQuery(esType, ids);
+                    } else {
+                        addChildQuery(esType, ids);
+                    }
                 }
             }
         }
         return (T) this;
     }
 
+    /**
+     * Uses keys of the first segment as routing values of the navigation
+     * request. Document of the type without parent is routed by its id, and
+     * parent/child documents have to be on the same shard as their parents, so
+     * all documents joined with it live on that shard.
+     *
+     * @param segment
+     *            current segment
+     * @param type
+     *            entity type of the segment
+     * @param ids
+     *            keys of the segment
+     */
+    protected void addRouting(UriResource segment, ElasticEdmEntityType type, List<String> ids) {
+        if (segment instanceof UriResourceEntitySet && !ids.isEmpty() && !hasParent(type)) {
+            routing.addAll(ids);
+        }
+    }
+
+    /**
+     * Checks whether navigation property links documents by foreign key.
+     *
+     * @param navigation
+     *            navigation property
+     * @return true if navigation is foreign key relation
+     */
+    private static boolean isForeignKey(EdmNavigationProperty navigation) {
+        return navigation instanceof ElasticEdmNavigationProperty
+                && ((ElasticEdmNavigationProperty) navigation).isForeignKey();
+    }
+
+    /**
+     * Checks whether type has parent type. Relation to the parent is the only
+     * single valued navigation property, apart from foreign keys.
+     *
+     * @param type
+     *            entity type
+     * @return true if type has parent, otherwise false
+     */
+    public static boolean hasParent(ElasticEdmEntityType type) {
+        return type.getESNavigationProperties().values().stream()
+                .anyMatch(property -> !property.isForeignKey() && !property.isCollection());
+    }
+
     /**
      * Retrieves ids from uri resource part.
      *
@@ -92,7 +148,7 @@ public class ESQueryBuilder<T extends ESQueryBuilder<T>> {
      * @throws ODataApplicationException
      *             odata app exception
      */
-    protected List<String> collectIds(UriResource segment) throws ODataApplicationException {
+    public List<String> collectIds(UriResource segment) throws ODataApplicationException {
         List<UriParameter> keyPredicates;
         if (segment instanceof UriResourceNavigation) {
             keyPredicates = ((UriResourceNavigation) segment).getKeyPredicates();
@@ -152,6 +208,29 @@ public class ESQueryBuilder<T extends ESQueryBuilder<T>> {
         parentChildQuery = QueryBuilders.hasChildQuery(type, resultQuery, ScoreMode.None);
     }
 
+    /**
+     * Adds new level of foreign key query. Documents of the next type are
+     * matched by values of the foreign key field collected from documents of
+     * the current type. Next type can be in other index, so routing values
+     * of the current index are discarded.
+     *
+     * @param type
+     *            current type
+     * @param ids
+     *            list of ids of current documents we are looking for
+     * @param navigation
+     *            foreign key navigation to the next type
+     */
+    protected void addForeignKeyQuery(ElasticEdmEntityType type, List<String> ids,
+            ElasticEdmNavigationProperty navigation) {
+        QueryBuilder sourceQuery = ids.isEmpty() ? QueryBuilders.matchAllQuery()
+                : buildIdQuery(type.getESType(), ids);
+        parentChildQuery = new ForeignKeyQueryBuilder(navigation.getESTargetField(),
+                type.getESIndex(), type.getESType(), getParentChildResultQuery(sourceQuery),
+                navigation.getESField());
+        routing.clear();
+    }
+
     /**
      * Builds must query with existing {@link #parentChildQuery} and new query,
      * or just returns new query, if {@link #parentChildQuery} is null. Note: we
@@ -194,6 +273,16 @@ public class ESQueryBuilder<T extends ESQueryBuilder<T>> {
         return new IdsQueryBuilder().types(type).addIds(ids.toArray(new String[1]));
     }
 
+    /**
+     * Returns routing values of the request, empty if request has to be sent
+     * to all shards.
+     *
+     * @return routing values
+     */
+    public List<String> getRouting() {
+        return routing;
+    }
+
     /**
      * Returns raw Elasticsearch query.
      * 
@@ -0,0 +1,204 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.elastic.requests.MultiSearchRequest;
+import com.hevelian.olastic.core.exceptions.SearchException;
+
+/**
+ * Resolves {@link ForeignKeyQueryBuilder} placeholders into queries
+ * Elasticsearch can execute. Joins are resolved level by level, starting from
+ * the innermost ones: inner queries of all joins without unresolved inner
+ * joins are sent in one multi search request, collected key values are
+ * substituted as ids or terms query, and the next level is resolved until no
+ * placeholders are left.
+ * <p>
+ * Number of keys collected for one join is bounded by fan-out. Join, which
+ * inner query matches more documents, is rejected, since truncated keys would
+ * silently return incomplete result.
+ *
+ * @author rdidyk
+ */
+public class ForeignKeyJoinEngine {
+
+    private final int maxFanOut;
+
+    /**
+     * Constructor to initialize fan-out of joins.
+     *
+     * @param maxFanOut
+     *            maximum number of inner documents of one join
+     */
+    public ForeignKeyJoinEngine(int maxFanOut) {
+        this.maxFanOut = maxFanOut;
+    }
+
+    /**
+     * Resolves all foreign key queries of query builder.
+     *
+     * @param query
+     *            query builder
+     * @return query builder without foreign key queries
+     * @throws ODataApplicationException
+     *             if any join exceeds fan-out or inner search failed
+     */
+    public QueryBuilder resolve(QueryBuilder query) throws ODataApplicationException {
+        QueryBuilder result = query;
+        List<ForeignKeyQueryBuilder> joins = collectReady(result);
+        while (!joins.isEmpty()) {
+            List<SearchQuery> queries = new ArrayList<>();
+            for (ForeignKeyQueryBuilder join : joins) {
+                queries.add(new SearchQuery(join.getIndex(), new String[] { join.getType() },
+                        join.getQuery(), Collections.singleton(join.getInnerField()),
+                        new Pagination(maxFanOut, 0, Collections.emptyList())));
+            }
+            List<SearchHits> hits = search(queries);
+            Map<ForeignKeyQueryBuilder, QueryBuilder> resolved = new IdentityHashMap<>();
+            for (int i = 0; i < joins.size(); i++) {
+                resolved.put(joins.get(i), toKeysQuery(joins.get(i), hits.get(i)));
+            }
+            result = new Substitution(resolved).rewrite(result);
+            joins = collectReady(result);
+        }
+        return result;
+    }
+
+    /**
+     * Executes inner queries of joins in one multi search request.
+     *
+     * @param queries
+     *            inner queries
+     * @return hits of each query, in the same order
+     * @throws ODataApplicationException
+     *             if search failed
+     */
+    protected List<SearchHits> search(List<SearchQuery> queries)
+            throws ODataApplicationException {
+        MultiSearchResponse response = new MultiSearchRequest(queries, null, null).execute();
+        List<SearchHits> hits = new ArrayList<>();
+        for (MultiSearchResponse.Item item : response.getResponses()) {
+            if (item.isFailure()) {
+                throw new SearchException(item.getFailureMessage());
+            }
+            hits.add(item.getResponse().getHits());
+        }
+        return hits;
+    }
+
+    /**
+     * Builds query, which matches outer documents by keys of inner hits.
+     *
+     * @param join
+     *            foreign key query
+     * @param hits
+     *            hits of inner query
+     * @return ids or terms query
+     * @throws ODataApplicationException
+     *             if inner query exceeds fan-out
+     */
+    private QueryBuilder toKeysQuery(ForeignKeyQueryBuilder join, SearchHits hits)
+            throws ODataApplicationException {
+        if (hits.getTotalHits() > maxFanOut) {
+            throw new ODataApplicationException(String.format(
+                    "Join with type '%s' matches %d documents, which exceeds the limit %d.",
+                    join.getType(), hits.getTotalHits(), maxFanOut),
+                    HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (SearchHit hit : hits) {
+            collectKeys(hit, join.getInnerField(), keys);
+        }
+        if (ElasticConstants.ID_FIELD_NAME.equals(join.getField())) {
+            return idsQuery().addIds(keys.toArray(new String[keys.size()]));
+        }
+        return termsQuery(join.getField(), keys);
+    }
+
+    private static void collectKeys(SearchHit hit, String field, Set<String> keys) {
+        if (ElasticConstants.ID_FIELD_NAME.equals(field)) {
+            keys.add(hit.getId());
+            return;
+        }
+        Object value = hit.getSourceAsMap() == null ? null
+                : XContentMapValues.extractValue(field, hit.getSourceAsMap());
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                if (element != null) {
+                    keys.add(element.toString());
+                }
+            }
+        } else if (value != null) {
+            keys.add(value.toString());
+        }
+    }
+
+    /**
+     * Collects foreign key queries, which inner queries have no other foreign
+     * key queries.
+     *
+     * @param query
+     *            query builder
+     * @return foreign key queries ready to be resolved
+     * @throws ODataApplicationException
+     *             if query can't be traversed
+     */
+    private static List<ForeignKeyQueryBuilder> collectReady(QueryBuilder query)
+            throws ODataApplicationException {
+        List<ForeignKeyQueryBuilder> ready = new ArrayList<>();
+        new QueryRewriter() {
+            @Override
+            protected QueryBuilder rewriteForeignKey(ForeignKeyQueryBuilder join)
+                    throws ODataApplicationException {
+                int size = ready.size();
+                rewrite(join.getQuery());
+                // inner query has no joins if none of them was collected
+                if (size == ready.size()) {
+                    ready.add(join);
+                }
+                return join;
+            }
+        }.rewrite(query);
+        return ready;
+    }
+
+    /**
+     * Rewriter, that replaces resolved foreign key queries.
+     */
+    private static class Substitution extends QueryRewriter {
+
+        private final Map<ForeignKeyQueryBuilder, QueryBuilder> resolved;
+
+        Substitution(Map<ForeignKeyQueryBuilder, QueryBuilder> resolved) {
+            this.resolved = resolved;
+        }
+
+        @Override
+        protected QueryBuilder rewriteForeignKey(ForeignKeyQueryBuilder join)
+                throws ODataApplicationException {
+            QueryBuilder keys = resolved.get(join);
+            return keys != null ? keys : super.rewriteForeignKey(join);
+        }
+    }
+}
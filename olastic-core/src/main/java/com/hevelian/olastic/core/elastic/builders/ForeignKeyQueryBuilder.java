@@ -0,0 +1,100 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryShardContext;
+
+import lombok.Getter;
+
+/**
+ * Query, that matches documents which field value is equal to a value of inner
+ * field of any document matched by inner query. Inner documents can be in
+ * other index, so Elasticsearch can't execute this query. It's a placeholder,
+ * which {@link ForeignKeyJoinEngine} replaces with terms query before request
+ * is sent.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class ForeignKeyQueryBuilder extends AbstractQueryBuilder<ForeignKeyQueryBuilder> {
+
+    /** Name of the query. */
+    public static final String NAME = "foreign_key";
+
+    private final String field;
+    private final String index;
+    private final String type;
+    private final QueryBuilder query;
+    private final String innerField;
+
+    /**
+     * Constructor to initialize query.
+     *
+     * @param field
+     *            field of matched documents
+     * @param index
+     *            index of inner documents
+     * @param type
+     *            type of inner documents
+     * @param query
+     *            inner query
+     * @param innerField
+     *            field of inner documents, which values are collected
+     */
+    public ForeignKeyQueryBuilder(String field, String index, String type, QueryBuilder query,
+            String innerField) {
+        this.field = field;
+        this.index = index;
+        this.type = type;
+        this.query = query;
+        this.innerField = innerField;
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        throw new UnsupportedOperationException(
+                "Foreign key query has to be resolved before it's sent.");
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field("field", field);
+        builder.field("index", index);
+        builder.field("type", type);
+        builder.field("inner_field", innerField);
+        builder.field("query");
+        query.toXContent(builder, params);
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    @Override
+    protected Query doToQuery(QueryShardContext context) throws IOException {
+        throw new UnsupportedOperationException(
+                "Foreign key query has to be resolved before it's executed.");
+    }
+
+    @Override
+    protected boolean doEquals(ForeignKeyQueryBuilder other) {
+        return Objects.equals(field, other.field) && Objects.equals(index, other.index)
+                && Objects.equals(type, other.type) && Objects.equals(query, other.query)
+                && Objects.equals(innerField, other.innerField);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(field, index, type, query, innerField);
+    }
+}
@@ -0,0 +1,157 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.lucene.search.join.ScoreMode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.index.query.HasChildQueryBuilder;
+import org.elasticsearch.index.query.HasParentQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.SearchHits;
+
+import com.hevelian.olastic.core.elastic.ESClient;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.queries.Query;
+
+/**
+ * Chooses how parent/child joins of the query are executed. Block join
+ * (has_child or has_parent query) is evaluated on every shard for all
+ * documents of joined type, which is expensive on large indices. If inner
+ * query of the join is selective, it's cheaper to resolve ids in two phases:
+ * first inner query is executed without source to collect ids of matched
+ * parents, or _parent values of matched children, then join is replaced with
+ * ids query, or _parent terms query, on the outer side.
+ * <p>
+ * Total hits of the inner query are used as its cardinality: if they exceed
+ * the limit, block join is kept. Chained joins are planned from the innermost
+ * one. Joins with inner hits, scoring or children count constraints are never
+ * resolved, because result of the resolution can't reproduce them.
+ *
+ * @author rdidyk
+ */
+public class JoinPlanner {
+
+    private final int limit;
+
+    /**
+     * Constructor to initialize limit of resolved documents.
+     *
+     * @param limit
+     *            maximum number of inner documents, which ids are resolved,
+     *            zero to always use block joins
+     */
+    public JoinPlanner(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Plans joins of the query.
+     *
+     * @param query
+     *            query to execute
+     * @return query builder with selective joins replaced by resolved ids
+     * @throws ODataApplicationException
+     *             if resolution of ids failed
+     */
+    public QueryBuilder plan(Query query) throws ODataApplicationException {
+        return limit > 0 ? new Planning(query).rewrite(query.getQueryBuilder())
+                : query.getQueryBuilder();
+    }
+
+    /**
+     * Executes inner query of the join without source.
+     *
+     * @param query
+     *            outer query, which index and routing are used
+     * @param type
+     *            type of joined documents
+     * @param inner
+     *            inner query of the join
+     * @return hits of inner query, at most limit of them
+     * @throws ODataApplicationException
+     *             if search failed
+     */
+    protected SearchHits search(Query query, String type, QueryBuilder inner)
+            throws ODataApplicationException {
+        ESClient client = ESClient.getInstance();
+        SearchRequestBuilder request = client.getClient().prepareSearch(query.getIndex())
+                .setTypes(type).setQuery(inner).setFetchSource(false).setSize(limit);
+        if (query.getRouting().length > 0) {
+            request.setRouting(query.getRouting());
+        }
+        return client.executeRequest(request).getHits();
+    }
+
+    /**
+     * Collects parent ids of child hits.
+     *
+     * @param hits
+     *            child hits
+     * @return parent ids, or null if any of hits has no parent
+     */
+    private static Set<String> collectParentIds(SearchHits hits) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (SearchHit hit : hits) {
+            SearchHitField parent = hit.getField(ElasticConstants.PARENT_PROPERTY);
+            if (parent == null || parent.getValue() == null) {
+                return null;
+            }
+            ids.add(parent.getValue().toString());
+        }
+        return ids;
+    }
+
+    /**
+     * Rewriter, that resolves joins of the query.
+     */
+    private class Planning extends QueryRewriter {
+
+        private final Query query;
+
+        Planning(Query query) {
+            this.query = query;
+        }
+
+        @Override
+        protected QueryBuilder rewriteChild(HasChildQueryBuilder join)
+                throws ODataApplicationException {
+            QueryBuilder inner = rewrite(join.query());
+            boolean isResolvable = join.innerHit() == null && join.scoreMode() == ScoreMode.None
+                    && join.minChildren() <= 1
+                    && join.maxChildren() == HasChildQueryBuilder.DEFAULT_MAX_CHILDREN;
+            if (isResolvable) {
+                SearchHits hits = search(query, join.childType(), inner);
+                Set<String> parentIds = hits.getTotalHits() <= limit ? collectParentIds(hits)
+                        : null;
+                if (parentIds != null) {
+                    return idsQuery().addIds(parentIds.toArray(new String[parentIds.size()]));
+                }
+            }
+            return inner == join.query() ? join : copy(join, inner);
+        }
+
+        @Override
+        protected QueryBuilder rewriteParent(HasParentQueryBuilder join)
+                throws ODataApplicationException {
+            QueryBuilder inner = rewrite(join.query());
+            if (join.innerHit() == null && !join.score()) {
+                SearchHits hits = search(query, join.type(), inner);
+                if (hits.getTotalHits() <= limit) {
+                    Set<String> ids = new LinkedHashSet<>();
+                    for (SearchHit hit : hits) {
+                        ids.add(hit.getId());
+                    }
+                    return termsQuery(ElasticConstants.PARENT_PROPERTY, ids);
+                }
+            }
+            return inner == join.query() ? join : copy(join, inner);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ExistsQueryBuilder;
+import org.elasticsearch.index.query.HasChildQueryBuilder;
+import org.elasticsearch.index.query.HasParentQueryBuilder;
+import org.elasticsearch.index.query.IdsQueryBuilder;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
+import org.elasticsearch.index.query.NestedQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.edm.ElasticEdmProperty;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
+import com.hevelian.olastic.core.elastic.utils.ElasticUtils;
+
+/**
+ * Evaluates constant parts of compiled Elasticsearch query symbolically. Query
+ * that provably matches nothing (e.g. {@code x eq 1 and x eq 2}, inverted
+ * ranges, or key predicate conflicting with the filter) is replaced with
+ * {@link MatchNoneQueryBuilder}, trivially true sub-clauses are dropped, and
+ * query without any clause left becomes {@link MatchAllQueryBuilder}.
+ * <p>
+ * Conflicts between clauses on the same field are detected only for fields
+ * declared in EDM as single-valued primitive properties, because separate
+ * clauses on a multi-valued field may be satisfied by different values. Only
+ * fields, which index whole value as single term, are compared: term query on
+ * analyzed field or on n-gram multi-field matches any of indexed tokens, so
+ * different values of such clauses don't conflict.
+ *
+ * @author rdidyk
+ */
+public class QueryOptimizer {
+
+    /** Numeric types, which values are compared as numbers. */
+    private static final Set<EdmPrimitiveTypeKind> NUMERIC_KINDS = EnumSet.of(
+            EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.SByte, EdmPrimitiveTypeKind.Int16,
+            EdmPrimitiveTypeKind.Int32, EdmPrimitiveTypeKind.Int64, EdmPrimitiveTypeKind.Single,
+            EdmPrimitiveTypeKind.Double, EdmPrimitiveTypeKind.Decimal);
+    /** Types, which values are compared as exact strings. */
+    private static final Set<EdmPrimitiveTypeKind> EXACT_KINDS = EnumSet.of(
+            EdmPrimitiveTypeKind.String, EdmPrimitiveTypeKind.Boolean, EdmPrimitiveTypeKind.Guid);
+
+    /** Pattern of number, that can be compared as {@link BigDecimal}. */
+    private static final Pattern NUMBER_PATTERN = Pattern
+            .compile("[-+]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][-+]?\\d+)?");
+
+    /**
+     * Single-valued fields with their EDM type, key is Elasticsearch field or
+     * multi-field, which indexes whole value as single term.
+     */
+    private final Map<String, EdmType> singleValuedFields;
+
+    /**
+     * Constructor to initialize single-valued fields from entity type.
+     *
+     * @param entityType
+     *            entity type query is executed for
+     */
+    public QueryOptimizer(ElasticEdmEntityType entityType) {
+        this(collectSingleValuedFields(entityType));
+    }
+
+    /**
+     * Constructor to initialize single-valued fields.
+     *
+     * @param singleValuedFields
+     *            single-valued not analyzed fields with their EDM type
+     */
+    protected QueryOptimizer(Map<String, EdmType> singleValuedFields) {
+        this.singleValuedFields = singleValuedFields;
+    }
+
+    /**
+     * Checks whether query provably matches no documents.
+     *
+     * @param query
+     *            query to check
+     * @return true if query matches nothing, false otherwise
+     */
+    public static boolean isEmpty(QueryBuilder query) {
+        return query instanceof MatchNoneQueryBuilder;
+    }
+
+    /**
+     * Optimizes query: evaluates constant clauses and drops trivially true
+     * ones.
+     *
+     * @param query
+     *            query to optimize
+     * @return optimized query, {@link MatchNoneQueryBuilder} if query matches
+     *         nothing, or {@link MatchAllQueryBuilder} if query matches all
+     *         documents
+     */
+    public QueryBuilder optimize(QueryBuilder query) {
+        if (query instanceof BoolQueryBuilder) {
+            return optimizeBool((BoolQueryBuilder) query);
+        }
+        QueryBuilder innerQuery = null;
+        if (query instanceof NestedQueryBuilder) {
+            innerQuery = ((NestedQueryBuilder) query).query();
+        } else if (query instanceof HasChildQueryBuilder) {
+            innerQuery = ((HasChildQueryBuilder) query).query();
+        } else if (query instanceof HasParentQueryBuilder) {
+            innerQuery = ((HasParentQueryBuilder) query).query();
+        }
+        // fields of joined documents are not described by current entity type
+        boolean isInnerEmpty = innerQuery != null
+                && isEmpty(new QueryOptimizer(Collections.emptyMap()).optimize(innerQuery));
+        return isInnerEmpty ? new MatchNoneQueryBuilder() : query;
+    }
+
+    /**
+     * Optimizes bool query clauses.
+     *
+     * @param bool
+     *            bool query
+     * @return optimized query
+     */
+    private QueryBuilder optimizeBool(BoolQueryBuilder bool) {
+        BoolQueryBuilder result = QueryBuilders.boolQuery().boost(bool.boost())
+                .queryName(bool.queryName()).minimumShouldMatch(bool.minimumShouldMatch())
+                .adjustPureNegative(bool.adjustPureNegative()).disableCoord(bool.disableCoord());
+        boolean hasEmptyClause = addRequired(bool.must(), result::must)
+                || addRequired(bool.filter(), result::filter);
+        for (QueryBuilder clause : bool.mustNot()) {
+            QueryBuilder optimized = optimize(clause);
+            hasEmptyClause |= optimized instanceof MatchAllQueryBuilder;
+            if (!isEmpty(optimized)) {
+                result.mustNot(optimized);
+            }
+        }
+        hasEmptyClause |= addShould(bool, result);
+        if (hasEmptyClause || new Conjunction(singleValuedFields, result).isContradiction()) {
+            return new MatchNoneQueryBuilder();
+        }
+        return result.hasClauses() ? result : QueryBuilders.matchAllQuery();
+    }
+
+    /**
+     * Optimizes optional clauses and adds them to result query. If one of
+     * optional clauses matches all documents, they are not needed anymore,
+     * unless minimum should match is specified.
+     *
+     * @param bool
+     *            original bool query
+     * @param result
+     *            result bool query
+     * @return true if optional clauses are required, but none of them can
+     *         match, false otherwise
+     */
+    private boolean addShould(BoolQueryBuilder bool, BoolQueryBuilder result) {
+        boolean isShouldMatched = false;
+        for (QueryBuilder clause : bool.should()) {
+            QueryBuilder optimized = optimize(clause);
+            isShouldMatched |= optimized instanceof MatchAllQueryBuilder;
+            if (!isEmpty(optimized)) {
+                result.should(optimized);
+            }
+        }
+        boolean hasRequired = !bool.must().isEmpty() || !bool.filter().isEmpty();
+        boolean isMinimumSet = bool.minimumShouldMatch() != null;
+        if (!bool.should().isEmpty() && result.should().isEmpty()) {
+            if (isMinimumSet || !hasRequired) {
+                return true;
+            }
+            // keeps optional clauses required in filter context
+            result.should(new MatchNoneQueryBuilder());
+        } else if (isShouldMatched && !isMinimumSet) {
+            result.should().clear();
+        }
+        boolean isRequiredDropped = hasRequired && result.must().isEmpty()
+                && result.filter().isEmpty();
+        if (isRequiredDropped && !result.should().isEmpty() && !isMinimumSet) {
+            // otherwise optional clauses would become required
+            result.filter(QueryBuilders.matchAllQuery());
+        }
+        return false;
+    }
+
+    /**
+     * Optimizes required clauses and adds them to result query, trivially true
+     * clauses are skipped.
+     *
+     * @param clauses
+     *            required clauses
+     * @param consumer
+     *            result query clause consumer
+     * @return true if any of clauses matches nothing, false otherwise
+     */
+    private boolean addRequired(List<QueryBuilder> clauses, Consumer<QueryBuilder> consumer) {
+        boolean hasEmptyClause = false;
+        for (QueryBuilder clause : clauses) {
+            QueryBuilder optimized = optimize(clause);
+            hasEmptyClause |= isEmpty(optimized);
+            if (!(optimized instanceof MatchAllQueryBuilder)) {
+                consumer.accept(optimized);
+            }
+        }
+        return hasEmptyClause;
+    }
+
+    /**
+     * Collects not analyzed fields of single-valued primitive properties of
+     * entity type: keyword field of the property and its keyword
+     * multi-fields.
+     *
+     * @param entityType
+     *            entity type
+     * @return fields with EDM types
+     */
+    private static Map<String, EdmType> collectSingleValuedFields(
+            ElasticEdmEntityType entityType) {
+        Map<String, EdmType> fields = new HashMap<>();
+        for (ElasticEdmProperty property : entityType.getESProperties().values()) {
+            if (!property.isCollection() && property.getType().getKind() == EdmTypeKind.PRIMITIVE) {
+                String field = property.getEField();
+                fields.put(ElasticUtils.addKeywordIfNeeded(field, property.getAnnotations(),
+                        property.getMultiFields()), property.getType());
+                property.getMultiFields().stream()
+                        .filter(multiField -> multiField.getKind() == Kind.KEYWORD)
+                        .forEach(multiField -> fields.put(
+                                ElasticUtils.addSuffix(field, multiField.getName()),
+                                property.getType()));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Conjunction of required clauses of bool query. Nested bool queries
+     * without optional clauses are flattened, so constraints from different
+     * levels are compared together.
+     */
+    private static class Conjunction {
+
+        private final Map<String, EdmType> singleValuedFields;
+        private final Map<String, Object> terms = new HashMap<>();
+        private final Map<String, Set<Object>> excludedTerms = new HashMap<>();
+        private final Map<String, Bounds> ranges = new HashMap<>();
+        private final Set<String> existing = new HashSet<>();
+        private final Set<String> missing = new HashSet<>();
+        private Set<String> ids;
+        private boolean contradiction;
+
+        /**
+         * Constructor to collect constraints from bool query.
+         *
+         * @param singleValuedFields
+         *            single-valued fields with their EDM type
+         * @param bool
+         *            bool query
+         */
+        Conjunction(Map<String, EdmType> singleValuedFields, BoolQueryBuilder bool) {
+            this.singleValuedFields = singleValuedFields;
+            collect(bool);
+        }
+
+        /**
+         * Checks whether collected constraints contradict each other.
+         *
+         * @return true if no document can satisfy all constraints
+         */
+        boolean isContradiction() {
+            if (contradiction || ids != null && ids.isEmpty()) {
+                return true;
+            }
+            for (Map.Entry<String, Object> term : terms.entrySet()) {
+                String field = term.getKey();
+                Bounds bounds = ranges.get(field);
+                if (missing.contains(resolveField(field))
+                        || excludedTerms.getOrDefault(field, Collections.emptySet())
+                                .contains(term.getValue())
+                        || bounds != null && !bounds.contains(term.getValue())) {
+                    return true;
+                }
+            }
+            for (Map.Entry<String, Bounds> range : ranges.entrySet()) {
+                if (range.getValue().isEmpty() || missing.contains(resolveField(range.getKey()))) {
+                    return true;
+                }
+            }
+            return !Collections.disjoint(existing, missing);
+        }
+
+        private void collect(BoolQueryBuilder bool) {
+            List<QueryBuilder> required = new ArrayList<>(bool.must());
+            required.addAll(bool.filter());
+            for (QueryBuilder clause : required) {
+                if (clause instanceof BoolQueryBuilder
+                        && ((BoolQueryBuilder) clause).should().isEmpty()) {
+                    collect((BoolQueryBuilder) clause);
+                } else {
+                    collectRequired(clause);
+                }
+            }
+            bool.mustNot().forEach(this::collectExcluded);
+        }
+
+        private void collectRequired(QueryBuilder clause) {
+            if (clause instanceof IdsQueryBuilder) {
+                Set<String> clauseIds = ((IdsQueryBuilder) clause).ids();
+                if (ids == null) {
+                    ids = new HashSet<>(clauseIds);
+                } else {
+                    ids.retainAll(clauseIds);
+                }
+            } else if (clause instanceof TermQueryBuilder) {
+                TermQueryBuilder term = (TermQueryBuilder) clause;
+                Object value = normalize(term.fieldName(), term.value());
+                if (value != null) {
+                    Object previous = terms.putIfAbsent(term.fieldName(), value);
+                    contradiction |= previous != null && !previous.equals(value);
+                }
+            } else if (clause instanceof RangeQueryBuilder) {
+                collectRange((RangeQueryBuilder) clause);
+            } else if (clause instanceof ExistsQueryBuilder) {
+                String field = resolveField(((ExistsQueryBuilder) clause).fieldName());
+                if (field != null) {
+                    existing.add(field);
+                }
+            }
+        }
+
+        private void collectExcluded(QueryBuilder clause) {
+            if (clause instanceof TermQueryBuilder) {
+                TermQueryBuilder term = (TermQueryBuilder) clause;
+                Object value = normalize(term.fieldName(), term.value());
+                if (value != null) {
+                    excludedTerms.computeIfAbsent(term.fieldName(), k -> new HashSet<>())
+                            .add(value);
+                }
+            } else if (clause instanceof ExistsQueryBuilder) {
+                String field = resolveField(((ExistsQueryBuilder) clause).fieldName());
+                if (field != null) {
+                    missing.add(field);
+                }
+            }
+        }
+
+        private void collectRange(RangeQueryBuilder range) {
+            String field = range.fieldName();
+            Object from = normalize(field, range.from());
+            Object to = normalize(field, range.to());
+            boolean isComparable = range.format() == null
+                    && (range.from() == null || from instanceof BigDecimal)
+                    && (range.to() == null || to instanceof BigDecimal);
+            if (isComparable) {
+                Bounds bounds = ranges.computeIfAbsent(field, k -> new Bounds());
+                bounds.restrictLower((BigDecimal) from, range.includeLower());
+                bounds.restrictUpper((BigDecimal) to, range.includeUpper());
+            }
+        }
+
+        /**
+         * Normalizes value to compare it with other values of the same field.
+         *
+         * @param field
+         *            Elasticsearch field name
+         * @param value
+         *            raw query value
+         * @return normalized value, or null if value can't be compared safely
+         */
+        private Object normalize(String field, Object value) {
+            String resolvedField = resolveField(field);
+            if (resolvedField == null || value == null) {
+                return null;
+            }
+            EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind
+                    .valueOfFQN(singleValuedFields.get(resolvedField).getFullQualifiedName());
+            if (value instanceof Number || NUMERIC_KINDS.contains(kind)) {
+                return toNumber(value);
+            }
+            return EXACT_KINDS.contains(kind) ? value.toString() : null;
+        }
+
+        private static BigDecimal toNumber(Object value) {
+            String number = value.toString();
+            return NUMBER_PATTERN.matcher(number).matches()
+                    ? new BigDecimal(number).stripTrailingZeros() : null;
+        }
+
+        /**
+         * Resolves not analyzed field of single-valued property. Analyzed
+         * fields and n-gram multi-fields are not resolved, as term query on
+         * them doesn't match whole value.
+         *
+         * @param field
+         *            Elasticsearch field name
+         * @return field, or null if field is not known single-valued not
+         *         analyzed field
+         */
+        private String resolveField(String field) {
+            boolean isKnown = !ElasticConstants.ID_FIELD_NAME.equals(field)
+                    && singleValuedFields.containsKey(field);
+            return isKnown ? field : null;
+        }
+    }
+
+    /**
+     * Intersection of numeric ranges of one field.
+     */
+    private static class Bounds {
+
+        private BigDecimal lower;
+        private boolean includeLower = true;
+        private BigDecimal upper;
+        private boolean includeUpper = true;
+
+        void restrictLower(BigDecimal value, boolean include) {
+            if (value == null) {
+                return;
+            }
+            int compare = lower == null ? 1 : value.compareTo(lower);
+            if (compare > 0 || compare == 0 && !include) {
+                lower = value;
+                includeLower = include;
+            }
+        }
+
+        void restrictUpper(BigDecimal value, boolean include) {
+            if (value == null) {
+                return;
+            }
+            int compare = upper == null ? -1 : value.compareTo(upper);
+            if (compare < 0 || compare == 0 && !include) {
+                upper = value;
+                includeUpper = include;
+            }
+        }
+
+        boolean isEmpty() {
+            if (lower == null || upper == null) {
+                return false;
+            }
+            int compare = lower.compareTo(upper);
+            return compare > 0 || compare == 0 && !(includeLower && includeUpper);
+        }
+
+        boolean contains(Object value) {
+            if (!(value instanceof BigDecimal)) {
+                return true;
+            }
+            BigDecimal number = (BigDecimal) value;
+            boolean isAboveLower = lower == null || number.compareTo(lower) > 0
+                    || includeLower && number.compareTo(lower) == 0;
+            boolean isBelowUpper = upper == null || number.compareTo(upper) < 0
+                    || includeUpper && number.compareTo(upper) == 0;
+            return isAboveLower && isBelowUpper;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.hasChildQuery;
+import static org.elasticsearch.index.query.QueryBuilders.hasParentQuery;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.HasChildQueryBuilder;
+import org.elasticsearch.index.query.HasParentQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+
+/**
+ * Base class to rebuild query tree before execution. Clauses of bool queries
+ * and inner queries of join and foreign key queries are rewritten recursively,
+ * nested queries are kept as is, since they can't contain joins. Compound
+ * query is copied only if any of its inner queries has changed, otherwise the
+ * same instance is returned.
+ *
+ * @author rdidyk
+ */
+public abstract class QueryRewriter {
+
+    /**
+     * Rewrites query and all its inner queries.
+     *
+     * @param query
+     *            query to rewrite
+     * @return rewritten query
+     * @throws ODataApplicationException
+     *             if query can't be rewritten
+     */
+    public QueryBuilder rewrite(QueryBuilder query) throws ODataApplicationException {
+        if (query instanceof BoolQueryBuilder) {
+            return rewriteBool((BoolQueryBuilder) query);
+        } else if (query instanceof HasChildQueryBuilder) {
+            return rewriteChild((HasChildQueryBuilder) query);
+        } else if (query instanceof HasParentQueryBuilder) {
+            return rewriteParent((HasParentQueryBuilder) query);
+        } else if (query instanceof ForeignKeyQueryBuilder) {
+            return rewriteForeignKey((ForeignKeyQueryBuilder) query);
+        }
+        return query;
+    }
+
+    /**
+     * Rewrites has_child query.
+     *
+     * @param join
+     *            has_child query
+     * @return rewritten query
+     * @throws ODataApplicationException
+     *             if query can't be rewritten
+     */
+    protected QueryBuilder rewriteChild(HasChildQueryBuilder join)
+            throws ODataApplicationException {
+        QueryBuilder inner = rewrite(join.query());
+        return inner == join.query() ? join : copy(join, inner);
+    }
+
+    /**
+     * Rewrites has_parent query.
+     *
+     * @param join
+     *            has_parent query
+     * @return rewritten query
+     * @throws ODataApplicationException
+     *             if query can't be rewritten
+     */
+    protected QueryBuilder rewriteParent(HasParentQueryBuilder join)
+            throws ODataApplicationException {
+        QueryBuilder inner = rewrite(join.query());
+        return inner == join.query() ? join : copy(join, inner);
+    }
+
+    /**
+     * Rewrites foreign key query.
+     *
+     * @param join
+     *            foreign key query
+     * @return rewritten query
+     * @throws ODataApplicationException
+     *             if query can't be rewritten
+     */
+    protected QueryBuilder rewriteForeignKey(ForeignKeyQueryBuilder join)
+            throws ODataApplicationException {
+        QueryBuilder inner = rewrite(join.getQuery());
+        return inner == join.getQuery() ? join : copy(join, inner);
+    }
+
+    /**
+     * Copies has_child query with new inner query.
+     *
+     * @param join
+     *            has_child query
+     * @param inner
+     *            new inner query
+     * @return copy of the query
+     */
+    protected static HasChildQueryBuilder copy(HasChildQueryBuilder join, QueryBuilder inner) {
+        HasChildQueryBuilder result = hasChildQuery(join.childType(), inner, join.scoreMode())
+                .minMaxChildren(join.minChildren(), join.maxChildren())
+                .ignoreUnmapped(join.ignoreUnmapped()).boost(join.boost())
+                .queryName(join.queryName());
+        return join.innerHit() != null ? result.innerHit(join.innerHit(), join.ignoreUnmapped())
+                : result;
+    }
+
+    /**
+     * Copies has_parent query with new inner query.
+     *
+     * @param join
+     *            has_parent query
+     * @param inner
+     *            new inner query
+     * @return copy of the query
+     */
+    protected static HasParentQueryBuilder copy(HasParentQueryBuilder join, QueryBuilder inner) {
+        HasParentQueryBuilder result = hasParentQuery(join.type(), inner, join.score())
+                .ignoreUnmapped(join.ignoreUnmapped()).boost(join.boost())
+                .queryName(join.queryName());
+        return join.innerHit() != null ? result.innerHit(join.innerHit(), join.ignoreUnmapped())
+                : result;
+    }
+
+    private static ForeignKeyQueryBuilder copy(ForeignKeyQueryBuilder join, QueryBuilder inner) {
+        return new ForeignKeyQueryBuilder(join.getField(), join.getIndex(), join.getType(), inner,
+                join.getInnerField()).boost(join.boost()).queryName(join.queryName());
+    }
+
+    private QueryBuilder rewriteBool(BoolQueryBuilder bool) throws ODataApplicationException {
+        BoolQueryBuilder result = boolQuery().boost(bool.boost()).queryName(bool.queryName())
+                .minimumShouldMatch(bool.minimumShouldMatch())
+                .adjustPureNegative(bool.adjustPureNegative()).disableCoord(bool.disableCoord());
+        boolean isChanged = false;
+        for (QueryBuilder clause : bool.must()) {
+            QueryBuilder rewritten = rewrite(clause);
+            isChanged |= rewritten != clause;
+            result.must(rewritten);
+        }
+        for (QueryBuilder clause : bool.filter()) {
+            QueryBuilder rewritten = rewrite(clause);
+            isChanged |= rewritten != clause;
+            result.filter(rewritten);
+        }
+        for (QueryBuilder clause : bool.mustNot()) {
+            QueryBuilder rewritten = rewrite(clause);
+            isChanged |= rewritten != clause;
+            result.mustNot(rewritten);
+        }
+        for (QueryBuilder clause : bool.should()) {
+            QueryBuilder rewritten = rewrite(clause);
+            isChanged |= rewritten != clause;
+            result.should(rewritten);
+        }
+        return isChanged ? result : bool;
+    }
+}
@@ -0,0 +1,205 @@
+package com.hevelian.olastic.core.elastic.cost;
+
+import static com.hevelian.olastic.core.elastic.ElasticConstants.WILDCARD_CHAR;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.FuzzyQueryBuilder;
+import org.elasticsearch.index.query.HasChildQueryBuilder;
+import org.elasticsearch.index.query.HasParentQueryBuilder;
+import org.elasticsearch.index.query.NestedQueryBuilder;
+import org.elasticsearch.index.query.PrefixQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.elasticsearch.index.query.RegexpQueryBuilder;
+import org.elasticsearch.index.query.ScriptQueryBuilder;
+import org.elasticsearch.index.query.WildcardQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+
+import com.hevelian.olastic.core.elastic.builders.ForeignKeyQueryBuilder;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.queries.AggregateQuery;
+import com.hevelian.olastic.core.elastic.queries.Query;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+
+/**
+ * Estimates relative cost of request before it's executed in Elasticsearch.
+ * Cost is sum of query, pagination and aggregations costs. Simple term, range
+ * and exists clauses cost one point each, multi-term queries are much more
+ * expensive, especially when pattern starts with wildcard, scripts are
+ * executed for every document, and every join level multiplies cost of the
+ * inner query.
+ *
+ * @author rdidyk
+ */
+public class QueryCostEstimator {
+
+    private static final long CLAUSE_COST = 1;
+    private static final long PREFIX_COST = 10;
+    private static final long WILDCARD_COST = 50;
+    private static final long FUZZY_COST = 100;
+    private static final long REGEXP_COST = 200;
+    private static final long SCRIPT_COST = 500;
+    private static final long LEADING_WILDCARD_COST = 1000;
+    private static final long NESTED_FACTOR = 2;
+    private static final long JOIN_FACTOR = 10;
+    private static final long SKIPPED_DOCUMENTS_PER_POINT = 100;
+    private static final long BUCKETS_PER_POINT = 10;
+    private static final String SIZE = "size";
+    private static final String TERMS = "terms";
+    private static final String AGGREGATIONS = "aggregations";
+
+    /**
+     * Estimates cost of the request.
+     *
+     * @param request
+     *            request to estimate
+     * @return estimated cost
+     */
+    public long estimate(ESRequest request) {
+        Query query = request.getQuery();
+        long cost = estimateQuery(query.getQueryBuilder());
+        Pagination pagination = request.getPagination() != null ? request.getPagination()
+                : query.getPagination();
+        if (pagination != null) {
+            cost += estimatePagination(pagination);
+        }
+        if (query instanceof AggregateQuery) {
+            for (AggregationBuilder aggregation : ((AggregateQuery) query).getAggregations()) {
+                cost += estimateAggregation(aggregation);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Estimates cost of the query and all its inner queries.
+     *
+     * @param query
+     *            query to estimate
+     * @return estimated cost
+     */
+    protected long estimateQuery(QueryBuilder query) {
+        long cost;
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            cost = Stream.of(bool.must(), bool.filter(), bool.should(), bool.mustNot())
+                    .flatMap(clauses -> clauses.stream()).mapToLong(this::estimateQuery).sum();
+        } else if (query instanceof ConstantScoreQueryBuilder) {
+            cost = estimateQuery(((ConstantScoreQueryBuilder) query).innerQuery());
+        } else if (query instanceof NestedQueryBuilder) {
+            cost = NESTED_FACTOR * estimateQuery(((NestedQueryBuilder) query).query());
+        } else if (getJoinedQuery(query) != null) {
+            cost = JOIN_FACTOR * estimateQuery(getJoinedQuery(query));
+        } else if (query instanceof WildcardQueryBuilder) {
+            cost = estimatePattern(((WildcardQueryBuilder) query).value(), WILDCARD_COST);
+        } else if (query instanceof RegexpQueryBuilder) {
+            String regexp = ((RegexpQueryBuilder) query).value();
+            // in regular expression any character is matched by dot
+            cost = regexp.startsWith(".") ? LEADING_WILDCARD_COST
+                    : estimatePattern(regexp, REGEXP_COST);
+        } else if (query instanceof QueryStringQueryBuilder) {
+            cost = estimatePattern(((QueryStringQueryBuilder) query).queryString(),
+                    WILDCARD_COST);
+        } else if (query instanceof PrefixQueryBuilder) {
+            cost = PREFIX_COST;
+        } else if (query instanceof FuzzyQueryBuilder) {
+            cost = FUZZY_COST;
+        } else if (query instanceof ScriptQueryBuilder) {
+            cost = SCRIPT_COST;
+        } else {
+            cost = CLAUSE_COST;
+        }
+        return Math.max(cost, CLAUSE_COST);
+    }
+
+    /**
+     * Gets inner query of parent/child or foreign key join.
+     *
+     * @param query
+     *            query to check
+     * @return inner query, or null if query isn't a join
+     */
+    private static QueryBuilder getJoinedQuery(QueryBuilder query) {
+        if (query instanceof HasChildQueryBuilder) {
+            return ((HasChildQueryBuilder) query).query();
+        } else if (query instanceof HasParentQueryBuilder) {
+            return ((HasParentQueryBuilder) query).query();
+        } else if (query instanceof ForeignKeyQueryBuilder) {
+            return ((ForeignKeyQueryBuilder) query).getQuery();
+        }
+        return null;
+    }
+
+    /**
+     * Estimates cost of skipped documents, because each shard has to collect
+     * and sort all of them.
+     *
+     * @param pagination
+     *            pagination to estimate
+     * @return estimated cost
+     */
+    protected long estimatePagination(Pagination pagination) {
+        return pagination.getSkip() / SKIPPED_DOCUMENTS_PER_POINT;
+    }
+
+    /**
+     * Estimates cost of the aggregation by maximum number of buckets it can
+     * build. Buckets of nested terms aggregations are multiplied.
+     *
+     * @param aggregation
+     *            aggregation to estimate
+     * @return estimated cost
+     */
+    protected long estimateAggregation(AggregationBuilder aggregation) {
+        try {
+            XContentBuilder builder = JsonXContent.contentBuilder().startObject();
+            aggregation.toXContent(builder, ToXContent.EMPTY_PARAMS);
+            Map<String, Object> source = XContentHelper.convertToMap(builder.endObject().bytes(),
+                    false, XContentType.JSON).v2();
+            return countBuckets(source) / BUCKETS_PER_POINT;
+        } catch (IOException e) {
+            throw new ODataRuntimeException("Unable to estimate aggregation cost.", e);
+        }
+    }
+
+    /**
+     * Counts maximum number of buckets of all aggregations on the same level.
+     *
+     * @param aggregations
+     *            aggregations by name
+     * @return number of buckets
+     */
+    @SuppressWarnings("unchecked")
+    private static long countBuckets(Map<String, Object> aggregations) {
+        long buckets = 0;
+        for (Object value : aggregations.values()) {
+            Map<String, Object> aggregation = (Map<String, Object>) value;
+            Object terms = aggregation.get(TERMS);
+            long size = terms instanceof Map
+                    ? ((Number) ((Map<String, Object>) terms).get(SIZE)).longValue() : 1;
+            Object subAggregations = aggregation.get(AGGREGATIONS);
+            long subBuckets = subAggregations instanceof Map
+                    ? countBuckets((Map<String, Object>) subAggregations) : 0;
+            buckets += size * Math.max(subBuckets, 1);
+        }
+        return buckets;
+    }
+
+    private static long estimatePattern(String pattern, long cost) {
+        // leading wildcard makes Elasticsearch to check every term of the field
+        return pattern.startsWith(WILDCARD_CHAR) || pattern.startsWith("?")
+                ? LEADING_WILDCARD_COST : cost;
+    }
+
+}
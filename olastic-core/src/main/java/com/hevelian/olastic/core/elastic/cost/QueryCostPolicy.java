@@ -0,0 +1,113 @@
+package com.hevelian.olastic.core.elastic.cost;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+
+import lombok.Getter;
+
+/**
+ * Budgets of query cost per entity set and the action to take for requests
+ * that exceed them. By default budget is unlimited, so all requests are
+ * executed as is.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class QueryCostPolicy {
+
+    /** Default number of documents to collect per shard for downgraded query. */
+    public static final int TERMINATE_AFTER_DEFAULT = 10000;
+
+    /**
+     * Action for requests which cost exceeds the budget.
+     */
+    public enum Action {
+        /** Request is rejected with bad request status. */
+        REJECT,
+        /** Request is executed with limited page and collected documents. */
+        DOWNGRADE
+    }
+
+    private long defaultBudget = Long.MAX_VALUE;
+    private final Map<String, Long> budgets = new HashMap<>();
+    private Action action = Action.REJECT;
+    private int downgradedTop = Pagination.TOP_DEFAULT;
+    private int terminateAfter = TERMINATE_AFTER_DEFAULT;
+
+    /**
+     * Gets budget of entity set.
+     *
+     * @param entitySet
+     *            entity set name
+     * @return entity set budget, or default budget if it's not specified
+     */
+    public long getBudget(String entitySet) {
+        return budgets.getOrDefault(entitySet, defaultBudget);
+    }
+
+    /**
+     * Sets budget for entity sets without their own budget.
+     *
+     * @param defaultBudget
+     *            maximum allowed cost
+     * @return current policy
+     */
+    public QueryCostPolicy setDefaultBudget(long defaultBudget) {
+        this.defaultBudget = defaultBudget;
+        return this;
+    }
+
+    /**
+     * Sets budget for specific entity set.
+     *
+     * @param entitySet
+     *            entity set name
+     * @param budget
+     *            maximum allowed cost
+     * @return current policy
+     */
+    public QueryCostPolicy setBudget(String entitySet, long budget) {
+        budgets.put(entitySet, budget);
+        return this;
+    }
+
+    /**
+     * Sets action for requests over the budget.
+     *
+     * @param action
+     *            action to take
+     * @return current policy
+     */
+    public QueryCostPolicy setAction(Action action) {
+        this.action = action;
+        return this;
+    }
+
+    /**
+     * Sets maximum page size for downgraded requests.
+     *
+     * @param downgradedTop
+     *            page size
+     * @return current policy
+     */
+    public QueryCostPolicy setDowngradedTop(int downgradedTop) {
+        this.downgradedTop = downgradedTop;
+        return this;
+    }
+
+    /**
+     * Sets maximum number of documents to collect per shard for downgraded
+     * requests.
+     *
+     * @param terminateAfter
+     *            number of documents
+     * @return current policy
+     */
+    public QueryCostPolicy setTerminateAfter(int terminateAfter) {
+        this.terminateAfter = terminateAfter;
+        return this;
+    }
+
+}
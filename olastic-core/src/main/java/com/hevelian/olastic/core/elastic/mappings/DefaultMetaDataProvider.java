@@ -10,6 +10,7 @@ import org.elasticsearch.action.admin.indices.mapping.get.GetMappingsResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -25,6 +26,7 @@ import java.util.HashMap;
  */
 @Log4j2
 public class DefaultMetaDataProvider implements MappingMetaDataProvider {
+    private static final String SETTINGS_KEY = "_settings";
     private HashMap<String, Object> cache = new HashMap<>();
     private final Client client;
 
@@ -110,6 +112,19 @@ public class DefaultMetaDataProvider implements MappingMetaDataProvider {
         return ((GetFieldMappingsResponse) mapping).mappings().get(index).get(type).get(field);
     }
 
+    @Override
+    public Settings getIndexSettings(String index) {
+        String key = makeKey(index, SETTINGS_KEY);
+        Object settings = cache.get(key);
+        if (settings == null) {
+            Settings indexSettings = getClient().admin().indices().prepareGetSettings(index)
+                    .execute().actionGet().getIndexToSettings().get(index);
+            settings = indexSettings != null ? indexSettings : Settings.EMPTY;
+            cache.put(key, settings);
+        }
+        return (Settings) settings;
+    }
+
     public Client getClient() {
         return client;
     }
@@ -3,6 +3,7 @@ package com.hevelian.olastic.core.elastic.mappings;
 import org.elasticsearch.action.admin.indices.mapping.get.GetFieldMappingsResponse.FieldMappingMetaData;
 import org.elasticsearch.cluster.metadata.MappingMetaData;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Settings;
 
 /**
  * Provider of Elasticsearch mappings. This interface can be used for
@@ -58,4 +59,17 @@ public interface MappingMetaDataProvider {
      * @return mapping metadata for a single field.
      */
     FieldMappingMetaData getMappingForField(String index, String type, String field);
+
+    /**
+     * Get settings of a single index. Settings are used to resolve custom
+     * analyzers and normalizers of fields. By default no settings are
+     * provided, so only built-in analysis is known.
+     * 
+     * @param index
+     *            name of the index.
+     * @return index settings.
+     */
+    default Settings getIndexSettings(String index) {
+        return Settings.EMPTY;
+    }
 }
@@ -0,0 +1,104 @@
+package com.hevelian.olastic.core.elastic.mappings;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Describes multi-field (sub-field) of Elasticsearch field, that indexes the
+ * same value in a different way, and can be used to run some of the operations
+ * cheaper than on the field itself.
+ *
+ * @author rdidyk
+ */
+@AllArgsConstructor
+@Getter
+public class MultiField {
+
+    /**
+     * Kind of multi-field, depends on how the value is indexed.
+     */
+    public enum Kind {
+        /** Whole value indexed as single term. */
+        KEYWORD,
+        /** All substrings of the value with gram length indexed. */
+        NGRAM,
+        /** All prefixes of the value with gram length indexed. */
+        EDGE_NGRAM,
+        /** Reversed value indexed as single term. */
+        REVERSE
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final boolean lowercase;
+    private final int minGram;
+    private final int maxGram;
+    /**
+     * Whether sub-field has doc values, so it can be used for sorting,
+     * aggregations and scripts. Only keyword sub-fields have them, text
+     * sub-fields with keyword analyzer can serve filters only.
+     */
+    private final boolean docValues;
+
+    /**
+     * Constructor for multi-fields without grams and doc values.
+     *
+     * @param name
+     *            sub-field name
+     * @param kind
+     *            sub-field kind
+     * @param lowercase
+     *            whether value is lowercased before indexing
+     */
+    public MultiField(String name, Kind kind, boolean lowercase) {
+        this(name, kind, lowercase, false);
+    }
+
+    /**
+     * Constructor for multi-fields without grams.
+     *
+     * @param name
+     *            sub-field name
+     * @param kind
+     *            sub-field kind
+     * @param lowercase
+     *            whether value is lowercased before indexing
+     * @param docValues
+     *            whether sub-field has doc values
+     */
+    public MultiField(String name, Kind kind, boolean lowercase, boolean docValues) {
+        this(name, kind, lowercase, 0, Integer.MAX_VALUE, docValues);
+    }
+
+    /**
+     * Constructor for multi-fields with grams, which have no doc values.
+     *
+     * @param name
+     *            sub-field name
+     * @param kind
+     *            sub-field kind
+     * @param lowercase
+     *            whether value is lowercased before indexing
+     * @param minGram
+     *            minimal gram length
+     * @param maxGram
+     *            maximal gram length
+     */
+    public MultiField(String name, Kind kind, boolean lowercase, int minGram, int maxGram) {
+        this(name, kind, lowercase, minGram, maxGram, false);
+    }
+
+    /**
+     * Checks whether value can be searched with single term in this
+     * multi-field. For n-gram fields value length should be in range of
+     * indexed grams.
+     *
+     * @param value
+     *            value to search
+     * @return true if value fits this multi-field, false otherwise
+     */
+    public boolean fits(String value) {
+        return value.length() >= minGram && value.length() <= maxGram;
+    }
+
+}
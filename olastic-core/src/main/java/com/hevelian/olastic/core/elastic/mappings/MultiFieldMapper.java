@@ -0,0 +1,183 @@
+package com.hevelian.olastic.core.elastic.mappings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.TextFieldMapper;
+
+import com.hevelian.olastic.core.common.ParsedMapWrapper;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
+
+/**
+ * Maps multi-fields from Elasticsearch field mapping to {@link MultiField}
+ * descriptions. Custom analyzers and normalizers are resolved from index
+ * analysis settings. Only multi-fields that index the whole value exactly (may
+ * be lowercased, reversed or split to grams) are mapped, because only such
+ * fields can be used to answer filters without changing their results.
+ * Keyword sub-fields are marked to have doc values, unless they're disabled,
+ * while text sub-fields with keyword analyzer can't be sorted or aggregated.
+ *
+ * @author rdidyk
+ */
+public class MultiFieldMapper {
+
+    private static final String ANALYSIS_PREFIX = "index.analysis.";
+    private static final String ANALYZER_PROPERTY = "analyzer";
+    private static final String NORMALIZER_PROPERTY = "normalizer";
+    private static final String DOC_VALUES_PROPERTY = "doc_values";
+    private static final String TYPE_SETTING = ".type";
+    private static final String TOKENIZER_SETTING = ".tokenizer";
+    private static final String FILTER_SETTING = ".filter";
+    private static final String TOKEN_CHARS_SETTING = ".token_chars";
+    private static final String MIN_GRAM_SETTING = ".min_gram";
+    private static final String MAX_GRAM_SETTING = ".max_gram";
+    private static final int DEFAULT_MIN_GRAM = 1;
+    private static final int DEFAULT_MAX_GRAM = 2;
+    private static final String KEYWORD = "keyword";
+    private static final String LOWERCASE = "lowercase";
+    private static final String REVERSE = "reverse";
+    private static final List<String> NGRAM = Arrays.asList("ngram", "nGram");
+    private static final List<String> EDGE_NGRAM = Arrays.asList("edge_ngram", "edgeNGram");
+
+    private final Settings settings;
+
+    /**
+     * Constructor to initialize index settings.
+     *
+     * @param settings
+     *            index settings with analysis configuration
+     */
+    public MultiFieldMapper(Settings settings) {
+        this.settings = settings != null ? settings : Settings.EMPTY;
+    }
+
+    /**
+     * Maps multi-fields of field.
+     *
+     * @param fieldMapping
+     *            field mapping
+     * @return list of multi-fields, or empty list if field doesn't have
+     *         suitable multi-fields
+     */
+    @SuppressWarnings("unchecked")
+    public List<MultiField> map(ParsedMapWrapper fieldMapping) {
+        List<MultiField> multiFields = new ArrayList<>();
+        Object fields = fieldMapping.value(ElasticConstants.FIELDS_PROPERTY);
+        if (fields instanceof Map) {
+            for (Map.Entry<String, Object> field : ((Map<String, Object>) fields).entrySet()) {
+                MultiField multiField = mapField(field.getKey(),
+                        new ParsedMapWrapper((Map<String, Object>) field.getValue()));
+                if (multiField != null) {
+                    multiFields.add(multiField);
+                }
+            }
+        }
+        return multiFields;
+    }
+
+    /**
+     * Maps single multi-field.
+     *
+     * @param name
+     *            multi-field name
+     * @param mapping
+     *            multi-field mapping
+     * @return multi-field, or null if it can't be used for filtering
+     */
+    protected MultiField mapField(String name, ParsedMapWrapper mapping) {
+        String type = mapping.stringValue(ElasticConstants.FIELD_DATATYPE_PROPERTY);
+        if (KeywordFieldMapper.CONTENT_TYPE.equals(type)) {
+            boolean docValues = !Boolean.FALSE.toString()
+                    .equals(String.valueOf(mapping.value(DOC_VALUES_PROPERTY)));
+            String normalizer = mapping.stringValue(NORMALIZER_PROPERTY);
+            if (normalizer == null) {
+                return new MultiField(name, Kind.KEYWORD, false, docValues);
+            }
+            List<String> filters = getFilterTypes(ANALYSIS_PREFIX + "normalizer." + normalizer);
+            return filters.equals(Arrays.asList(LOWERCASE))
+                    ? new MultiField(name, Kind.KEYWORD, true, docValues) : null;
+        } else if (TextFieldMapper.CONTENT_TYPE.equals(type)) {
+            String analyzer = mapping.stringValue(ANALYZER_PROPERTY);
+            return analyzer != null ? mapAnalyzer(name, ANALYSIS_PREFIX + "analyzer." + analyzer)
+                    : null;
+        }
+        return null;
+    }
+
+    /**
+     * Maps text multi-field by its custom analyzer.
+     *
+     * @param name
+     *            multi-field name
+     * @param analyzerKey
+     *            analyzer settings key
+     * @return multi-field, or null if analyzer changes the value in other way
+     */
+    private MultiField mapAnalyzer(String name, String analyzerKey) {
+        String tokenizer = settings.get(analyzerKey + TOKENIZER_SETTING);
+        if (tokenizer == null) {
+            return null;
+        }
+        String tokenizerKey = ANALYSIS_PREFIX + "tokenizer." + tokenizer;
+        String tokenizerType = settings.get(tokenizerKey + TYPE_SETTING, tokenizer);
+        List<String> filters = getFilterTypes(analyzerKey);
+        boolean lowercase = filters.remove(LOWERCASE);
+        if (KEYWORD.equals(tokenizerType)) {
+            return mapKeywordAnalyzer(name, analyzerKey, filters, lowercase);
+        } else if (isGram(tokenizerType) && filters.isEmpty()
+                && settings.getAsArray(tokenizerKey + TOKEN_CHARS_SETTING).length == 0) {
+            // grams are built from the whole value only if token chars aren't
+            // restricted
+            return createGramField(name, tokenizerType, tokenizerKey, lowercase);
+        }
+        return null;
+    }
+
+    private MultiField mapKeywordAnalyzer(String name, String analyzerKey, List<String> filters,
+            boolean lowercase) {
+        if (filters.isEmpty()) {
+            return new MultiField(name, Kind.KEYWORD, lowercase);
+        } else if (filters.equals(Arrays.asList(REVERSE))) {
+            return new MultiField(name, Kind.REVERSE, lowercase);
+        } else if (filters.size() == 1 && isGram(filters.get(0))) {
+            String gramFilter = Arrays.stream(settings.getAsArray(analyzerKey + FILTER_SETTING))
+                    .filter(filter -> isGram(getFilterType(filter))).findFirst().get();
+            return createGramField(name, filters.get(0), ANALYSIS_PREFIX + "filter." + gramFilter,
+                    lowercase);
+        }
+        return null;
+    }
+
+    private MultiField createGramField(String name, String type, String key, boolean lowercase) {
+        return new MultiField(name, NGRAM.contains(type) ? Kind.NGRAM : Kind.EDGE_NGRAM, lowercase,
+                settings.getAsInt(key + MIN_GRAM_SETTING, DEFAULT_MIN_GRAM),
+                settings.getAsInt(key + MAX_GRAM_SETTING, DEFAULT_MAX_GRAM));
+    }
+
+    private String getFilterType(String filter) {
+        return settings.get(ANALYSIS_PREFIX + "filter." + filter + TYPE_SETTING, filter);
+    }
+
+    /**
+     * Gets types of filters, custom filters are resolved to their types.
+     *
+     * @param key
+     *            analyzer or normalizer settings key
+     * @return list of filter types
+     */
+    private List<String> getFilterTypes(String key) {
+        return Arrays.stream(settings.getAsArray(key + FILTER_SETTING)).map(this::getFilterType)
+                .collect(Collectors.toList());
+    }
+
+    private static boolean isGram(String type) {
+        return NGRAM.contains(type) || EDGE_NGRAM.contains(type);
+    }
+
+}
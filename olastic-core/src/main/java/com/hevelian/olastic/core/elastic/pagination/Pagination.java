@@ -13,6 +13,7 @@ public class Pagination {
     private int top;
     private int skip;
     private List<Sort> orderBy;
+    private Object[] searchAfter;
 
     /**
      * Initializes pagination with all the data.
@@ -53,4 +54,19 @@ public class Pagination {
     public void setOrderBy(List<Sort> orderBy) {
         this.orderBy = orderBy;
     }
+
+    public Object[] getSearchAfter() {
+        return searchAfter;
+    }
+
+    /**
+     * Sets sort values of the last entity of previous page. Page starts right
+     * after that entity, so sort has to be unique.
+     * 
+     * @param searchAfter
+     *            sort values, or null to start from skip
+     */
+    public void setSearchAfter(Object[] searchAfter) {
+        this.searchAfter = searchAfter;
+    }
 }
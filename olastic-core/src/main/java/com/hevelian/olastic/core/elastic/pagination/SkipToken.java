@@ -0,0 +1,113 @@
+package com.hevelian.olastic.core.elastic.pagination;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
+import org.apache.olingo.server.api.uri.queryoption.TopOption;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Opaque $skiptoken of server-driven paging. It keeps sort values of the last
+ * entity of the page, to continue with search_after from it, and the number
+ * of entities left to return from requested $top.
+ *
+ * @author rdidyk
+ */
+@AllArgsConstructor
+@Getter
+public class SkipToken {
+
+    /** Top value of the token, if number of returned entities isn't limited. */
+    public static final int UNLIMITED = -1;
+
+    private static final String SEARCH_AFTER = "after";
+    private static final String TOP = "top";
+
+    private final Object[] searchAfter;
+    private final int top;
+
+    /**
+     * Encodes token to URL safe string.
+     *
+     * @return encoded token
+     */
+    public String encode() {
+        try {
+            XContentBuilder builder = JsonXContent.contentBuilder().startObject()
+                    .array(SEARCH_AFTER, searchAfter).field(TOP, top).endObject();
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(BytesReference.toBytes(builder.bytes()));
+        } catch (IOException e) {
+            throw new ODataRuntimeException("Unable to encode skip token.", e);
+        }
+    }
+
+    /**
+     * Decodes token from the string, created by {@link #encode()}.
+     *
+     * @param value
+     *            encoded token
+     * @return decoded token
+     * @throws ODataApplicationException
+     *             if value isn't a valid token
+     */
+    public static SkipToken decode(String value) throws ODataApplicationException {
+        SkipToken token = null;
+        try {
+            Map<String, Object> values = XContentHelper
+                    .convertToMap(new BytesArray(Base64.getUrlDecoder().decode(value)), false,
+                            XContentType.JSON)
+                    .v2();
+            Object searchAfter = values.get(SEARCH_AFTER);
+            Object top = values.get(TOP);
+            if (searchAfter instanceof List && top instanceof Number
+                    && ((Number) top).intValue() >= UNLIMITED) {
+                token = new SkipToken(((List<?>) searchAfter).toArray(),
+                        ((Number) top).intValue());
+            }
+        } catch (IllegalArgumentException | ElasticsearchParseException e) {
+            token = null;
+        }
+        if (token == null) {
+            throw new ODataApplicationException(String.format("Invalid $skiptoken '%s'.", value),
+                    HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+        return token;
+    }
+
+    /**
+     * Gets number of entities left to return for the request: top of its
+     * $skiptoken, or $top if it has no token.
+     *
+     * @param uriInfo
+     *            URI info
+     * @return number of entities left, or {@link #UNLIMITED}
+     * @throws ODataApplicationException
+     *             if $skiptoken is invalid
+     */
+    public static int getTop(UriInfo uriInfo) throws ODataApplicationException {
+        SkipTokenOption skipTokenOption = uriInfo.getSkipTokenOption();
+        if (skipTokenOption != null) {
+            return decode(skipTokenOption.getValue()).getTop();
+        }
+        TopOption topOption = uriInfo.getTopOption();
+        return topOption != null ? topOption.getValue() : UNLIMITED;
+    }
+}
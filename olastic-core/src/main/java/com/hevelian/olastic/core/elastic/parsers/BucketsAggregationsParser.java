@@ -1,6 +1,8 @@
 package com.hevelian.olastic.core.elastic.parsers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -14,6 +16,7 @@ import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Bucket;
 import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation.SingleValue;
@@ -21,10 +24,16 @@ import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation.S
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
 import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
+import com.hevelian.olastic.core.elastic.pagination.Sort.Direction;
 import com.hevelian.olastic.core.processors.data.InstanceData;
 
+import lombok.Getter;
+
 /**
- * Class to parse buckets aggregations from Elasticsearch response.
+ * Class to parse buckets aggregations from Elasticsearch response. If groups
+ * are paged by keys, groups up to the keys of previous page are dropped: they
+ * could be matched by documents with many values of grouping field.
  * 
  * @author rdidyk
  */
@@ -33,6 +42,11 @@ public class BucketsAggregationsParser
 
     private String countAlias;
     private Pagination pagination;
+    private final Map<Entity, Object[]> keys = new IdentityHashMap<>();
+    /** Keys of the last group of parsed page. */
+    @Getter
+    private Object[] lastKeys;
+    private boolean hasMore;
 
     /**
      * Constructor.
@@ -52,12 +66,32 @@ public class BucketsAggregationsParser
             ElasticEdmEntitySet entitySet) {
         ElasticEdmEntityType entityType = entitySet.getEntityType();
         EntityCollection entities = new EntityCollection();
-        List<Entity> entityList = getAggregatedEntities(response.getAggregations().asMap(), null,
-                entityType);
-        entities.getEntities().addAll(subList(entityList));
+        Aggregations aggs = response.getAggregations();
+        keys.clear();
+        if (aggs != null) {
+            List<Entity> entityList = getAggregatedEntities(aggs.asMap(), null, entityType);
+            Object[] after = pagination.getSearchAfter();
+            if (after != null) {
+                entityList.removeIf(entity -> compareKeys(keys.get(entity), after) <= 0);
+            }
+            List<Entity> page = subList(entityList);
+            hasMore = page.size() < entityList.size() - pagination.getSkip()
+                    || isTruncated(aggs.asMap());
+            lastKeys = page.isEmpty() ? null : keys.get(page.get(page.size() - 1));
+            entities.getEntities().addAll(page);
+        }
         return new InstanceData<>(entityType, entities);
     }
 
+    /**
+     * Checks whether there are more groups after parsed page.
+     *
+     * @return true if parsed page isn't the last one
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
     /**
      * Method recursively goes through aggregations, creates entities and adds
      * fields to them. When entity has all fields from aggregations it adds to
@@ -75,6 +109,7 @@ public class BucketsAggregationsParser
      */
     protected List<Entity> getAggregatedEntities(Map<String, Aggregation> aggs, Entity parent,
             ElasticEdmEntityType entityType) {
+        Object[] parentKeys = parent != null ? keys.get(parent) : new Object[0];
         List<Entity> entities = new ArrayList<>();
         for (Entry<String, Terms> entry : collectTerms(aggs).entrySet()) {
             for (Bucket bucket : entry.getValue().getBuckets()) {
@@ -84,6 +119,9 @@ public class BucketsAggregationsParser
                 }
                 Property property = createProperty(entry.getKey(), bucket.getKey(), entityType);
                 entity.addProperty(property);
+                Object[] entityKeys = Arrays.copyOf(parentKeys, parentKeys.length + 1);
+                entityKeys[parentKeys.length] = bucket.getKey();
+                keys.put(entity, entityKeys);
                 Map<String, Aggregation> subAggs = bucket.getAggregations().asMap();
                 if (subAggs.isEmpty()) {
                     addAggsAndCountIfNeeded(aggs, bucket.getDocCount(), entity, entityType);
@@ -102,6 +140,65 @@ public class BucketsAggregationsParser
         return entities;
     }
 
+    /**
+     * Compares keys of the group with keys of another group, in grouping
+     * levels order and with directions of pagination sort.
+     *
+     * @param groupKeys
+     *            keys of the group
+     * @param otherKeys
+     *            keys of another group
+     * @return negative value if group goes before another one, zero if they
+     *         are the same, positive value otherwise
+     */
+    protected int compareKeys(Object[] groupKeys, Object[] otherKeys) {
+        List<Sort> orderBy = pagination.getOrderBy();
+        for (int i = 0; i < groupKeys.length && i < otherKeys.length; i++) {
+            int result = compareKey(groupKeys[i], otherKeys[i]);
+            if (result != 0) {
+                return orderBy.get(i).getDirection() == Direction.DESC ? -result : result;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareKey(Object key, Object other) {
+        if (key instanceof Number && other instanceof Number) {
+            Number number = (Number) key;
+            Number otherNumber = (Number) other;
+            return isIntegral(number) && isIntegral(otherNumber)
+                    ? Long.compare(number.longValue(), otherNumber.longValue())
+                    : Double.compare(number.doubleValue(), otherNumber.doubleValue());
+        }
+        return key.toString().compareTo(other.toString());
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer;
+    }
+
+    /**
+     * Checks whether any of terms aggregations left out some of its buckets
+     * because of their size.
+     *
+     * @param aggregations
+     *            aggregations map
+     * @return true if there are more groups than returned
+     */
+    private static boolean isTruncated(Map<String, Aggregation> aggregations) {
+        for (Terms terms : collectTerms(aggregations).values()) {
+            if (terms.getSumOfOtherDocCounts() > 0) {
+                return true;
+            }
+            for (Bucket bucket : terms.getBuckets()) {
+                if (isTruncated(bucket.getAggregations().asMap())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Collects terms.
      * 
@@ -2,19 +2,15 @@ package com.hevelian.olastic.core.elastic.parsers;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
-import com.hevelian.olastic.core.edm.ElasticEdmProperty;
 import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
 import com.hevelian.olastic.core.processors.data.InstanceData;
-import com.hevelian.olastic.core.utils.ProcessorUtils;
 import org.apache.olingo.commons.api.data.AbstractEntityCollection;
-import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.search.SearchHit;
 
-import java.util.Map;
-
 /**
  * Parser class for collection of entities.
  * 
@@ -41,19 +37,7 @@ public class EntityCollectionParser
         ElasticEdmEntityType entityType = entitySet.getEntityType();
         EntityCollection entities = new EntityCollection();
         for (SearchHit hit : response.getHits()) {
-            Map<String, Object> source = hit.getSource();
-
-            Entity entity = new Entity();
-            entity.setId(ProcessorUtils.createId(entityType.getName(), hit.getId()));
-            entity.addProperty(
-                    createProperty(ElasticConstants.ID_FIELD_NAME, hit.getId(), entityType));
-
-            for (Map.Entry<String, Object> entry : source.entrySet()) {
-                ElasticEdmProperty edmProperty = entityType.findPropertyByEField(entry.getKey());
-                entity.addProperty(
-                        createProperty(edmProperty.getName(), entry.getValue(), entityType));
-            }
-            entities.getEntities().add(entity);
+            entities.getEntities().add(createEntity(hit, entitySet));
         }
         if (isCount()) {
             entities.setCount((int) response.getHits().getTotalHits());
@@ -61,6 +45,61 @@ public class EntityCollectionParser
         return new InstanceData<>(entityType, entities);
     }
 
+    /**
+     * Parses response to the collection, which keeps hits of entities to
+     * write their sources without creating entities.
+     * 
+     * @param response
+     *            Elasticsearch response
+     * @param entitySet
+     *            the edm entity set
+     * @return instance data with collection of hits
+     */
+    public InstanceData<EdmEntityType, AbstractEntityCollection> parseSources(
+            SearchResponse response, ElasticEdmEntitySet entitySet) {
+        ElasticEdmEntityType entityType = entitySet.getEntityType();
+        return new InstanceData<>(entityType,
+                new SourceEntityCollection(entityType, response.getHits().getHits(),
+                        isCount() ? (int) response.getHits().getTotalHits() : null,
+                        hit -> createEntity(hit, entitySet)));
+    }
+
+    /**
+     * Parses response with first batch of the scroll to the iterator, which
+     * retrieves next batches of the scroll while entities are consumed.
+     * 
+     * @param response
+     *            response with first batch of the scroll
+     * @param entitySet
+     *            the edm entity set
+     * @return instance data with entity iterator
+     */
+    public InstanceData<EdmEntityType, AbstractEntityCollection> parseScroll(
+            SearchResponse response, ElasticEdmEntitySet entitySet) {
+        return new InstanceData<>(entitySet.getEntityType(), new ScrollEntityIterator(response,
+                hit -> createEntity(hit, entitySet), isCount()));
+    }
+
+    /**
+     * Creates iterator over entities of the sliced scroll of the query.
+     * Entities are created from hits by threads of the slices.
+     * 
+     * @param query
+     *            search query
+     * @param slices
+     *            number of slices, zero if query matches no documents
+     * @param entitySet
+     *            the edm entity set
+     * @return instance data with entity iterator
+     */
+    public InstanceData<EdmEntityType, AbstractEntityCollection> parseSlicedScroll(
+            SearchQuery query, int slices, ElasticEdmEntitySet entitySet) {
+        return new InstanceData<>(entitySet.getEntityType(),
+                new SlicedScrollEntityIterator(query, slices,
+                        ElasticConstants.DEFAULT_SCROLL_SIZE,
+                        hit -> createEntity(hit, entitySet)));
+    }
+
     public boolean isCount() {
         return count;
     }
@@ -2,10 +2,7 @@ package com.hevelian.olastic.core.elastic.parsers;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
-import com.hevelian.olastic.core.edm.ElasticEdmProperty;
-import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.processors.data.InstanceData;
-import com.hevelian.olastic.core.utils.ProcessorUtils;
 import org.apache.http.HttpStatus;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
@@ -15,7 +12,6 @@ import org.elasticsearch.search.SearchHit;
 
 import java.util.Iterator;
 import java.util.Locale;
-import java.util.Map;
 
 /**
  * Parser class for single entity.
@@ -30,19 +26,7 @@ public class EntityParser extends SingleResponseParser<EdmEntityType, Entity> {
         ElasticEdmEntityType entityType = entitySet.getEntityType();
         Iterator<SearchHit> hits = response.getHits().iterator();
         if (hits.hasNext()) {
-            SearchHit firstHit = hits.next();
-            Map<String, Object> source = firstHit.getSource();
-
-            Entity entity = new Entity();
-            entity.setId(ProcessorUtils.createId(entityType.getName(), firstHit.getId()));
-            entity.addProperty(
-                    createProperty(ElasticConstants.ID_FIELD_NAME, firstHit.getId(), entityType));
-
-            for (Map.Entry<String, Object> entry : source.entrySet()) {
-                ElasticEdmProperty edmProperty = entityType.findPropertyByEField(entry.getKey());
-                entity.addProperty(
-                        createProperty(edmProperty.getName(), entry.getValue(), entityType));
-            }
+            Entity entity = createEntity(hits.next(), entitySet);
             return new InstanceData<>(entityType, entity);
         } else {
             throw new ODataApplicationException("No data found", HttpStatus.SC_NOT_FOUND,
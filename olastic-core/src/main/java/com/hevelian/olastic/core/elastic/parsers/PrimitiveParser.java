@@ -5,11 +5,14 @@ import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
 import com.hevelian.olastic.core.edm.ElasticEdmProperty;
 import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.processors.data.InstanceData;
+import org.apache.http.HttpStatus;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.server.api.ODataApplicationException;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.search.SearchHit;
 
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -22,8 +25,12 @@ public class PrimitiveParser extends SingleResponseParser<EdmPrimitiveType, Prop
 
     @Override
     public InstanceData<EdmPrimitiveType, Property> parse(SearchResponse response,
-            ElasticEdmEntitySet entitySet) {
+            ElasticEdmEntitySet entitySet) throws ODataApplicationException {
         ElasticEdmEntityType entityType = entitySet.getEntityType();
+        if (response.getHits().getHits().length == 0) {
+            throw new ODataApplicationException("No data found", HttpStatus.SC_NOT_FOUND,
+                    Locale.ROOT);
+        }
         SearchHit firstHit = response.getHits().getAt(0);
 
         ElasticEdmProperty edmProperty;
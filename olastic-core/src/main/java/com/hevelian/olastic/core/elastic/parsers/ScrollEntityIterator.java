@@ -0,0 +1,132 @@
+package com.hevelian.olastic.core.elastic.parsers;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+
+import com.hevelian.olastic.core.elastic.ESClient;
+
+/**
+ * Iterator over entities of the scroll. Batches are retrieved lazily, when
+ * entities of previous one are consumed, so only one batch is kept in memory.
+ * Scroll is cleared when all of its documents are consumed, when retrieving a
+ * batch fails, or when {@link #close()} is called.
+ * 
+ * @author rdidyk
+ */
+public class ScrollEntityIterator extends EntityIterator {
+
+    private final Function<SearchHit, Entity> entityCreator;
+    private final long total;
+    private final Integer count;
+    private SearchHit[] hits;
+    private int index;
+    private long retrieved;
+    private String scrollId;
+
+    /**
+     * Constructor to initialize values.
+     * 
+     * @param response
+     *            response with first batch of the scroll
+     * @param entityCreator
+     *            function to create entity from the hit
+     * @param isCount
+     *            whether total number of entities is requested
+     */
+    public ScrollEntityIterator(SearchResponse response,
+            Function<SearchHit, Entity> entityCreator, boolean isCount) {
+        this.entityCreator = entityCreator;
+        this.total = response.getHits().getTotalHits();
+        this.count = isCount ? (int) total : null;
+        this.hits = response.getHits().getHits();
+        this.retrieved = hits.length;
+        this.scrollId = response.getScrollId();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index == hits.length && scrollId != null) {
+            nextBatch();
+        }
+        return index < hits.length;
+    }
+
+    @Override
+    public Entity next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return entityCreator.apply(hits[index++]);
+    }
+
+    @Override
+    public Integer getCount() {
+        return count;
+    }
+
+    @Override
+    public URI getNext() {
+        return null;
+    }
+
+    /**
+     * Clears the scroll, if it's still open.
+     */
+    public void close() {
+        if (scrollId != null) {
+            clearScroll(scrollId);
+            scrollId = null;
+        }
+    }
+
+    private void nextBatch() {
+        SearchHit[] batch = new SearchHit[0];
+        if (retrieved < total) {
+            boolean isRetrieved = false;
+            try {
+                SearchResponse response = continueScroll(scrollId);
+                scrollId = response.getScrollId();
+                batch = response.getHits().getHits();
+                isRetrieved = true;
+            } finally {
+                if (!isRetrieved) {
+                    close();
+                }
+            }
+        }
+        hits = batch;
+        index = 0;
+        retrieved += batch.length;
+        if (batch.length == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Retrieves next batch of the scroll.
+     * 
+     * @param id
+     *            scroll id
+     * @return response with next batch
+     */
+    protected SearchResponse continueScroll(String id) {
+        return ESClient.getInstance().continueScroll(id);
+    }
+
+    /**
+     * Clears the scroll.
+     * 
+     * @param id
+     *            scroll id
+     */
+    protected void clearScroll(String id) {
+        ESClient.getInstance().clearScroll(id);
+    }
+
+}
@@ -2,15 +2,32 @@ package com.hevelian.olastic.core.elastic.parsers;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.edm.HitDecoder;
 import com.hevelian.olastic.core.edm.PropertyCreator;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.processors.data.InstanceData;
+import com.hevelian.olastic.core.utils.ProcessorUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 
 /**
  * Abstract parser with common behavior for all parsers.
@@ -46,6 +63,78 @@ public abstract class SingleResponseParser<T, V> implements ESResponseParser<T,
         return propertyCreator.createProperty(name, value, entityType);
     }
 
+    /**
+     * Creates entity from search hit. Source of the hit is decoded to
+     * properties without reading it to a map. Inner hits of the hit are
+     * linked to the entity as expanded navigation properties, or set as
+     * nested collection properties, named the same as inner hits.
+     *
+     * @param hit
+     *            search hit
+     * @param entitySet
+     *            entity set of the hit
+     * @return entity instance
+     */
+    protected Entity createEntity(SearchHit hit, ElasticEdmEntitySet entitySet) {
+        ElasticEdmEntityType entityType = entitySet.getEntityType();
+        HitDecoder decoder = entityType.getHitDecoder();
+        Entity entity = new Entity();
+        entity.setId(ProcessorUtils.createId(entityType.getName(), hit.getId()));
+        entity.addProperty(decoder.decode(ElasticConstants.ID_FIELD_NAME, hit.getId()));
+        if (hit.hasSource()) {
+            try {
+                decoder.decodeSource(hit.getSourceRef(), entity);
+            } catch (IOException e) {
+                throw new ODataRuntimeException(
+                        String.format("Unable to parse source of hit '%s'.", hit.getId()), e);
+            }
+        }
+        if (hit.getInnerHits() != null) {
+            addInnerHits(entity, hit.getInnerHits(), entitySet);
+        }
+        return entity;
+    }
+
+    private void addInnerHits(Entity entity, Map<String, SearchHits> innerHits,
+            ElasticEdmEntitySet entitySet) {
+        HitDecoder decoder = entitySet.getEntityType().getHitDecoder();
+        // matched nested objects of each field by their offset in collection
+        Map<String, SortedMap<Integer, Object>> nestedObjects = new LinkedHashMap<>();
+        for (Map.Entry<String, SearchHits> entry : innerHits.entrySet()) {
+            String field = StringUtils.substringBefore(entry.getKey(),
+                    ElasticConstants.INNER_HITS_NAME_SEPARATOR);
+            if (decoder.hasProperty(field)) {
+                SortedMap<Integer, Object> objects = nestedObjects.computeIfAbsent(field,
+                        key -> new TreeMap<>());
+                for (SearchHit innerHit : entry.getValue()) {
+                    objects.put(innerHit.getNestedIdentity().getOffset(), innerHit.getSource());
+                }
+            } else {
+                addLink(entity, entry.getKey(), entry.getValue(), entitySet);
+            }
+        }
+        for (Map.Entry<String, SortedMap<Integer, Object>> entry : nestedObjects.entrySet()) {
+            entity.addProperty(
+                    decoder.decode(entry.getKey(), new ArrayList<>(entry.getValue().values())));
+        }
+    }
+
+    private void addLink(Entity entity, String navigation, SearchHits hits,
+            ElasticEdmEntitySet entitySet) {
+        EdmBindingTarget target = entitySet.getRelatedBindingTarget(navigation);
+        if (target instanceof ElasticEdmEntitySet) {
+            EntityCollection related = new EntityCollection();
+            for (SearchHit hit : hits) {
+                related.getEntities().add(createEntity(hit, (ElasticEdmEntitySet) target));
+            }
+            related.setCount((int) hits.getTotalHits());
+            Link link = new Link();
+            link.setTitle(navigation);
+            link.setInlineEntitySet(related);
+            entity.getNavigationLinks().add(link);
+        }
+    }
+
     @Override
     public InstanceData<T, V> parse(SearchResponse response,
             List<ElasticEdmEntitySet> responseEntitySets, ElasticEdmEntitySet returnEntitySet)
@@ -0,0 +1,272 @@
+package com.hevelian.olastic.core.elastic.parsers;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+
+import com.hevelian.olastic.core.elastic.ESClient;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+/**
+ * Iterator over entities of the sliced scroll. Every slice is scrolled by a
+ * thread of the executor shared by all iterators, which has at most
+ * {@link ElasticConstants#MAX_SCROLL_THREADS} threads. Thread converts hits
+ * to entities and puts them to a bounded queue of batches, so slices are
+ * retrieved in parallel, but never run ahead of the consumer for more than a
+ * few batches. Slices are started with the first {@link #hasNext()} call.
+ * Entities of different slices are mixed in no particular order. First
+ * failure of any slice stops all other slices and fails the iteration.
+ *
+ * @author rdidyk
+ */
+public class SlicedScrollEntityIterator extends EntityIterator {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private final SearchQuery query;
+    private final int slices;
+    private final int size;
+    private final Function<SearchHit, Entity> entityCreator;
+    private final BlockingQueue<List<Entity>> batches;
+    private final List<SliceTask> producers = new ArrayList<>();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private boolean isStarted;
+    private Iterator<Entity> batch = Collections.emptyIterator();
+
+    /**
+     * Constructor to initialize values.
+     *
+     * @param query
+     *            search query
+     * @param slices
+     *            number of slices scrolled in parallel, zero if query matches
+     *            no documents
+     * @param size
+     *            number of documents in one batch of a slice
+     * @param entityCreator
+     *            function to create entity from the hit
+     */
+    public SlicedScrollEntityIterator(SearchQuery query, int slices, int size,
+            Function<SearchHit, Entity> entityCreator) {
+        this.query = query;
+        this.slices = slices;
+        this.size = size;
+        this.entityCreator = entityCreator;
+        this.batches = new ArrayBlockingQueue<>(Math.max(1, 2 * slices));
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger number = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "olastic-scroll-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                ElasticConstants.MAX_SCROLL_THREADS, ElasticConstants.MAX_SCROLL_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isStarted) {
+            start();
+        }
+        while (!batch.hasNext()) {
+            checkFailure();
+            List<Entity> next = poll();
+            if (next != null) {
+                batch = next.iterator();
+            } else if (isFinished()) {
+                checkFailure();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Entity next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    @Override
+    public URI getNext() {
+        return null;
+    }
+
+    /**
+     * Stops scrolling of all slices, slices waiting for a thread are never
+     * started. Scrolls are cleared by threads of the slices.
+     */
+    public void close() {
+        producers.forEach(producer -> producer.cancel(true));
+    }
+
+    private void start() {
+        isStarted = true;
+        for (int i = 0; i < slices; i++) {
+            int slice = i;
+            SliceTask producer = new SliceTask(() -> scroll(slice));
+            producers.add(producer);
+            EXECUTOR.execute(producer);
+        }
+    }
+
+    private Void scroll(int slice) throws ODataApplicationException, InterruptedException {
+        String scrollId = null;
+        try {
+            SearchResponse response = openSlice(slice);
+            scrollId = response.getScrollId();
+            SearchHit[] hits = response.getHits().getHits();
+            while (hits.length > 0 && failure.get() == null) {
+                List<Entity> entities = new ArrayList<>(hits.length);
+                for (SearchHit hit : hits) {
+                    entities.add(entityCreator.apply(hit));
+                }
+                batches.put(entities);
+                response = continueScroll(scrollId);
+                scrollId = response.getScrollId();
+                hits = response.getHits().getHits();
+            }
+        } finally {
+            if (scrollId != null) {
+                clearUninterrupted(scrollId);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Clears the scroll even if slice is cancelled: interrupted flag is reset
+     * during the request, as interrupted request fails at once.
+     *
+     * @param scrollId
+     *            scroll id
+     */
+    private void clearUninterrupted(String scrollId) {
+        boolean isInterrupted = Thread.interrupted();
+        try {
+            clearScroll(scrollId);
+        } finally {
+            if (isInterrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private List<Entity> poll() {
+        try {
+            return batches.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new ODataRuntimeException("Interrupted while waiting for scroll.", e);
+        }
+    }
+
+    private void checkFailure() {
+        Exception error = failure.get();
+        if (error != null) {
+            close();
+            throw new ODataRuntimeException("Failed to scroll slice: " + error.getMessage(),
+                    error);
+        }
+    }
+
+    private boolean isFinished() {
+        for (SliceTask producer : producers) {
+            if (!producer.isDone()) {
+                return false;
+            }
+        }
+        return batches.isEmpty();
+    }
+
+    /**
+     * Opens scroll of the slice.
+     *
+     * @param slice
+     *            id of the slice
+     * @return response with first batch of the slice
+     * @throws ODataApplicationException
+     *             if any error appeared during executing request
+     */
+    protected SearchResponse openSlice(int slice) throws ODataApplicationException {
+        return ESClient.getInstance().executeScroll(query, size, slice, slices);
+    }
+
+    /**
+     * Retrieves next batch of the scroll.
+     *
+     * @param id
+     *            scroll id
+     * @return response with next batch
+     */
+    protected SearchResponse continueScroll(String id) {
+        return ESClient.getInstance().continueScroll(id);
+    }
+
+    /**
+     * Clears the scroll.
+     *
+     * @param id
+     *            scroll id
+     */
+    protected void clearScroll(String id) {
+        ESClient.getInstance().clearScroll(id);
+    }
+
+    /**
+     * Task, which scrolls one slice and records its failure, so other slices
+     * stop at once.
+     */
+    private class SliceTask extends FutureTask<Void> {
+
+        SliceTask(Callable<Void> callable) {
+            super(callable);
+        }
+
+        @Override
+        protected void setException(Throwable error) {
+            if (!isCancelled()) {
+                failure.compareAndSet(null, error instanceof Exception ? (Exception) error
+                        : new ExecutionException(error));
+            }
+            super.setException(error);
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.hevelian.olastic.core.elastic.parsers;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Operation;
+import org.elasticsearch.search.SearchHit;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Collection of entities, which are kept as search hits. JSON serializer
+ * writes sources of the hits right to the response, so entities are created
+ * only if the collection is iterated by any other serializer.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class SourceEntityCollection extends AbstractEntityCollection {
+
+    private final ElasticEdmEntityType entityType;
+    private final SearchHit[] hits;
+    private final Integer count;
+    @Setter
+    private URI next;
+    private final List<Operation> operations = new ArrayList<>();
+    private final Function<SearchHit, Entity> entityCreator;
+
+    /**
+     * Constructor to initialize values.
+     *
+     * @param entityType
+     *            type of entities
+     * @param hits
+     *            hits of the entities
+     * @param count
+     *            total number of entities, or null if it isn't requested
+     * @param entityCreator
+     *            function to create entity from the hit
+     */
+    public SourceEntityCollection(ElasticEdmEntityType entityType, SearchHit[] hits,
+            Integer count, Function<SearchHit, Entity> entityCreator) {
+        this.entityType = entityType;
+        this.hits = hits;
+        this.count = count;
+        this.entityCreator = entityCreator;
+    }
+
+    @Override
+    public URI getDeltaLink() {
+        return null;
+    }
+
+    @Override
+    public Iterator<Entity> iterator() {
+        return Arrays.stream(hits).map(entityCreator).iterator();
+    }
+
+}
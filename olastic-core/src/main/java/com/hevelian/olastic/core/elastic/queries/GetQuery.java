@@ -0,0 +1,46 @@
+package com.hevelian.olastic.core.elastic.queries;
+
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Query to get documents by their ids. Documents form a chain of parent/child
+ * documents: each document is a child of the previous one, and the last one
+ * is requested document. Types and ids of the documents are in the same
+ * order.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class GetQuery extends Query {
+
+    @NonNull
+    private final String[] ids;
+    @NonNull
+    private final Set<String> fields;
+
+    /**
+     * Constructor to initialize parameters.
+     *
+     * @param index
+     *            index name
+     * @param types
+     *            types of the documents
+     * @param ids
+     *            ids of the documents
+     * @param fields
+     *            fields of requested document to retrieve, empty to retrieve
+     *            all fields
+     */
+    public GetQuery(String index, String[] types, String[] ids, Set<String> fields) {
+        super(index, types,
+                idsQuery(types[types.length - 1]).addIds(ids[ids.length - 1]), null);
+        this.ids = ids;
+        this.fields = fields;
+    }
+
+}
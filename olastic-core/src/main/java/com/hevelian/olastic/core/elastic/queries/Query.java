@@ -4,7 +4,6 @@ import org.elasticsearch.index.query.QueryBuilder;
 
 import com.hevelian.olastic.core.elastic.pagination.Pagination;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -14,7 +13,6 @@ import lombok.Setter;
  * 
  * @author rdidyk
  */
-@AllArgsConstructor
 @Getter
 @Setter
 public class Query {
@@ -26,5 +24,28 @@ public class Query {
     @NonNull
     private QueryBuilder queryBuilder;
     private Pagination pagination;
+    private int terminateAfter;
+    @NonNull
+    private String[] routing = new String[0];
+
+    /**
+     * Constructor to initialize parameters.
+     * 
+     * @param index
+     *            index name
+     * @param types
+     *            types name
+     * @param queryBuilder
+     *            main query builder
+     * @param pagination
+     *            pagination
+     */
+    public Query(@NonNull String index, @NonNull String[] types,
+            @NonNull QueryBuilder queryBuilder, Pagination pagination) {
+        this.index = index;
+        this.types = types;
+        this.queryBuilder = queryBuilder;
+        this.pagination = pagination;
+    }
 
 }
@@ -1,5 +1,6 @@
 package com.hevelian.olastic.core.elastic.queries;
 
+import java.util.Collections;
 import java.util.Set;
 
 import org.elasticsearch.index.query.QueryBuilder;
@@ -8,6 +9,7 @@ import com.hevelian.olastic.core.elastic.pagination.Pagination;
 
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 
 /**
  * Search query with fields.
@@ -19,6 +21,9 @@ public class SearchQuery extends Query {
 
     @NonNull
     private final Set<String> fields;
+    @Setter
+    @NonNull
+    private Set<String> excludedFields = Collections.emptySet();
 
     /**
      * Constructor to initialize parameters.
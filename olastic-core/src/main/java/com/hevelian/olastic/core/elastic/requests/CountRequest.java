@@ -0,0 +1,146 @@
+package com.hevelian.olastic.core.elastic.requests;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.ESClient;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+import lombok.Getter;
+
+/**
+ * Request to count documents of search query without retrieving any of them.
+ * Response has only total hits. Count can be estimated: the first shard
+ * counts matched documents only until sample size is reached, in index order,
+ * and position of the last counted document shows which part of the shard
+ * was visited for them. Matched share of visited documents is extrapolated
+ * to all documents of the index, so estimation costs about the same for any
+ * number of matched documents. If the sampled shard has fewer matches than
+ * sample size, documents are counted exactly.
+ *
+ * @author rdidyk
+ */
+public class CountRequest extends BaseRequest {
+
+    private static final String SAMPLED_SHARD = "_shards:0";
+
+    private final int sampleSize;
+    @Getter
+    private boolean isEstimated;
+
+    /**
+     * Constructor to initialize values of exact count.
+     *
+     * @param query
+     *            search query, its pagination is ignored
+     * @param entitySet
+     *            the edm entity set
+     */
+    public CountRequest(SearchQuery query, ElasticEdmEntitySet entitySet) {
+        this(query, entitySet, 0);
+    }
+
+    /**
+     * Constructor to initialize values.
+     *
+     * @param query
+     *            search query, its pagination is ignored
+     * @param entitySet
+     *            the edm entity set
+     * @param sampleSize
+     *            number of matched documents counted on the sampled shard,
+     *            zero to count exactly
+     */
+    public CountRequest(SearchQuery query, ElasticEdmEntitySet entitySet, int sampleSize) {
+        super(query, entitySet, null);
+        this.sampleSize = sampleSize;
+    }
+
+    @Override
+    public SearchResponse execute() throws ODataApplicationException {
+        // routed query already visits only shards with its documents
+        if (sampleSize > 0 && getQuery().getRouting().length == 0) {
+            SearchResponse sample = searchSample();
+            SearchHit[] hits = sample.getHits().getHits();
+            if (Boolean.TRUE.equals(sample.isTerminatedEarly()) && hits.length > 0) {
+                long visited = ((Number) hits[0].getSortValues()[0]).longValue() + 1;
+                isEstimated = true;
+                return createResponse(estimate(sample.getHits().getTotalHits(), visited,
+                        getIndexDocuments()), sample);
+            }
+        }
+        return ESClient.getInstance().executeCount(getQuery());
+    }
+
+    @Override
+    public SearchQuery getQuery() {
+        return (SearchQuery) super.getQuery();
+    }
+
+    /**
+     * Counts matched documents of the first shard until sample size is
+     * reached. The only retrieved hit is the last counted one, which sort
+     * value is its position in the shard.
+     *
+     * @return response of the sample
+     * @throws ODataApplicationException
+     *             if any error appeared during executing request
+     */
+    protected SearchResponse searchSample() throws ODataApplicationException {
+        SearchQuery query = getQuery();
+        ESClient client = ESClient.getInstance();
+        SearchRequestBuilder request = client.getClient().prepareSearch(query.getIndex())
+                .setTypes(query.getTypes()).setQuery(query.getQueryBuilder()).setSize(1)
+                .setFetchSource(false).setPreference(SAMPLED_SHARD)
+                .setTerminateAfter(sampleSize).addSort(SortBuilders
+                        .fieldSort(FieldSortBuilder.DOC_FIELD_NAME).order(SortOrder.DESC));
+        return client.executeRequest(request);
+    }
+
+    /**
+     * Gets number of all documents in primary shards of the index, including
+     * deleted and nested ones, as they all take positions in shards.
+     *
+     * @return number of documents of the index
+     */
+    protected long getIndexDocuments() {
+        CommonStats stats = ESClient.getInstance().getClient().admin().indices()
+                .prepareStats(getQuery().getIndex()).clear().setDocs(true).get()
+                .getPrimaries();
+        return stats.getDocs().getCount() + stats.getDocs().getDeleted();
+    }
+
+    /**
+     * Extrapolates count of matched documents in the sample to the whole
+     * index.
+     *
+     * @param sampled
+     *            number of matched documents in the sample
+     * @param visited
+     *            number of documents visited to find them
+     * @param total
+     *            number of documents of the index
+     * @return estimated count, not less than the sampled one
+     */
+    protected static long estimate(long sampled, long visited, long total) {
+        return Math.max(sampled, Math.round((double) sampled * total / visited));
+    }
+
+    private static SearchResponse createResponse(long count, SearchResponse sample) {
+        return new SearchResponse(new InternalSearchResponse(
+                new SearchHits(new SearchHit[0], count, 0), null, null, null, false, null, 1),
+                null, sample.getTotalShards(), sample.getSuccessfulShards(),
+                sample.getTookInMillis(), ShardSearchFailure.EMPTY_ARRAY);
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.hevelian.olastic.core.elastic.requests;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.get.GetField;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.ESClient;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.queries.GetQuery;
+
+/**
+ * Request to get document by key with realtime get, or multi get if document
+ * is addressed through its parents. Response is converted to search response
+ * with a single hit, so it's parsed the same way as search response.
+ *
+ * @author rdidyk
+ */
+public class GetRequest extends BaseRequest {
+
+    /**
+     * Constructor to initialize values.
+     *
+     * @param query
+     *            get query
+     * @param entitySet
+     *            the edm entity set of requested document
+     */
+    public GetRequest(GetQuery query, ElasticEdmEntitySet entitySet) {
+        super(query, entitySet, null);
+    }
+
+    @Override
+    public SearchResponse execute() throws ODataApplicationException {
+        return toSearchResponse(ESClient.getInstance().executeRequest(getQuery()));
+    }
+
+    @Override
+    public GetQuery getQuery() {
+        return (GetQuery) super.getQuery();
+    }
+
+    /**
+     * Converts get responses of the documents chain to search response. It
+     * has a hit of requested document, if all documents exist and each of
+     * them is a child of the previous one, otherwise it has no hits.
+     *
+     * @param responses
+     *            get responses of the documents in query order
+     * @return search response
+     */
+    protected SearchResponse toSearchResponse(List<GetResponse> responses) {
+        boolean isFound = true;
+        for (int i = 0; i < responses.size() && isFound; i++) {
+            GetResponse response = responses.get(i);
+            isFound = response.isExists()
+                    && (i == 0 || isChildOf(response, responses.get(i - 1).getId()));
+        }
+        SearchHit[] hits = new SearchHit[0];
+        if (isFound) {
+            GetResponse response = responses.get(responses.size() - 1);
+            SearchHit hit = new SearchHit(0, response.getId(), new Text(response.getType()),
+                    Collections.emptyMap());
+            hit.sourceRef(response.getSourceAsBytesRef());
+            hits = new SearchHit[] { hit };
+        }
+        return new SearchResponse(new InternalSearchResponse(
+                new SearchHits(hits, hits.length, 0), null, null, null, false, null, 1), null, 1,
+                1, 0, ShardSearchFailure.EMPTY_ARRAY);
+    }
+
+    private static boolean isChildOf(GetResponse response, String parentId) {
+        GetField parent = response.getField(ElasticConstants.PARENT_PROPERTY);
+        return parent != null && parentId.equals(String.valueOf(parent.getValue()));
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.hevelian.olastic.core.elastic.requests;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.action.search.SearchResponse;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.ESClient;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+/**
+ * Request to scroll all documents of search query. Execution opens the scroll
+ * and returns its first batch, next batches are retrieved by scroll id of the
+ * response.
+ * 
+ * @author rdidyk
+ */
+public class ScrollRequest extends BaseRequest {
+
+    private final int size;
+
+    /**
+     * Constructor to initialize values.
+     * 
+     * @param query
+     *            search query, its pagination is ignored
+     * @param entitySet
+     *            the edm entity set
+     * @param size
+     *            number of documents in one batch
+     */
+    public ScrollRequest(SearchQuery query, ElasticEdmEntitySet entitySet, int size) {
+        super(query, entitySet, null);
+        this.size = size;
+    }
+
+    @Override
+    public SearchResponse execute() throws ODataApplicationException {
+        return ESClient.getInstance().executeScroll(getQuery(), size);
+    }
+
+    @Override
+    public SearchQuery getQuery() {
+        return (SearchQuery) super.getQuery();
+    }
+
+}
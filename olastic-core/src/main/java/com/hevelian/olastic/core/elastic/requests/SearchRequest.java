@@ -1,15 +1,21 @@
 package com.hevelian.olastic.core.elastic.requests;
 
+import java.util.List;
+
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.elastic.ESClient;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
 import com.hevelian.olastic.core.elastic.queries.SearchQuery;
 
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.elasticsearch.action.search.SearchResponse;
 
 /**
- * Search request with search query and pagination.
+ * Search request with search query and pagination. Deep $skip is done with
+ * search_after instead of from/size: skipped hits are walked over without
+ * _source, and the page is searched after the last of them.
  * 
  * @author rdidyk
  */
@@ -31,6 +37,14 @@ public class SearchRequest extends BaseRequest {
 
     @Override
     public SearchResponse execute() throws ODataApplicationException {
+        Pagination pagination = getPagination();
+        if (isDeepSkip(pagination)) {
+            addTiebreaker(pagination);
+            Object[] searchAfter = ESClient.getInstance().executeSkip(getQuery(),
+                    pagination.getSkip(), ElasticConstants.MAX_RESULT_WINDOW);
+            pagination.setSkip(Pagination.SKIP_DEFAULT);
+            pagination.setSearchAfter(searchAfter);
+        }
         return ESClient.getInstance().executeRequest(getQuery());
     }
 
@@ -39,4 +53,38 @@ public class SearchRequest extends BaseRequest {
         return (SearchQuery) super.getQuery();
     }
 
+    /**
+     * Checks whether $skip of pagination has to be done with search_after. It's
+     * when skip reaches deep skip threshold of entity set, or requested page
+     * doesn't fit max_result_window.
+     * 
+     * @param pagination
+     *            pagination, can be null
+     * @return true if skip is deep
+     */
+    protected boolean isDeepSkip(Pagination pagination) {
+        if (pagination == null || pagination.getSearchAfter() != null
+                || pagination.getSkip() == 0) {
+            return false;
+        }
+        int skip = pagination.getSkip();
+        return skip >= getEntitySet().getDeepSkipThreshold()
+                || skip + pagination.getTop() > ElasticConstants.MAX_RESULT_WINDOW;
+    }
+
+    /**
+     * Adds unique field to the end of sort, unless it's already there, so
+     * search_after continues exactly after the last skipped hit.
+     * 
+     * @param pagination
+     *            pagination to add sort to
+     */
+    protected static void addTiebreaker(Pagination pagination) {
+        List<Sort> orderBy = pagination.getOrderBy();
+        if (orderBy.isEmpty() || !ElasticConstants.UID_FIELD_NAME
+                .equals(orderBy.get(orderBy.size() - 1).getProperty())) {
+            orderBy.add(new Sort(ElasticConstants.UID_FIELD_NAME));
+        }
+    }
+
 }
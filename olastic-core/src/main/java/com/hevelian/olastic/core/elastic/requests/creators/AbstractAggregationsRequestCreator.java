@@ -18,6 +18,7 @@ import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitEx
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.PrimitiveMember;
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.elastic.builders.ESQueryBuilder;
 
 /**
@@ -56,12 +57,14 @@ public abstract class AbstractAggregationsRequestCreator extends SingleRequestCr
      * 
      * @param aggregations
      *            list of aggregations
+     * @param entitySet
+     *            entity set aggregations are applied to
      * @return list of queries
      * @throws ODataApplicationException
      *             if any error occurred
      */
-    protected List<AggregationBuilder> getMetricsAggQueries(List<Aggregate> aggregations)
-            throws ODataApplicationException {
+    protected List<AggregationBuilder> getMetricsAggQueries(List<Aggregate> aggregations,
+            ElasticEdmEntitySet entitySet) throws ODataApplicationException {
         List<AggregateExpression> expressions = aggregations.stream()
                 .flatMap(agg -> agg.getExpressions().stream()).collect(Collectors.toList());
         List<AggregationBuilder> aggs = new ArrayList<>();
@@ -74,8 +77,8 @@ public abstract class AbstractAggregationsRequestCreator extends SingleRequestCr
                 String alias = aggExpression.getAlias();
                 Expression expr = aggExpression.getExpression();
                 if (expr != null) {
-                    String field = ((PrimitiveMember) expr.accept(getExpressionVisitor()))
-                            .getField();
+                    String field = ((PrimitiveMember) expr
+                            .accept(getExpressionVisitor(entitySet))).getField();
                     aggs.add(getAggQuery(aggExpression.getStandardMethod(), alias, field));
                     metricAliases.add(alias);
                 } else {
@@ -1,6 +1,6 @@
 package com.hevelian.olastic.core.elastic.requests.creators;
 
-import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addKeywordIfNeeded;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addDocValuesKeywordIfNeeded;
 import static com.hevelian.olastic.core.utils.ApplyOptionUtils.getAggregations;
 import static com.hevelian.olastic.core.utils.ApplyOptionUtils.getGroupByItems;
 import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
@@ -20,8 +20,13 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.UriResourceKind;
+import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
 import org.apache.olingo.server.api.uri.queryoption.apply.GroupBy;
 import org.apache.olingo.server.api.uri.queryoption.apply.GroupByItem;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms.Order;
@@ -32,6 +37,7 @@ import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
 import com.hevelian.olastic.core.edm.ElasticEdmProperty;
 import com.hevelian.olastic.core.elastic.builders.ESQueryBuilder;
 import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.SkipToken;
 import com.hevelian.olastic.core.elastic.pagination.Sort;
 import com.hevelian.olastic.core.elastic.pagination.Sort.Direction;
 import com.hevelian.olastic.core.elastic.queries.AggregateQuery;
@@ -41,12 +47,20 @@ import com.hevelian.olastic.core.elastic.requests.ESRequest;
 
 /**
  * Class responsible for creating {@link AggregateRequest} instance for buckets
- * aggregations with metrics.
+ * aggregations with metrics. Groups ordered only by grouping properties are
+ * paged by their keys, so every page costs about the same. Groups ordered by
+ * count or metrics are retrieved up to $skip + $top, and skipped in memory.
+ * Every level of nested terms aggregations has up to $skip + $top buckets
+ * for each bucket of previous level, and their product is charged by
+ * {@link com.hevelian.olastic.core.elastic.cost.QueryCostEstimator} against
+ * the cost budget of entity set.
  * 
  * @author rdidyk
  */
 public class BucketsAggregationsRequestCreator extends AbstractAggregationsRequestCreator {
 
+    private boolean isKeysetPaging;
+
     /**
      * Default constructor.
      */
@@ -75,23 +89,120 @@ public class BucketsAggregationsRequestCreator extends AbstractAggregationsReque
         if (groupByItems.size() > 1) {
             throwNotImplemented("Combining Transformations per Group is not supported.");
         }
+        GroupBy groupBy = groupByItems.get(0);
         Pagination pagination = getPagination(uriInfo);
-        List<AggregationBuilder> bucketsQueries = getBucketsQueries(groupByItems.get(0), entityType,
+        QueryBuilder query = baseQuery.getQueryBuilder();
+        List<String> fields = new ArrayList<>();
+        for (String property : getProperties(groupBy)) {
+            fields.add(getQueryField(property, entityType));
+        }
+        isKeysetPaging = pagination.getOrderBy().stream()
+                .allMatch(sort -> fields.contains(sort.getProperty()));
+        if (isKeysetPaging) {
+            applyKeysetPaging(pagination, fields, entitySet, uriInfo);
+            if (pagination.getSearchAfter() != null) {
+                query = QueryBuilders.boolQuery().must(query)
+                        .filter(getAfterQuery(pagination));
+            }
+        }
+        List<AggregationBuilder> bucketsQueries = getBucketsQueries(groupBy, entitySet,
                 pagination);
 
         AggregateQuery aggregateQuery = new AggregateQuery(baseQuery.getIndex(),
-                baseQuery.getTypes(), baseQuery.getQueryBuilder(), bucketsQueries,
-                Collections.emptyList());
+                baseQuery.getTypes(), query, bucketsQueries, Collections.emptyList());
+        aggregateQuery.setRouting(baseQuery.getRouting());
         return new AggregateRequest(aggregateQuery, entitySet, pagination, getCountAlias());
     }
 
+    /**
+     * Checks whether groups of created request are paged by their keys. It's
+     * when groups are ordered only by grouping properties.
+     *
+     * @return true if groups are paged by keys
+     */
+    public boolean isKeysetPaging() {
+        return isKeysetPaging;
+    }
+
+    /**
+     * Prepares pagination to page groups by their keys, like search_after
+     * does for documents. Groups are ordered by grouping properties in
+     * $groupby order, ascending unless $orderby says otherwise, so every
+     * level of terms aggregation is ordered by term. Page is limited by
+     * maximum page size of entity set, and page of $skiptoken starts right
+     * after the keys of the last group of previous page.
+     *
+     * @param pagination
+     *            pagination of the request
+     * @param fields
+     *            fields of grouping properties, in $groupby order
+     * @param entitySet
+     *            requested entity set
+     * @param uriInfo
+     *            URI info
+     * @throws ODataApplicationException
+     *             if $skiptoken is invalid
+     */
+    protected void applyKeysetPaging(Pagination pagination, List<String> fields,
+            ElasticEdmEntitySet entitySet, UriInfo uriInfo) throws ODataApplicationException {
+        Map<String, Direction> directions = pagination.getOrderBy().stream()
+                .collect(toMap(Sort::getProperty, Sort::getDirection));
+        List<Sort> orderBy = new ArrayList<>();
+        for (String field : fields) {
+            orderBy.add(new Sort(field, directions.getOrDefault(field, Sort.DEFAULT_DIRECTION)));
+        }
+        pagination.setOrderBy(orderBy);
+        SkipTokenOption skipTokenOption = uriInfo.getSkipTokenOption();
+        if (skipTokenOption != null) {
+            SkipToken token = SkipToken.decode(skipTokenOption.getValue());
+            if (token.getSearchAfter().length != fields.size()) {
+                throw new ODataApplicationException(
+                        String.format("Invalid $skiptoken '%s'.", skipTokenOption.getValue()),
+                        HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+            }
+            pagination.setSkip(Pagination.SKIP_DEFAULT);
+            pagination.setSearchAfter(token.getSearchAfter());
+        }
+        int top = SkipToken.getTop(uriInfo);
+        pagination.setTop(top == SkipToken.UNLIMITED ? Pagination.TOP_DEFAULT
+                : Math.min(top, entitySet.getMaxPageSize()));
+    }
+
+    /**
+     * Creates query, which matches only documents of groups after the keys of
+     * pagination. It's a disjunction by grouping levels: documents with the
+     * same keys on previous levels, and the following key on this level. All
+     * documents of following groups are matched, so their counts and metrics
+     * are exact.
+     *
+     * @param pagination
+     *            pagination with keys of the last group of previous page
+     * @return query of following groups
+     */
+    protected QueryBuilder getAfterQuery(Pagination pagination) {
+        Object[] keys = pagination.getSearchAfter();
+        List<Sort> orderBy = pagination.getOrderBy();
+        BoolQueryBuilder after = QueryBuilders.boolQuery().minimumShouldMatch(1);
+        for (int i = 0; i < keys.length; i++) {
+            BoolQueryBuilder level = QueryBuilders.boolQuery();
+            for (int j = 0; j < i; j++) {
+                level.filter(QueryBuilders.termQuery(orderBy.get(j).getProperty(), keys[j]));
+            }
+            RangeQueryBuilder range = QueryBuilders.rangeQuery(orderBy.get(i).getProperty());
+            level.filter(orderBy.get(i).getDirection() == Direction.ASC ? range.gt(keys[i])
+                    : range.lt(keys[i]));
+            after.should(level);
+        }
+        return after;
+    }
+
     /**
      * Get's buckets queries from {@link GroupBy} item in URL.
      *
      * @param groupBy
      *            groupBy instance
-     * @param entityType
-     *            entity type
+     * @param entitySet
+     *            entity set
      * @param pagination
      *            pagination information
      * @return list of fields
@@ -99,8 +210,9 @@ public class BucketsAggregationsRequestCreator extends AbstractAggregationsReque
      *             if any error occurred
      */
     protected List<AggregationBuilder> getBucketsQueries(GroupBy groupBy,
-            ElasticEdmEntityType entityType, Pagination pagination)
+            ElasticEdmEntitySet entitySet, Pagination pagination)
             throws ODataApplicationException {
+        ElasticEdmEntityType entityType = entitySet.getEntityType();
         int size = pagination.getSkip() + pagination.getTop();
         Map<String, Boolean> orders = pagination.getOrderBy().stream()
                 .collect(toMap(Sort::getProperty, order -> order.getDirection() == Direction.ASC));
@@ -112,7 +224,7 @@ public class BucketsAggregationsRequestCreator extends AbstractAggregationsReque
         String queryField = getQueryField(lastProperty, entityType);
         TermsAggregationBuilder groupByQuery = terms(lastProperty).field(queryField).size(size)
                 .shardSize(getShardSize(size));
-        getMetricsAggQueries(getAggregations(groupBy.getApplyOption()))
+        getMetricsAggQueries(getAggregations(groupBy.getApplyOption()), entitySet)
                 .forEach(groupByQuery::subAggregation);
         List<Order> queryOrders = getQueryOrders(queryField, orders);
         if (!queryOrders.isEmpty()) {
@@ -218,7 +330,8 @@ public class BucketsAggregationsRequestCreator extends AbstractAggregationsReque
      */
     private static String getQueryField(String propertyName, ElasticEdmEntityType entityType) {
         ElasticEdmProperty property = entityType.getESProperties().get(propertyName);
-        return addKeywordIfNeeded(property.getEField(), property.getAnnotations());
+        return addDocValuesKeywordIfNeeded(property.getEField(), property.getAnnotations(),
+                property.getMultiFields());
     }
 
 }
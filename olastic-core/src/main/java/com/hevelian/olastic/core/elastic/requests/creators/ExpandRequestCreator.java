@@ -0,0 +1,264 @@
+package com.hevelian.olastic.core.elastic.requests.creators;
+
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.hasChildQuery;
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.search.join.ScoreMode;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
+import org.apache.olingo.server.core.uri.UriInfoImpl;
+import org.elasticsearch.index.query.InnerHitBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.edm.ElasticEdmNavigationProperty;
+import com.hevelian.olastic.core.edm.ElasticEdmProperty;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.builders.ESQueryBuilder;
+import com.hevelian.olastic.core.elastic.builders.ForeignKeyJoinEngine;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+import lombok.Getter;
+
+/**
+ * Creates queries, which retrieve entities related to a single entity by
+ * expanded navigation property. Options of expand item ($filter, $search,
+ * $select, $orderby, $top, $skip) are applied the same way as to the main
+ * request, and key fields of nested foreign key expansions are retrieved
+ * along with selected fields. Children are matched by _parent field and
+ * routed to the shard of their parent, parent is matched with has_child
+ * query by child id, and foreign key relations are matched by values of the
+ * key field. Child collection, which page fits inner hits limit, can be
+ * retrieved with inner hits of the main request instead.
+ *
+ * @author rdidyk
+ */
+@Getter
+public class ExpandRequestCreator extends SearchRequestCreator {
+
+    private final ElasticEdmEntitySet entitySet;
+    private final ElasticEdmNavigationProperty navigation;
+    private final ElasticEdmEntitySet targetEntitySet;
+    private final UriInfoImpl options;
+    private QueryBuilder filter;
+
+    /**
+     * Constructor to initialize expanded navigation.
+     *
+     * @param entitySet
+     *            entity set of expanded entities
+     * @param navigation
+     *            expanded navigation property
+     * @param item
+     *            expand item with options, or null if navigation is expanded
+     *            without options
+     * @throws ODataApplicationException
+     *             if navigation has no target entity set
+     */
+    public ExpandRequestCreator(ElasticEdmEntitySet entitySet,
+            ElasticEdmNavigationProperty navigation, ExpandItem item)
+            throws ODataApplicationException {
+        this.entitySet = entitySet;
+        this.navigation = navigation;
+        EdmBindingTarget target = entitySet.getRelatedBindingTarget(navigation.getName());
+        if (!(target instanceof ElasticEdmEntitySet)) {
+            throwNotImplemented();
+        }
+        this.targetEntitySet = (ElasticEdmEntitySet) target;
+        this.options = new UriInfoImpl();
+        if (item != null) {
+            addOption(item.getFilterOption());
+            addOption(item.getSearchOption());
+            addOption(item.getSelectOption());
+            addOption(item.getOrderByOption());
+            addOption(item.getTopOption());
+            addOption(item.getSkipOption());
+            addOption(item.getCountOption());
+            addOption(item.getExpandOption());
+        }
+    }
+
+    private void addOption(SystemQueryOption option) {
+        if (option != null) {
+            options.setSystemQueryOption(option);
+        }
+    }
+
+    /**
+     * Checks whether $count of expanded collection is requested.
+     *
+     * @return true if count is requested
+     */
+    public boolean isCount() {
+        return options.getCountOption() != null && options.getCountOption().getValue();
+    }
+
+    /**
+     * Creates query to retrieve entities related to the entity.
+     *
+     * @param entity
+     *            expanded entity
+     * @return search query
+     * @throws ODataApplicationException
+     *             if any error occurred during query creation
+     */
+    public SearchQuery create(Entity entity) throws ODataApplicationException {
+        String id = getValues(entity, ElasticConstants.ID_FIELD_NAME).get(0);
+        List<String> routing = new ArrayList<>();
+        QueryBuilder relation;
+        if (navigation.isForeignKey()) {
+            List<String> keys = getValues(entity, navigation.getESField());
+            relation = ElasticConstants.ID_FIELD_NAME.equals(navigation.getESTargetField())
+                    ? idsQuery().addIds(keys.toArray(new String[keys.size()]))
+                    : termsQuery(navigation.getESTargetField(), keys);
+        } else if (navigation.isCollection()) {
+            relation = termQuery(ElasticConstants.PARENT_PROPERTY, id);
+            if (!ESQueryBuilder.hasParent(entitySet.getEntityType())) {
+                routing.add(id);
+            }
+        } else {
+            relation = hasChildQuery(entitySet.getESType(),
+                    idsQuery(entitySet.getESType()).addIds(id), ScoreMode.None);
+        }
+        Pagination pagination = navigation.isCollection() ? getPagination(options)
+                : new Pagination(1, Pagination.SKIP_DEFAULT, Collections.emptyList());
+        SearchQuery query = new SearchQuery(targetEntitySet.getESIndex(),
+                new String[] { targetEntitySet.getESType() },
+                boolQuery().filter(relation).filter(getFilter()), getFields(), pagination);
+        query.setRouting(routing.toArray(new String[routing.size()]));
+        return query;
+    }
+
+    /**
+     * Creates has_child query with inner hits, which retrieves expanded
+     * children together with their parents, so no extra request is needed.
+     * Query doesn't affect score of parents, so it can be added as optional
+     * clause of the main query.
+     *
+     * @return has_child query, or null if navigation isn't child collection,
+     *         or expanded page exceeds inner hits limit
+     * @throws ODataApplicationException
+     *             if any error occurred during query creation
+     */
+    public QueryBuilder createInnerHitsQuery() throws ODataApplicationException {
+        Pagination pagination = getPagination(options);
+        int window = pagination.getSkip() + pagination.getTop();
+        boolean isApplicable = navigation.isCollection() && !navigation.isForeignKey()
+                && window <= ElasticConstants.DEFAULT_INNER_HITS_LIMIT;
+        if (!isApplicable) {
+            return null;
+        }
+        InnerHitBuilder innerHit = new InnerHitBuilder().setName(navigation.getName())
+                .setFrom(pagination.getSkip()).setSize(pagination.getTop());
+        for (Sort sort : pagination.getOrderBy()) {
+            innerHit.addSort(SortBuilders.fieldSort(sort.getProperty())
+                    .order(SortOrder.valueOf(sort.getDirection().toString())));
+        }
+        Set<String> fields = getFields();
+        if (!fields.isEmpty()) {
+            innerHit.setFetchSourceContext(
+                    new FetchSourceContext(true, fields.toArray(new String[fields.size()]), null));
+        }
+        return hasChildQuery(targetEntitySet.getESType(), getFilter(), ScoreMode.None)
+                .innerHit(innerHit, false).boost(0);
+    }
+
+    /**
+     * Gets navigation property expanded by expand item.
+     *
+     * @param item
+     *            expand item, which isn't star
+     * @return navigation property
+     */
+    public static ElasticEdmNavigationProperty getNavigation(ExpandItem item) {
+        List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+        return (ElasticEdmNavigationProperty) ((UriResourceNavigation) parts
+                .get(parts.size() - 1)).getProperty();
+    }
+
+    /**
+     * Gets Elasticsearch fields of target type selected in expand item.
+     *
+     * @return selected fields, empty if all fields are retrieved
+     */
+    protected Set<String> getFields() {
+        return getFields(getSelectList(options), options.getExpandOption(),
+                targetEntitySet.getEntityType());
+    }
+
+    /**
+     * Gets query built from $filter and $search options of expand item. It's
+     * built once for all expanded entities, so joins of the filter are
+     * resolved only once.
+     *
+     * @return filter query
+     * @throws ODataApplicationException
+     *             if any error occurred during query creation
+     */
+    protected QueryBuilder getFilter() throws ODataApplicationException {
+        if (filter == null) {
+            QueryBuilder query = boolQuery().filter(getFilterQuery(options, targetEntitySet))
+                    .filter(getSearchQuery(options));
+            filter = getForeignKeyJoinEngine().resolve(
+                    getQueryOptimizer(targetEntitySet.getEntityType()).optimize(query));
+        }
+        return filter;
+    }
+
+    /**
+     * Gets engine, which resolves foreign key joins of the filter.
+     *
+     * @return foreign key join engine
+     */
+    protected ForeignKeyJoinEngine getForeignKeyJoinEngine() {
+        return new ForeignKeyJoinEngine(ElasticConstants.DEFAULT_FOREIGN_KEY_FAN_OUT);
+    }
+
+    /**
+     * Gets values of Elasticsearch field of the entity.
+     *
+     * @param entity
+     *            entity
+     * @param field
+     *            Elasticsearch field name
+     * @return values of the field, empty if entity has no such field
+     */
+    private List<String> getValues(Entity entity, String field) {
+        String name = field;
+        if (!ElasticConstants.ID_FIELD_NAME.equals(field)) {
+            ElasticEdmProperty property = entitySet.getEntityType().findPropertyByEField(field);
+            name = property != null ? property.getName() : field;
+        }
+        Property property = entity.getProperty(name);
+        Object value = property != null ? property.getValue() : null;
+        List<String> values = new ArrayList<>();
+        if (value instanceof Collection) {
+            ((Collection<?>) value).stream().filter(v -> v != null)
+                    .forEach(v -> values.add(v.toString()));
+        } else if (value != null) {
+            values.add(value.toString());
+        }
+        return values;
+    }
+}
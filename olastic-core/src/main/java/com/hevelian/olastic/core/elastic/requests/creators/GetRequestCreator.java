@@ -0,0 +1,120 @@
+package com.hevelian.olastic.core.elastic.requests.creators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.edm.ElasticEdmNavigationProperty;
+import com.hevelian.olastic.core.elastic.builders.ESQueryBuilder;
+import com.hevelian.olastic.core.elastic.queries.GetQuery;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.elastic.requests.GetRequest;
+
+/**
+ * Creates request to get entity, or its primitive property, by key without
+ * search. Entity has to be addressed by key of entity set without parent,
+ * optionally followed by keys of child collections, e.g.
+ * author('1')/book('2'). All documents of such path are on the shard of the
+ * first one, so they are retrieved with its key as routing. Any other request
+ * is created as search request.
+ *
+ * @author rdidyk
+ */
+public class GetRequestCreator extends SearchRequestCreator {
+
+    /**
+     * Constructor to initialize default ES query builder.
+     */
+    public GetRequestCreator() {
+        super();
+    }
+
+    /**
+     * Constructor to initialize ES query builder.
+     *
+     * @param queryBuilder
+     *            ES query builder
+     */
+    public GetRequestCreator(ESQueryBuilder<?> queryBuilder) {
+        super(queryBuilder);
+    }
+
+    @Override
+    public ESRequest create(UriInfo uriInfo) throws ODataApplicationException {
+        return isGet(uriInfo) ? createGetRequest(uriInfo) : super.create(uriInfo);
+    }
+
+    /**
+     * Checks whether requested entity can be retrieved with get request. URI
+     * has to consist of keyed entity set without parent, keyed child
+     * collections and optional primitive property, and have no $filter,
+     * $search or $apply options.
+     *
+     * @param uriInfo
+     *            uri info
+     * @return true if entity can be retrieved with get request
+     */
+    protected boolean isGet(UriInfo uriInfo) {
+        boolean isGet = uriInfo.getFilterOption() == null && uriInfo.getSearchOption() == null
+                && uriInfo.getApplyOption() == null;
+        List<UriResource> parts = uriInfo.getUriResourceParts();
+        for (int i = 0; i < parts.size() && isGet; i++) {
+            UriResource segment = parts.get(i);
+            if (segment instanceof UriResourceEntitySet) {
+                UriResourceEntitySet resource = (UriResourceEntitySet) segment;
+                isGet = resource.getKeyPredicates().size() == 1 && !ESQueryBuilder
+                        .hasParent((ElasticEdmEntityType) resource.getEntityType());
+            } else if (segment instanceof UriResourceNavigation) {
+                UriResourceNavigation resource = (UriResourceNavigation) segment;
+                EdmNavigationProperty navigation = resource.getProperty();
+                isGet = resource.getKeyPredicates().size() == 1 && navigation.isCollection()
+                        && !((ElasticEdmNavigationProperty) navigation).isForeignKey();
+            } else {
+                isGet = segment.getKind() == UriResourceKind.primitiveProperty
+                        && i == parts.size() - 1;
+            }
+        }
+        return isGet;
+    }
+
+    /**
+     * Creates get request of the entity addressed by URI, which passed
+     * {@link #isGet(UriInfo)} check.
+     *
+     * @param uriInfo
+     *            uri info
+     * @return get request
+     * @throws ODataApplicationException
+     *             if any error occurred during request creation
+     */
+    protected GetRequest createGetRequest(UriInfo uriInfo) throws ODataApplicationException {
+        ElasticEdmEntitySet entitySet = (ElasticEdmEntitySet) getFirstResourceEntitySet(uriInfo);
+        List<String> types = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        for (UriResource segment : uriInfo.getUriResourceParts()) {
+            if (segment instanceof UriResourceNavigation) {
+                entitySet = getNavigationTargetEntitySet(entitySet,
+                        (UriResourceNavigation) segment);
+            } else if (!(segment instanceof UriResourceEntitySet)) {
+                break;
+            }
+            types.add(entitySet.getESType());
+            ids.addAll(getQueryBuilder().collectIds(segment));
+        }
+        GetQuery query = new GetQuery(entitySet.getESIndex(),
+                types.toArray(new String[types.size()]), ids.toArray(new String[ids.size()]),
+                getFields(uriInfo, entitySet.getEntityType()));
+        query.setRouting(new String[] { ids.get(0) });
+        return new GetRequest(query, entitySet);
+    }
+
+}
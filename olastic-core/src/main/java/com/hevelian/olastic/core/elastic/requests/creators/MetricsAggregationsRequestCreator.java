@@ -48,11 +48,13 @@ public class MetricsAggregationsRequestCreator extends AbstractAggregationsReque
         ElasticEdmEntitySet entitySet = baseRequestInfo.getEntitySet();
 
         List<Aggregate> aggregations = getAggregations(uriInfo.getApplyOption());
-        List<AggregationBuilder> metricsQueries = getMetricsAggQueries(aggregations);
+        List<AggregationBuilder> metricsQueries = getMetricsAggQueries(aggregations,
+                entitySet);
 
         AggregateQuery aggregateQuery = new AggregateQuery(baseQuery.getIndex(),
                 baseQuery.getTypes(), baseQuery.getQueryBuilder(), metricsQueries,
                 Collections.emptyList());
+        aggregateQuery.setRouting(baseQuery.getRouting());
         return new AggregateRequest(aggregateQuery, entitySet, getCountAlias());
     }
 
@@ -1,6 +1,6 @@
 package com.hevelian.olastic.core.elastic.requests.creators;
 
-import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addKeywordIfNeeded;
+import static com.hevelian.olastic.core.elastic.utils.ElasticUtils.addDocValuesKeywordIfNeeded;
 import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
 import static org.elasticsearch.index.query.QueryBuilders.matchQuery;
 
@@ -38,15 +38,18 @@ import org.apache.olingo.server.api.uri.queryoption.search.SearchBinaryOperatorK
 import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
 import org.apache.olingo.server.api.uri.queryoption.search.SearchUnary;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 
 import com.hevelian.olastic.core.api.uri.queryoption.expression.ElasticSearchExpressionVisitor;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ExpressionResult;
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
 import com.hevelian.olastic.core.edm.ElasticEdmProperty;
 import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.elastic.builders.ESQueryBuilder;
+import com.hevelian.olastic.core.elastic.builders.QueryOptimizer;
 import com.hevelian.olastic.core.elastic.pagination.Pagination;
 import com.hevelian.olastic.core.elastic.pagination.Sort;
 import com.hevelian.olastic.core.elastic.queries.Query;
@@ -79,7 +82,8 @@ public abstract class RequestCreator {
      * URI resource parts and build query for each segment, the last entity set
      * from resource segment is metadata entity of type to search. It returns
      * {@link Query} with index, type, and query builder for search, and last
-     * entity set from resource parts.
+     * entity set from resource parts. Built query is optimized, so it could be
+     * match none query, if it provably matches no documents.
      * 
      * @param uriInfo
      *            URI info
@@ -94,7 +98,8 @@ public abstract class RequestCreator {
         Iterator<UriResource> iterator = resourceParts.iterator();
         while (iterator.hasNext()) {
             UriResource segment = iterator.next();
-            if (segment.getKind() == UriResourceKind.primitiveProperty) {
+            if (segment.getKind() == UriResourceKind.primitiveProperty
+                    || segment.getKind() == UriResourceKind.count) {
                 break;
             }
             if (segment.getKind() == UriResourceKind.navigationProperty) {
@@ -110,11 +115,15 @@ public abstract class RequestCreator {
                 queryBuilder.addSegmentQuery(segment, null);
             }
         }
-        queryBuilder.addFilter(getFilterQuery(uriInfo)).addFilter(getSearchQuery(uriInfo));
-        return new BaseRequest(
-                new Query(responseEntitySet.getESIndex(),
-                        new String[] { responseEntitySet.getESType() }, queryBuilder.build(), null),
-                responseEntitySet, null);
+        queryBuilder.addFilter(getFilterQuery(uriInfo, responseEntitySet))
+                .addFilter(getSearchQuery(uriInfo));
+        QueryBuilder query = getQueryOptimizer(responseEntitySet.getEntityType())
+                .optimize(queryBuilder.build());
+        Query baseQuery = new Query(responseEntitySet.getESIndex(),
+                new String[] { responseEntitySet.getESType() }, query, null);
+        List<String> routing = queryBuilder.getRouting();
+        baseQuery.setRouting(routing.toArray(new String[routing.size()]));
+        return new BaseRequest(baseQuery, responseEntitySet, null);
         // TODO: pass pagination info here, and reuse in child (in request
         // creators)
     }
@@ -170,11 +179,14 @@ public abstract class RequestCreator {
      * 
      * @param uriInfo
      *            URI info
+     * @param entitySet
+     *            entity set filter is applied to
      * @return filter query
      * @throws ODataApplicationException
      *             if any error occurred
      */
-    protected BoolQueryBuilder getFilterQuery(UriInfo uriInfo) throws ODataApplicationException {
+    protected BoolQueryBuilder getFilterQuery(UriInfo uriInfo, ElasticEdmEntitySet entitySet)
+            throws ODataApplicationException {
         FilterOption filterOption = uriInfo.getFilterOption();
         ApplyOption applyOption = uriInfo.getApplyOption();
         BoolQueryBuilder filterQuery = new BoolQueryBuilder();
@@ -182,14 +194,14 @@ public abstract class RequestCreator {
             if (filterOption != null) {
                 Expression expression = filterOption.getExpression();
                 ExpressionResult expressionResult = (ExpressionResult) expression
-                        .accept(getExpressionVisitor());
+                        .accept(getExpressionVisitor(entitySet));
                 filterQuery.filter(expressionResult.getQueryBuilder());
             } else if (applyOption != null) {
                 List<Expression> expressions = ApplyOptionUtils.getFilters(applyOption).stream()
                         .map(e -> e.getFilterOption().getExpression()).collect(Collectors.toList());
                 for (Expression expression : expressions) {
                     ExpressionResult expressionResult = (ExpressionResult) expression
-                            .accept(getExpressionVisitor());
+                            .accept(getExpressionVisitor(entitySet));
                     filterQuery.filter(expressionResult.getQueryBuilder());
                 }
             }
@@ -298,8 +310,9 @@ public abstract class RequestCreator {
                 String property = edmProperty.getName();
                 if (edmProperty instanceof ElasticEdmProperty) {
                     ElasticEdmProperty entityTypeProperty = (ElasticEdmProperty) edmProperty;
-                    property = addKeywordIfNeeded(entityTypeProperty.getEField(),
-                            entityTypeProperty.getAnnotations());
+                    property = addDocValuesKeywordIfNeeded(entityTypeProperty.getEField(),
+                            entityTypeProperty.getAnnotations(),
+                            entityTypeProperty.getMultiFields());
                 }
                 return new Sort(property,
                         orderByItem.isDescending() ? Sort.Direction.DESC : Sort.Direction.ASC);
@@ -309,11 +322,26 @@ public abstract class RequestCreator {
     }
 
     /**
-     * Return's expression visitor used for building filters.
+     * Return's query optimizer used to evaluate constant parts of built query.
+     * 
+     * @param entityType
+     *            entity type query is built for
+     * @return query optimizer instance
+     */
+    protected QueryOptimizer getQueryOptimizer(ElasticEdmEntityType entityType) {
+        return new QueryOptimizer(entityType);
+    }
+
+    /**
+     * Return's expression visitor used for building filters. Current time is
+     * rounded as configured for entity set.
      * 
+     * @param entitySet
+     *            entity set filter is applied to
      * @return expression visitor instance
      */
-    protected ExpressionVisitor<ExpressionMember> getExpressionVisitor() {
-        return new ElasticSearchExpressionVisitor();
+    protected ExpressionVisitor<ExpressionMember> getExpressionVisitor(
+            ElasticEdmEntitySet entitySet) {
+        return new ElasticSearchExpressionVisitor(entitySet.getDateRounding());
     }
 }
@@ -2,7 +2,10 @@ package com.hevelian.olastic.core.elastic.requests.creators;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.edm.ElasticEdmNavigationProperty;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.elastic.builders.ESQueryBuilder;
+import com.hevelian.olastic.core.elastic.builders.QueryOptimizer;
 import com.hevelian.olastic.core.elastic.pagination.Pagination;
 import com.hevelian.olastic.core.elastic.queries.Query;
 import com.hevelian.olastic.core.elastic.queries.SearchQuery;
@@ -13,13 +16,27 @@ import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.UriResourceKind;
 import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectItem;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.InnerHitBuilder;
+import org.elasticsearch.index.query.NestedQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Class responsible for creating {@link SearchRequest} instance.
@@ -52,15 +69,171 @@ public class SearchRequestCreator extends SingleRequestCreator {
         ElasticEdmEntitySet entitySet = baseRequestInfo.getEntitySet();
         ElasticEdmEntityType entityType = entitySet.getEntityType();
 
-        Set<String> fields = getSelectList(uriInfo).stream()
-                .map(field -> entityType.getESProperties().get(field).getEField())
-                .collect(Collectors.toSet());
+        Set<String> fields = getFields(uriInfo, entityType);
         Pagination pagination = getPagination(uriInfo);
+        QueryBuilder query = addInnerHits(baseQuery.getQueryBuilder(), entitySet,
+                uriInfo.getExpandOption());
         SearchQuery searchQuery = new SearchQuery(baseQuery.getIndex(), baseQuery.getTypes(),
-                baseQuery.getQueryBuilder(), fields, pagination);
+                query, fields, pagination);
+        searchQuery.setRouting(baseQuery.getRouting());
+        if (isNestedMatches(uriInfo)) {
+            searchQuery.setExcludedFields(addNestedInnerHits(query, entityType, fields));
+        }
         return new SearchRequest(searchQuery, entitySet, pagination);
     }
 
+    /**
+     * Adds inner hits of expanded child collections, which options fit inner
+     * hits, to the query, so children are retrieved in the same request with
+     * their parents. Inner hits queries are optional clauses, so parents
+     * without children are still matched.
+     *
+     * @param query
+     *            main query
+     * @param entitySet
+     *            entity set of the request
+     * @param expandOption
+     *            expand option, can be null
+     * @return query with inner hits, or the same query if no expanded
+     *         collection fits inner hits
+     * @throws ODataApplicationException
+     *             if any error occurred during query creation
+     */
+    protected QueryBuilder addInnerHits(QueryBuilder query, ElasticEdmEntitySet entitySet,
+            ExpandOption expandOption) throws ODataApplicationException {
+        if (expandOption == null || QueryOptimizer.isEmpty(query)) {
+            return query;
+        }
+        BoolQueryBuilder result = QueryBuilders.boolQuery().must(query);
+        for (ExpandItem item : expandOption.getExpandItems()) {
+            if (!item.isStar() && !item.isRef() && item.getLevelsOption() == null) {
+                QueryBuilder innerHits = new ExpandRequestCreator(entitySet,
+                        ExpandRequestCreator.getNavigation(item), item).createInnerHitsQuery();
+                if (innerHits != null) {
+                    result.should(innerHits);
+                }
+            }
+        }
+        return result.should().isEmpty() ? query : result;
+    }
+
+    /**
+     * Adds inner hits to nested queries of the filter, so only nested objects
+     * matched by the filter are retrieved instead of whole nested collection.
+     * Inner hits are added to nested queries on selected top level nested
+     * fields, which aren't negated. They are named by nested path, and
+     * further queries on the same path get sequence number, e.g.
+     * "_dimension#2". Document, which matched the filter without matching
+     * nested query, e.g. by other "or" branch, gets empty collection.
+     *
+     * @param query
+     *            main query
+     * @param entityType
+     *            entity type of the request
+     * @param fields
+     *            selected fields, empty if all fields are selected
+     * @return nested fields with inner hits, which have to be excluded from
+     *         _source
+     */
+    protected Set<String> addNestedInnerHits(QueryBuilder query, ElasticEdmEntityType entityType,
+            Set<String> fields) {
+        Map<String, Integer> paths = new HashMap<>();
+        addNestedInnerHits(query, entityType, fields, paths);
+        return paths.keySet();
+    }
+
+    private static void addNestedInnerHits(QueryBuilder query, ElasticEdmEntityType entityType,
+            Set<String> fields, Map<String, Integer> paths) {
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            Stream.of(bool.must(), bool.filter(), bool.should()).flatMap(List::stream)
+                    .forEach(clause -> addNestedInnerHits(clause, entityType, fields, paths));
+        } else if (query instanceof NestedQueryBuilder) {
+            NestedQueryBuilder nested = (NestedQueryBuilder) query;
+            String path = getPath(nested);
+            boolean isApplicable = nested.innerHit() == null
+                    && !path.contains(ElasticConstants.NESTED_PATH_SEPARATOR)
+                    && entityType.findPropertyByEField(path) != null
+                    && (fields.isEmpty() || fields.contains(path));
+            if (isApplicable) {
+                int number = paths.merge(path, 1, Integer::sum);
+                String name = number == 1 ? path
+                        : path + ElasticConstants.INNER_HITS_NAME_SEPARATOR + number;
+                nested.innerHit(new InnerHitBuilder().setName(name)
+                        .setSize(ElasticConstants.DEFAULT_NESTED_INNER_HITS_SIZE), false);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getPath(NestedQueryBuilder nested) {
+        // nested query builder doesn't expose its path
+        Map<String, Object> source = XContentHelper.convertToMap(XContentType.JSON.xContent(),
+                nested.toString(), false);
+        return (String) ((Map<String, Object>) source.get(NestedQueryBuilder.NAME)).get("path");
+    }
+
+    /**
+     * Checks whether only nested objects matched by the filter are requested
+     * with {@link ElasticConstants#NESTED_MATCHES_OPTION} custom query option.
+     *
+     * @param uriInfo
+     *            uri info
+     * @return true if option is enabled
+     */
+    protected boolean isNestedMatches(UriInfo uriInfo) {
+        return uriInfo.getCustomQueryOptions().stream()
+                .anyMatch(option -> ElasticConstants.NESTED_MATCHES_OPTION.equals(option.getName())
+                        && Boolean.parseBoolean(option.getText()));
+    }
+
+    /**
+     * Gets Elasticsearch fields selected in URL.
+     *
+     * @param uriInfo
+     *            uri info
+     * @param entityType
+     *            entity type of the request
+     * @return selected fields, empty if all fields are retrieved
+     */
+    protected Set<String> getFields(UriInfo uriInfo, ElasticEdmEntityType entityType) {
+        return getFields(getSelectList(uriInfo), uriInfo.getExpandOption(), entityType);
+    }
+
+    /**
+     * Gets Elasticsearch fields of selected properties. Key fields of
+     * expanded foreign key navigations are retrieved too, as related entities
+     * are found by their values. They aren't written to response, because
+     * serializer writes only selected properties.
+     *
+     * @param select
+     *            names of selected properties
+     * @param expandOption
+     *            expand option, can be null
+     * @param entityType
+     *            entity type of the request
+     * @return selected fields, empty if all fields are retrieved
+     */
+    protected static Set<String> getFields(List<String> select, ExpandOption expandOption,
+            ElasticEdmEntityType entityType) {
+        Set<String> fields = select.stream()
+                .map(field -> entityType.getESProperties().get(field).getEField())
+                .collect(Collectors.toSet());
+        if (fields.isEmpty() || expandOption == null) {
+            return fields;
+        }
+        for (ExpandItem item : expandOption.getExpandItems()) {
+            Collection<ElasticEdmNavigationProperty> navigations = item.isStar()
+                    ? entityType.getESNavigationProperties().values()
+                    : Collections.singletonList(ExpandRequestCreator.getNavigation(item));
+            navigations.stream().filter(ElasticEdmNavigationProperty::isForeignKey)
+                    .map(ElasticEdmNavigationProperty::getESField)
+                    .filter(field -> !ElasticConstants.ID_FIELD_NAME.equals(field))
+                    .forEach(fields::add);
+        }
+        return fields;
+    }
+
     /**
      * Returns the list of fields from URL.
      * @param uriInfo uri info
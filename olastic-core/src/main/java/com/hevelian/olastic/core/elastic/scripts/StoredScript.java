@@ -0,0 +1,112 @@
+package com.hevelian.olastic.core.elastic.scripts;
+
+import java.util.Map;
+
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+
+import lombok.Getter;
+
+/**
+ * Painless scripts stored in Elasticsearch cluster state. Scripts take all
+ * values from parameters, so each of them is compiled only once no matter
+ * which literals are used in queries.
+ *
+ * @author rdidyk
+ */
+public enum StoredScript {
+
+    /**
+     * Compares part of the date field with the value. Parameters: field, part
+     * (year, month, day, hour, minute or second), op (eq, gt, ge, lt or le)
+     * and value.
+     */
+    DATE_PART("olastic-date-part",
+            "if (doc[params.field].empty) { return false; }"
+                    + " def date = doc[params.field].date; int value;"
+                    + " if (params.part == 'month') { value = date.getMonthOfYear(); }"
+                    + " else if (params.part == 'day') { value = date.getDayOfMonth(); }"
+                    + " else if (params.part == 'hour') { value = date.getHourOfDay(); }"
+                    + " else if (params.part == 'minute') { value = date.getMinuteOfHour(); }"
+                    + " else if (params.part == 'second') { value = date.getSecondOfMinute(); }"
+                    + " else { value = date.getYear(); }"
+                    + " int compare = Integer.compare(value, params.value);" + compare()),
+
+    /**
+     * Applies operations to the field value and compares result with the
+     * value. Parameters: field, ops (list of add, sub, rsub, mul, div, rdiv,
+     * mod, rmod, length, indexof and substring), args (operation arguments,
+     * [start, length] for substring), op (eq, gt, ge, lt or le) and value.
+     * Operations with r prefix take field value as the right operand.
+     */
+    EXPRESSION("olastic-expression",
+            "if (doc[params.field].empty) { return false; }"
+                    + " def value = doc[params.field].value;"
+                    + " for (int i = 0; i < params.ops.size(); ++i) {"
+                    + " String op = params.ops[i]; def arg = params.args[i];"
+                    + " if (op == 'add') { value = value + arg; }"
+                    + " else if (op == 'sub') { value = value - arg; }"
+                    + " else if (op == 'rsub') { value = arg - value; }"
+                    + " else if (op == 'mul') { value = value * arg; }"
+                    + " else if (op == 'div') { value = value / arg; }"
+                    + " else if (op == 'mod') { value = value % arg; }"
+                    + " else if (op == 'rdiv' || op == 'rmod') {"
+                    + " if (value == 0) { return false; }"
+                    + " value = op == 'rdiv' ? arg / value : arg % value; }"
+                    + " else if (op == 'length') { value = value.length(); }"
+                    + " else if (op == 'indexof') { value = value.indexOf(arg); }"
+                    + " else if (op == 'substring') {"
+                    + " int start = Math.min(arg[0], value.length());"
+                    + " int end = arg[1] < 0 ? value.length()"
+                    + " : Math.min(value.length(), start + arg[1]);"
+                    + " value = value.substring(start, end); } }"
+                    + " int compare = value instanceof String ? value.compareTo(params.value)"
+                    + " : Double.compare(value.doubleValue(), params.value.doubleValue());"
+                    + compare());
+
+    /** Language of all stored scripts. */
+    public static final String LANG = "painless";
+
+    @Getter
+    private final String id;
+    @Getter
+    private final String source;
+
+    /**
+     * Initialize fields.
+     *
+     * @param id
+     *            script id in cluster state
+     * @param source
+     *            painless source code
+     */
+    StoredScript(String id, String source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    /**
+     * Gets source, that checks the result of comparison by operator from op
+     * parameter.
+     *
+     * @return painless source
+     */
+    private static String compare() {
+        return " if (params.op == 'gt') { return compare > 0; }"
+                + " if (params.op == 'ge') { return compare >= 0; }"
+                + " if (params.op == 'lt') { return compare < 0; }"
+                + " if (params.op == 'le') { return compare <= 0; }"
+                + " return compare == 0;";
+    }
+
+    /**
+     * Creates reference to stored script with parameters.
+     *
+     * @param params
+     *            script parameters
+     * @return script to use in query
+     */
+    public Script toScript(Map<String, Object> params) {
+        return new Script(ScriptType.STORED, LANG, id, params);
+    }
+}
@@ -0,0 +1,88 @@
+package com.hevelian.olastic.core.elastic.scripts;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+/**
+ * Registers {@link StoredScript}s in Elasticsearch. Script is put to the
+ * cluster only when request referencing it is executed for the first time, so
+ * following queries just reference already compiled script.
+ *
+ * @author rdidyk
+ */
+public class StoredScriptRegistry {
+
+    private final Set<StoredScript> registered = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Registers scripts referenced by the request source, that weren't
+     * registered yet. Source is checked only while some of scripts aren't
+     * registered.
+     *
+     * @param client
+     *            Elasticsearch client
+     * @param source
+     *            source of search request
+     * @throws ODataApplicationException
+     *             if script can't be registered
+     */
+    public void registerReferenced(Client client, SearchSourceBuilder source)
+            throws ODataApplicationException {
+        if (registered.size() == StoredScript.values().length || source == null) {
+            return;
+        }
+        String content = source.toString();
+        for (StoredScript script : StoredScript.values()) {
+            if (!registered.contains(script) && content.contains('"' + script.getId() + '"')) {
+                register(client, script);
+                registered.add(script);
+            }
+        }
+    }
+
+    /**
+     * Checks whether script is already registered.
+     *
+     * @param script
+     *            script to check
+     * @return true if script is registered, false otherwise
+     */
+    public boolean isRegistered(StoredScript script) {
+        return registered.contains(script);
+    }
+
+    /**
+     * Puts script to Elasticsearch cluster state.
+     *
+     * @param client
+     *            Elasticsearch client
+     * @param script
+     *            script to put
+     * @throws ODataApplicationException
+     *             if script can't be put
+     */
+    protected void register(Client client, StoredScript script)
+            throws ODataApplicationException {
+        try {
+            XContentBuilder content = JsonXContent.contentBuilder().startObject()
+                    .field("script", script.getSource()).endObject();
+            client.admin().cluster().preparePutStoredScript().setLang(StoredScript.LANG)
+                    .setId(script.getId()).setContent(content.bytes(), XContentType.JSON).get();
+        } catch (IOException | ElasticsearchException e) {
+            throw new ODataApplicationException(
+                    String.format("Unable to register stored script %s.", script.getId()),
+                    HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.hevelian.olastic.core.elastic.utils;
 
 import com.hevelian.olastic.core.api.edm.annotations.AnnotationProvider;
 import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
 import org.apache.olingo.commons.api.edm.EdmAnnotation;
 
 import java.util.List;
@@ -38,6 +40,97 @@ public final class ElasticUtils {
         return isAnalyzed ? addKeyword(name) : name;
     }
 
+    /**
+     * Returns keyword field name if needed. If field has keyword multi-field
+     * in mapping, it's used instead of default keyword sub-field.
+     *
+     * @param name
+     *            field name
+     * @param annotations
+     *            field edm type
+     * @param multiFields
+     *            field multi-fields from mapping
+     * @return property's keyword field name
+     */
+    public static String addKeywordIfNeeded(String name, List<EdmAnnotation> annotations,
+            List<MultiField> multiFields) {
+        return findMultiField(multiFields, Kind.KEYWORD, false, null)
+                .map(multiField -> addSuffix(name, multiField.getName()))
+                .orElseGet(() -> addKeywordIfNeeded(name, annotations));
+    }
+
+    /**
+     * Returns field name with doc values, which can be used for sorting,
+     * aggregations and scripts. Only keyword multi-field with doc values is
+     * used instead of default keyword sub-field, text multi-fields with
+     * keyword analyzer serve filters only.
+     *
+     * @param name
+     *            field name
+     * @param annotations
+     *            field edm type
+     * @param multiFields
+     *            field multi-fields from mapping
+     * @return property's field name with doc values
+     */
+    public static String addDocValuesKeywordIfNeeded(String name,
+            List<EdmAnnotation> annotations, List<MultiField> multiFields) {
+        return findDocValuesField(multiFields, false)
+                .map(multiField -> addSuffix(name, multiField.getName()))
+                .orElseGet(() -> addKeywordIfNeeded(name, annotations));
+    }
+
+    /**
+     * Finds keyword multi-field with doc values.
+     *
+     * @param multiFields
+     *            field multi-fields from mapping
+     * @param lowercase
+     *            whether multi-field should be lowercased
+     * @return multi-field, or empty optional if there is no suitable one
+     */
+    public static Optional<MultiField> findDocValuesField(List<MultiField> multiFields,
+            boolean lowercase) {
+        return multiFields.stream().filter(MultiField::isDocValues)
+                .filter(multiField -> multiField.getKind() == Kind.KEYWORD
+                        && multiField.isLowercase() == lowercase)
+                .findFirst();
+    }
+
+    /**
+     * Finds multi-field of specific kind that can be used to search value.
+     *
+     * @param multiFields
+     *            field multi-fields from mapping
+     * @param kind
+     *            multi-field kind
+     * @param lowercase
+     *            whether multi-field should be lowercased
+     * @param value
+     *            value to search, if null, any length of value is allowed
+     * @return multi-field, or empty optional if there is no suitable one
+     */
+    public static Optional<MultiField> findMultiField(List<MultiField> multiFields, Kind kind,
+            boolean lowercase, String value) {
+        return multiFields.stream()
+                .filter(multiField -> multiField.getKind() == kind
+                        && multiField.isLowercase() == lowercase)
+                .filter(multiField -> value == null || multiField.fits(value)).findFirst();
+    }
+
+    /**
+     * Returns multi-field full name.
+     *
+     * @param fieldName
+     *            name of the field
+     * @param multiFieldName
+     *            name of the multi-field
+     * @return multi-field full name
+     */
+    public static String addSuffix(String fieldName, String multiFieldName) {
+        return fieldName + ElasticConstants.SUFFIX_DELIMITER + multiFieldName;
+    }
+
     /**
      * Returns keyword field name. Keyword field is non analyzed field.
      *
@@ -0,0 +1,107 @@
+package com.hevelian.olastic.core.elastic.utils;
+
+import java.util.Set;
+
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
+import com.hevelian.olastic.core.elastic.queries.Query;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+/**
+ * Utils to apply options of the query to search request builder.
+ *
+ * @author rdidyk
+ */
+public final class SearchRequestUtils {
+
+    private SearchRequestUtils() {
+    }
+
+    /**
+     * Sets sort, size and start of requested page, if request is paginated.
+     *
+     * @param request
+     *            request builder
+     * @param pagination
+     *            pagination, can be null
+     */
+    public static void setPagination(SearchRequestBuilder request, Pagination pagination) {
+        if (pagination != null) {
+            addSort(request, pagination);
+            request.setSize(pagination.getTop()).setFrom(pagination.getSkip());
+            if (pagination.getSearchAfter() != null) {
+                request.searchAfter(pagination.getSearchAfter());
+            }
+        }
+    }
+
+    /**
+     * Adds sort of the pagination to request.
+     *
+     * @param request
+     *            request builder
+     * @param pagination
+     *            pagination
+     */
+    public static void addSort(SearchRequestBuilder request, Pagination pagination) {
+        for (Sort sort : pagination.getOrderBy()) {
+            FieldSortBuilder sortQuery = SortBuilders.fieldSort(sort.getProperty())
+                    .order(SortOrder.valueOf(sort.getDirection().toString()));
+            request.addSort(sortQuery);
+        }
+    }
+
+    /**
+     * Restricts retrieved _source to included fields of the query, and drops
+     * its excluded fields.
+     *
+     * @param request
+     *            request builder
+     * @param query
+     *            query with fields
+     */
+    public static void setFetchSource(SearchRequestBuilder request, SearchQuery query) {
+        Set<String> fields = query.getFields();
+        Set<String> excludedFields = query.getExcludedFields();
+        if (!fields.isEmpty() || !excludedFields.isEmpty()) {
+            request.setFetchSource(
+                    fields.isEmpty() ? null : fields.toArray(new String[fields.size()]),
+                    excludedFields.isEmpty() ? null
+                            : excludedFields.toArray(new String[excludedFields.size()]));
+        }
+    }
+
+    /**
+     * Sets maximum number of documents to collect for each shard, if query is
+     * limited.
+     *
+     * @param request
+     *            request builder
+     * @param query
+     *            query with limit
+     */
+    public static void setTerminateAfter(SearchRequestBuilder request, Query query) {
+        if (query.getTerminateAfter() > 0) {
+            request.setTerminateAfter(query.getTerminateAfter());
+        }
+    }
+
+    /**
+     * Restricts request to shards of routing values, if query has them.
+     *
+     * @param request
+     *            request builder
+     * @param query
+     *            query with routing values
+     */
+    public static void setRouting(SearchRequestBuilder request, Query query) {
+        if (query.getRouting().length > 0) {
+            request.setRouting(query.getRouting());
+        }
+    }
+}
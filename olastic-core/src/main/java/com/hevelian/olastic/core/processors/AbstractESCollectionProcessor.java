@@ -1,7 +1,14 @@
 package com.hevelian.olastic.core.processors;
 
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
 import org.apache.olingo.commons.api.data.AbstractEntityCollection;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.core.Decoder;
+import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
@@ -10,9 +17,14 @@ import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.pagination.SkipToken;
+import com.hevelian.olastic.core.elastic.parsers.ScrollEntityIterator;
+import com.hevelian.olastic.core.elastic.parsers.SourceEntityCollection;
 import com.hevelian.olastic.core.processors.data.InstanceData;
+import com.hevelian.olastic.core.serializer.json.ElasticODataJsonSerializer;
 
 /**
  * Abstract class with common logic for all collection processors.
@@ -20,20 +32,87 @@ import com.hevelian.olastic.core.processors.data.InstanceData;
  * @author rdidyk
  */
 public abstract class AbstractESCollectionProcessor
-        extends AbstractESReadProcessor<EdmEntityType, AbstractEntityCollection> {
+        extends AbstractESSerializingProcessor<EdmEntityType, AbstractEntityCollection> {
+
+    private static final List<String> PAGING_OPTIONS = Arrays.asList(
+            SystemQueryOptionKind.SKIP.toString(), SystemQueryOptionKind.TOP.toString(),
+            SystemQueryOptionKind.SKIPTOKEN.toString());
 
     @Override
     protected SerializerResult serialize(ODataSerializer serializer,
             InstanceData<EdmEntityType, AbstractEntityCollection> data,
             ElasticEdmEntitySet entitySet, UriInfo uriInfo) throws SerializerException {
+        return serializer.entityCollection(serviceMetadata, data.getType(), data.getValue(),
+                createSerializerOptions(entitySet, uriInfo).build());
+    }
+
+    /**
+     * Streams entities of scroll iterator to the response, they are retrieved
+     * and written while response is written. Scroll is cleared if writing
+     * fails. Any other collection is serialized at once.
+     */
+    @Override
+    protected void setContent(ODataResponse response, ContentType responseFormat,
+            InstanceData<EdmEntityType, AbstractEntityCollection> data,
+            ElasticEdmEntitySet entitySet, UriInfo uriInfo) throws SerializerException {
+        if (data.getValue() instanceof ScrollEntityIterator) {
+            ScrollEntityIterator entities = (ScrollEntityIterator) data.getValue();
+            response.setODataContent(odata.createSerializer(responseFormat)
+                    .entityCollectionStreamed(serviceMetadata, data.getType(), entities,
+                            createSerializerOptions(entitySet, uriInfo)
+                                    .writeContentErrorCallback(
+                                            (context, channel) -> entities.close())
+                                    .build())
+                    .getODataContent());
+        } else if (data.getValue() instanceof SourceEntityCollection) {
+            ODataSerializer serializer = odata.createSerializer(responseFormat);
+            if (serializer instanceof ElasticODataJsonSerializer) {
+                response.setContent(((ElasticODataJsonSerializer) serializer)
+                        .sourceEntityCollection(serviceMetadata,
+                                (SourceEntityCollection) data.getValue(),
+                                createSerializerOptions(entitySet, uriInfo).build())
+                        .getContent());
+            } else {
+                super.setContent(response, responseFormat, data, entitySet, uriInfo);
+            }
+        } else {
+            super.setContent(response, responseFormat, data, entitySet, uriInfo);
+        }
+    }
+
+    /**
+     * Creates link to the next page of collection. It's a request URI with
+     * $skiptoken instead of $skip and $top options.
+     *
+     * @param token
+     *            token of the next page
+     * @return next link
+     */
+    protected URI createNextLink(SkipToken token) {
+        StringBuilder link = new StringBuilder(request.getRawBaseUri())
+                .append(request.getRawODataPath()).append('?');
+        String query = request.getRawQueryPath();
+        if (query != null) {
+            for (String option : query.split("&")) {
+                String name = Decoder.decode(option.split("=", 2)[0]);
+                if (!option.isEmpty() && !PAGING_OPTIONS.contains(name)) {
+                    link.append(option).append('&');
+                }
+            }
+        }
+        link.append(SystemQueryOptionKind.SKIPTOKEN).append('=').append(token.encode());
+        return URI.create(link.toString());
+    }
+
+    private EntityCollectionSerializerOptions.Builder createSerializerOptions(
+            ElasticEdmEntitySet entitySet, UriInfo uriInfo) throws SerializerException {
         String id = request.getRawBaseUri() + "/" + entitySet.getEntityType();
         ExpandOption expand = uriInfo.getExpandOption();
         SelectOption select = uriInfo.getSelectOption();
         CountOption count = uriInfo.getCountOption();
-        return serializer.entityCollection(serviceMetadata, data.getType(), data.getValue(),
-                EntityCollectionSerializerOptions.with()
-                        .contextURL(createContextUrl(entitySet, false, expand, select, null)).id(id)
-                        .count(count).select(select).expand(expand).build());
+        return EntityCollectionSerializerOptions.with()
+                .contextURL(createContextUrl(entitySet, false, expand, select, null)).id(id)
+                .count(count).select(select).expand(expand);
     }
 
 }
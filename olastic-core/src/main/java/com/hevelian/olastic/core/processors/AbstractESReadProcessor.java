@@ -1,5 +1,8 @@
 package com.hevelian.olastic.core.processors;
 
+import java.util.Collection;
+import java.util.Locale;
+
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -9,17 +12,28 @@ import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
-import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.SerializerException;
-import org.apache.olingo.server.api.serializer.SerializerResult;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.search.internal.InternalSearchResponse;
 
 import com.hevelian.olastic.core.ElasticOData;
 import com.hevelian.olastic.core.ElasticServiceMetadata;
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.builders.ForeignKeyJoinEngine;
+import com.hevelian.olastic.core.elastic.builders.JoinPlanner;
+import com.hevelian.olastic.core.elastic.builders.QueryOptimizer;
+import com.hevelian.olastic.core.elastic.cost.QueryCostEstimator;
+import com.hevelian.olastic.core.elastic.cost.QueryCostPolicy;
+import com.hevelian.olastic.core.elastic.cost.QueryCostPolicy.Action;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.queries.Query;
+import com.hevelian.olastic.core.elastic.requests.CountRequest;
 import com.hevelian.olastic.core.elastic.requests.ESRequest;
 import com.hevelian.olastic.core.processors.data.InstanceData;
 
@@ -41,6 +55,7 @@ public abstract class AbstractESReadProcessor<T, V> implements ESReadProcessor {
     protected ElasticServiceMetadata serviceMetadata;
     /** OData request. */
     protected ODataRequest request;
+    private boolean isDowngraded;
 
     @Override
     public void init(ElasticOData odata, ElasticServiceMetadata serviceMetadata) {
@@ -55,16 +70,143 @@ public abstract class AbstractESReadProcessor<T, V> implements ESReadProcessor {
     public void read(ODataRequest request, ODataResponse response, UriInfo uriInfo,
             ContentType responseFormat) throws ODataApplicationException, ODataLibraryException {
         this.request = request;
+        this.isDowngraded = false;
         ESRequest searchRequest = createRequest(uriInfo);
+        long cost = applyCostPolicy(searchRequest);
         ElasticEdmEntitySet entitySet = searchRequest.getEntitySet();
-        SearchResponse searchResponse = searchRequest.execute();
+        SearchResponse searchResponse;
+        if (QueryOptimizer.isEmpty(searchRequest.getQuery().getQueryBuilder())) {
+            searchResponse = createEmptyResponse();
+        } else {
+            Query query = searchRequest.getQuery();
+            query.setQueryBuilder(getForeignKeyJoinEngine().resolve(query.getQueryBuilder()));
+            query.setQueryBuilder(getJoinPlanner(entitySet).plan(query));
+            searchResponse = searchRequest.execute();
+        }
         InstanceData<T, V> data = parseResponse(searchResponse, entitySet);
 
-        ODataSerializer serializer = odata.createSerializer(responseFormat);
-        SerializerResult serializerResult = serialize(serializer, data, entitySet, uriInfo);
-        response.setContent(serializerResult.getContent());
+        setContent(response, responseFormat, data, entitySet, uriInfo);
         response.setStatusCode(HttpStatusCode.OK.getStatusCode());
         response.setHeader(HttpHeader.CONTENT_TYPE, responseFormat.toContentTypeString());
+        response.setHeader(ElasticConstants.QUERY_COST_HEADER, Long.toString(cost));
+        if (searchRequest instanceof CountRequest && ((CountRequest) searchRequest).isEstimated()) {
+            response.setHeader(ElasticConstants.COUNT_ESTIMATED_HEADER, Boolean.TRUE.toString());
+        }
+        if (isDowngraded) {
+            response.setHeader(ElasticConstants.QUERY_DOWNGRADED_HEADER, Boolean.TRUE.toString());
+        }
+    }
+
+    /**
+     * Gets preferences of the request from its Prefer header.
+     *
+     * @return preferences, or null if request has no Prefer header
+     */
+    protected Preferences getPreferences() {
+        Collection<String> prefer = request.getHeaders(HttpHeader.PREFER);
+        return prefer != null ? odata.createPreferences(prefer) : null;
+    }
+
+    /**
+     * Gets sample size to estimate count of entities with. Count is estimated
+     * if it's requested with approximate count preference, or if entity set
+     * has approximate counts by default.
+     *
+     * @param entitySet
+     *            requested entity set
+     * @return count sample size, or zero if count has to be exact
+     */
+    protected int getCountSampleSize(ElasticEdmEntitySet entitySet) {
+        Preferences preferences = getPreferences();
+        boolean isApproximate = entitySet.isApproximateCount() || preferences != null
+                && preferences.getPreference(ElasticConstants.APPROXIMATE_COUNT_PREFERENCE) != null;
+        return isApproximate ? entitySet.getCountSampleSize() : 0;
+    }
+
+    /**
+     * Estimates cost of the request and checks it against the budget of entity
+     * set. Request over the budget is either rejected or downgraded, depending
+     * on the {@link QueryCostPolicy} of service metadata. Response of the
+     * downgraded request is marked with
+     * {@link ElasticConstants#QUERY_DOWNGRADED_HEADER}.
+     *
+     * @param searchRequest
+     *            request to check
+     * @return estimated cost of the request
+     * @throws ODataApplicationException
+     *             if request exceeds the budget and has to be rejected
+     */
+    protected long applyCostPolicy(ESRequest searchRequest) throws ODataApplicationException {
+        long cost = getCostEstimator().estimate(searchRequest);
+        QueryCostPolicy policy = serviceMetadata.getCostPolicy();
+        String entitySetName = searchRequest.getEntitySet().getName();
+        long budget = policy.getBudget(entitySetName);
+        if (cost > budget) {
+            if (policy.getAction() == Action.REJECT) {
+                throw new ODataApplicationException(
+                        String.format("Query cost %d exceeds the budget %d of entity set '%s'.",
+                                cost, budget, entitySetName),
+                        HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+            }
+            isDowngraded = true;
+            searchRequest.getQuery().setTerminateAfter(policy.getTerminateAfter());
+            Pagination pagination = searchRequest.getPagination();
+            if (pagination != null) {
+                pagination.setTop(Math.min(pagination.getTop(), policy.getDowngradedTop()));
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Gets estimator to calculate cost of requests.
+     *
+     * @return cost estimator
+     */
+    protected QueryCostEstimator getCostEstimator() {
+        return new QueryCostEstimator();
+    }
+
+    /**
+     * Gets planner, which chooses between block joins and two-phase
+     * resolution of ids for parent/child queries of entity set.
+     *
+     * @param entitySet
+     *            entity set of the request
+     * @return join planner
+     */
+    protected JoinPlanner getJoinPlanner(ElasticEdmEntitySet entitySet) {
+        return new JoinPlanner(entitySet.getJoinResolutionLimit());
+    }
+
+    /**
+     * Gets handler, which retrieves entities of expanded navigation
+     * properties.
+     *
+     * @return expand handler
+     */
+    protected ExpandHandler getExpandHandler() {
+        return new ExpandHandler();
+    }
+
+    /**
+     * Gets engine, which resolves joins between indices by foreign keys.
+     *
+     * @return foreign key join engine
+     */
+    protected ForeignKeyJoinEngine getForeignKeyJoinEngine() {
+        return new ForeignKeyJoinEngine(ElasticConstants.DEFAULT_FOREIGN_KEY_FAN_OUT);
+    }
+
+    /**
+     * Creates empty search response for request that provably matches no
+     * documents, so there is no need to execute it in Elasticsearch.
+     *
+     * @return empty search response
+     */
+    protected SearchResponse createEmptyResponse() {
+        return new SearchResponse(InternalSearchResponse.empty(), null, 0, 0, 0,
+                ShardSearchFailure.EMPTY_ARRAY);
     }
 
     /**
@@ -94,21 +236,22 @@ public abstract class AbstractESReadProcessor<T, V> implements ESReadProcessor {
             ElasticEdmEntitySet entitySet) throws ODataApplicationException;
 
     /**
-     * Serializes instance data.
+     * Writes instance data to the content of response.
      *
-     * @param serializer
-     *            responsible serializer
+     * @param response
+     *            OData response
+     * @param responseFormat
+     *            content type of response
      * @param data
-     *            data to serialize
+     *            data to write
      * @param entitySet
-     *            the emd entity set
+     *            the edm entity set
      * @param uriInfo
      *            URI info
-     * @return serialized result
      * @throws SerializerException
      *             if any error occurred during serialization
      */
-    protected abstract SerializerResult serialize(ODataSerializer serializer,
+    protected abstract void setContent(ODataResponse response, ContentType responseFormat,
             InstanceData<T, V> data, ElasticEdmEntitySet entitySet, UriInfo uriInfo)
             throws SerializerException;
 
@@ -0,0 +1,55 @@
+package com.hevelian.olastic.core.processors;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.apache.olingo.server.api.uri.UriInfo;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.processors.data.InstanceData;
+
+/**
+ * Abstract class for read processors, which write OData serialization of
+ * instance data to the response.
+ *
+ * @param <T>
+ *            instance data type class
+ * @param <V>
+ *            instance data value class
+ * @author rdidyk
+ */
+public abstract class AbstractESSerializingProcessor<T, V>
+        extends AbstractESReadProcessor<T, V> {
+
+    /**
+     * Serializes instance data.
+     *
+     * @param serializer
+     *            responsible serializer
+     * @param data
+     *            data to serialize
+     * @param entitySet
+     *            the emd entity set
+     * @param uriInfo
+     *            URI info
+     * @return serialized result
+     * @throws SerializerException
+     *             if any error occurred during serialization
+     */
+    protected abstract SerializerResult serialize(ODataSerializer serializer,
+            InstanceData<T, V> data, ElasticEdmEntitySet entitySet, UriInfo uriInfo)
+            throws SerializerException;
+
+    /**
+     * Serializes instance data to the content of response.
+     */
+    @Override
+    protected void setContent(ODataResponse response, ContentType responseFormat,
+            InstanceData<T, V> data, ElasticEdmEntitySet entitySet, UriInfo uriInfo)
+            throws SerializerException {
+        ODataSerializer serializer = odata.createSerializer(responseFormat);
+        response.setContent(serialize(serializer, data, entitySet, uriInfo).getContent());
+    }
+}
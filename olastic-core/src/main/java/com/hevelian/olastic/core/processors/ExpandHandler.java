@@ -0,0 +1,208 @@
+package com.hevelian.olastic.core.processors;
+
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchResponse;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.edm.ElasticEdmNavigationProperty;
+import com.hevelian.olastic.core.elastic.parsers.EntityCollectionParser;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.elastic.requests.MultiSearchRequest;
+import com.hevelian.olastic.core.elastic.requests.creators.ExpandRequestCreator;
+import com.hevelian.olastic.core.exceptions.SearchException;
+
+/**
+ * Retrieves entities of expanded navigation properties and links them to
+ * expanded entities. Related entities of all expanded entities and all
+ * navigation properties of one expand level are retrieved with single multi
+ * search request, so expanded page costs one extra round trip per level of
+ * nested $expand, regardless of page size.
+ *
+ * @author rdidyk
+ */
+public class ExpandHandler {
+
+    /**
+     * Expands navigation properties of the entities.
+     *
+     * @param entities
+     *            entities to expand
+     * @param entitySet
+     *            entity set of the entities
+     * @param expandOption
+     *            expand option, can be null
+     * @throws ODataApplicationException
+     *             if any error occurred
+     */
+    public void expand(List<Entity> entities, ElasticEdmEntitySet entitySet,
+            ExpandOption expandOption) throws ODataApplicationException {
+        List<Expansion> level = collectExpansions(entities, entitySet, expandOption);
+        while (!level.isEmpty()) {
+            List<SearchQuery> queries = new ArrayList<>();
+            for (Expansion expansion : level) {
+                for (Entity entity : expansion.entities) {
+                    queries.add(expansion.creator.create(entity));
+                }
+            }
+            List<SearchResponse> responses = search(queries);
+            List<Expansion> nextLevel = new ArrayList<>();
+            int index = 0;
+            for (Expansion expansion : level) {
+                ExpandRequestCreator creator = expansion.creator;
+                List<Entity> related = new ArrayList<>();
+                for (Entity entity : expansion.entities) {
+                    EntityCollection collection = (EntityCollection) new EntityCollectionParser(
+                            creator.isCount())
+                                    .parse(responses.get(index++), creator.getTargetEntitySet())
+                                    .getValue();
+                    entity.getNavigationLinks()
+                            .add(createLink(creator.getNavigation(), collection));
+                    related.addAll(collection.getEntities());
+                }
+                if (expansion.item != null) {
+                    nextLevel.addAll(collectExpansions(related, creator.getTargetEntitySet(),
+                            expansion.item.getExpandOption()));
+                }
+            }
+            level = nextLevel;
+        }
+    }
+
+    /**
+     * Executes queries in one multi search request.
+     *
+     * @param queries
+     *            queries to execute
+     * @return responses of each query, in the same order
+     * @throws ODataApplicationException
+     *             if search failed
+     */
+    protected List<SearchResponse> search(List<SearchQuery> queries)
+            throws ODataApplicationException {
+        MultiSearchResponse response = new MultiSearchRequest(queries, null, null).execute();
+        List<SearchResponse> responses = new ArrayList<>();
+        for (MultiSearchResponse.Item item : response.getResponses()) {
+            if (item.isFailure()) {
+                throw new SearchException(item.getFailureMessage());
+            }
+            responses.add(item.getResponse());
+        }
+        return responses;
+    }
+
+    /**
+     * Creates request creator for expanded navigation property.
+     *
+     * @param entitySet
+     *            entity set of expanded entities
+     * @param navigation
+     *            navigation property
+     * @param item
+     *            expand item, or null if navigation is expanded with star
+     * @return expand request creator
+     * @throws ODataApplicationException
+     *             if navigation can't be expanded
+     */
+    protected ExpandRequestCreator createRequestCreator(ElasticEdmEntitySet entitySet,
+            ElasticEdmNavigationProperty navigation, ExpandItem item)
+            throws ODataApplicationException {
+        return new ExpandRequestCreator(entitySet, navigation, item);
+    }
+
+    private List<Expansion> collectExpansions(List<Entity> entities,
+            ElasticEdmEntitySet entitySet, ExpandOption expandOption)
+            throws ODataApplicationException {
+        List<Expansion> expansions = new ArrayList<>();
+        if (expandOption == null || entities.isEmpty()) {
+            return expansions;
+        }
+        for (ExpandItem item : expandOption.getExpandItems()) {
+            if (item.isRef() || item.getLevelsOption() != null) {
+                throwNotImplemented("Expand with $ref or $levels is not supported.");
+            }
+            if (item.isStar()) {
+                for (ElasticEdmNavigationProperty navigation : entitySet.getEntityType()
+                        .getESNavigationProperties().values()) {
+                    expansions.add(new Expansion(entities,
+                            createRequestCreator(entitySet, navigation, null), null));
+                }
+            } else {
+                ElasticEdmNavigationProperty navigation = ExpandRequestCreator
+                        .getNavigation(item);
+                ExpandRequestCreator creator = createRequestCreator(entitySet, navigation, item);
+                List<Entity> inlined = getInlined(entities, navigation.getName());
+                if (inlined == null) {
+                    expansions.add(new Expansion(entities, creator, item));
+                } else {
+                    expansions.addAll(collectExpansions(inlined, creator.getTargetEntitySet(),
+                            item.getExpandOption()));
+                }
+            }
+        }
+        return expansions;
+    }
+
+    /**
+     * Gets entities already linked to each of the entities by navigation
+     * property, e.g. retrieved with inner hits of the main request.
+     *
+     * @param entities
+     *            expanded entities
+     * @param navigation
+     *            navigation property name
+     * @return linked entities, or null if some entity isn't linked yet
+     */
+    private static List<Entity> getInlined(List<Entity> entities, String navigation) {
+        List<Entity> inlined = new ArrayList<>();
+        for (Entity entity : entities) {
+            Link link = entity.getNavigationLink(navigation);
+            if (link == null) {
+                return null;
+            }
+            if (link.getInlineEntitySet() != null) {
+                inlined.addAll(link.getInlineEntitySet().getEntities());
+            } else if (link.getInlineEntity() != null) {
+                inlined.add(link.getInlineEntity());
+            }
+        }
+        return inlined;
+    }
+
+    private static Link createLink(EdmNavigationProperty navigation, EntityCollection related) {
+        Link link = new Link();
+        link.setTitle(navigation.getName());
+        if (navigation.isCollection()) {
+            link.setInlineEntitySet(related);
+        } else if (!related.getEntities().isEmpty()) {
+            link.setInlineEntity(related.getEntities().get(0));
+        }
+        return link;
+    }
+
+    /**
+     * Navigation property expanded for the list of entities.
+     */
+    private static class Expansion {
+        private final List<Entity> entities;
+        private final ExpandRequestCreator creator;
+        private final ExpandItem item;
+
+        Expansion(List<Entity> entities, ExpandRequestCreator creator, ExpandItem item) {
+            this.entities = entities;
+            this.creator = creator;
+            this.item = item;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.hevelian.olastic.core.processors.impl;
 
+import java.net.URI;
+
 import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.uri.UriInfo;
@@ -8,6 +11,7 @@ import org.elasticsearch.action.search.SearchResponse;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.SkipToken;
 import com.hevelian.olastic.core.elastic.parsers.BucketsAggregationsParser;
 import com.hevelian.olastic.core.elastic.requests.AggregateRequest;
 import com.hevelian.olastic.core.elastic.requests.ESRequest;
@@ -16,7 +20,9 @@ import com.hevelian.olastic.core.processors.AbstractESCollectionProcessor;
 import com.hevelian.olastic.core.processors.data.InstanceData;
 
 /**
- * Custom Elastic processor for handling terms aggregations with metrics.
+ * Custom Elastic processor for handling terms aggregations with metrics. If
+ * groups are paged by keys, response has a next link with $skiptoken, which
+ * continues after the keys of the last group of the page.
  * 
  * @author rdidyk
  */
@@ -24,19 +30,53 @@ public class BucketsAggegationsProcessor extends AbstractESCollectionProcessor {
 
     private Pagination pagination;
     private String countAlias;
+    private boolean isKeysetPaging;
+    private int remaining;
 
     @Override
     protected ESRequest createRequest(UriInfo uriInfo) throws ODataApplicationException {
-        AggregateRequest request = new BucketsAggregationsRequestCreator().create(uriInfo);
+        BucketsAggregationsRequestCreator creator = new BucketsAggregationsRequestCreator();
+        AggregateRequest request = creator.create(uriInfo);
         pagination = request.getPagination();
         countAlias = request.getCountAlias();
+        isKeysetPaging = creator.isKeysetPaging();
+        if (isKeysetPaging) {
+            remaining = SkipToken.getTop(uriInfo);
+        }
         return request;
     }
 
     @Override
     protected InstanceData<EdmEntityType, AbstractEntityCollection> parseResponse(
             SearchResponse response, ElasticEdmEntitySet entitySet) {
-        return new BucketsAggregationsParser(pagination, countAlias).parse(response, entitySet);
+        BucketsAggregationsParser parser = new BucketsAggregationsParser(pagination,
+                countAlias);
+        InstanceData<EdmEntityType, AbstractEntityCollection> data = parser.parse(response,
+                entitySet);
+        if (isKeysetPaging) {
+            EntityCollection entities = (EntityCollection) data.getValue();
+            entities.setNext(createNextLink(parser, entities.getEntities().size()));
+        }
+        return data;
+    }
+
+    /**
+     * Creates link to the next page of groups, which continues after the keys
+     * of the last group of parsed page.
+     *
+     * @param parser
+     *            parser of current page
+     * @param count
+     *            number of groups in current page
+     * @return next link, or null if it's the last page
+     */
+    protected URI createNextLink(BucketsAggregationsParser parser, int count) {
+        if (count == 0 || !parser.hasMore()
+                || remaining != SkipToken.UNLIMITED && remaining <= count) {
+            return null;
+        }
+        return createNextLink(new SkipToken(parser.getLastKeys(),
+                remaining == SkipToken.UNLIMITED ? SkipToken.UNLIMITED : remaining - count));
     }
 
 }
@@ -0,0 +1,52 @@
+package com.hevelian.olastic.core.processors.impl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.elasticsearch.action.search.SearchResponse;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.elastic.requests.CountRequest;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
+import com.hevelian.olastic.core.processors.AbstractESReadProcessor;
+import com.hevelian.olastic.core.processors.data.InstanceData;
+
+/**
+ * Processor to count entities of collection, e.g. author/$count. Only total
+ * hits of filtered documents are requested, and the count is written as
+ * plain text, without creating any entities. Count is estimated if it's
+ * requested with approximate count preference, or by entity set.
+ *
+ * @author rdidyk
+ */
+public class CountProcessor extends AbstractESReadProcessor<EdmEntityType, Long> {
+
+    @Override
+    protected ESRequest createRequest(UriInfo uriInfo) throws ODataApplicationException {
+        ESRequest searchRequest = new SearchRequestCreator().create(uriInfo);
+        return new CountRequest((SearchQuery) searchRequest.getQuery(),
+                searchRequest.getEntitySet(), getCountSampleSize(searchRequest.getEntitySet()));
+    }
+
+    @Override
+    protected InstanceData<EdmEntityType, Long> parseResponse(SearchResponse response,
+            ElasticEdmEntitySet entitySet) throws ODataApplicationException {
+        return new InstanceData<>(entitySet.getEntityType(), response.getHits().getTotalHits());
+    }
+
+    @Override
+    protected void setContent(ODataResponse response, ContentType responseFormat,
+            InstanceData<EdmEntityType, Long> data, ElasticEdmEntitySet entitySet,
+            UriInfo uriInfo) {
+        response.setContent(new ByteArrayInputStream(
+                data.getValue().toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
@@ -4,11 +4,13 @@ import com.hevelian.olastic.core.ElasticOData;
 import com.hevelian.olastic.core.ElasticServiceMetadata;
 import com.hevelian.olastic.core.processors.ESProcessor;
 import com.hevelian.olastic.core.processors.ESReadProcessor;
+import com.hevelian.olastic.core.serializer.export.ExportFormat;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.processor.CountEntityCollectionProcessor;
 import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
@@ -28,11 +30,13 @@ import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented
  * </p>
  * Supported items for now: 1. one 'groupby' for multiple fields; 2. metrics
  * aggregations; 3. one 'groupby' for multiple fields with metrics aggregations;
- * 4. simple entity collections.
+ * 4. simple entity collections; 5. export of entity collections in NDJSON or
+ * CSV format; 6. count of entity collections.
  *
  * @author rdidyk
  */
-public class EntityCollectionProcessorHandler implements EntityCollectionProcessor, ESProcessor {
+public class EntityCollectionProcessorHandler
+        implements EntityCollectionProcessor, CountEntityCollectionProcessor, ESProcessor {
 
     /** OData instance. */
     protected ElasticOData odata;
@@ -48,11 +52,20 @@ public class EntityCollectionProcessorHandler implements EntityCollectionProcess
     @Override
     public void readEntityCollection(ODataRequest request, ODataResponse response, UriInfo uriInfo,
             ContentType responseFormat) throws ODataApplicationException, ODataLibraryException {
-        ESReadProcessor collectionProcessor = getCollectionReadProcessor(uriInfo);
+        ESReadProcessor collectionProcessor = ExportFormat.of(responseFormat) != null
+                ? new ExportProcessor() : getCollectionReadProcessor(uriInfo);
         collectionProcessor.init(odata, serviceMetadata);
         collectionProcessor.read(request, response, uriInfo, responseFormat);
     }
 
+    @Override
+    public void countEntityCollection(ODataRequest request, ODataResponse response,
+            UriInfo uriInfo) throws ODataApplicationException, ODataLibraryException {
+        CountProcessor countProcessor = new CountProcessor();
+        countProcessor.init(odata, serviceMetadata);
+        countProcessor.read(request, response, uriInfo, ContentType.TEXT_PLAIN);
+    }
+
     /**
      * Gets specific collection reader based on items from apply option in URL.
      *
@@ -1,27 +1,77 @@
 package com.hevelian.olastic.core.processors.impl;
 
+import java.net.URI;
+
 import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.prefer.Preferences;
+import org.apache.olingo.server.api.prefer.PreferencesApplied;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
+import org.apache.olingo.server.api.uri.queryoption.TopOption;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
 
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.SkipToken;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
 import com.hevelian.olastic.core.elastic.parsers.EntityCollectionParser;
+import com.hevelian.olastic.core.elastic.parsers.SourceEntityCollection;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.elastic.requests.CountRequest;
 import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.elastic.requests.ScrollRequest;
 import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
 import com.hevelian.olastic.core.processors.AbstractESCollectionProcessor;
 import com.hevelian.olastic.core.processors.data.InstanceData;
 
 /**
- * Custom Elastic processor for handling a collection of entities.
- * 
+ * Custom Elastic processor for handling a collection of entities. Collection
+ * is returned page by page: if there are more entities than fit in a page,
+ * response has a next link with $skiptoken, which continues search after the
+ * last entity of the page. With odata.streaming preference whole collection
+ * is streamed in one response from the scroll. Page without $select and
+ * $expand is written to JSON right from sources of hits. Request with $top=0,
+ * usually together with $count=true, only counts documents, and the count
+ * can be estimated.
+ *
  * @author rdidyk
  */
 public class EntityCollectionProcessorImpl extends AbstractESCollectionProcessor {
 
     private boolean isCount;
+    private ExpandOption expandOption;
+    private SelectOption selectOption;
+    private Pagination pagination;
+    private int remaining;
+    private Integer appliedMaxPageSize;
+    private boolean isStreamed;
+
+    @Override
+    public void read(ODataRequest request, ODataResponse response, UriInfo uriInfo,
+            ContentType responseFormat) throws ODataApplicationException, ODataLibraryException {
+        super.read(request, response, uriInfo, responseFormat);
+        if (appliedMaxPageSize != null) {
+            response.setHeader(HttpHeader.PREFERENCE_APPLIED, PreferencesApplied.with()
+                    .maxPageSize(appliedMaxPageSize).build().toValueString());
+        } else if (isStreamed) {
+            response.setHeader(HttpHeader.PREFERENCE_APPLIED, PreferencesApplied.with()
+                    .preference(ElasticConstants.STREAMING_PREFERENCE, null).build()
+                    .toValueString());
+        }
+    }
 
     @Override
     protected ESRequest createRequest(UriInfo uriInfo) throws ODataApplicationException {
@@ -29,13 +79,161 @@ public class EntityCollectionProcessorImpl extends AbstractESCollectionProcessor
         if (countOption != null) {
             isCount = countOption.getValue();
         }
-        return new SearchRequestCreator().create(uriInfo);
+        expandOption = uriInfo.getExpandOption();
+        selectOption = uriInfo.getSelectOption();
+        ESRequest searchRequest = new SearchRequestCreator().create(uriInfo);
+        isStreamed = isStreaming(uriInfo);
+        if (isStreamed) {
+            return new ScrollRequest((SearchQuery) searchRequest.getQuery(),
+                    searchRequest.getEntitySet(), ElasticConstants.DEFAULT_SCROLL_SIZE);
+        }
+        if (isCountOnly(uriInfo)) {
+            return new CountRequest((SearchQuery) searchRequest.getQuery(),
+                    searchRequest.getEntitySet(),
+                    getCountSampleSize(searchRequest.getEntitySet()));
+        }
+        applyServerPaging(searchRequest.getPagination(), searchRequest.getEntitySet(), uriInfo);
+        return searchRequest;
+    }
+
+    /**
+     * Checks whether no entities are requested, with $top=0, so only count of
+     * documents has to be retrieved.
+     *
+     * @param uriInfo
+     *            URI info
+     * @return true if request only counts documents
+     */
+    protected boolean isCountOnly(UriInfo uriInfo) {
+        TopOption topOption = uriInfo.getTopOption();
+        return topOption != null && topOption.getValue() == 0;
+    }
+
+    /**
+     * Checks whether whole collection has to be streamed with scroll. It's
+     * requested with odata.streaming preference, which is applied only if
+     * there are no options, which need ordering or paging: $orderby, $skip,
+     * $top, $skiptoken; and no $expand, which is done per page.
+     *
+     * @param uriInfo
+     *            URI info
+     * @return true if collection has to be streamed
+     */
+    protected boolean isStreaming(UriInfo uriInfo) {
+        Preferences preferences = getPreferences();
+        if (preferences == null
+                || preferences.getPreference(ElasticConstants.STREAMING_PREFERENCE) == null) {
+            return false;
+        }
+        return uriInfo.getOrderByOption() == null && uriInfo.getSkipOption() == null
+                && uriInfo.getTopOption() == null && uriInfo.getSkipTokenOption() == null
+                && uriInfo.getExpandOption() == null;
+    }
+
+    /**
+     * Limits pagination of the request to one page. Page size is taken from
+     * odata.maxpagesize preference, or from $top if there is no preference,
+     * but is never bigger than maximum page size of entity set. Page of
+     * $skiptoken starts right after the last entity of previous page. Unique
+     * field is added to sort, so that entity is always the same one.
+     *
+     * @param pagination
+     *            pagination of the request
+     * @param entitySet
+     *            requested entity set
+     * @param uriInfo
+     *            URI info
+     * @throws ODataApplicationException
+     *             if $skiptoken is invalid
+     */
+    protected void applyServerPaging(Pagination pagination, ElasticEdmEntitySet entitySet,
+            UriInfo uriInfo) throws ODataApplicationException {
+        TopOption topOption = uriInfo.getTopOption();
+        int top = topOption != null ? topOption.getValue() : SkipToken.UNLIMITED;
+        SkipTokenOption skipTokenOption = uriInfo.getSkipTokenOption();
+        if (skipTokenOption != null) {
+            SkipToken token = SkipToken.decode(skipTokenOption.getValue());
+            top = token.getTop();
+            pagination.setSkip(Pagination.SKIP_DEFAULT);
+            pagination.setSearchAfter(token.getSearchAfter());
+        }
+        Preferences preferences = getPreferences();
+        Integer preferred = preferences != null ? preferences.getMaxPageSize() : null;
+        int pageSize;
+        if (preferred != null) {
+            pageSize = preferred;
+        } else {
+            pageSize = top == SkipToken.UNLIMITED ? Pagination.TOP_DEFAULT
+                    : entitySet.getMaxPageSize();
+        }
+        pageSize = Math.min(pageSize, entitySet.getMaxPageSize());
+        pagination.setTop(top == SkipToken.UNLIMITED ? pageSize : Math.min(top, pageSize));
+        pagination.getOrderBy().add(new Sort(ElasticConstants.UID_FIELD_NAME));
+        appliedMaxPageSize = preferred != null ? pageSize : null;
+        remaining = top;
+        this.pagination = pagination;
     }
 
     @Override
     protected InstanceData<EdmEntityType, AbstractEntityCollection> parseResponse(
-            SearchResponse response, ElasticEdmEntitySet entitySet) {
-        return new EntityCollectionParser(isCount).parse(response, entitySet);
+            SearchResponse response, ElasticEdmEntitySet entitySet)
+            throws ODataApplicationException {
+        if (isStreamed) {
+            return new EntityCollectionParser(isCount).parseScroll(response, entitySet);
+        }
+        if (isSourcePassthrough(response)) {
+            InstanceData<EdmEntityType, AbstractEntityCollection> data = new EntityCollectionParser(
+                    isCount).parseSources(response, entitySet);
+            ((SourceEntityCollection) data.getValue()).setNext(createNextLink(response));
+            return data;
+        }
+        InstanceData<EdmEntityType, AbstractEntityCollection> data = new EntityCollectionParser(
+                isCount).parse(response, entitySet);
+        EntityCollection entities = (EntityCollection) data.getValue();
+        entities.setNext(createNextLink(response));
+        getExpandHandler().expand(entities.getEntities(), entitySet, expandOption);
+        return data;
+    }
+
+    /**
+     * Checks whether page can be written right from sources of its hits,
+     * without creating entities. It's possible if there are no $expand and
+     * $select options, and no hits have inner hits, which are added to
+     * entities.
+     *
+     * @param response
+     *            response of current page
+     * @return true if sources of hits can be written
+     */
+    protected boolean isSourcePassthrough(SearchResponse response) {
+        if (expandOption != null || selectOption != null) {
+            return false;
+        }
+        for (SearchHit hit : response.getHits().getHits()) {
+            if (hit.getInnerHits() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates link to the next page of collection, which continues after the
+     * last hit of the current page.
+     *
+     * @param response
+     *            response of current page
+     * @return next link, or null if it's the last page
+     */
+    protected URI createNextLink(SearchResponse response) {
+        SearchHit[] hits = response.getHits().getHits();
+        int count = hits.length;
+        if (count == 0 || count < pagination.getTop()
+                || remaining != SkipToken.UNLIMITED && remaining <= count) {
+            return null;
+        }
+        return createNextLink(new SkipToken(hits[count - 1].getSortValues(),
+                remaining == SkipToken.UNLIMITED ? SkipToken.UNLIMITED : remaining - count));
     }
 
 }
@@ -1,5 +1,7 @@
 package com.hevelian.olastic.core.processors.impl;
 
+import java.util.Collections;
+
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.server.api.ODataApplicationException;
@@ -15,8 +17,8 @@ import org.elasticsearch.action.search.SearchResponse;
 import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.elastic.parsers.EntityParser;
 import com.hevelian.olastic.core.elastic.requests.ESRequest;
-import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
-import com.hevelian.olastic.core.processors.AbstractESReadProcessor;
+import com.hevelian.olastic.core.elastic.requests.creators.GetRequestCreator;
+import com.hevelian.olastic.core.processors.AbstractESSerializingProcessor;
 import com.hevelian.olastic.core.processors.data.InstanceData;
 
 /**
@@ -24,17 +26,23 @@ import com.hevelian.olastic.core.processors.data.InstanceData;
  *
  * @author rdidyk
  */
-public class EntityProcessorImpl extends AbstractESReadProcessor<EdmEntityType, Entity> {
+public class EntityProcessorImpl extends AbstractESSerializingProcessor<EdmEntityType, Entity> {
+
+    private ExpandOption expandOption;
 
     @Override
     protected ESRequest createRequest(UriInfo uriInfo) throws ODataApplicationException {
-        return new SearchRequestCreator().create(uriInfo);
+        expandOption = uriInfo.getExpandOption();
+        return new GetRequestCreator().create(uriInfo);
     }
 
     @Override
     protected InstanceData<EdmEntityType, Entity> parseResponse(SearchResponse response,
             ElasticEdmEntitySet entitySet) throws ODataApplicationException {
-        return new EntityParser().parse(response, entitySet);
+        InstanceData<EdmEntityType, Entity> data = new EntityParser().parse(response, entitySet);
+        getExpandHandler().expand(Collections.singletonList(data.getValue()), entitySet,
+                expandOption);
+        return data;
     }
 
     @Override
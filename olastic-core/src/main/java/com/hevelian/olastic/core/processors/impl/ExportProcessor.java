@@ -0,0 +1,95 @@
+package com.hevelian.olastic.core.processors.impl;
+
+import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.elasticsearch.action.search.SearchResponse;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.parsers.EntityCollectionParser;
+import com.hevelian.olastic.core.elastic.parsers.SlicedScrollEntityIterator;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
+import com.hevelian.olastic.core.processors.AbstractESCollectionProcessor;
+import com.hevelian.olastic.core.processors.data.InstanceData;
+import com.hevelian.olastic.core.serializer.export.ExportContent;
+import com.hevelian.olastic.core.serializer.export.ExportFormat;
+import com.hevelian.olastic.core.serializer.export.ExportWriter;
+
+/**
+ * Processor to export whole entity collection, filtered by $filter and
+ * $search, in one of {@link ExportFormat}s. Executed request only counts
+ * matched documents and shards. Documents are retrieved while response is
+ * written, with sliced scroll: one slice per shard, but not more than there
+ * are processors, all of them scrolled in parallel.
+ *
+ * @author rdidyk
+ */
+public class ExportProcessor extends AbstractESCollectionProcessor {
+
+    private static final Set<SystemQueryOptionKind> SUPPORTED_OPTIONS = EnumSet.of(
+            SystemQueryOptionKind.FILTER, SystemQueryOptionKind.SEARCH,
+            SystemQueryOptionKind.SELECT, SystemQueryOptionKind.FORMAT);
+
+    private SearchQuery query;
+
+    @Override
+    protected ESRequest createRequest(UriInfo uriInfo) throws ODataApplicationException {
+        for (SystemQueryOption option : uriInfo.getSystemQueryOptions()) {
+            if (!SUPPORTED_OPTIONS.contains(option.getKind())) {
+                throwNotImplemented(String.format("Export doesn't support %s option.",
+                        option.getName()));
+            }
+        }
+        ESRequest searchRequest = new SearchRequestCreator().create(uriInfo);
+        searchRequest.getPagination().setTop(0);
+        query = (SearchQuery) searchRequest.getQuery();
+        return searchRequest;
+    }
+
+    @Override
+    protected InstanceData<EdmEntityType, AbstractEntityCollection> parseResponse(
+            SearchResponse response, ElasticEdmEntitySet entitySet)
+            throws ODataApplicationException {
+        return new EntityCollectionParser(false).parseSlicedScroll(query,
+                getSlices(response), entitySet);
+    }
+
+    /**
+     * Gets number of slices to scroll documents with: one per shard, but not
+     * more than available processors.
+     *
+     * @param response
+     *            response of executed request
+     * @return number of slices, zero if no documents are matched
+     */
+    protected int getSlices(SearchResponse response) {
+        if (response.getHits().getTotalHits() == 0) {
+            return 0;
+        }
+        return Math.max(1, Math.min(response.getTotalShards(),
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    protected void setContent(ODataResponse response, ContentType responseFormat,
+            InstanceData<EdmEntityType, AbstractEntityCollection> data,
+            ElasticEdmEntitySet entitySet, UriInfo uriInfo) throws SerializerException {
+        response.setODataContent(new ExportContent((SlicedScrollEntityIterator) data.getValue(),
+                ExportWriter.create(ExportFormat.of(responseFormat), odata, serviceMetadata,
+                        data.getType(), uriInfo.getSelectOption())));
+    }
+
+}
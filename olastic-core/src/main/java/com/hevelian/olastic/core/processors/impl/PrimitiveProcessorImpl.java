@@ -4,8 +4,8 @@ import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
 import com.hevelian.olastic.core.edm.ElasticEdmProperty;
 import com.hevelian.olastic.core.elastic.parsers.PrimitiveParser;
 import com.hevelian.olastic.core.elastic.requests.ESRequest;
-import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
-import com.hevelian.olastic.core.processors.AbstractESReadProcessor;
+import com.hevelian.olastic.core.elastic.requests.creators.GetRequestCreator;
+import com.hevelian.olastic.core.processors.AbstractESSerializingProcessor;
 import com.hevelian.olastic.core.processors.data.InstanceData;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
@@ -34,7 +34,8 @@ import static com.hevelian.olastic.core.utils.ProcessorUtils.throwNotImplemented
  * 
  * @author rdidyk
  */
-public class PrimitiveProcessorImpl extends AbstractESReadProcessor<EdmPrimitiveType, Property>
+public class PrimitiveProcessorImpl
+        extends AbstractESSerializingProcessor<EdmPrimitiveType, Property>
         implements PrimitiveProcessor {
 
     @Override
@@ -45,12 +46,12 @@ public class PrimitiveProcessorImpl extends AbstractESReadProcessor<EdmPrimitive
 
     @Override
     protected ESRequest createRequest(UriInfo uriInfo) throws ODataApplicationException {
-        return new SearchRequestCreator().create(uriInfo);
+        return new GetRequestCreator().create(uriInfo);
     }
 
     @Override
     protected InstanceData<EdmPrimitiveType, Property> parseResponse(SearchResponse response,
-            ElasticEdmEntitySet entitySet) {
+            ElasticEdmEntitySet entitySet) throws ODataApplicationException {
         return new PrimitiveParser().parse(response, entitySet);
     }
 
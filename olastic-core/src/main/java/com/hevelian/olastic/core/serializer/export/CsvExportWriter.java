@@ -0,0 +1,101 @@
+package com.hevelian.olastic.core.serializer.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+
+/**
+ * Writes entities as comma separated values (RFC 4180). Columns are selected
+ * primitive single-valued properties of entity type, header line has their
+ * names. Values are formatted by their EDM types.
+ *
+ * @author rdidyk
+ */
+public class CsvExportWriter extends ExportWriter {
+
+    private static final String SEPARATOR = ",";
+    private static final String LINE_SEPARATOR = "\r\n";
+    private static final String QUOTE = "\"";
+
+    private final List<EdmProperty> columns = new ArrayList<>();
+
+    /**
+     * Constructor to initialize columns.
+     *
+     * @param entityType
+     *            type of exported entities
+     * @param select
+     *            select option, can be null
+     */
+    public CsvExportWriter(EdmEntityType entityType, SelectOption select) {
+        boolean all = ExpandSelectHelper.isAll(select);
+        Set<String> selected = all ? null
+                : ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
+        for (String name : entityType.getPropertyNames()) {
+            EdmProperty property = entityType.getStructuralProperty(name);
+            if (property.isPrimitive() && !property.isCollection()
+                    && (all || selected.contains(name))) {
+                columns.add(property);
+            }
+        }
+    }
+
+    @Override
+    public void writeHeader(OutputStream out) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (EdmProperty column : columns) {
+            names.add(escape(column.getName()));
+        }
+        write(String.join(SEPARATOR, names), out);
+    }
+
+    @Override
+    public void writeEntity(Entity entity, OutputStream out)
+            throws IOException, SerializerException {
+        List<String> values = new ArrayList<>();
+        for (EdmProperty column : columns) {
+            Property property = entity.getProperty(column.getName());
+            values.add(property == null || property.isNull() ? ""
+                    : escape(toString(column, property.getValue())));
+        }
+        write(String.join(SEPARATOR, values), out);
+    }
+
+    private static String toString(EdmProperty column, Object value) throws SerializerException {
+        try {
+            return ((EdmPrimitiveType) column.getType()).valueToString(value,
+                    column.isNullable(), column.getMaxLength(), column.getPrecision(),
+                    column.getScale(), column.isUnicode());
+        } catch (EdmPrimitiveTypeException e) {
+            throw new SerializerException("Wrong value for property!", e,
+                    SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, column.getName(),
+                    value.toString());
+        }
+    }
+
+    private static String escape(String value) {
+        if (value.contains(SEPARATOR) || value.contains(QUOTE) || value.contains("\n")
+                || value.contains("\r")) {
+            return QUOTE + value.replace(QUOTE, QUOTE + QUOTE) + QUOTE;
+        }
+        return value;
+    }
+
+    private static void write(String line, OutputStream out) throws IOException {
+        out.write((line + LINE_SEPARATOR).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
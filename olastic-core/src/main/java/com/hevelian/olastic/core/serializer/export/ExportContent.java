@@ -0,0 +1,63 @@
+package com.hevelian.olastic.core.serializer.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.serializer.SerializerException;
+
+import com.hevelian.olastic.core.elastic.parsers.SlicedScrollEntityIterator;
+
+/**
+ * Content of export response. Entities are written as they come from the
+ * scroll, so content of any size is never kept in memory. When writing ends,
+ * normally or not, the scroll is closed.
+ *
+ * @author rdidyk
+ */
+public class ExportContent implements ODataContent {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SlicedScrollEntityIterator entities;
+    private final ExportWriter writer;
+
+    /**
+     * Constructor to initialize values.
+     *
+     * @param entities
+     *            exported entities
+     * @param writer
+     *            writer of export format
+     */
+    public ExportContent(SlicedScrollEntityIterator entities, ExportWriter writer) {
+        this.entities = entities;
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(WritableByteChannel channel) {
+        write(Channels.newOutputStream(channel));
+    }
+
+    @Override
+    public void write(OutputStream stream) {
+        try {
+            OutputStream out = new BufferedOutputStream(stream, BUFFER_SIZE);
+            writer.writeHeader(out);
+            while (entities.hasNext()) {
+                writer.writeEntity(entities.next(), out);
+            }
+            out.flush();
+        } catch (IOException | SerializerException e) {
+            throw new ODataRuntimeException("Unable to write export.", e);
+        } finally {
+            entities.close();
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.hevelian.olastic.core.serializer.export;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
+import org.apache.olingo.server.api.serializer.RepresentationType;
+
+/**
+ * Adds content types of {@link ExportFormat}s to the supported content types
+ * of entity collections, so they can be requested with $format or Accept
+ * header.
+ *
+ * @author rdidyk
+ */
+public class ExportContentTypeSupport implements CustomContentTypeSupport {
+
+    @Override
+    public List<ContentType> modifySupportedContentTypes(List<ContentType> defaultContentTypes,
+            RepresentationType type) {
+        List<ContentType> contentTypes = new ArrayList<>(defaultContentTypes);
+        if (type == RepresentationType.COLLECTION_ENTITY) {
+            for (ExportFormat format : ExportFormat.values()) {
+                contentTypes.add(format.getContentType());
+            }
+        }
+        return contentTypes;
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.hevelian.olastic.core.serializer.export;
+
+import org.apache.olingo.commons.api.format.ContentType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Formats of entity collection export.
+ *
+ * @author rdidyk
+ */
+@AllArgsConstructor
+@Getter
+public enum ExportFormat {
+    /** Newline delimited JSON, one entity per line. */
+    NDJSON(ContentType.create("application/x-ndjson")),
+    /** Comma separated values of primitive properties, with header line. */
+    CSV(ContentType.create("text/csv"));
+
+    private final ContentType contentType;
+
+    /**
+     * Gets export format of the content type.
+     *
+     * @param contentType
+     *            content type
+     * @return export format, or null if it's not an export content type
+     */
+    public static ExportFormat of(ContentType contentType) {
+        for (ExportFormat format : values()) {
+            if (format.getContentType().isCompatible(contentType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.hevelian.olastic.core.serializer.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+import com.hevelian.olastic.core.ElasticOData;
+
+/**
+ * Writes entities of export in one of {@link ExportFormat}s.
+ *
+ * @author rdidyk
+ */
+public abstract class ExportWriter {
+
+    /**
+     * Creates writer of the format.
+     *
+     * @param format
+     *            export format
+     * @param odata
+     *            OData instance
+     * @param metadata
+     *            service metadata
+     * @param entityType
+     *            type of exported entities
+     * @param select
+     *            select option, can be null
+     * @return export writer
+     * @throws SerializerException
+     *             if writer can't be created
+     */
+    public static ExportWriter create(ExportFormat format, ElasticOData odata,
+            ServiceMetadata metadata, EdmEntityType entityType, SelectOption select)
+            throws SerializerException {
+        return format == ExportFormat.CSV ? new CsvExportWriter(entityType, select)
+                : new NdjsonExportWriter(odata, metadata, entityType, select);
+    }
+
+    /**
+     * Writes content, which precedes all entities.
+     *
+     * @param out
+     *            output stream
+     * @throws IOException
+     *             if content can't be written
+     */
+    public void writeHeader(OutputStream out) throws IOException {
+        // no header by default
+    }
+
+    /**
+     * Writes the entity.
+     *
+     * @param entity
+     *            entity to write
+     * @param out
+     *            output stream
+     * @throws IOException
+     *             if entity can't be written
+     * @throws SerializerException
+     *             if entity can't be serialized
+     */
+    public abstract void writeEntity(Entity entity, OutputStream out)
+            throws IOException, SerializerException;
+
+}
@@ -0,0 +1,65 @@
+package com.hevelian.olastic.core.serializer.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntitySerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+import com.google.common.io.ByteStreams;
+import com.hevelian.olastic.core.ElasticOData;
+
+/**
+ * Writes every entity as JSON object without metadata on its own line.
+ * Entities are serialized with JSON serializer of the service, so values are
+ * formatted the same way as in OData responses.
+ *
+ * @author rdidyk
+ */
+public class NdjsonExportWriter extends ExportWriter {
+
+    private final ODataSerializer serializer;
+    private final ServiceMetadata metadata;
+    private final EdmEntityType entityType;
+    private final EntitySerializerOptions options;
+
+    /**
+     * Constructor to initialize values.
+     *
+     * @param odata
+     *            OData instance
+     * @param metadata
+     *            service metadata
+     * @param entityType
+     *            type of exported entities
+     * @param select
+     *            select option, can be null
+     * @throws SerializerException
+     *             if JSON serializer can't be created
+     */
+    public NdjsonExportWriter(ElasticOData odata, ServiceMetadata metadata,
+            EdmEntityType entityType, SelectOption select) throws SerializerException {
+        this.serializer = odata.createSerializer(ContentType.JSON_NO_METADATA);
+        this.metadata = metadata;
+        this.entityType = entityType;
+        this.options = EntitySerializerOptions.with().select(select).build();
+    }
+
+    @Override
+    public void writeEntity(Entity entity, OutputStream out)
+            throws IOException, SerializerException {
+        try (InputStream content = serializer.entity(metadata, entityType, entity, options)
+                .getContent()) {
+            ByteStreams.copy(content, out);
+        }
+        out.write('\n');
+    }
+
+}
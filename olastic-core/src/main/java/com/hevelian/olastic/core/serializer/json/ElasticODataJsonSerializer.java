@@ -14,12 +14,14 @@ import org.apache.olingo.commons.api.data.Operation;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmProperty;
 import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.EdmPropertyImpl;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.PrimitiveSerializerOptions;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerResult;
@@ -30,9 +32,17 @@ import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentParser.NumberType;
+import org.elasticsearch.common.xcontent.XContentParser.Token;
+import org.elasticsearch.search.SearchHit;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.hevelian.olastic.core.edm.HitDecoder;
+import com.hevelian.olastic.core.edm.HitDecoder.FieldDecoder;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.parsers.SourceEntityCollection;
 
 /**
  * Custom implementation of {@link ODataJsonSerializer} to override some default
@@ -48,6 +58,7 @@ public class ElasticODataJsonSerializer extends ODataJsonSerializer {
     private static final String JSON_NULL = "@odata.null";
     private final boolean isODataMetadataNone;
     private final boolean isODataMetadataFull;
+    private final boolean isIEEE754Compatible;
 
     /**
      * Constructor to initialize content type.
@@ -59,6 +70,7 @@ public class ElasticODataJsonSerializer extends ODataJsonSerializer {
         super(contentType);
         isODataMetadataNone = ContentTypeHelper.isODataMetadataNone(contentType);
         isODataMetadataFull = ContentTypeHelper.isODataMetadataFull(contentType);
+        isIEEE754Compatible = ContentTypeHelper.isODataIEEE754Compatible(contentType);
     }
 
     @Override
@@ -124,6 +136,230 @@ public class ElasticODataJsonSerializer extends ODataJsonSerializer {
         }
     }
 
+    /**
+     * Serializes collection of entities straight from sources of their hits,
+     * without creating entities and properties. Strings and integers are
+     * copied from the source as they're read. Other primitive values, like
+     * dates, are converted to values of the property type and written the same
+     * as {@link #entityCollection} writes them, objects and arrays are written
+     * as properties. With full metadata collection is serialized by entities,
+     * because every property needs type annotation.
+     *
+     * @param metadata
+     *            service metadata
+     * @param entities
+     *            collection of hits
+     * @param options
+     *            options for the serializer
+     * @return serialized result
+     * @throws SerializerException
+     *             if any error occurred
+     */
+    public SerializerResult sourceEntityCollection(ServiceMetadata metadata,
+            SourceEntityCollection entities, EntityCollectionSerializerOptions options)
+            throws SerializerException {
+        if (isODataMetadataFull) {
+            return entityCollection(metadata, entities.getEntityType(), entities, options);
+        }
+        OutputStream outputStream = null;
+        SerializerException cachedException = null;
+        try {
+            CircleStreamBuffer buffer = new CircleStreamBuffer();
+            outputStream = buffer.getOutputStream();
+            JsonGenerator json = new JsonFactory().createGenerator(outputStream);
+            json.writeStartObject();
+            write(options.getContextURL(), json);
+            write(metadata, json);
+            if (options.getCount() != null && options.getCount().getValue()) {
+                writeCount(entities.getCount(), json);
+            }
+            json.writeArrayFieldStart(Constants.VALUE);
+            HitDecoder decoder = entities.getEntityType().getHitDecoder();
+            for (SearchHit hit : entities.getHits()) {
+                writeSource(metadata, decoder, hit, json);
+            }
+            json.writeEndArray();
+            if (entities.getNext() != null) {
+                json.writeStringField(Constants.JSON_NEXT_LINK,
+                        entities.getNext().toASCIIString());
+            }
+            json.writeEndObject();
+            json.close();
+            outputStream.close();
+            return SerializerResultImpl.with().content(buffer.getInputStream()).build();
+        } catch (final IOException e) {
+            cachedException = new SerializerException(IO_EXCEPTION_TEXT, e,
+                    SerializerException.MessageKeys.IO_EXCEPTION);
+            throw cachedException;
+        } finally {
+            closeCircleStreamBufferOutput(outputStream, cachedException);
+        }
+    }
+
+    /**
+     * Writes entity of the hit from its id and source.
+     * 
+     * @param metadata
+     *            service metadata
+     * @param decoder
+     *            decoder of entity type
+     * @param hit
+     *            search hit
+     * @param json
+     *            json generator
+     * @throws IOException
+     *             if any error occurred
+     * @throws SerializerException
+     *             if any value can't be written
+     */
+    private void writeSource(ServiceMetadata metadata, HitDecoder decoder, SearchHit hit,
+            JsonGenerator json) throws IOException, SerializerException {
+        json.writeStartObject();
+        FieldDecoder id = decoder.getField(ElasticConstants.ID_FIELD_NAME);
+        if (id != null) {
+            json.writeFieldName(id.getName());
+            writeValue(id, hit.getId(), json);
+        } else {
+            json.writeStringField(ElasticConstants.ID_FIELD_NAME, hit.getId());
+        }
+        if (hit.hasSource()) {
+            try (XContentParser parser = HitDecoder.createParser(hit.getSourceRef())) {
+                if (parser.nextToken() == Token.START_OBJECT) {
+                    while (parser.nextToken() == Token.FIELD_NAME) {
+                        writeField(metadata, decoder, parser, json);
+                    }
+                }
+            }
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * Writes current field of the source parser. Null values, objects, arrays
+     * and values of complex or collection properties are written as
+     * properties. Fields without property are skipped.
+     * 
+     * @param metadata
+     *            service metadata
+     * @param decoder
+     *            decoder of entity type
+     * @param parser
+     *            source parser, positioned on field name
+     * @param json
+     *            json generator
+     * @throws IOException
+     *             if any error occurred
+     * @throws SerializerException
+     *             if value can't be written
+     */
+    private void writeField(ServiceMetadata metadata, HitDecoder decoder, XContentParser parser,
+            JsonGenerator json) throws IOException, SerializerException {
+        String name = parser.currentName();
+        FieldDecoder field = decoder.getField(name);
+        Token token = parser.nextToken();
+        if (field == null) {
+            parser.skipChildren();
+        } else if (!field.isPrimitiveValue(token)) {
+            writeProperty(metadata, field.getProperty(),
+                    decoder.decode(name, HitDecoder.readValue(parser)), null, json);
+        } else {
+            json.writeFieldName(field.getName());
+            if (!writeVerbatim(field, parser, json)) {
+                writeValue(field, parser.objectText(), json);
+            }
+        }
+    }
+
+    /**
+     * Copies current primitive value of the parser, if it's written the same
+     * as it's stored in the source: string value of string property, or
+     * integer value of integer property.
+     * 
+     * @param field
+     *            field decoder
+     * @param parser
+     *            source parser
+     * @param json
+     *            json generator
+     * @return true if value was copied
+     * @throws IOException
+     *             if any error occurred
+     */
+    private boolean writeVerbatim(FieldDecoder field, XContentParser parser, JsonGenerator json)
+            throws IOException {
+        if (!field.isVerbatim()) {
+            return false;
+        }
+        Token token = parser.currentToken();
+        boolean isCopied = true;
+        if (field.getKind() == EdmPrimitiveTypeKind.String) {
+            isCopied = token == Token.VALUE_STRING;
+            if (isCopied) {
+                json.writeString(parser.text());
+            }
+        } else if (token == Token.VALUE_NUMBER && (parser.numberType() == NumberType.INT
+                || parser.numberType() == NumberType.LONG)) {
+            // Int64 is written as string to IEEE 754 compatible clients
+            if (isIEEE754Compatible && field.getKind() == EdmPrimitiveTypeKind.Int64) {
+                json.writeString(parser.text());
+            } else {
+                json.writeNumber(parser.text());
+            }
+        } else {
+            isCopied = false;
+        }
+        return isCopied;
+    }
+
+    /**
+     * Converts primitive value to value of the property and writes it.
+     * 
+     * @param field
+     *            field decoder
+     * @param value
+     *            primitive value from the source
+     * @param json
+     *            json generator
+     * @throws IOException
+     *             if any error occurred
+     * @throws SerializerException
+     *             if value isn't valid for the property
+     */
+    private void writeValue(FieldDecoder field, Object value, JsonGenerator json)
+            throws IOException, SerializerException {
+        EdmProperty property = field.getProperty();
+        Object converted = field.convert(value);
+        try {
+            writePrimitiveValue(property.getName(), (EdmPrimitiveType) property.getType(),
+                    converted, property.isNullable(), property.getMaxLength(),
+                    property.getPrecision(), property.getScale(), property.isUnicode(), json);
+        } catch (EdmPrimitiveTypeException e) {
+            throw new SerializerException("Wrong value for property!", e,
+                    SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, property.getName(),
+                    String.valueOf(converted));
+        }
+    }
+
+    /**
+     * Writes total number of entities of the collection.
+     * 
+     * @param count
+     *            number of entities
+     * @param json
+     *            json generator
+     * @throws IOException
+     *             if any error occurred
+     */
+    private void writeCount(Integer count, JsonGenerator json) throws IOException {
+        if (count != null) {
+            if (isIEEE754Compatible) {
+                json.writeStringField(Constants.JSON_COUNT, String.valueOf(count));
+            } else {
+                json.writeNumberField(Constants.JSON_COUNT, count);
+            }
+        }
+    }
+
     /**
      * Gets and checks context URL.
      * 
@@ -39,7 +39,7 @@ public class TestUtils {
         JSONObject queryObj = new JSONObject(query);
         JSONObject rootObj = queryObj.getJSONObject(rootKey);
         JSONObject valueObject = rootObj.getJSONObject(field);
-        String actualValue = (String) valueObject.get(valueKey);
+        Object actualValue = valueObject.get(valueKey);
         assertEquals(expValue, actualValue);
         assertEquals(valueObject.get("include_lower"), includeLower);
         assertEquals(valueObject.get("include_upper"), includeUpper);
@@ -0,0 +1,68 @@
+package com.hevelian.olastic.core.api.edm.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.hevelian.olastic.core.elastic.mappings.DefaultElasticToCsdlMapper;
+
+/**
+ * JUnit tests for {@link ForeignKeys} class.
+ *
+ * @author rdidyk
+ */
+public class ForeignKeysTest {
+
+    private final DefaultElasticToCsdlMapper csdlMapper = new DefaultElasticToCsdlMapper();
+
+    @Test
+    public void getNavigationProperties_SourceType_SingleNavigationToTarget() {
+        ForeignKeys foreignKeys = new ForeignKeys().add(
+                new ForeignKey("library", "book", "publisherId", "publishers", "publisher"));
+
+        List<ElasticCsdlNavigationProperty> properties = foreignKeys
+                .getNavigationProperties("library", "book", csdlMapper);
+
+        assertEquals(1, properties.size());
+        ElasticCsdlNavigationProperty property = properties.get(0);
+        assertEquals("publisher", property.getName());
+        assertEquals("publishers", property.getESIndex());
+        assertEquals("publisher", property.getESType());
+        assertEquals("publisherId", property.getESField());
+        assertEquals("_id", property.getESTargetField());
+        assertFalse(property.isCollection());
+        assertTrue(property.isForeignKey());
+    }
+
+    @Test
+    public void getNavigationProperties_TargetTypeWithPartner_CollectionNavigationToSource() {
+        ForeignKeys foreignKeys = new ForeignKeys().add(
+                new ForeignKey("library", "book", "publisherId", "publishers", "publisher")
+                        .setPartner("books"));
+
+        List<ElasticCsdlNavigationProperty> properties = foreignKeys
+                .getNavigationProperties("publishers", "publisher", csdlMapper);
+
+        assertEquals(1, properties.size());
+        ElasticCsdlNavigationProperty property = properties.get(0);
+        assertEquals("books", property.getName());
+        assertEquals("publisher", property.getPartner());
+        assertEquals("library", property.getESIndex());
+        assertEquals("_id", property.getESField());
+        assertEquals("publisherId", property.getESTargetField());
+        assertTrue(property.isCollection());
+    }
+
+    @Test
+    public void getNavigationProperties_TargetTypeWithoutPartner_NoNavigation() {
+        ForeignKeys foreignKeys = new ForeignKeys().add(
+                new ForeignKey("library", "book", "publisherId", "publishers", "publisher"));
+
+        assertTrue(foreignKeys.getNavigationProperties("publishers", "publisher", csdlMapper)
+                .isEmpty());
+    }
+}
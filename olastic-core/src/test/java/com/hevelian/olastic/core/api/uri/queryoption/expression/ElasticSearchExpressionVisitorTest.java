@@ -2,10 +2,14 @@ package com.hevelian.olastic.core.api.uri.queryoption.expression;
 
 import com.hevelian.olastic.core.ElasticOData;
 import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.DatePart;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.ExpressionMember;
 import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ExpressionResult;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.PrimitiveMember;
 import com.hevelian.olastic.core.elastic.ElasticConstants;
 import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
+import com.hevelian.olastic.core.elastic.scripts.StoredScript;
 import com.hevelian.olastic.core.stub.TestProvider;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataApplicationException;
@@ -58,7 +62,7 @@ public class ElasticSearchExpressionVisitorTest {
         ExpressionMember result = uriInfo.getFilterOption().getExpression()
                 .accept(new ElasticSearchExpressionVisitor());
         String query = ((ExpressionResult) result).getQueryBuilder().toString();
-        checkFilterRangeQuery(query, "gt", "age", "30");
+        checkFilterRangeQuery(query, "gt", "age", 30);
     }
 
     @Test
@@ -69,7 +73,7 @@ public class ElasticSearchExpressionVisitorTest {
         ExpressionMember result = uriInfo.getFilterOption().getExpression()
                 .accept(new ElasticSearchExpressionVisitor());
         String query = ((ExpressionResult) result).getQueryBuilder().toString();
-        checkFilterRangeQuery(query, "ge", "age", "30");
+        checkFilterRangeQuery(query, "ge", "age", 30);
     }
 
     @Test
@@ -80,7 +84,7 @@ public class ElasticSearchExpressionVisitorTest {
         ExpressionMember result = uriInfo.getFilterOption().getExpression()
                 .accept(new ElasticSearchExpressionVisitor());
         String query = ((ExpressionResult) result).getQueryBuilder().toString();
-        checkFilterRangeQuery(query, "lt", "age", "30");
+        checkFilterRangeQuery(query, "lt", "age", 30);
     }
 
     @Test
@@ -91,7 +95,7 @@ public class ElasticSearchExpressionVisitorTest {
         ExpressionMember result = uriInfo.getFilterOption().getExpression()
                 .accept(new ElasticSearchExpressionVisitor());
         String query = ((ExpressionResult) result).getQueryBuilder().toString();
-        checkFilterRangeQuery(query, "le", "age", "30");
+        checkFilterRangeQuery(query, "le", "age", 30);
     }
 
     @Test
@@ -224,9 +228,9 @@ public class ElasticSearchExpressionVisitorTest {
     }
 
     @Test(expected = ODataApplicationException.class)
-    public void visitMethodCall_length_NotImplemented() throws Exception {
+    public void visitMethodCall_toUpper_NotImplemented() throws Exception {
         String rawODataPath = "/author";
-        String rawQueryPath = "$filter=length(name) eq 19";
+        String rawQueryPath = "$filter=toupper(name) eq 'ABC'";
         UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, rawODataPath, rawQueryPath);
         uriInfo.getFilterOption().getExpression().accept(new ElasticSearchExpressionVisitor());
     }
@@ -241,12 +245,213 @@ public class ElasticSearchExpressionVisitorTest {
         String query = ((ExpressionResult) result).getQueryBuilder().toString();
 
         JSONObject queryObj = new JSONObject(query);
-        JSONObject rootObj = queryObj.getJSONObject("term");
+        JSONObject rootObj = queryObj.getJSONObject("range");
         JSONObject queryObject = rootObj.getJSONObject("birthDate");
-        String value = (String) queryObject.get("value");
-        assertEquals("2016-02-14", value);
+        assertEquals(1455408000000L, queryObject.get("from"));
+        assertEquals(1455408000000L, queryObject.get("to"));
+        assertEquals("epoch_millis", queryObject.get("format"));
+    }
+
+    @Test
+    public void visitMethodCall_nowWithRounding_RoundedDateMath() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=birthDate lt now() sub duration'P1DT2H30M'");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor("m"));
+        JSONObject queryObject = new JSONObject(
+                ((ExpressionResult) result).getQueryBuilder().toString()).getJSONObject("range")
+                        .getJSONObject("birthDate");
+        assertEquals("now-1d-2h-30m/m", queryObject.get("to"));
+        assertEquals(false, queryObject.get("include_upper"));
+    }
+
+    @Test
+    public void visitMethodCall_dateOfNow_DayRounding() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=date(now()) eq date(birthDate)");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONObject queryObject = new JSONObject(
+                ((ExpressionResult) result).getQueryBuilder().toString()).getJSONObject("range")
+                        .getJSONObject("birthDate");
+        assertEquals("now/d", queryObject.get("from"));
+        assertEquals("now/d", queryObject.get("to"));
+    }
+
+    @Test
+    public void create_nowInFilter_RoundedAsConfiguredForEntitySet() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=birthDate ge now()");
+        String query = new SearchRequestCreator().create(uriInfo).getQuery().getQueryBuilder()
+                .toString();
+        assertTrue(query.contains("\"now/m\""));
+    }
+
+    @Test
+    public void visitMethodCall_maxDateTime_EpochMillisAnchor() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=birthDate lt maxdatetime() sub duration'P1D'"
+                        + " and birthDate gt mindatetime()");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor("m"));
+        String query = ((ExpressionResult) result).getQueryBuilder().toString();
+        assertTrue(query.contains("\"253402300799999||-1d\""));
+        assertTrue(query.contains("\"-62135596800000\""));
+    }
+
+
+    @Test
+    public void visitMethodCall_yearEq_YearRange() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=year(birthDate) eq 2016");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONObject queryObject = new JSONObject(
+                ((ExpressionResult) result).getQueryBuilder().toString()).getJSONObject("range")
+                        .getJSONObject("birthDate");
+        assertEquals(1451606400000L, queryObject.get("from"));
+        assertEquals(1483228800000L, queryObject.get("to"));
+        assertEquals(true, queryObject.get("include_lower"));
+        assertEquals(false, queryObject.get("include_upper"));
+        assertEquals("epoch_millis", queryObject.get("format"));
+    }
+
+    @Test
+    public void visitMethodCall_literalGtYear_RangeBeforeYear() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=2016 gt year(birthDate)");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONObject queryObject = new JSONObject(
+                ((ExpressionResult) result).getQueryBuilder().toString()).getJSONObject("range")
+                        .getJSONObject("birthDate");
+        assertEquals(JSONObject.NULL, queryObject.get("from"));
+        assertEquals(1451606400000L, queryObject.get("to"));
+        assertEquals(false, queryObject.get("include_upper"));
+    }
+
+    @Test
+    public void visitMethodCall_monthGe_StoredScriptWithParams() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=month(birthDate) ge 6");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONObject script = new JSONObject(
+                ((ExpressionResult) result).getQueryBuilder().toString()).getJSONObject("script")
+                        .getJSONObject("script");
+        assertEquals(StoredScript.DATE_PART.getId(), script.get("stored"));
+        JSONObject params = script.getJSONObject("params");
+        assertEquals("birthDate", params.get("field"));
+        assertEquals("month", params.get("part"));
+        assertEquals("ge", params.get("op"));
+        assertEquals(6, params.get("value"));
+    }
+
+    @Test
+    public void visitMethodCall_yearEqAndMonthGe_SingleRange() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=year(birthDate) eq 2017 and month(birthDate) ge 6");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONObject queryObject = new JSONObject(
+                ((ExpressionResult) result).getQueryBuilder().toString()).getJSONObject("range")
+                        .getJSONObject("birthDate");
+        assertEquals(1496275200000L, queryObject.get("from"));
+        assertEquals(1514764800000L, queryObject.get("to"));
+        assertEquals(false, queryObject.get("include_upper"));
+    }
+
+    @Test
+    public void visitMethodCall_otherQueryAndFixedMonthAndDay_RangeWithOtherQuery()
+            throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=age gt 10 and year(birthDate) eq 2016 and month(birthDate) eq 2"
+                        + " and day(birthDate) ge 29");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONArray must = new JSONObject(((ExpressionResult) result).getQueryBuilder()
+                .toString()).getJSONObject("bool").getJSONArray("must");
+        assertEquals(2, must.length());
+        assertTrue(must.getJSONObject(0).getJSONObject("range").has("age"));
+        JSONObject range = must.getJSONObject(1).getJSONObject("range")
+                .getJSONObject("birthDate");
+        assertEquals(1456704000000L, range.get("from"));
+        assertEquals(1456790400000L, range.get("to"));
     }
 
+    @Test
+    public void visitMethodCall_monthWithoutYear_StoredScripts() throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=month(birthDate) ge 6 and day(birthDate) eq 1");
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONArray must = new JSONObject(((ExpressionResult) result).getQueryBuilder()
+                .toString()).getJSONObject("bool").getJSONArray("must");
+        assertEquals(2, must.length());
+        assertTrue(must.getJSONObject(0).has("script"));
+        assertTrue(must.getJSONObject(1).has("script"));
+    }
+
+    @Test(expected = ODataApplicationException.class)
+    public void visitMethodCall_yearOfString_NotImplementedException() throws Exception {
+        new PrimitiveMember("name", null).datePart(DatePart.YEAR);
+    }
+
+    private JSONObject getScript(String filter, String expectedScript)
+            throws Exception {
+        UriInfo uriInfo = buildUriInfo(defaultMetadata, defaultOData, "/author",
+                "$filter=" + filter);
+        ExpressionMember result = uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor());
+        JSONObject script = new JSONObject(
+                ((ExpressionResult) result).getQueryBuilder().toString()).getJSONObject("script")
+                        .getJSONObject("script");
+        assertEquals(expectedScript, script.get("stored"));
+        return script.getJSONObject("params");
+    }
+
+    @Test
+    public void visitBinaryOperator_arithmetic_LiteralsPassedAsParams() throws Exception {
+        JSONObject params = getScript("age mul 2 add 1 gt 10",
+                StoredScript.EXPRESSION.getId());
+        assertEquals("age", params.get("field"));
+        assertEquals("[\"mul\",\"add\"]", params.getJSONArray("ops").toString());
+        assertEquals("[2,1]", params.getJSONArray("args").toString());
+        assertEquals("gt", params.get("op"));
+        assertEquals(10, params.get("value"));
+        JSONObject other = getScript("age mul 3 add 5 gt 20", StoredScript.EXPRESSION.getId());
+        assertEquals(params.getJSONArray("ops").toString(),
+                other.getJSONArray("ops").toString());
+    }
+
+    @Test
+    public void visitBinaryOperator_literalSubProperty_ReversedOperation() throws Exception {
+        JSONObject params = getScript("100 sub age lt 30", StoredScript.EXPRESSION.getId());
+        assertEquals("[\"rsub\"]", params.getJSONArray("ops").toString());
+        assertEquals("[100]", params.getJSONArray("args").toString());
+        assertEquals("lt", params.get("op"));
+    }
+
+    @Test
+    public void visitMethodCall_substringAndLength_KeywordFieldScript() throws Exception {
+        JSONObject params = getScript("length(substring(name,1,3)) eq 3",
+                StoredScript.EXPRESSION.getId());
+        assertEquals("name.keyword", params.get("field"));
+        assertEquals("[\"substring\",\"length\"]", params.getJSONArray("ops").toString());
+        assertEquals("[[1,3],null]", params.getJSONArray("args").toString());
+    }
+
+    @Test
+    public void visitMethodCall_indexOf_StringArgument() throws Exception {
+        JSONObject params = getScript("indexof(name,'ab') ge 0",
+                StoredScript.EXPRESSION.getId());
+        assertEquals("[\"ab\"]", params.getJSONArray("args").toString());
+    }
+
+    @Test(expected = ODataApplicationException.class)
+    public void visitBinaryOperator_divisionByZero_BadRequest() throws Exception {
+        getScript("age div 0 gt 1", StoredScript.EXPRESSION.getId());
+    }
 
     @Test
     public void visitLambdaExpression_anyExpression_null() throws Exception {
@@ -0,0 +1,163 @@
+package com.hevelian.olastic.core.api.uri.queryoption.expression;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.NestedQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.ExpressionResult;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Checks that merging of nested queries keeps semantics of the filter. Each
+ * filter is compiled to Elasticsearch query, which is evaluated against every
+ * document from the matrix and compared with expected OData result.
+ *
+ * @author rdidyk
+ */
+public class NestedQueryMergeTest {
+
+    private static final String PATH = "_dimension";
+    private static final String NAME = PATH + ".name";
+    private static final String STATE = PATH + ".state";
+    private static final String KEYWORD = ".keyword";
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+    private List<Map<String, Object>> documents = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        List<List<Map<String, Object>>> dimensions = Arrays.asList(Collections.emptyList(),
+                Arrays.asList(dimension("a", "x")), Arrays.asList(dimension("a", "y")),
+                Arrays.asList(dimension("b", "x")),
+                Arrays.asList(dimension("a", "y"), dimension("b", "x")),
+                Arrays.asList(dimension("c", "z"), dimension("b", "y")));
+        for (List<Map<String, Object>> dimension : dimensions) {
+            for (String name : Arrays.asList("n", "m")) {
+                Map<String, Object> document = new HashMap<>();
+                document.put("name", name);
+                document.put(PATH, dimension);
+                documents.add(document);
+            }
+        }
+    }
+
+    private static Map<String, Object> dimension(String name, String state) {
+        Map<String, Object> dimension = new HashMap<>();
+        dimension.put(NAME, name);
+        dimension.put(STATE, state);
+        return dimension;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Stream<Map<String, Object>> dimensions(Map<String, Object> document) {
+        return ((List<Map<String, Object>>) document.get(PATH)).stream();
+    }
+
+    private static Predicate<Map<String, Object>> any(Predicate<Map<String, Object>> predicate) {
+        return document -> dimensions(document).anyMatch(predicate);
+    }
+
+    private static Predicate<Map<String, Object>> eq(String field, String value) {
+        return document -> value.equals(document.get(field));
+    }
+
+    private void check(String filter, int expectedNestedQueries,
+            Predicate<Map<String, Object>> expected) throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author", "$filter=" + filter);
+        QueryBuilder query = ((ExpressionResult) uriInfo.getFilterOption().getExpression()
+                .accept(new ElasticSearchExpressionVisitor())).getQueryBuilder();
+        assertEquals(filter, expectedNestedQueries,
+                StringUtils.countMatches(query.toString(), "\"nested\""));
+        for (Map<String, Object> document : documents) {
+            assertEquals(filter + " " + document, expected.test(document),
+                    matches(query, document));
+        }
+    }
+
+    /**
+     * Evaluates the subset of queries built for filters in this test.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean matches(QueryBuilder query, Map<String, Object> document) {
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            return Stream.concat(bool.must().stream(), bool.filter().stream())
+                    .allMatch(q -> matches(q, document))
+                    && bool.mustNot().stream().noneMatch(q -> matches(q, document))
+                    && (bool.should().isEmpty()
+                            || bool.should().stream().anyMatch(q -> matches(q, document)));
+        } else if (query instanceof NestedQueryBuilder) {
+            QueryBuilder inner = ((NestedQueryBuilder) query).query();
+            return dimensions(document).anyMatch(dimension -> matches(inner, dimension));
+        } else if (query instanceof TermQueryBuilder) {
+            TermQueryBuilder term = (TermQueryBuilder) query;
+            String field = StringUtils.removeEnd(term.fieldName(), KEYWORD);
+            return term.value().equals(document.get(field));
+        }
+        throw new IllegalArgumentException("Unsupported query " + query);
+    }
+
+    @Test
+    public void or_AnyOnSamePath_MergedToOneNestedQuery() throws Exception {
+        check("_dimension/any(d:d/name eq 'a') or _dimension/any(d:d/state eq 'x')", 1,
+                any(eq(NAME, "a")).or(any(eq(STATE, "x"))));
+        check("_dimension/any(d:d/name eq 'a') or _dimension/any(d:d/name eq 'b')"
+                + " or _dimension/any(d:d/state eq 'z')", 1,
+                any(eq(NAME, "a")).or(any(eq(NAME, "b"))).or(any(eq(STATE, "z"))));
+    }
+
+    @Test
+    public void and_AnyOnSamePath_NotMerged() throws Exception {
+        check("_dimension/any(d:d/name eq 'a') and _dimension/any(d:d/state eq 'x')", 2,
+                any(eq(NAME, "a")).and(any(eq(STATE, "x"))));
+    }
+
+    @Test
+    public void and_InsideSingleLambda_OneNestedQuery() throws Exception {
+        check("_dimension/any(d:d/name eq 'a' and d/state eq 'x')", 1,
+                any(eq(NAME, "a").and(eq(STATE, "x"))));
+        check("_dimension/any(d:d/name eq 'a' and d/state eq 'x' or d/name eq 'c')", 1,
+                any(eq(NAME, "a").and(eq(STATE, "x")).or(eq(NAME, "c"))));
+    }
+
+    @Test
+    public void or_NegatedAny_NotMerged() throws Exception {
+        check("not _dimension/any(d:d/name eq 'a') or _dimension/any(d:d/state eq 'x')", 2,
+                any(eq(NAME, "a")).negate().or(any(eq(STATE, "x"))));
+    }
+
+    @Test
+    public void and_MergedDisjunctionWithOtherFilters_SemanticsKept() throws Exception {
+        check("(_dimension/any(d:d/name eq 'a') or _dimension/any(d:d/name eq 'b'))"
+                + " and name eq 'n'", 1,
+                any(eq(NAME, "a")).or(any(eq(NAME, "b"))).and(eq("name", "n")));
+        check("_dimension/any(d:d/name eq 'a') or name eq 'n'"
+                + " or _dimension/any(d:d/state eq 'y')", 2,
+                any(eq(NAME, "a")).or(eq("name", "n")).or(any(eq(STATE, "y"))));
+    }
+}
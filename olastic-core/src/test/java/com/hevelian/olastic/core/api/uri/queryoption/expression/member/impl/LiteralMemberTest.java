@@ -1,7 +1,9 @@
 package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
 import org.apache.olingo.commons.api.edm.EdmAnnotation;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
 import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmInt32;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmString;
 import org.apache.olingo.server.api.ODataApplicationException;
@@ -38,6 +40,51 @@ public class LiteralMemberTest {
         assertEquals(member.getValue(), "value");
     }
 
+    @Test
+    public void getValue_PropertyType_ValueBoundToPropertyType() throws Exception {
+        assertEquals(10, new LiteralMember(intValue, edmInt).getValue(edmInt));
+        assertEquals(10L, new LiteralMember(intValue, edmInt)
+                .getValue(type(EdmPrimitiveTypeKind.Int64)));
+        assertEquals(10.0, new LiteralMember(intValue, edmInt)
+                .getValue(type(EdmPrimitiveTypeKind.Double)));
+        assertEquals(true, new LiteralMember("true", type(EdmPrimitiveTypeKind.Boolean))
+                .getValue(type(EdmPrimitiveTypeKind.Boolean)));
+        assertEquals("value", new LiteralMember(value, edmString).getValue(edmString));
+    }
+
+    @Test
+    public void getValue_DateTimeOffset_EpochMillis() throws Exception {
+        EdmType dateTimeOffset = type(EdmPrimitiveTypeKind.DateTimeOffset);
+        assertEquals(1455451200500L, new LiteralMember("2016-02-14T12:00:00.5Z", dateTimeOffset)
+                .getValue(dateTimeOffset));
+        assertEquals(1455408000000L, new LiteralMember("2016-02-14",
+                type(EdmPrimitiveTypeKind.Date)).getValue(dateTimeOffset));
+    }
+
+    @Test
+    public void getValue_Guid_NormalizedString() throws Exception {
+        EdmType guid = type(EdmPrimitiveTypeKind.Guid);
+        assertEquals("01234567-89ab-cdef-0123-456789abcdef",
+                new LiteralMember("01234567-89AB-CDEF-0123-456789ABCDEF", guid).getValue(guid));
+    }
+
+    @Test
+    public void getValue_IncompatibleLiteral_BoundToLiteralType() throws Exception {
+        assertEquals(1.5, new LiteralMember("1.5", type(EdmPrimitiveTypeKind.Decimal))
+                .getValue(edmInt));
+        assertEquals(null, new LiteralMember("null", null).getValue(edmInt));
+    }
+
+    @Test(expected = ODataApplicationException.class)
+    public void getValue_InvalidLiteral_ExceptionIsThrown() throws Exception {
+        new LiteralMember("2016-13-14", type(EdmPrimitiveTypeKind.Date))
+                .getValue(type(EdmPrimitiveTypeKind.Date));
+    }
+
+    private static EdmType type(EdmPrimitiveTypeKind kind) {
+        return EdmPrimitiveTypeFactory.getInstance(kind);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void getValue_WrongString_ExceptionIsThrown() throws Exception {
         LiteralMember member = new LiteralMember("value", edmString);
@@ -2,6 +2,7 @@ package com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl;
 
 import static com.hevelian.olastic.core.TestUtils.getAnalyzedAnnotation;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.List;
@@ -9,10 +10,14 @@ import java.util.List;
 import org.apache.olingo.commons.api.edm.EdmAnnotation;
 import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmString;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
 import org.json.JSONObject;
 import org.junit.Test;
 
 import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
 
 /**
  * Tests for Built-in odata Query Functions.
@@ -24,6 +29,11 @@ public class MethodsTest {
     private String value = "'value'";
     private EdmType edmString = new EdmString();
     private List<EdmAnnotation> annotations = Arrays.asList(getAnalyzedAnnotation());
+    private List<MultiField> multiFields = Arrays.asList(new MultiField("raw", Kind.KEYWORD, false),
+            new MultiField("lower", Kind.KEYWORD, true),
+            new MultiField("grams", Kind.NGRAM, false, 3, 5),
+            new MultiField("prefixes", Kind.EDGE_NGRAM, false, 1, 10),
+            new MultiField("reversed", Kind.REVERSE, false));
 
     @Test
     public void contains_PrimitiveAndLiteral_QueryIsCorrect() throws Exception {
@@ -69,4 +79,79 @@ public class MethodsTest {
         assertEquals('*' + value.substring(1, value.length() - 1), actualValue);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void contains_NgramMultiField_TermQueryOnMultiField() throws Exception {
+        PrimitiveMember left = new PrimitiveMember(field, annotations, edmString, multiFields);
+        ExpressionResult result = left.contains(new LiteralMember(value, edmString));
+
+        JSONObject queryObj = new JSONObject(result.getQueryBuilder().toString());
+        assertEquals("value",
+                queryObj.getJSONObject("term").getJSONObject(field + ".grams").get("value"));
+    }
+
+    @Test
+    public void contains_ValueLongerThanGrams_WildcardOnKeywordMultiField() throws Exception {
+        PrimitiveMember left = new PrimitiveMember(field, annotations, edmString, multiFields);
+        ExpressionResult result = left.contains(new LiteralMember("'values'", edmString));
+
+        JSONObject queryObj = new JSONObject(result.getQueryBuilder().toString());
+        assertEquals("*values*", queryObj.getJSONObject("wildcard")
+                .getJSONObject(field + ".raw").get("wildcard"));
+    }
+
+    @Test
+    public void startsWith_EdgeNgramMultiField_TermQueryOnMultiField() throws Exception {
+        PrimitiveMember left = new PrimitiveMember(field, annotations, edmString, multiFields);
+        ExpressionResult result = left.startsWith(new LiteralMember(value, edmString));
+
+        JSONObject queryObj = new JSONObject(result.getQueryBuilder().toString());
+        assertEquals("value",
+                queryObj.getJSONObject("term").getJSONObject(field + ".prefixes").get("value"));
+    }
+
+    @Test
+    public void endsWith_ReverseMultiField_PrefixQueryOnMultiField() throws Exception {
+        PrimitiveMember left = new PrimitiveMember(field, annotations, edmString, multiFields);
+        ExpressionResult result = left.endsWith(new LiteralMember(value, edmString));
+
+        JSONObject queryObj = new JSONObject(result.getQueryBuilder().toString());
+        assertEquals("eulav", queryObj.getJSONObject("prefix")
+                .getJSONObject(field + ".reversed").get("value"));
+    }
+
+    @Test
+    public void eq_LowercasedMember_TermQueryOnNormalizedMultiField() throws Exception {
+        PrimitiveMember left = new PrimitiveMember(field, annotations, edmString, multiFields)
+                .toLower();
+        ExpressionResult result = left.eq(new LiteralMember(value, edmString));
+
+        JSONObject queryObj = new JSONObject(result.getQueryBuilder().toString());
+        assertEquals("value",
+                queryObj.getJSONObject("term").getJSONObject(field + ".lower").get("value"));
+    }
+
+    @Test
+    public void eq_LowercasedMemberAndUpperCaseValue_MatchNone() throws Exception {
+        PrimitiveMember left = new PrimitiveMember(field, annotations, edmString, multiFields)
+                .toLower();
+        ExpressionResult result = left.eq(new LiteralMember("'Value'", edmString));
+        assertTrue(result.getQueryBuilder() instanceof MatchNoneQueryBuilder);
+    }
+
+    @Test
+    public void contains_LowercasedMember_WildcardOnNormalizedMultiField() throws Exception {
+        PrimitiveMember left = new PrimitiveMember(field, annotations, edmString, multiFields)
+                .toLower();
+        ExpressionResult result = left.contains(new LiteralMember(value, edmString));
+
+        JSONObject queryObj = new JSONObject(result.getQueryBuilder().toString());
+        assertEquals("*value*", queryObj.getJSONObject("wildcard")
+                .getJSONObject(field + ".lower").get("wildcard"));
+    }
+
+    @Test(expected = ODataApplicationException.class)
+    public void eq_LowercasedMemberWithoutNormalizedField_ExceptionIsThrown() throws Exception {
+        new PrimitiveMember(field, annotations).toLower().eq(new LiteralMember(value, edmString));
+    }
+
+}
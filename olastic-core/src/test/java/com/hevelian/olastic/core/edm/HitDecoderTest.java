@@ -0,0 +1,123 @@
+package com.hevelian.olastic.core.edm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * JUnit test for {@link HitDecoder} class.
+ *
+ * @author rdidyk
+ */
+public class HitDecoderTest {
+
+    private ElasticEdmEntityType entityType;
+
+    @Before
+    public void setUp() {
+        ElasticOData odata = ElasticOData.newInstance();
+        ElasticServiceMetadata metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        entityType = ((ElasticEdmEntitySet) metadata.getEdm().getEntityContainer()
+                .getEntitySet("author")).getEntityType();
+    }
+
+    @Test
+    public void getHitDecoder_CalledTwice_SameDecoder() {
+        assertSame(entityType.getHitDecoder(), entityType.getHitDecoder());
+    }
+
+    @Test
+    public void decode_DateTimeOffsetField_CalendarValue() {
+        Property property = entityType.getHitDecoder().decode("birthDate",
+                "1982-05-24T10:25:15.777Z");
+        assertEquals("birthDate", property.getName());
+        assertEquals(ValueType.PRIMITIVE, property.getValueType());
+        assertTrue(property.getValue() instanceof GregorianCalendar);
+    }
+
+    @Test
+    public void decode_StringAndLongFields_ValuesAsIs() {
+        HitDecoder decoder = entityType.getHitDecoder();
+        assertEquals("Dan", decoder.decode("name", "Dan").getValue());
+        assertEquals(42L, decoder.decode("age", 42L).getValue());
+    }
+
+    @Test
+    public void decode_FieldWithoutProperty_PrimitivePropertyWithFieldName() {
+        HitDecoder decoder = entityType.getHitDecoder();
+        assertFalse(decoder.hasProperty("unknown"));
+        Property property = decoder.decode("unknown", 1);
+        assertEquals("unknown", property.getName());
+        assertEquals(ValueType.PRIMITIVE, property.getValueType());
+        assertEquals(1, property.getValue());
+    }
+
+    @Test
+    public void decode_CollectionOfObjects_ComplexCollection() {
+        HitDecoder decoder = entityType.getHitDecoder();
+        assertTrue(decoder.hasProperty(TestProvider.DIMENSION_TYPE));
+        Property property = decoder.decode(TestProvider.DIMENSION_TYPE,
+                Arrays.asList(Collections.singletonMap("name", "x")));
+        assertEquals(ValueType.COLLECTION_COMPLEX, property.getValueType());
+        List<?> values = (List<?>) property.getValue();
+        assertEquals("x", ((ComplexValue) values.get(0)).getValue().get(0).getValue());
+    }
+
+    @Test
+    public void decodeSource_PrimitiveFields_ConvertedFromParser() throws IOException {
+        Entity entity = new Entity();
+        entityType.getHitDecoder().decodeSource(new BytesArray(
+                "{\"name\":\"Dan\",\"age\":42,\"birthDate\":\"1982-05-24T10:25:15.777Z\"}"),
+                entity);
+        assertEquals(3, entity.getProperties().size());
+        assertEquals("Dan", entity.getProperty("name").getValue());
+        assertEquals(42, entity.getProperty("age").getValue());
+        assertTrue(entity.getProperty("birthDate").getValue() instanceof GregorianCalendar);
+    }
+
+    @Test
+    public void decodeSource_FieldsWithoutProperty_Skipped() throws IOException {
+        Entity entity = new Entity();
+        entityType.getHitDecoder().decodeSource(new BytesArray(
+                "{\"extra\":{\"a\":[1,{\"b\":2}]},\"other\":[3],\"name\":\"Dan\"}"),
+                entity);
+        assertEquals(1, entity.getProperties().size());
+        assertEquals("Dan", entity.getProperty("name").getValue());
+    }
+
+    @Test
+    public void decodeSource_CollectionOfObjects_ComplexCollection() throws IOException {
+        Entity entity = new Entity();
+        entityType.getHitDecoder().decodeSource(
+                new BytesArray("{\"_dimension\":[{\"name\":\"x\"},{\"name\":\"y\"}]}"),
+                entity);
+        Property property = entity.getProperty(TestProvider.DIMENSION_TYPE);
+        assertEquals(ValueType.COLLECTION_COMPLEX, property.getValueType());
+        List<?> values = (List<?>) property.getValue();
+        assertEquals(2, values.size());
+        assertEquals("y", ((ComplexValue) values.get(1)).getValue().get(0).getValue());
+    }
+}
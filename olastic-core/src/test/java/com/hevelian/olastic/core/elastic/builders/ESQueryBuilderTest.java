@@ -0,0 +1,62 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link ESQueryBuilder} class.
+ *
+ * @author rdidyk
+ */
+public class ESQueryBuilderTest {
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+    }
+
+    private String[] getRouting(String path) throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, path, null);
+        return new SearchRequestCreator().create(uriInfo).getQuery().getRouting();
+    }
+
+    @Test
+    public void getRouting_ChildrenOfParentWithKey_ParentKeyUsed() throws Exception {
+        assertArrayEquals(new String[] { "1" }, getRouting("/author('1')/book"));
+    }
+
+    @Test
+    public void getRouting_GrandchildrenOfParentWithKey_RootKeyUsed() throws Exception {
+        assertArrayEquals(new String[] { "1" }, getRouting("/author('1')/book('2')/character"));
+    }
+
+    @Test
+    public void getRouting_ParentOfChildWithKey_NoRouting() throws Exception {
+        assertArrayEquals(new String[0], getRouting("/book('2')/author"));
+        assertArrayEquals(new String[0], getRouting("/book('2')/character"));
+    }
+
+    @Test
+    public void getRouting_NoNavigation_NoRouting() throws Exception {
+        assertArrayEquals(new String[0], getRouting("/author('1')"));
+        assertArrayEquals(new String[0], getRouting("/author"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+/**
+ * Tests for {@link ForeignKeyJoinEngine} class.
+ *
+ * @author rdidyk
+ */
+public class ForeignKeyJoinEngineTest {
+
+    /**
+     * Engine with stubbed multi search, which returns hits by type.
+     */
+    private static class StubJoinEngine extends ForeignKeyJoinEngine {
+
+        private final Map<String, SearchHits> hits = new HashMap<>();
+        private final List<List<String>> searchedTypes = new ArrayList<>();
+
+        StubJoinEngine(int maxFanOut) {
+            super(maxFanOut);
+        }
+
+        @Override
+        protected List<SearchHits> search(List<SearchQuery> queries) {
+            List<String> types = new ArrayList<>();
+            List<SearchHits> result = new ArrayList<>();
+            for (SearchQuery query : queries) {
+                types.add(query.getTypes()[0]);
+                result.add(hits.get(query.getTypes()[0]));
+            }
+            searchedTypes.add(types);
+            return result;
+        }
+    }
+
+    private static SearchHits hits(long total, SearchHit... hits) {
+        return new SearchHits(hits, total, 0);
+    }
+
+    private static SearchHit hit(String id, String source) {
+        SearchHit hit = new SearchHit(0, id, new Text("type"), Collections.emptyMap());
+        hit.sourceRef(new BytesArray(source));
+        return hit;
+    }
+
+    @Test
+    public void resolve_JoinByField_ReplacedWithTermsOfInnerValues() throws Exception {
+        StubJoinEngine engine = new StubJoinEngine(10);
+        engine.hits.put("book", hits(2, hit("1", "{\"publisherId\":\"p1\"}"),
+                hit("2", "{\"publisherId\":[\"p2\",\"p1\"]}")));
+        QueryBuilder join = new ForeignKeyQueryBuilder("_id", "library", "book",
+                termQuery("title", "x"), "publisherId");
+
+        QueryBuilder resolved = engine.resolve(boolQuery().filter(join));
+
+        assertEquals(boolQuery().filter(idsQuery().addIds("p1", "p2")), resolved);
+    }
+
+    @Test
+    public void resolve_JoinById_ReplacedWithTermsOfInnerIds() throws Exception {
+        StubJoinEngine engine = new StubJoinEngine(10);
+        engine.hits.put("publisher", hits(2, hit("p1", "{}"), hit("p2", "{}")));
+        QueryBuilder join = new ForeignKeyQueryBuilder("publisherId", "publishers", "publisher",
+                termQuery("name", "x"), "_id");
+
+        QueryBuilder resolved = engine.resolve(join);
+
+        assertEquals(termsQuery("publisherId", Arrays.asList("p1", "p2")), resolved);
+    }
+
+    @Test
+    public void resolve_ChainedJoins_ResolvedLevelByLevel() throws Exception {
+        StubJoinEngine engine = new StubJoinEngine(10);
+        engine.hits.put("country", hits(1, hit("c1", "{}")));
+        engine.hits.put("publisher", hits(1, hit("p1", "{}")));
+        QueryBuilder join = new ForeignKeyQueryBuilder("publisherId", "publishers", "publisher",
+                new ForeignKeyQueryBuilder("countryId", "geo", "country",
+                        termQuery("name", "x"), "_id"),
+                "_id");
+
+        QueryBuilder resolved = engine.resolve(join);
+
+        assertEquals(Arrays.asList(Collections.singletonList("country"),
+                Collections.singletonList("publisher")), engine.searchedTypes);
+        assertEquals(termsQuery("publisherId", Arrays.asList("p1")), resolved);
+    }
+
+    @Test
+    public void resolve_SiblingJoins_ResolvedInOneSearch() throws Exception {
+        StubJoinEngine engine = new StubJoinEngine(10);
+        engine.hits.put("publisher", hits(1, hit("p1", "{}")));
+        engine.hits.put("country", hits(1, hit("c1", "{}")));
+        QueryBuilder query = boolQuery()
+                .filter(new ForeignKeyQueryBuilder("publisherId", "publishers", "publisher",
+                        termQuery("name", "x"), "_id"))
+                .filter(new ForeignKeyQueryBuilder("countryId", "geo", "country",
+                        termQuery("name", "y"), "_id"));
+
+        QueryBuilder resolved = engine.resolve(query);
+
+        assertEquals(Collections.singletonList(Arrays.asList("publisher", "country")),
+                engine.searchedTypes);
+        assertEquals(boolQuery().filter(termsQuery("publisherId", Arrays.asList("p1")))
+                .filter(termsQuery("countryId", Arrays.asList("c1"))), resolved);
+    }
+
+    @Test
+    public void resolve_InnerQueryOverFanOut_BadRequest() throws Exception {
+        StubJoinEngine engine = new StubJoinEngine(1);
+        engine.hits.put("publisher", hits(2, hit("p1", "{}")));
+        QueryBuilder join = new ForeignKeyQueryBuilder("publisherId", "publishers", "publisher",
+                termQuery("name", "x"), "_id");
+        try {
+            engine.resolve(join);
+            fail("Exception expected");
+        } catch (ODataApplicationException e) {
+            assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void resolve_NoJoins_QueryNotChanged() throws Exception {
+        StubJoinEngine engine = new StubJoinEngine(10);
+        QueryBuilder query = boolQuery().filter(termQuery("name", "x"));
+
+        assertSame(query, engine.resolve(query));
+        assertTrue(engine.searchedTypes.isEmpty());
+    }
+}
@@ -0,0 +1,156 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.hasChildQuery;
+import static org.elasticsearch.index.query.QueryBuilders.hasParentQuery;
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.search.join.ScoreMode;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.query.InnerHitBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.queries.Query;
+
+/**
+ * Tests for {@link JoinPlanner} class.
+ *
+ * @author rdidyk
+ */
+public class JoinPlannerTest {
+
+    private static final String[] TYPES = new String[] { "author" };
+
+    /**
+     * Planner with stubbed inner searches, which returns hits by type.
+     */
+    private static class StubJoinPlanner extends JoinPlanner {
+
+        private final Map<String, SearchHits> hits = new HashMap<>();
+        private final List<String> searchedTypes = new ArrayList<>();
+
+        StubJoinPlanner(int limit) {
+            super(limit);
+        }
+
+        @Override
+        protected SearchHits search(Query query, String type, QueryBuilder inner) {
+            searchedTypes.add(type);
+            return hits.get(type);
+        }
+    }
+
+    private static SearchHits hits(long total, SearchHit... hits) {
+        return new SearchHits(hits, total, 0);
+    }
+
+    private static SearchHit hit(String id) {
+        return new SearchHit(0, id, new Text("type"), Collections.emptyMap());
+    }
+
+    private static SearchHit childHit(String id, String parentId) {
+        Map<String, SearchHitField> fields = new HashMap<>();
+        fields.put(ElasticConstants.PARENT_PROPERTY, new SearchHitField(
+                ElasticConstants.PARENT_PROPERTY, Arrays.asList((Object) parentId)));
+        return new SearchHit(0, id, new Text("type"), fields);
+    }
+
+    private static Query query(QueryBuilder builder) {
+        return new Query("index", TYPES, builder, null);
+    }
+
+    @Test
+    public void plan_SelectiveChildQuery_ReplacedWithParentIds() throws Exception {
+        StubJoinPlanner planner = new StubJoinPlanner(10);
+        planner.hits.put("book", hits(3, childHit("1", "a"), childHit("2", "b"),
+                childHit("3", "a")));
+        QueryBuilder join = hasChildQuery("book", termQuery("title", "x"), ScoreMode.None);
+
+        QueryBuilder planned = planner.plan(query(boolQuery().filter(join)));
+
+        assertEquals(boolQuery().filter(idsQuery().addIds("a", "b")), planned);
+    }
+
+    @Test
+    public void plan_SelectiveParentQuery_ReplacedWithParentTerms() throws Exception {
+        StubJoinPlanner planner = new StubJoinPlanner(10);
+        planner.hits.put("author", hits(2, hit("a"), hit("b")));
+        QueryBuilder join = hasParentQuery("author", termQuery("name", "x"), false);
+
+        QueryBuilder planned = planner.plan(query(join));
+
+        assertEquals(termsQuery(ElasticConstants.PARENT_PROPERTY, Arrays.asList("a", "b")),
+                planned);
+    }
+
+    @Test
+    public void plan_InnerQueryOverLimit_BlockJoinKept() throws Exception {
+        StubJoinPlanner planner = new StubJoinPlanner(2);
+        planner.hits.put("book", hits(3, childHit("1", "a"), childHit("2", "b")));
+        QueryBuilder join = hasChildQuery("book", termQuery("title", "x"), ScoreMode.None);
+
+        assertSame(join, planner.plan(query(join)));
+    }
+
+    @Test
+    public void plan_ChainedJoins_InnermostResolvedFirst() throws Exception {
+        StubJoinPlanner planner = new StubJoinPlanner(10);
+        planner.hits.put("character", hits(1, childHit("c", "b1")));
+        planner.hits.put("book", hits(20));
+        QueryBuilder join = hasChildQuery("book",
+                hasChildQuery("character", termQuery("name", "x"), ScoreMode.None),
+                ScoreMode.None);
+
+        QueryBuilder planned = planner.plan(query(join));
+
+        assertEquals(Arrays.asList("character", "book"), planner.searchedTypes);
+        assertEquals(hasChildQuery("book", idsQuery().addIds("b1"), ScoreMode.None), planned);
+    }
+
+    @Test
+    public void plan_ChildWithoutParentField_BlockJoinKept() throws Exception {
+        StubJoinPlanner planner = new StubJoinPlanner(10);
+        planner.hits.put("book", hits(1, hit("1")));
+        QueryBuilder join = hasChildQuery("book", termQuery("title", "x"), ScoreMode.None);
+
+        assertSame(join, planner.plan(query(join)));
+    }
+
+    @Test
+    public void plan_JoinWithInnerHitsOrScore_NotResolved() throws Exception {
+        StubJoinPlanner planner = new StubJoinPlanner(10);
+        QueryBuilder withInnerHits = hasChildQuery("book", termQuery("title", "x"),
+                ScoreMode.None).innerHit(new InnerHitBuilder(), false);
+        QueryBuilder scored = hasParentQuery("author", termQuery("name", "x"), true);
+
+        assertSame(withInnerHits, planner.plan(query(withInnerHits)));
+        assertSame(scored, planner.plan(query(scored)));
+        assertTrue(planner.searchedTypes.isEmpty());
+    }
+
+    @Test
+    public void plan_ZeroLimit_QueryNotChanged() throws Exception {
+        StubJoinPlanner planner = new StubJoinPlanner(0);
+        QueryBuilder join = hasChildQuery("book", termQuery("title", "x"), ScoreMode.None);
+
+        assertSame(join, planner.plan(query(join)));
+        assertTrue(planner.searchedTypes.isEmpty());
+    }
+}
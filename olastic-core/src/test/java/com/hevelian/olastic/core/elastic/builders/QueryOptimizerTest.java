@@ -0,0 +1,194 @@
+package com.hevelian.olastic.core.elastic.builders;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.existsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmString;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.LiteralMember;
+import com.hevelian.olastic.core.api.uri.queryoption.expression.member.impl.PrimitiveMember;
+import com.hevelian.olastic.core.edm.ElasticEdmEntityType;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.mappings.MultiField;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
+import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
+import com.hevelian.olastic.core.processors.impl.EntityCollectionProcessorImpl;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link QueryOptimizer} class.
+ *
+ * @author rdidyk
+ */
+public class QueryOptimizerTest {
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+    private QueryOptimizer optimizer;
+    private EdmType edmString = new EdmString();
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        optimizer = new QueryOptimizer((ElasticEdmEntityType) metadata.getEdm()
+                .getEntityContainer().getEntitySet("author").getEntityType());
+    }
+
+    private QueryBuilder buildQuery(String filter) throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author", "$filter=" + filter);
+        return new SearchRequestCreator().create(uriInfo).getQuery().getQueryBuilder();
+    }
+
+    @Test
+    public void create_DifferentEqualityValues_MatchNone() throws Exception {
+        assertTrue(QueryOptimizer.isEmpty(buildQuery("age eq 1 and age eq 2")));
+        assertTrue(QueryOptimizer.isEmpty(buildQuery("name eq 'a' and name eq 'b'")));
+    }
+
+    @Test
+    public void create_SameEqualityValues_NotEmpty() throws Exception {
+        assertFalse(QueryOptimizer.isEmpty(buildQuery("age eq 1 and age eq 1.0")));
+        assertFalse(QueryOptimizer.isEmpty(buildQuery("age eq 1 or age eq 2")));
+    }
+
+    @Test
+    public void create_InvertedRange_MatchNone() throws Exception {
+        assertTrue(QueryOptimizer.isEmpty(buildQuery("age gt 30 and age lt 20")));
+        assertTrue(QueryOptimizer.isEmpty(buildQuery("age gt 30 and age le 30")));
+        assertFalse(QueryOptimizer.isEmpty(buildQuery("age ge 30 and age le 30")));
+    }
+
+    @Test
+    public void create_EqualityOutOfRange_MatchNone() throws Exception {
+        assertTrue(QueryOptimizer.isEmpty(buildQuery("age eq 10 and age gt 20")));
+        assertFalse(QueryOptimizer.isEmpty(buildQuery("age eq 25 and age gt 20")));
+    }
+
+    @Test
+    public void create_EqualAndNotEqual_MatchNone() throws Exception {
+        assertTrue(QueryOptimizer.isEmpty(buildQuery("age eq 10 and age ne 10")));
+        assertTrue(QueryOptimizer.isEmpty(buildQuery("age eq 10 and age eq null")));
+    }
+
+    @Test
+    public void create_AllBranchesOfOrEmpty_MatchNone() throws Exception {
+        assertTrue(QueryOptimizer
+                .isEmpty(buildQuery("(age eq 1 and age eq 2) or (age gt 5 and age lt 3)")));
+    }
+
+    @Test
+    public void create_DatesCompared_NotEvaluated() throws Exception {
+        assertFalse(QueryOptimizer.isEmpty(buildQuery(
+                "birthDate eq 2017-01-01T00:00:00Z and birthDate eq 2017-01-01T00:00:00.000Z")));
+    }
+
+    @Test
+    public void optimize_ConflictingIds_MatchNone() {
+        BoolQueryBuilder query = boolQuery().must(idsQuery().addIds("1"))
+                .filter(boolQuery().filter(idsQuery().addIds("2")));
+        assertTrue(QueryOptimizer.isEmpty(optimizer.optimize(query)));
+    }
+
+    @Test
+    public void optimize_MultiValuedField_NotEvaluated() {
+        BoolQueryBuilder query = boolQuery().filter(termQuery("tags", "a"))
+                .filter(termQuery("tags", "b"));
+        assertFalse(QueryOptimizer.isEmpty(optimizer.optimize(query)));
+    }
+
+    @Test
+    public void optimize_ContainsOnNgramMultiField_NotEvaluated() throws Exception {
+        PrimitiveMember name = nameWithGrams();
+        BoolQueryBuilder query = boolQuery()
+                .filter(name.contains(new LiteralMember("'ab'", edmString)).getQueryBuilder())
+                .filter(name.contains(new LiteralMember("'cd'", edmString)).getQueryBuilder());
+        assertFalse(QueryOptimizer.isEmpty(optimizer.optimize(query)));
+    }
+
+    @Test
+    public void optimize_StartsWithOnEdgeNgramMultiField_NotEvaluated() throws Exception {
+        PrimitiveMember name = nameWithGrams();
+        BoolQueryBuilder query = boolQuery()
+                .filter(name.startsWith(new LiteralMember("'a'", edmString)).getQueryBuilder())
+                .filter(name.startsWith(new LiteralMember("'ab'", edmString)).getQueryBuilder());
+        assertFalse(QueryOptimizer.isEmpty(optimizer.optimize(query)));
+    }
+
+    private PrimitiveMember nameWithGrams() {
+        return new PrimitiveMember("name", Collections.emptyList(), edmString,
+                Arrays.asList(new MultiField("grams", Kind.NGRAM, false, 1, 5),
+                        new MultiField("prefixes", Kind.EDGE_NGRAM, false, 1, 10)));
+    }
+
+    @Test
+    public void optimize_TriviallyTrueClauses_Dropped() {
+        BoolQueryBuilder query = boolQuery().must(boolQuery()).filter(matchAllQuery())
+                .filter(rangeQuery("age").gte(10));
+        BoolQueryBuilder optimized = (BoolQueryBuilder) optimizer.optimize(query);
+        assertTrue(optimized.must().isEmpty());
+        assertEquals(1, optimized.filter().size());
+        assertTrue(optimizer
+                .optimize(boolQuery().filter(boolQuery())) instanceof MatchAllQueryBuilder);
+    }
+
+    @Test
+    public void optimize_MustNotMatchAll_MatchNone() {
+        assertTrue(QueryOptimizer.isEmpty(optimizer.optimize(boolQuery().mustNot(boolQuery()))));
+        assertTrue(QueryOptimizer.isEmpty(optimizer
+                .optimize(boolQuery().filter(existsQuery("age")).mustNot(existsQuery("age")))));
+    }
+
+    @Test
+    public void read_EmptyFilter_EmptyCollectionWithoutClient() throws Exception {
+        // ESClient isn't initialized, so any call to Elasticsearch would fail
+        EntityCollectionProcessorImpl processor = new EntityCollectionProcessorImpl();
+        processor.init(odata, metadata);
+        ODataRequest request = new ODataRequest();
+        request.setRawBaseUri("http://localhost/odata");
+        ODataResponse response = new ODataResponse();
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author",
+                "$count=true&$filter=age eq 1 and age eq 2");
+        processor.read(request, response, uriInfo, ContentType.JSON_FULL_METADATA);
+        JSONObject result = new JSONObject(toString(response.getContent()));
+        assertEquals(0, result.getInt("@odata.count"));
+        assertEquals(0, result.getJSONArray("value").length());
+    }
+
+    private static String toString(InputStream stream) throws IOException {
+        StringWriter writer = new StringWriter();
+        IOUtils.copy(stream, writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,180 @@
+package com.hevelian.olastic.core.elastic.cost;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.hasChildQuery;
+import static org.elasticsearch.index.query.QueryBuilders.hasParentQuery;
+import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
+import static org.elasticsearch.index.query.QueryBuilders.regexpQuery;
+import static org.elasticsearch.index.query.QueryBuilders.scriptQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.index.query.QueryBuilders.wildcardQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.apache.lucene.search.join.ScoreMode;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.queries.AggregateQuery;
+import com.hevelian.olastic.core.elastic.queries.Query;
+import com.hevelian.olastic.core.elastic.requests.AggregateRequest;
+import com.hevelian.olastic.core.elastic.requests.BaseRequest;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.elastic.requests.creators.SearchRequestCreator;
+import com.hevelian.olastic.core.elastic.scripts.StoredScript;
+import com.hevelian.olastic.core.processors.impl.EntityCollectionProcessorImpl;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link QueryCostEstimator} class.
+ *
+ * @author rdidyk
+ */
+public class QueryCostEstimatorTest {
+
+    private static final String[] TYPES = new String[] { "type" };
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+    private QueryCostEstimator estimator = new QueryCostEstimator();
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+    }
+
+    private long estimate(QueryBuilder query, Pagination pagination) {
+        return estimator.estimate(
+                new BaseRequest(new Query("index", TYPES, query, pagination), null, pagination));
+    }
+
+    @Test
+    public void estimate_LeadingWildcard_MoreExpensiveThanTerms() {
+        long wildcard = estimate(wildcardQuery("name", "*abc"), null);
+        long terms = estimate(boolQuery().filter(termQuery("name", "a"))
+                .filter(termQuery("age", 1)).mustNot(termQuery("name", "b")), null);
+        assertEquals(3, terms);
+        assertTrue(wildcard > estimate(wildcardQuery("name", "abc*"), null));
+        assertTrue(estimate(regexpQuery("name", ".*abc"), null) >= wildcard);
+    }
+
+    @Test
+    public void estimate_LeadingDotInWildcard_NotLeadingWildcard() {
+        assertEquals(estimate(wildcardQuery("name", "abc*"), null),
+                estimate(wildcardQuery("name", ".abc*"), null));
+        assertEquals(estimate(queryStringQuery("abc*"), null),
+                estimate(queryStringQuery(".abc*"), null));
+    }
+
+    @Test
+    public void estimate_Script_MoreExpensiveThanWildcard() {
+        assertTrue(estimate(scriptQuery(StoredScript.EXPRESSION.toScript(new HashMap<>())),
+                null) > estimate(wildcardQuery("name", "abc*"), null));
+    }
+
+    @Test
+    public void estimate_JoinChain_CostMultiplied() {
+        QueryBuilder child = hasChildQuery("book", termQuery("name", "a"), ScoreMode.None);
+        QueryBuilder chain = hasParentQuery("author", child, false);
+        assertEquals(10, estimate(child, null));
+        assertEquals(100, estimate(chain, null));
+    }
+
+    @Test
+    public void estimate_DeepSkip_CostIncreased() {
+        assertEquals(1, estimate(termQuery("name", "a"),
+                new Pagination(25, 0, Collections.emptyList())));
+        assertEquals(1001, estimate(termQuery("name", "a"),
+                new Pagination(25, 100000, Collections.emptyList())));
+    }
+
+    @Test
+    public void estimate_NestedGroupBy_BucketsMultiplied() {
+        AggregateQuery query = new AggregateQuery("index", TYPES, termQuery("name", "a"),
+                terms("author").field("author").size(100)
+                        .subAggregation(terms("genre").field("genre").size(50)));
+        assertEquals(501, estimator.estimate(new AggregateRequest(query, null)));
+    }
+
+    @Test
+    public void read_CostOverBudget_RequestRejected() throws Exception {
+        metadata.setCostPolicy(new QueryCostPolicy().setBudget("author", 0));
+        try {
+            read("$filter=age eq 1 and age eq 2");
+            fail("Request over the budget has to be rejected");
+        } catch (ODataApplicationException e) {
+            assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void read_CostWithinBudget_CostHeaderReturned() throws Exception {
+        ODataResponse response = read("$filter=age eq 1 and age eq 2");
+        assertEquals("1", response.getHeader(ElasticConstants.QUERY_COST_HEADER));
+        assertNull(response.getHeader(ElasticConstants.QUERY_DOWNGRADED_HEADER));
+    }
+
+    @Test
+    public void read_CostOverBudgetWithDowngrade_DowngradedHeaderReturned() throws Exception {
+        metadata.setCostPolicy(new QueryCostPolicy().setBudget("author", 0)
+                .setAction(QueryCostPolicy.Action.DOWNGRADE));
+        ODataResponse response = read("$filter=age eq 1 and age eq 2");
+        assertEquals("true", response.getHeader(ElasticConstants.QUERY_DOWNGRADED_HEADER));
+    }
+
+    @Test
+    public void applyCostPolicy_DowngradeAction_PageAndDocumentsLimited() throws Exception {
+        metadata.setCostPolicy(new QueryCostPolicy().setDefaultBudget(10)
+                .setAction(QueryCostPolicy.Action.DOWNGRADE).setDowngradedTop(5)
+                .setTerminateAfter(1000));
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author",
+                "$filter=contains(name,'abc')&$top=100");
+        ESRequest request = new SearchRequestCreator().create(uriInfo);
+        CostCheckingProcessor processor = new CostCheckingProcessor();
+        processor.init(odata, metadata);
+
+        assertTrue(processor.check(request) > 10);
+        assertEquals(5, request.getPagination().getTop());
+        assertEquals(1000, request.getQuery().getTerminateAfter());
+    }
+
+    private ODataResponse read(String query) throws Exception {
+        EntityCollectionProcessorImpl processor = new EntityCollectionProcessorImpl();
+        processor.init(odata, metadata);
+        ODataRequest request = new ODataRequest();
+        request.setRawBaseUri("http://localhost/odata");
+        ODataResponse response = new ODataResponse();
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author", query);
+        processor.read(request, response, uriInfo, ContentType.JSON_FULL_METADATA);
+        return response;
+    }
+
+    private static class CostCheckingProcessor extends EntityCollectionProcessorImpl {
+        long check(ESRequest request) throws ODataApplicationException {
+            return applyCostPolicy(request);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.hevelian.olastic.core.elastic.mappings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.common.settings.Settings;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.common.ParsedMapWrapper;
+import com.hevelian.olastic.core.elastic.mappings.MultiField.Kind;
+
+/**
+ * Tests for {@link MultiFieldMapper} class.
+ *
+ * @author rdidyk
+ */
+public class MultiFieldMapperTest {
+
+    private Settings settings = Settings.builder()
+            .put("index.analysis.normalizer.lower.type", "custom")
+            .putArray("index.analysis.normalizer.lower.filter", "lowercase")
+            .put("index.analysis.analyzer.grams.tokenizer", "trigram")
+            .put("index.analysis.tokenizer.trigram.type", "ngram")
+            .put("index.analysis.tokenizer.trigram.min_gram", 3)
+            .put("index.analysis.tokenizer.trigram.max_gram", 3)
+            .put("index.analysis.analyzer.prefixes.tokenizer", "keyword")
+            .putArray("index.analysis.analyzer.prefixes.filter", "lowercase", "prefix")
+            .put("index.analysis.filter.prefix.type", "edge_ngram")
+            .put("index.analysis.filter.prefix.max_gram", 20)
+            .put("index.analysis.analyzer.reversed.tokenizer", "keyword")
+            .putArray("index.analysis.analyzer.reversed.filter", "reverse")
+            .put("index.analysis.analyzer.exact.tokenizer", "keyword")
+            .put("index.analysis.analyzer.words.tokenizer", "whitespace").build();
+
+    private static Map<String, Object> field(String type, String property, String value) {
+        Map<String, Object> field = new HashMap<>();
+        field.put("type", type);
+        if (property != null) {
+            field.put(property, value);
+        }
+        return field;
+    }
+
+    @Test
+    public void map_FieldWithoutMultiFields_EmptyList() {
+        Map<String, Object> mapping = field("text", null, null);
+        assertTrue(new MultiFieldMapper(settings).map(new ParsedMapWrapper(mapping)).isEmpty());
+    }
+
+    @Test
+    public void mapField_Keyword_KeywordMultiField() {
+        MultiFieldMapper mapper = new MultiFieldMapper(null);
+        MultiField multiField = mapper.mapField("raw",
+                new ParsedMapWrapper(field("keyword", null, null)));
+        assertEquals(Kind.KEYWORD, multiField.getKind());
+        assertFalse(multiField.isLowercase());
+    }
+
+    @Test
+    public void mapField_Keyword_HasDocValues() {
+        assertTrue(new MultiFieldMapper(null)
+                .mapField("raw", new ParsedMapWrapper(field("keyword", null, null)))
+                .isDocValues());
+    }
+
+    @Test
+    public void mapField_KeywordWithoutDocValues_NoDocValues() {
+        Map<String, Object> mapping = field("keyword", null, null);
+        mapping.put("doc_values", false);
+        MultiField multiField = new MultiFieldMapper(null).mapField("raw",
+                new ParsedMapWrapper(mapping));
+        assertEquals(Kind.KEYWORD, multiField.getKind());
+        assertFalse(multiField.isDocValues());
+    }
+
+    @Test
+    public void mapField_TextWithKeywordAnalyzer_KeywordWithoutDocValues() {
+        MultiField multiField = new MultiFieldMapper(settings).mapField("exact",
+                new ParsedMapWrapper(field("text", "analyzer", "exact")));
+        assertEquals(Kind.KEYWORD, multiField.getKind());
+        assertFalse(multiField.isDocValues());
+    }
+
+    @Test
+    public void mapField_LowercaseNormalizer_LowercasedKeyword() {
+        MultiField multiField = new MultiFieldMapper(settings).mapField("lower",
+                new ParsedMapWrapper(field("keyword", "normalizer", "lower")));
+        assertEquals(Kind.KEYWORD, multiField.getKind());
+        assertTrue(multiField.isLowercase());
+    }
+
+    @Test
+    public void mapField_NgramTokenizer_NgramWithGramsLength() {
+        MultiField multiField = new MultiFieldMapper(settings).mapField("grams",
+                new ParsedMapWrapper(field("text", "analyzer", "grams")));
+        assertEquals(Kind.NGRAM, multiField.getKind());
+        assertTrue(multiField.fits("abc"));
+        assertFalse(multiField.fits("abcd"));
+    }
+
+    @Test
+    public void mapField_EdgeNgramFilter_LowercasedEdgeNgram() {
+        MultiField multiField = new MultiFieldMapper(settings).mapField("prefixes",
+                new ParsedMapWrapper(field("text", "analyzer", "prefixes")));
+        assertEquals(Kind.EDGE_NGRAM, multiField.getKind());
+        assertTrue(multiField.isLowercase());
+        assertEquals(1, multiField.getMinGram());
+        assertEquals(20, multiField.getMaxGram());
+    }
+
+    @Test
+    public void map_DifferentMultiFields_OnlySuitableMapped() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("reversed", field("text", "analyzer", "reversed"));
+        fields.put("words", field("text", "analyzer", "words"));
+        fields.put("standard", field("text", null, null));
+        Map<String, Object> mapping = field("text", null, null);
+        mapping.put("fields", fields);
+
+        List<MultiField> multiFields = new MultiFieldMapper(settings)
+                .map(new ParsedMapWrapper(mapping));
+        assertEquals(1, multiFields.size());
+        assertEquals("reversed", multiFields.get(0).getName());
+        assertEquals(Kind.REVERSE, multiFields.get(0).getKind());
+    }
+
+    @Test
+    public void mapField_UnknownAnalyzer_Null() {
+        assertNull(new MultiFieldMapper(settings).mapField("unknown",
+                new ParsedMapWrapper(field("text", "analyzer", "unknown"))));
+    }
+}
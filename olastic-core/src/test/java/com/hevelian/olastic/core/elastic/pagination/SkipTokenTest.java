@@ -0,0 +1,49 @@
+package com.hevelian.olastic.core.elastic.pagination;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.junit.Test;
+
+/**
+ * Tests for {@link SkipToken} class.
+ *
+ * @author rdidyk
+ */
+public class SkipTokenTest {
+
+    @Test
+    public void decode_EncodedToken_SameSortValuesAndTop() throws Exception {
+        SkipToken token = new SkipToken(new Object[] { "Dickens", 1845, "author#7" }, 30);
+
+        SkipToken decoded = SkipToken.decode(token.encode());
+
+        assertArrayEquals(token.getSearchAfter(), decoded.getSearchAfter());
+        assertEquals(30, decoded.getTop());
+    }
+
+    @Test
+    public void encode_AnyToken_UrlSafeWithoutPadding() {
+        String encoded = new SkipToken(new Object[] { "a?b&c=d/e" }, SkipToken.UNLIMITED)
+                .encode();
+        assertEquals(-1, encoded.indexOf('='));
+        assertEquals(-1, encoded.indexOf('&'));
+        assertEquals(-1, encoded.indexOf('/'));
+        assertEquals(-1, encoded.indexOf('+'));
+    }
+
+    @Test
+    public void decode_InvalidToken_BadRequest() {
+        for (String value : new String[] { "not a token", "e30", "eyJhZnRlciI6WzFdfQ" }) {
+            try {
+                SkipToken.decode(value);
+                fail("Token '" + value + "' has to be rejected.");
+            } catch (ODataApplicationException e) {
+                assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+            }
+        }
+    }
+}
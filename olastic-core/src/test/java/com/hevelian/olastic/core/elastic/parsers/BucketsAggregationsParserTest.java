@@ -0,0 +1,132 @@
+package com.hevelian.olastic.core.elastic.parsers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms.Bucket;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
+import com.hevelian.olastic.core.elastic.pagination.Sort.Direction;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for keys paging of {@link BucketsAggregationsParser} class.
+ *
+ * @author rdidyk
+ */
+public class BucketsAggregationsParserTest {
+
+    private ElasticEdmEntitySet entitySet;
+
+    @Before
+    public void setUp() throws Exception {
+        ElasticServiceMetadata metadata = ElasticOData.newInstance().createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        entitySet = (ElasticEdmEntitySet) metadata.getEdm().getEntityContainer()
+                .getEntitySet("author");
+    }
+
+    private static Aggregations aggregations(Aggregation... aggregations) {
+        Map<String, Aggregation> map = Arrays.stream(aggregations)
+                .collect(Collectors.toMap(Aggregation::getName, aggregation -> aggregation));
+        Aggregations result = mock(Aggregations.class);
+        when(result.asMap()).thenReturn(map);
+        return result;
+    }
+
+    private static SearchResponse response(long otherDocs, String... names) {
+        List<Bucket> buckets = new ArrayList<>();
+        for (String name : names) {
+            Bucket bucket = mock(Bucket.class);
+            when(bucket.getKey()).thenReturn(name);
+            when(bucket.getDocCount()).thenReturn(1L);
+            Aggregations empty = aggregations();
+            when(bucket.getAggregations()).thenReturn(empty);
+            buckets.add(bucket);
+        }
+        Terms terms = mock(Terms.class);
+        when(terms.getName()).thenReturn("name");
+        doReturn(buckets).when(terms).getBuckets();
+        when(terms.getSumOfOtherDocCounts()).thenReturn(otherDocs);
+        SearchResponse response = mock(SearchResponse.class);
+        Aggregations aggregations = aggregations(terms);
+        when(response.getAggregations()).thenReturn(aggregations);
+        return response;
+    }
+
+    private static List<Object> names(BucketsAggregationsParser parser, SearchResponse response,
+            ElasticEdmEntitySet entitySet) {
+        List<Entity> entities = ((EntityCollection) parser.parse(response, entitySet)
+                .getValue()).getEntities();
+        return entities.stream().map(entity -> entity.getProperty("name").getValue())
+                .collect(Collectors.toList());
+    }
+
+    private static Pagination pagination(int top, Direction direction, Object... after) {
+        Pagination pagination = new Pagination(top, 0,
+                Collections.singletonList(new Sort("name", direction)));
+        pagination.setSearchAfter(after.length > 0 ? after : null);
+        return pagination;
+    }
+
+    @Test
+    public void parse_GroupsUpToKeysOfPreviousPage_Dropped() {
+        BucketsAggregationsParser parser = new BucketsAggregationsParser(
+                pagination(2, Direction.ASC, "b"), null);
+        assertEquals(Arrays.asList("c", "d"),
+                names(parser, response(0, "a", "b", "c", "d"), entitySet));
+        assertFalse(parser.hasMore());
+        assertArrayEquals(new Object[] { "d" }, parser.getLastKeys());
+    }
+
+    @Test
+    public void parse_MoreGroupsThanPage_HasMore() {
+        BucketsAggregationsParser parser = new BucketsAggregationsParser(
+                pagination(1, Direction.DESC, "c"), null);
+        assertEquals(Arrays.asList("b"), names(parser, response(0, "c", "b", "a"), entitySet));
+        assertTrue(parser.hasMore());
+        assertArrayEquals(new Object[] { "b" }, parser.getLastKeys());
+    }
+
+    @Test
+    public void parse_TermsTruncated_HasMore() {
+        BucketsAggregationsParser parser = new BucketsAggregationsParser(
+                pagination(2, Direction.ASC), null);
+        assertEquals(Arrays.asList("a", "b"), names(parser, response(5, "a", "b"), entitySet));
+        assertTrue(parser.hasMore());
+    }
+
+    @Test
+    public void compareKeys_NumbersOfDifferentTypes_ComparedByValue() {
+        BucketsAggregationsParser parser = new BucketsAggregationsParser(new Pagination(1, 0,
+                Arrays.asList(new Sort("name"), new Sort("age", Direction.DESC))), null);
+        assertEquals(0, parser.compareKeys(new Object[] { "a", 42L }, new Object[] { "a", 42 }));
+        assertTrue(parser.compareKeys(new Object[] { "a", 43L }, new Object[] { "a", 42 }) < 0);
+        assertTrue(parser.compareKeys(new Object[] { "b", 1.5 }, new Object[] { "a", 2 }) > 0);
+    }
+}
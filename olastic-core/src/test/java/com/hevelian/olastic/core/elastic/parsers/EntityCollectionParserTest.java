@@ -0,0 +1,81 @@
+package com.hevelian.olastic.core.elastic.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link EntityCollectionParser} class.
+ *
+ * @author rdidyk
+ */
+public class EntityCollectionParserTest {
+
+    private ElasticEdmEntitySet entitySet;
+
+    @Before
+    public void setUp() throws Exception {
+        ElasticOData odata = ElasticOData.newInstance();
+        ElasticServiceMetadata metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        entitySet = (ElasticEdmEntitySet) metadata.getEdm().getEntityContainer()
+                .getEntitySet("author");
+    }
+
+    private static SearchHit nestedHit(int offset, String source) {
+        SearchHit hit = new SearchHit(0, "1", new Text("author"),
+                new SearchHit.NestedIdentity("_dimension", offset, null), Collections.emptyMap());
+        hit.sourceRef(new BytesArray(source));
+        return hit;
+    }
+
+    private Entity parse(SearchHit hit) throws Exception {
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(new SearchHit[] { hit }, 1, 0));
+        return ((EntityCollection) new EntityCollectionParser(false).parse(response, entitySet)
+                .getValue()).getEntities().get(0);
+    }
+
+    @Test
+    public void parse_NestedInnerHits_OnlyMatchedObjectsInCollectionOrder() throws Exception {
+        SearchHit hit = new SearchHit(0, "1", new Text("author"), Collections.emptyMap());
+        hit.sourceRef(new BytesArray("{\"name\":\"a\"}"));
+        Map<String, SearchHits> innerHits = new HashMap<>();
+        innerHits.put("_dimension", new SearchHits(
+                new SearchHit[] { nestedHit(7, "{\"name\":\"x\"}") }, 1, 0));
+        innerHits.put("_dimension#2", new SearchHits(new SearchHit[] {
+                nestedHit(2, "{\"name\":\"y\"}"), nestedHit(7, "{\"name\":\"x\"}") }, 2, 0));
+        hit.setInnerHits(innerHits);
+
+        Entity entity = parse(hit);
+
+        List<?> dimensions = (List<?>) entity.getProperty("_dimension").getValue();
+        assertEquals(2, dimensions.size());
+        assertEquals("y", ((ComplexValue) dimensions.get(0)).getValue().get(0).getValue());
+        assertEquals("x", ((ComplexValue) dimensions.get(1)).getValue().get(0).getValue());
+        assertEquals("a", entity.getProperty("name").getValue());
+    }
+}
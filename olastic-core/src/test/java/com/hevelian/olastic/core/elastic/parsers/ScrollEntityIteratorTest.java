@@ -0,0 +1,144 @@
+package com.hevelian.olastic.core.elastic.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.exceptions.SearchException;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link ScrollEntityIterator} class.
+ *
+ * @author rdidyk
+ */
+public class ScrollEntityIteratorTest {
+
+    private static SearchResponse batch(String scrollId, long total, String... ids) {
+        SearchHit[] hits = new SearchHit[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            hits[i] = new SearchHit(i, ids[i], new Text("author"), Collections.emptyMap());
+            hits[i].sourceRef(new BytesArray("{\"name\":\"" + ids[i] + "\"}"));
+        }
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, total, 0));
+        when(response.getScrollId()).thenReturn(scrollId);
+        return response;
+    }
+
+    private static List<String> ids(ScrollEntityIterator iterator) {
+        List<String> ids = new ArrayList<>();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next().getId().toString());
+        }
+        return ids;
+    }
+
+    private static Entity entity(SearchHit hit) {
+        Entity entity = new Entity();
+        entity.setId(URI.create(hit.getId()));
+        return entity;
+    }
+
+    @Test
+    public void next_SeveralBatches_AllEntitiesAndScrollClearedOnce() {
+        TestIterator iterator = new TestIterator(batch("s1", 5, "1", "2"),
+                batch("s2", 5, "3", "4"), batch("s3", 5, "5"));
+
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5"), ids(iterator));
+        assertEquals(Arrays.asList("s1", "s2"), iterator.continued);
+        assertEquals(Collections.singletonList("s3"), iterator.cleared);
+        iterator.close();
+        assertEquals(1, iterator.cleared.size());
+        assertNull(iterator.getCount());
+    }
+
+    @Test
+    public void next_BatchFails_ScrollCleared() {
+        TestIterator iterator = new TestIterator(batch("s1", 5, "1", "2"));
+        iterator.next();
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("Failure of the scroll has to be propagated.");
+        } catch (SearchException e) {
+            assertEquals(Collections.singletonList("s1"), iterator.cleared);
+        }
+    }
+
+    @Test
+    public void entityCollectionStreamed_ParsedScroll_AllEntitiesWrittenWithCount()
+            throws Exception {
+        ElasticOData odata = ElasticOData.newInstance();
+        ElasticServiceMetadata metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        ElasticEdmEntitySet entitySet = (ElasticEdmEntitySet) metadata.getEdm()
+                .getEntityContainer().getEntitySet("author");
+        ScrollEntityIterator entities = (ScrollEntityIterator) new EntityCollectionParser(true)
+                .parseScroll(batch(null, 2, "a", "b"), entitySet).getValue();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        odata.createSerializer(ContentType.JSON_NO_METADATA)
+                .entityCollectionStreamed(metadata, entitySet.getEntityType(), entities,
+                        EntityCollectionSerializerOptions.with().build())
+                .getODataContent().write(output);
+
+        JSONObject result = new JSONObject(
+                new String(output.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(2, result.getJSONArray("value").length());
+        assertEquals("b", result.getJSONArray("value").getJSONObject(1).getString("name"));
+        assertEquals(Integer.valueOf(2), entities.getCount());
+    }
+
+    private static class TestIterator extends ScrollEntityIterator {
+        private final Deque<SearchResponse> batches;
+        private final List<String> continued = new ArrayList<>();
+        private final List<String> cleared = new ArrayList<>();
+
+        TestIterator(SearchResponse first, SearchResponse... next) {
+            super(first, ScrollEntityIteratorTest::entity, false);
+            batches = new ArrayDeque<>(Arrays.asList(next));
+        }
+
+        @Override
+        protected SearchResponse continueScroll(String id) {
+            continued.add(id);
+            if (batches.isEmpty()) {
+                throw new SearchException("Scroll expired.");
+            }
+            return batches.poll();
+        }
+
+        @Override
+        protected void clearScroll(String id) {
+            cleared.add(id);
+        }
+    }
+}
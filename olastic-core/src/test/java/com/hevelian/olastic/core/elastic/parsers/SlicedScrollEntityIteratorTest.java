@@ -0,0 +1,160 @@
+package com.hevelian.olastic.core.elastic.parsers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.exceptions.SearchException;
+
+/**
+ * Tests for {@link SlicedScrollEntityIterator} class.
+ *
+ * @author rdidyk
+ */
+public class SlicedScrollEntityIteratorTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private static SearchResponse batch(String scrollId, String... ids) {
+        SearchHit[] hits = new SearchHit[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            hits[i] = new SearchHit(i, ids[i], new Text("author"), Collections.emptyMap());
+        }
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, ids.length, 0));
+        when(response.getScrollId()).thenReturn(scrollId);
+        return response;
+    }
+
+    private static Entity entity(SearchHit hit) {
+        Entity entity = new Entity();
+        entity.setId(URI.create(hit.getId()));
+        return entity;
+    }
+
+    @Test
+    public void next_SeveralSlices_AllEntitiesAndAllScrollsCleared() {
+        TestIterator iterator = new TestIterator(3, false);
+        Set<String> ids = new HashSet<>();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next().getId().toString());
+        }
+        assertEquals(new HashSet<>(Arrays.asList("0a", "0b", "0c", "1a", "1b", "1c", "2a",
+                "2b", "2c")), ids);
+        assertEquals(new HashSet<>(Arrays.asList("0", "1", "2")), iterator.cleared.keySet());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void next_NoSlices_NoEntities() {
+        assertFalse(new TestIterator(0, false).hasNext());
+    }
+
+    @Test
+    public void next_SliceFails_ErrorPropagatedAndScrollsCleared() {
+        TestIterator iterator = new TestIterator(2, true);
+        List<Entity> entities = new ArrayList<>();
+        try {
+            while (iterator.hasNext()) {
+                entities.add(iterator.next());
+            }
+            fail("Failure of the slice has to be propagated.");
+        } catch (ODataRuntimeException e) {
+            assertTrue(e.getMessage().contains("Scroll expired."));
+            assertEquals(new HashSet<>(Arrays.asList("0", "1")), iterator.awaitCleared(2));
+        }
+    }
+
+    @Test
+    public void next_SliceFailsWhileOtherBlocked_OtherSliceCancelledAndCleared() {
+        TestIterator iterator = new TestIterator(2, true);
+        iterator.isBlocking = true;
+        long start = System.currentTimeMillis();
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("Failure of the slice has to be propagated.");
+        } catch (ODataRuntimeException e) {
+            assertTrue(e.getMessage().contains("Scroll expired."));
+            assertTrue(System.currentTimeMillis() - start < TIMEOUT_MILLIS);
+            assertEquals(new HashSet<>(Arrays.asList("0", "1")), iterator.awaitCleared(2));
+        }
+    }
+
+    private static class TestIterator extends SlicedScrollEntityIterator {
+        private final boolean isFailing;
+        private final ConcurrentHashMap<String, Boolean> cleared = new ConcurrentHashMap<>();
+        private volatile boolean isBlocking;
+
+        TestIterator(int slices, boolean isFailing) {
+            super(null, slices, 2, SlicedScrollEntityIteratorTest::entity);
+            this.isFailing = isFailing;
+        }
+
+        @Override
+        protected SearchResponse openSlice(int slice) {
+            return batch(Integer.toString(slice), slice + "a", slice + "b");
+        }
+
+        @Override
+        protected SearchResponse continueScroll(String id) {
+            if (isFailing && "1".equals(id)) {
+                throw new SearchException("Scroll expired.");
+            }
+            if (isBlocking) {
+                block();
+            }
+            return cleared.containsKey(id + "#") ? batch(id) : next(id);
+        }
+
+        private SearchResponse next(String id) {
+            cleared.put(id + "#", true);
+            return batch(id, id + "c");
+        }
+
+        private void block() {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                throw new SearchException("Scroll cancelled.");
+            }
+        }
+
+        @Override
+        protected void clearScroll(String id) {
+            assertFalse(Thread.currentThread().isInterrupted());
+            cleared.remove(id + "#");
+            cleared.put(id, true);
+        }
+
+        private Set<String> awaitCleared(int count) {
+            long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (cleared.size() < count && System.currentTimeMillis() < end) {
+                Thread.yield();
+            }
+            return cleared.keySet();
+        }
+    }
+}
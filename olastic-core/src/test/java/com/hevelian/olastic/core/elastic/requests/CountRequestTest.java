@@ -0,0 +1,79 @@
+package com.hevelian.olastic.core.elastic.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+/**
+ * Tests for {@link CountRequest} class.
+ *
+ * @author rdidyk
+ */
+public class CountRequestTest {
+
+    @Test
+    public void execute_SampleTerminatedEarly_CountExtrapolatedToIndex() throws Exception {
+        SampledRequest request = new SampledRequest(sample(100, 999), 100000);
+        assertEquals(10000, request.execute().getHits().getTotalHits());
+        assertTrue(request.isEstimated());
+    }
+
+    @Test
+    public void estimate_FewVisitedDocuments_ExtrapolatedShare() {
+        assertEquals(5000, CountRequest.estimate(10, 20, 10000));
+        assertEquals(10, CountRequest.estimate(10, 10, 8));
+    }
+
+    @Test
+    public void isEstimated_NotExecuted_False() {
+        assertFalse(new SampledRequest(sample(1, 1), 1).isEstimated());
+    }
+
+    private static SearchResponse sample(long sampled, int lastPosition) {
+        SearchHit hit = new SearchHit(lastPosition, "1", new Text("author"), null);
+        hit.sortValues(new Object[] { lastPosition }, new DocValueFormat[] { DocValueFormat.RAW });
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(new SearchHit[] { hit }, sampled, 0));
+        when(response.isTerminatedEarly()).thenReturn(true);
+        when(response.getTotalShards()).thenReturn(1);
+        return response;
+    }
+
+    private static class SampledRequest extends CountRequest {
+        private final SearchResponse sample;
+        private final long documents;
+
+        SampledRequest(SearchResponse sample, long documents) {
+            super(new SearchQuery("authors", new String[] { "author" },
+                    QueryBuilders.matchAllQuery(), Collections.emptySet(), null),
+                    mock(ElasticEdmEntitySet.class), 100);
+            this.sample = sample;
+            this.documents = documents;
+        }
+
+        @Override
+        protected SearchResponse searchSample() {
+            return sample;
+        }
+
+        @Override
+        protected long getIndexDocuments() {
+            return documents;
+        }
+    }
+}
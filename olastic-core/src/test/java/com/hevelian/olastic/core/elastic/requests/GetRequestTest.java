@@ -0,0 +1,69 @@
+package com.hevelian.olastic.core.elastic.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetField;
+import org.elasticsearch.index.get.GetResult;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.queries.GetQuery;
+
+/**
+ * Tests for {@link GetRequest} class.
+ *
+ * @author rdidyk
+ */
+public class GetRequestTest {
+
+    private final GetRequest request = new GetRequest(
+            new GetQuery("authors", new String[] { "author", "book" },
+                    new String[] { "1", "2" }, Collections.emptySet()),
+            mock(ElasticEdmEntitySet.class));
+
+    private static GetResponse response(String type, String id, String parent,
+            String source) {
+        Map<String, GetField> fields = parent == null ? Collections.emptyMap()
+                : Collections.singletonMap("_parent",
+                        new GetField("_parent", Collections.singletonList(parent)));
+        return new GetResponse(new GetResult("authors", type, id, 1, source != null,
+                source != null ? new BytesArray(source) : null, fields));
+    }
+
+    @Test
+    public void toSearchResponse_ChainOfParentAndChild_HitOfChild() {
+        SearchResponse response = request.toSearchResponse(
+                Arrays.asList(response("author", "1", null, "{\"name\":\"a\"}"),
+                        response("book", "2", "1", "{\"title\":\"x\"}")));
+
+        assertEquals(1, response.getHits().getTotalHits());
+        assertEquals("2", response.getHits().getAt(0).getId());
+        assertEquals("x", response.getHits().getAt(0).getSource().get("title"));
+    }
+
+    @Test
+    public void toSearchResponse_ChildOfOtherParent_NoHits() {
+        SearchResponse response = request.toSearchResponse(
+                Arrays.asList(response("author", "1", null, "{}"),
+                        response("book", "2", "3", "{\"title\":\"x\"}")));
+
+        assertEquals(0, response.getHits().getHits().length);
+    }
+
+    @Test
+    public void toSearchResponse_MissingParent_NoHits() {
+        SearchResponse response = request.toSearchResponse(
+                Arrays.asList(response("author", "1", null, null),
+                        response("book", "2", "1", "{\"title\":\"x\"}")));
+
+        assertEquals(0, response.getHits().getHits().length);
+    }
+}
@@ -0,0 +1,76 @@
+package com.hevelian.olastic.core.elastic.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+
+/**
+ * Tests for {@link SearchRequest} class.
+ *
+ * @author rdidyk
+ */
+public class SearchRequestTest {
+
+    private static SearchRequest request(Pagination pagination, int threshold) {
+        ElasticEdmEntitySet entitySet = mock(ElasticEdmEntitySet.class);
+        when(entitySet.getDeepSkipThreshold()).thenReturn(threshold);
+        return new SearchRequest(new SearchQuery("authors", new String[] { "author" },
+                QueryBuilders.matchAllQuery(), Collections.emptySet(), pagination), entitySet,
+                pagination);
+    }
+
+    @Test
+    public void isDeepSkip_SkipBelowThresholdAndWindow_FromSize() {
+        Pagination pagination = new Pagination(25, 100, new ArrayList<>());
+        assertFalse(request(pagination, 1000).isDeepSkip(pagination));
+        assertFalse(request(null, 1000).isDeepSkip(null));
+    }
+
+    @Test
+    public void isDeepSkip_SkipReachesThreshold_SearchAfter() {
+        Pagination pagination = new Pagination(25, 1000, new ArrayList<>());
+        assertTrue(request(pagination, 1000).isDeepSkip(pagination));
+    }
+
+    @Test
+    public void isDeepSkip_PageOverResultWindow_SearchAfter() {
+        Pagination pagination = new Pagination(100, ElasticConstants.MAX_RESULT_WINDOW - 50,
+                new ArrayList<>());
+        assertTrue(request(pagination, Integer.MAX_VALUE).isDeepSkip(pagination));
+    }
+
+    @Test
+    public void isDeepSkip_PageOfSkipToken_FromSize() {
+        Pagination pagination = new Pagination(25, 1000, new ArrayList<>());
+        pagination.setSearchAfter(new Object[] { "author#1" });
+        assertFalse(request(pagination, 1000).isDeepSkip(pagination));
+    }
+
+    @Test
+    public void addTiebreaker_AnySort_UidAddedOnce() {
+        List<Sort> orderBy = new ArrayList<>();
+        orderBy.add(new Sort("name"));
+        Pagination pagination = new Pagination(25, 1000, orderBy);
+
+        SearchRequest.addTiebreaker(pagination);
+        SearchRequest.addTiebreaker(pagination);
+
+        assertEquals(2, orderBy.size());
+        assertEquals(ElasticConstants.UID_FIELD_NAME, orderBy.get(1).getProperty());
+    }
+}
@@ -0,0 +1,166 @@
+package com.hevelian.olastic.core.elastic.requests.creators;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.ex.ODataException;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlEntityType;
+import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlProperty;
+import com.hevelian.olastic.core.common.ParsedMapWrapper;
+import com.hevelian.olastic.core.elastic.cost.QueryCostEstimator;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.mappings.MultiFieldMapper;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.SkipToken;
+import com.hevelian.olastic.core.elastic.pagination.Sort.Direction;
+import com.hevelian.olastic.core.elastic.requests.AggregateRequest;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for keys paging of {@link BucketsAggregationsRequestCreator} class.
+ *
+ * @author rdidyk
+ */
+public class BucketsAggregationsRequestCreatorTest {
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+    private BucketsAggregationsRequestCreator creator;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        creator = new BucketsAggregationsRequestCreator();
+    }
+
+    /**
+     * Provider, which maps multi-fields of author name: text sub-field with
+     * keyword analyzer goes before keyword sub-field.
+     */
+    private static class MultiFieldsProvider extends TestProvider {
+
+        MultiFieldsProvider(MappingMetaDataProvider metaDataProvider) {
+            super(metaDataProvider);
+        }
+
+        @Override
+        public ElasticCsdlEntityType getEntityType(FullQualifiedName entityTypeName)
+                throws ODataException {
+            ElasticCsdlEntityType entityType = super.getEntityType(entityTypeName);
+            if (AUTHOR_FQN.equals(entityTypeName)) {
+                Map<String, Object> fields = new LinkedHashMap<>();
+                fields.put("exact", field("text", "exact"));
+                fields.put("raw", field("keyword", null));
+                Map<String, Object> mapping = field("text", null);
+                mapping.put("fields", fields);
+                Settings settings = Settings.builder()
+                        .put("index.analysis.analyzer.exact.tokenizer", "keyword").build();
+                ((ElasticCsdlProperty) entityType.getProperty("name")).setMultiFields(
+                        new MultiFieldMapper(settings).map(new ParsedMapWrapper(mapping)));
+            }
+            return entityType;
+        }
+
+        private static Map<String, Object> field(String type, String analyzer) {
+            Map<String, Object> field = new HashMap<>();
+            field.put("type", type);
+            if (analyzer != null) {
+                field.put("analyzer", analyzer);
+            }
+            return field;
+        }
+    }
+
+    private AggregateRequest create(String query) throws Exception {
+        return creator.create(buildUriInfo(metadata, odata, "/author", query));
+    }
+
+    @Test
+    public void create_NoOrder_GroupsPagedByKeysInTermOrder() throws Exception {
+        AggregateRequest request = create("$apply=groupby((name,age))&$top=10");
+        assertTrue(creator.isKeysetPaging());
+        Pagination pagination = request.getPagination();
+        assertEquals(10, pagination.getTop());
+        assertEquals(2, pagination.getOrderBy().size());
+        assertEquals("age", pagination.getOrderBy().get(1).getProperty());
+        TermsAggregationBuilder terms = (TermsAggregationBuilder) request.getQuery()
+                .getAggregations().get(0);
+        assertTrue(terms.toString().contains("\"size\" : 10"));
+        assertTrue(terms.toString().contains("\"_term\" : \"asc\""));
+    }
+
+    @Test
+    public void create_SkipToken_QueryOfFollowingGroups() throws Exception {
+        String token = new SkipToken(new Object[] { "Dan", 42 }, SkipToken.UNLIMITED).encode();
+        AggregateRequest request = create(
+                "$apply=groupby((name,age))&$orderby=age desc&$skiptoken=" + token);
+        Pagination pagination = request.getPagination();
+        assertEquals(Pagination.TOP_DEFAULT, pagination.getTop());
+        assertEquals(Direction.DESC, pagination.getOrderBy().get(1).getDirection());
+        String query = request.getQuery().getQueryBuilder().toString();
+        assertTrue(query.contains("\"from\" : \"Dan\""));
+        assertTrue(query.contains("\"to\" : 42"));
+    }
+
+    @Test(expected = ODataApplicationException.class)
+    public void create_SkipTokenOfOtherGrouping_BadRequest() throws Exception {
+        String token = new SkipToken(new Object[] { "Dan" }, 1).encode();
+        create("$apply=groupby((name,age))&$skiptoken=" + token);
+    }
+
+    @Test
+    public void create_OrderByCount_GroupsNotPagedByKeys() throws Exception {
+        AggregateRequest request = create(
+                "$apply=groupby((name),aggregate($count as cnt))&$orderby=cnt desc&$top=10");
+        assertFalse(creator.isKeysetPaging());
+        assertEquals(10, request.getPagination().getTop());
+    }
+
+    @Test
+    public void create_ThreePropertiesWithoutTop_AllLevelsOfDefaultPageSize()
+            throws Exception {
+        AggregateRequest request = create("$apply=groupby((name,age,birthDate))");
+        String terms = request.getQuery().getAggregations().get(0).toString();
+        assertEquals(3, terms.split("\"size\" : " + Pagination.TOP_DEFAULT).length - 1);
+    }
+
+    @Test
+    public void create_ThreePropertiesWithoutTop_BucketsChargedByCostEstimator()
+            throws Exception {
+        AggregateRequest request = create("$apply=groupby((name,age,birthDate))");
+        long buckets = (long) Math.pow(Pagination.TOP_DEFAULT, 3);
+        assertTrue(new QueryCostEstimator().estimate(request) >= buckets / 10);
+    }
+
+    @Test
+    public void create_TextSubFieldWithKeywordAnalyzer_SortedAndGroupedByKeyword()
+            throws Exception {
+        metadata = odata.createServiceMetadata(
+                new MultiFieldsProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        AggregateRequest request = create("$apply=groupby((name))&$orderby=name desc");
+        assertTrue(creator.isKeysetPaging());
+        assertEquals("name.raw", request.getPagination().getOrderBy().get(0).getProperty());
+        String terms = request.getQuery().getAggregations().get(0).toString();
+        assertTrue(terms.contains("\"field\" : \"name.raw\""));
+        assertTrue(terms.contains("\"_term\" : \"desc\""));
+    }
+}
@@ -0,0 +1,87 @@
+package com.hevelian.olastic.core.elastic.requests.creators;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.queries.GetQuery;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.elastic.requests.GetRequest;
+import com.hevelian.olastic.core.elastic.requests.SearchRequest;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link GetRequestCreator} class.
+ *
+ * @author rdidyk
+ */
+public class GetRequestCreatorTest {
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+    }
+
+    private ESRequest create(String path, String query) throws Exception {
+        return new GetRequestCreator().create(buildUriInfo(metadata, odata, path, query));
+    }
+
+    @Test
+    public void create_RootEntityByKey_GetRequestRoutedById() throws Exception {
+        GetQuery query = ((GetRequest) create("/author('1')", null)).getQuery();
+
+        assertEquals("authors", query.getIndex());
+        assertArrayEquals(new String[] { "author" }, query.getTypes());
+        assertArrayEquals(new String[] { "1" }, query.getIds());
+        assertArrayEquals(new String[] { "1" }, query.getRouting());
+        assertTrue(query.getFields().isEmpty());
+    }
+
+    @Test
+    public void create_ChildByKeysOfParents_GetRequestOfDocumentsChain() throws Exception {
+        GetRequest request = (GetRequest) create("/author('1')/book('2')/character('3')",
+                "$select=name");
+        GetQuery query = request.getQuery();
+
+        assertEquals("character", request.getEntitySet().getName());
+        assertArrayEquals(new String[] { "author", "book", "character" }, query.getTypes());
+        assertArrayEquals(new String[] { "1", "2", "3" }, query.getIds());
+        assertArrayEquals(new String[] { "1" }, query.getRouting());
+        assertEquals(Collections.singleton("name"), query.getFields());
+    }
+
+    @Test
+    public void create_PrimitivePropertyByKey_GetRequestWithPropertyField() throws Exception {
+        GetQuery query = ((GetRequest) create("/author('1')/name", null)).getQuery();
+
+        assertArrayEquals(new String[] { "1" }, query.getIds());
+        assertEquals(Collections.singleton("name"), query.getFields());
+    }
+
+    @Test
+    public void create_ChildWithoutKnownParent_SearchRequest() throws Exception {
+        assertTrue(create("/book('2')", null) instanceof SearchRequest);
+    }
+
+    @Test
+    public void create_NavigationWithoutKey_SearchRequest() throws Exception {
+        assertTrue(create("/author('1')/book", null) instanceof SearchRequest);
+        assertTrue(create("/book('2')/author", null) instanceof SearchRequest);
+    }
+}
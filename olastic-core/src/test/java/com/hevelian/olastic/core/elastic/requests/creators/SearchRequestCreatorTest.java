@@ -0,0 +1,186 @@
+package com.hevelian.olastic.core.elastic.requests.creators;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationPropertyBinding;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.api.ex.ODataException;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.NestedQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlEntitySet;
+import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlEntityType;
+import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlNavigationProperty;
+import com.hevelian.olastic.core.api.edm.provider.ElasticCsdlProperty;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link SearchRequestCreator} class.
+ *
+ * @author rdidyk
+ */
+public class SearchRequestCreatorTest {
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new ForeignKeyProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+    }
+
+    /**
+     * Provider, which adds foreign key navigation from author to his
+     * favorite book.
+     */
+    private static class ForeignKeyProvider extends TestProvider {
+        private static final String FAVORITE_BOOK = "favoriteBook";
+        private static final String FAVORITE_BOOK_ID = "favoriteBookId";
+
+        ForeignKeyProvider(MappingMetaDataProvider metaDataProvider) {
+            super(metaDataProvider);
+        }
+
+        @Override
+        public ElasticCsdlEntityType getEntityType(FullQualifiedName entityTypeName)
+                throws ODataException {
+            ElasticCsdlEntityType entityType = super.getEntityType(entityTypeName);
+            if (AUTHOR_FQN.equals(entityTypeName)) {
+                List<CsdlProperty> properties = new ArrayList<>(entityType.getProperties());
+                properties.add(new ElasticCsdlProperty().setName(FAVORITE_BOOK_ID)
+                        .setType(EdmPrimitiveTypeKind.String.getFullQualifiedName()));
+                entityType.setProperties(properties);
+                List<CsdlNavigationProperty> navigations = new ArrayList<>(
+                        entityType.getNavigationProperties());
+                navigations.add(new ElasticCsdlNavigationProperty().setESField(FAVORITE_BOOK_ID)
+                        .setESTargetField("_id").setName(FAVORITE_BOOK).setType(BOOK_FQN));
+                entityType.setNavigationProperties(navigations);
+            }
+            return entityType;
+        }
+
+        @Override
+        public ElasticCsdlEntitySet getEntitySet(FullQualifiedName entityContainer,
+                String entitySetName) throws ODataException {
+            ElasticCsdlEntitySet entitySet = super.getEntitySet(entityContainer, entitySetName);
+            if (AUTHOR_TYPE.equals(entitySetName)) {
+                List<CsdlNavigationPropertyBinding> bindings = new ArrayList<>(
+                        entitySet.getNavigationPropertyBindings());
+                bindings.add(new CsdlNavigationPropertyBinding().setPath(FAVORITE_BOOK)
+                        .setTarget(BOOK_TYPE));
+                entitySet.setNavigationPropertyBindings(bindings);
+            }
+            return entitySet;
+        }
+    }
+
+    private SearchQuery create(String query) throws Exception {
+        return (SearchQuery) new SearchRequestCreator()
+                .create(buildUriInfo(metadata, odata, "/author", query)).getQuery();
+    }
+
+    private static List<NestedQueryBuilder> getNestedQueries(QueryBuilder query) {
+        if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            return Stream.of(bool.must(), bool.filter(), bool.should()).flatMap(List::stream)
+                    .flatMap(clause -> getNestedQueries(clause).stream())
+                    .collect(Collectors.toList());
+        }
+        return query instanceof NestedQueryBuilder
+                ? Collections.singletonList((NestedQueryBuilder) query) : Collections.emptyList();
+    }
+
+    @Test
+    public void create_NestedMatchesOption_InnerHitsAndNestedFieldExcluded() throws Exception {
+        SearchQuery query = create(
+                "$filter=_dimension/any(d:d/name eq 'validity')&nestedMatches=true");
+
+        List<NestedQueryBuilder> nested = getNestedQueries(query.getQueryBuilder());
+        assertEquals(1, nested.size());
+        assertEquals("_dimension", nested.get(0).innerHit().getName());
+        assertEquals(Collections.singleton("_dimension"), query.getExcludedFields());
+    }
+
+    @Test
+    public void create_SamePathTwice_InnerHitsNumbered() throws Exception {
+        SearchQuery query = create("$filter=_dimension/any(d:d/name eq 'a') and "
+                + "_dimension/any(d:d/state eq 'b')&nestedMatches=true");
+
+        List<String> names = getNestedQueries(query.getQueryBuilder()).stream()
+                .map(nested -> nested.innerHit().getName()).collect(Collectors.toList());
+        assertEquals(Arrays.asList("_dimension", "_dimension#2"), names);
+    }
+
+    @Test
+    public void create_NegatedNestedQuery_NoInnerHits() throws Exception {
+        SearchQuery query = create(
+                "$filter=not _dimension/any(d:d/name eq 'validity')&nestedMatches=true");
+
+        assertTrue(query.getExcludedFields().isEmpty());
+    }
+
+    @Test
+    public void create_NestedFieldNotSelected_NoInnerHits() throws Exception {
+        SearchQuery query = create("$filter=_dimension/any(d:d/name eq 'validity')"
+                + "&$select=name&nestedMatches=true");
+
+        assertNull(getNestedQueries(query.getQueryBuilder()).get(0).innerHit());
+        assertTrue(query.getExcludedFields().isEmpty());
+    }
+
+    @Test
+    public void create_WithoutOption_WholeNestedCollectionRetrieved() throws Exception {
+        SearchQuery query = create("$filter=_dimension/any(d:d/name eq 'validity')");
+
+        assertNull(getNestedQueries(query.getQueryBuilder()).get(0).innerHit());
+        assertTrue(query.getExcludedFields().isEmpty());
+    }
+
+    @Test
+    public void create_SelectWithForeignKeyExpand_KeyFieldRetrieved() throws Exception {
+        SearchQuery query = create("$select=name&$expand=favoriteBook");
+        assertEquals(new HashSet<>(Arrays.asList("name", "favoriteBookId")),
+                query.getFields());
+    }
+
+    @Test
+    public void create_SelectWithStarExpand_KeyFieldRetrieved() throws Exception {
+        SearchQuery query = create("$select=age&$expand=*");
+        assertEquals(new HashSet<>(Arrays.asList("age", "favoriteBookId")), query.getFields());
+    }
+
+    @Test
+    public void create_SelectWithChildExpand_OnlySelectedFields() throws Exception {
+        SearchQuery query = create("$select=name&$expand=book");
+        assertEquals(Collections.singleton("name"), query.getFields());
+    }
+
+    @Test
+    public void create_ForeignKeyExpandWithoutSelect_AllFields() throws Exception {
+        assertTrue(create("$expand=favoriteBook").getFields().isEmpty());
+    }
+}
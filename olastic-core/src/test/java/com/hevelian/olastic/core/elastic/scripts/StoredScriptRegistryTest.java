@@ -0,0 +1,64 @@
+package com.hevelian.olastic.core.elastic.scripts;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.scriptQuery;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+/**
+ * Tests for {@link StoredScriptRegistry} class.
+ *
+ * @author rdidyk
+ */
+public class StoredScriptRegistryTest {
+
+    @Test
+    public void registerReferenced_CalledTwice_ReferencedScriptRegisteredOnce()
+            throws ODataApplicationException {
+        List<StoredScript> registered = new ArrayList<>();
+        StoredScriptRegistry registry = new StoredScriptRegistry() {
+            @Override
+            protected void register(Client client, StoredScript script) {
+                registered.add(script);
+            }
+        };
+        Client client = mock(Client.class);
+        SearchSourceBuilder source = new SearchSourceBuilder()
+                .query(scriptQuery(StoredScript.DATE_PART.toScript(new HashMap<>())));
+        registry.registerReferenced(client, source);
+        registry.registerReferenced(client, source);
+        assertEquals(Arrays.asList(StoredScript.DATE_PART), registered);
+        assertTrue(registry.isRegistered(StoredScript.DATE_PART));
+        assertFalse(registry.isRegistered(StoredScript.EXPRESSION));
+    }
+
+    @Test
+    public void registerReferenced_NoScripts_NothingRegistered()
+            throws ODataApplicationException {
+        Client client = mock(Client.class);
+        StoredScriptRegistry registry = new StoredScriptRegistry();
+        registry.registerReferenced(client, new SearchSourceBuilder().query(matchAllQuery()));
+        registry.registerReferenced(client, null);
+        verifyZeroInteractions(client);
+    }
+
+    @Test
+    public void toScript_Params_StoredPainlessScript() {
+        String script = StoredScript.DATE_PART.toScript(new HashMap<>()).toString();
+        assertTrue(script.contains(StoredScript.DATE_PART.getId()));
+        assertTrue(script.contains(StoredScript.LANG));
+    }
+}
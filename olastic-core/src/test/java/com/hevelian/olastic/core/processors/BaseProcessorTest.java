@@ -25,6 +25,8 @@ import org.elasticsearch.action.ListenableActionFuture;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
@@ -80,6 +82,8 @@ public abstract class BaseProcessorTest {
             SearchHit hit = mock(SearchHit.class);
             internalHitsArr[i] = hit;
             when(hit.getSource()).thenReturn(data);
+            when(hit.hasSource()).thenReturn(true);
+            when(hit.getSourceRef()).thenReturn(toSourceRef(data));
             when(hit.getId()).thenReturn(Integer.toString(i));
         }
         SearchHits hits = new SearchHits(internalHitsArr, internalHitsArr.length,
@@ -97,6 +101,14 @@ public abstract class BaseProcessorTest {
         return client;
     }
 
+    private static BytesReference toSourceRef(Map<String, Object> data) {
+        try {
+            return XContentFactory.jsonBuilder().map(data).bytes();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public static SearchRequestBuilder mockBuilder() {
         SearchRequestBuilder builder = mock(SearchRequestBuilder.class);
         when(builder.setTypes(anyString())).thenReturn(builder);
@@ -0,0 +1,267 @@
+package com.hevelian.olastic.core.processors;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.elasticsearch.index.query.QueryBuilders.hasChildQuery;
+import static org.elasticsearch.index.query.QueryBuilders.idsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.lucene.search.join.ScoreMode;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.HasChildQueryBuilder;
+import org.elasticsearch.index.query.InnerHitBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.parsers.EntityCollectionParser;
+import com.hevelian.olastic.core.elastic.queries.SearchQuery;
+import com.hevelian.olastic.core.elastic.requests.creators.ExpandRequestCreator;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link ExpandHandler} class.
+ *
+ * @author rdidyk
+ */
+public class ExpandHandlerTest {
+
+    private ElasticServiceMetadata metadata;
+    private ElasticOData odata;
+
+    /**
+     * Handler with stubbed multi search, which returns prepared responses in
+     * order.
+     */
+    private static class StubExpandHandler extends ExpandHandler {
+
+        private final LinkedList<SearchResponse> responses = new LinkedList<>();
+        private final List<List<SearchQuery>> searches = new ArrayList<>();
+
+        @Override
+        protected List<SearchResponse> search(List<SearchQuery> queries) {
+            searches.add(queries);
+            List<SearchResponse> result = new ArrayList<>();
+            for (int i = 0; i < queries.size(); i++) {
+                result.add(responses.poll());
+            }
+            return result;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+    }
+
+    private static SearchHit hit(String id, String source) {
+        SearchHit hit = new SearchHit(0, id, new Text("type"), Collections.emptyMap());
+        hit.sourceRef(new BytesArray(source));
+        return hit;
+    }
+
+    private static SearchResponse response(SearchHit... hits) {
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, hits.length, 0));
+        return response;
+    }
+
+    private static List<Entity> entities(ElasticEdmEntitySet entitySet, SearchHit... hits) {
+        return ((EntityCollection) new EntityCollectionParser(false)
+                .parse(response(hits), entitySet).getValue()).getEntities();
+    }
+
+    private static ElasticEdmEntitySet getEntitySet(UriInfo uriInfo) {
+        return (ElasticEdmEntitySet) ((UriResourceEntitySet) uriInfo.getUriResourceParts()
+                .get(0)).getEntitySet();
+    }
+
+    @Test
+    public void expand_ChildrenOfPage_OneSearchWithQueryPerEntity() throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author", "$expand=book");
+        ElasticEdmEntitySet entitySet = getEntitySet(uriInfo);
+        List<Entity> authors = entities(entitySet, hit("1", "{\"name\":\"a\"}"),
+                hit("2", "{\"name\":\"b\"}"));
+        StubExpandHandler handler = new StubExpandHandler();
+        handler.responses.add(response(hit("10", "{\"title\":\"x\"}")));
+        handler.responses.add(response(hit("20", "{\"title\":\"y\"}"),
+                hit("21", "{\"title\":\"z\"}")));
+
+        handler.expand(authors, entitySet, uriInfo.getExpandOption());
+
+        assertEquals(1, handler.searches.size());
+        List<SearchQuery> queries = handler.searches.get(0);
+        assertEquals(2, queries.size());
+        assertArrayEquals(new String[] { "book" }, queries.get(0).getTypes());
+        assertEquals(termQuery("_parent", "1"),
+                ((BoolQueryBuilder) queries.get(0).getQueryBuilder()).filter().get(0));
+        assertArrayEquals(new String[] { "1" }, queries.get(0).getRouting());
+        Link link = authors.get(1).getNavigationLink("book");
+        assertEquals(2, link.getInlineEntitySet().getEntities().size());
+        assertEquals("y", link.getInlineEntitySet().getEntities().get(0).getProperty("title")
+                .getValue());
+    }
+
+    @Test
+    public void expand_ParentOfChild_HasChildQueryWithSingleResult() throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/book", "$expand=author");
+        ElasticEdmEntitySet entitySet = getEntitySet(uriInfo);
+        List<Entity> books = entities(entitySet, hit("10", "{\"title\":\"x\"}"),
+                hit("11", "{\"title\":\"y\"}"));
+        StubExpandHandler handler = new StubExpandHandler();
+        handler.responses.add(response(hit("1", "{\"name\":\"a\"}")));
+        handler.responses.add(response());
+
+        handler.expand(books, entitySet, uriInfo.getExpandOption());
+
+        SearchQuery query = handler.searches.get(0).get(0);
+        assertEquals(hasChildQuery("book", idsQuery("book").addIds("10"), ScoreMode.None),
+                ((BoolQueryBuilder) query.getQueryBuilder()).filter().get(0));
+        assertEquals(1, query.getPagination().getTop());
+        assertEquals(0, query.getRouting().length);
+        assertEquals("a", books.get(0).getNavigationLink("author").getInlineEntity()
+                .getProperty("name").getValue());
+        assertNull(books.get(1).getNavigationLink("author").getInlineEntity());
+    }
+
+    @Test
+    public void expand_WithOptions_OptionsApplied() throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author",
+                "$expand=book($filter=title eq 'x';$top=2;$select=title)");
+        ElasticEdmEntitySet entitySet = getEntitySet(uriInfo);
+        List<Entity> authors = entities(entitySet, hit("1", "{\"name\":\"a\"}"));
+        StubExpandHandler handler = new StubExpandHandler();
+        handler.responses.add(response());
+
+        handler.expand(authors, entitySet, uriInfo.getExpandOption());
+
+        SearchQuery query = handler.searches.get(0).get(0);
+        assertEquals(2, query.getPagination().getTop());
+        assertEquals(Collections.singleton("title"), query.getFields());
+        assertTrue(query.getQueryBuilder().toString().contains("\"title.keyword\""));
+    }
+
+    @Test
+    public void expand_NestedExpand_OneSearchPerLevel() throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author",
+                "$expand=book($expand=character)");
+        ElasticEdmEntitySet entitySet = getEntitySet(uriInfo);
+        List<Entity> authors = entities(entitySet, hit("1", "{\"name\":\"a\"}"),
+                hit("2", "{\"name\":\"b\"}"));
+        StubExpandHandler handler = new StubExpandHandler();
+        handler.responses.add(response(hit("10", "{\"title\":\"x\"}")));
+        handler.responses.add(response(hit("20", "{\"title\":\"y\"}")));
+        handler.responses.add(response(hit("100", "{\"name\":\"c\"}")));
+        handler.responses.add(response());
+
+        handler.expand(authors, entitySet, uriInfo.getExpandOption());
+
+        assertEquals(2, handler.searches.size());
+        assertEquals(Arrays.asList(2, 2), Arrays.asList(handler.searches.get(0).size(),
+                handler.searches.get(1).size()));
+        assertArrayEquals(new String[] { "character" },
+                handler.searches.get(1).get(0).getTypes());
+        // book isn't root type, so its children can't be routed by its id
+        assertEquals(0, handler.searches.get(1).get(0).getRouting().length);
+        Entity book = authors.get(0).getNavigationLink("book").getInlineEntitySet()
+                .getEntities().get(0);
+        assertEquals("c", book.getNavigationLink("character").getInlineEntitySet()
+                .getEntities().get(0).getProperty("name").getValue());
+    }
+
+    @Test
+    public void expand_NoExpandOption_NothingSearched() throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author", null);
+        ElasticEdmEntitySet entitySet = getEntitySet(uriInfo);
+        StubExpandHandler handler = new StubExpandHandler();
+
+        handler.expand(entities(entitySet, hit("1", "{}")), entitySet,
+                uriInfo.getExpandOption());
+
+        assertTrue(handler.searches.isEmpty());
+    }
+
+    @Test
+    public void createInnerHitsQuery_ChildCollectionWithinLimit_HasChildWithNamedInnerHit()
+            throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author",
+                "$expand=book($top=3;$skip=1;$select=title)");
+        ExpandItem item = uriInfo.getExpandOption().getExpandItems().get(0);
+        ExpandRequestCreator creator = new ExpandRequestCreator(getEntitySet(uriInfo),
+                ExpandRequestCreator.getNavigation(item), item);
+
+        HasChildQueryBuilder query = (HasChildQueryBuilder) creator.createInnerHitsQuery();
+
+        assertEquals("book", query.childType());
+        assertEquals(0, query.boost(), 0);
+        InnerHitBuilder innerHit = query.innerHit();
+        assertEquals("book", innerHit.getName());
+        assertEquals(1, innerHit.getFrom());
+        assertEquals(3, innerHit.getSize());
+        assertArrayEquals(new String[] { "title" },
+                innerHit.getFetchSourceContext().includes());
+    }
+
+    @Test
+    public void createInnerHitsQuery_PageOverLimitOrParent_Null() throws Exception {
+        UriInfo authors = buildUriInfo(metadata, odata, "/author", "$expand=book($top=200)");
+        ExpandItem item = authors.getExpandOption().getExpandItems().get(0);
+        assertNull(new ExpandRequestCreator(getEntitySet(authors),
+                ExpandRequestCreator.getNavigation(item), item).createInnerHitsQuery());
+
+        UriInfo books = buildUriInfo(metadata, odata, "/book", "$expand=author");
+        item = books.getExpandOption().getExpandItems().get(0);
+        assertNull(new ExpandRequestCreator(getEntitySet(books),
+                ExpandRequestCreator.getNavigation(item), item).createInnerHitsQuery());
+    }
+
+    @Test
+    public void expand_ChildrenFromInnerHits_OnlyNestedLevelSearched() throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author",
+                "$expand=book($expand=character)");
+        ElasticEdmEntitySet entitySet = getEntitySet(uriInfo);
+        SearchHit author = hit("1", "{\"name\":\"a\"}");
+        author.setInnerHits(Collections.singletonMap("book",
+                new SearchHits(new SearchHit[] { hit("10", "{\"title\":\"x\"}") }, 5, 0)));
+        List<Entity> authors = entities(entitySet, author);
+        StubExpandHandler handler = new StubExpandHandler();
+        handler.responses.add(response(hit("100", "{\"name\":\"c\"}")));
+
+        handler.expand(authors, entitySet, uriInfo.getExpandOption());
+
+        assertEquals(1, handler.searches.size());
+        assertArrayEquals(new String[] { "character" },
+                handler.searches.get(0).get(0).getTypes());
+        EntityCollection books = authors.get(0).getNavigationLink("book").getInlineEntitySet();
+        assertEquals(Integer.valueOf(5), books.getCount());
+        assertEquals("c", books.getEntities().get(0).getNavigationLink("character")
+                .getInlineEntitySet().getEntities().get(0).getProperty("name").getValue());
+    }
+}
@@ -0,0 +1,110 @@
+package com.hevelian.olastic.core.processors.impl;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.requests.CountRequest;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link CountProcessor} class.
+ *
+ * @author rdidyk
+ */
+public class CountProcessorTest {
+
+    private ElasticOData odata;
+    private ElasticServiceMetadata metadata;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+    }
+
+    private RequestCountProcessor processor(String prefer) {
+        ODataRequest request = new ODataRequest();
+        if (prefer != null) {
+            request.addHeader(HttpHeader.PREFER, prefer);
+        }
+        RequestCountProcessor processor = new RequestCountProcessor(request);
+        processor.init(odata, metadata);
+        return processor;
+    }
+
+    @Test
+    public void createRequest_CountSegmentWithFilter_FilteredCountRequest() throws Exception {
+        ESRequest request = processor(null).createRequest(
+                buildUriInfo(metadata, odata, "/author/$count", "$filter=name eq 'Dan'"));
+        assertTrue(request instanceof CountRequest);
+        assertEquals("author", request.getEntitySet().getName());
+        assertTrue(request.getQuery().getQueryBuilder().toString().contains("Dan"));
+    }
+
+    @Test
+    public void createRequest_NavigationCount_ChildrenOfParentCounted() throws Exception {
+        ESRequest request = processor(null)
+                .createRequest(buildUriInfo(metadata, odata, "/author('1')/book/$count", null));
+        assertEquals("book", request.getEntitySet().getName());
+        assertTrue(request.getQuery().getQueryBuilder().toString().contains("has_parent"));
+    }
+
+    @Test
+    public void getCountSampleSize_ApproximateCountPreference_SampleOfEntitySet()
+            throws Exception {
+        ElasticEdmEntitySet entitySet = (ElasticEdmEntitySet) metadata.getEdm()
+                .getEntityContainer().getEntitySet("author");
+        assertEquals(ElasticConstants.DEFAULT_COUNT_SAMPLE_SIZE,
+                processor(ElasticConstants.APPROXIMATE_COUNT_PREFERENCE)
+                        .getCountSampleSize(entitySet));
+        assertEquals(0, processor(null).getCountSampleSize(entitySet));
+    }
+
+    @Test
+    public void setContent_TotalHits_PlainTextCount() throws Exception {
+        CountProcessor processor = processor(null);
+        SearchResponse searchResponse = mock(SearchResponse.class);
+        when(searchResponse.getHits()).thenReturn(new SearchHits(new SearchHit[0], 42, 0));
+        ElasticEdmEntitySet entitySet = (ElasticEdmEntitySet) metadata.getEdm()
+                .getEntityContainer().getEntitySet("author");
+        ODataResponse response = new ODataResponse();
+        processor.setContent(response, ContentType.TEXT_PLAIN,
+                processor.parseResponse(searchResponse, entitySet), entitySet, null);
+        assertEquals("42", IOUtils.toString(response.getContent(), StandardCharsets.UTF_8));
+    }
+
+    private static class RequestCountProcessor extends CountProcessor {
+        RequestCountProcessor(ODataRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        protected int getCountSampleSize(ElasticEdmEntitySet entitySet) {
+            return super.getCountSampleSize(entitySet);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.hevelian.olastic.core.processors.impl;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.elastic.ElasticConstants;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.pagination.Pagination;
+import com.hevelian.olastic.core.elastic.pagination.SkipToken;
+import com.hevelian.olastic.core.elastic.pagination.Sort;
+import com.hevelian.olastic.core.elastic.requests.CountRequest;
+import com.hevelian.olastic.core.elastic.requests.ESRequest;
+import com.hevelian.olastic.core.elastic.requests.ScrollRequest;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for server-driven paging and streaming of
+ * {@link EntityCollectionProcessorImpl} class.
+ *
+ * @author rdidyk
+ */
+public class EntityCollectionProcessorImplTest {
+
+    private ElasticOData odata;
+    private ElasticServiceMetadata metadata;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+    }
+
+    private PagingProcessor processor(String query, String prefer) {
+        ODataRequest request = new ODataRequest();
+        request.setRawBaseUri("http://localhost/odata");
+        request.setRawODataPath("/author");
+        request.setRawQueryPath(query);
+        if (prefer != null) {
+            request.addHeader(HttpHeader.PREFER, prefer);
+        }
+        PagingProcessor processor = new PagingProcessor(request);
+        processor.init(odata, metadata);
+        return processor;
+    }
+
+    private static SearchResponse response(int count) {
+        SearchHit[] hits = new SearchHit[count];
+        for (int i = 0; i < count; i++) {
+            hits[i] = new SearchHit(i, Integer.toString(i), new Text("author"), null);
+            hits[i].sortValues(new Object[] { "name" + i, "author#" + i },
+                    new DocValueFormat[] { DocValueFormat.RAW, DocValueFormat.RAW });
+        }
+        SearchResponse response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, 100, 0));
+        return response;
+    }
+
+    private Pagination paginate(PagingProcessor processor, String query) throws Exception {
+        UriInfo uriInfo = buildUriInfo(metadata, odata, "/author", query);
+        return processor.createRequest(uriInfo).getPagination();
+    }
+
+    @Test
+    public void createRequest_TopBiggerThanPreferredPageSize_PageWithUidTiebreaker()
+            throws Exception {
+        PagingProcessor processor = processor("$top=3&$skip=5&$orderby=name",
+                "odata.maxpagesize=2");
+        Pagination pagination = paginate(processor, "$top=3&$skip=5&$orderby=name");
+
+        assertEquals(2, pagination.getTop());
+        assertEquals(5, pagination.getSkip());
+        List<Sort> orderBy = pagination.getOrderBy();
+        assertEquals(2, orderBy.size());
+        assertEquals(ElasticConstants.UID_FIELD_NAME, orderBy.get(1).getProperty());
+
+        URI next = processor.createNextLink(response(2));
+        String link = next.toString();
+        assertTrue(link.startsWith("http://localhost/odata/author?$orderby=name&$skiptoken="));
+        SkipToken token = SkipToken.decode(link.substring(link.lastIndexOf('=') + 1));
+        assertArrayEquals(new Object[] { "name1", "author#1" }, token.getSearchAfter());
+        assertEquals(1, token.getTop());
+    }
+
+    @Test
+    public void createRequest_SkipToken_SearchAfterTokenValues() throws Exception {
+        String query = "$skiptoken="
+                + new SkipToken(new Object[] { "name1", "author#1" }, 1).encode();
+        PagingProcessor processor = processor(query, "odata.maxpagesize=2");
+        Pagination pagination = paginate(processor, query);
+
+        assertEquals(1, pagination.getTop());
+        assertEquals(0, pagination.getSkip());
+        assertArrayEquals(new Object[] { "name1", "author#1" }, pagination.getSearchAfter());
+        assertNull(processor.createNextLink(response(1)));
+    }
+
+    @Test
+    public void createRequest_NoTop_DefaultPageSizeAndUnlimitedNextLink() throws Exception {
+        PagingProcessor processor = processor(null, null);
+        Pagination pagination = paginate(processor, null);
+
+        assertEquals(Pagination.TOP_DEFAULT, pagination.getTop());
+        assertNull(processor.createNextLink(response(Pagination.TOP_DEFAULT - 1)));
+        String link = processor.createNextLink(response(Pagination.TOP_DEFAULT)).toString();
+        SkipToken token = SkipToken.decode(link.substring(link.lastIndexOf('=') + 1));
+        assertEquals(SkipToken.UNLIMITED, token.getTop());
+    }
+
+    @Test
+    public void createRequest_PreferenceOverMaxPageSize_LimitedByEntitySet() throws Exception {
+        PagingProcessor processor = processor(null, "odata.maxpagesize=100000");
+        Pagination pagination = paginate(processor, null);
+
+        assertEquals(ElasticConstants.DEFAULT_MAX_PAGE_SIZE, pagination.getTop());
+    }
+
+    @Test
+    public void isStreaming_StreamingPreference_StreamedUnlessPaged() throws Exception {
+        PagingProcessor processor = processor(null, "odata.streaming");
+        assertTrue(processor.isStreaming(buildUriInfo(metadata, odata, "/author", null)));
+        assertTrue(processor.isStreaming(
+                buildUriInfo(metadata, odata, "/author", "$filter=name eq 'a'")));
+        assertFalse(processor
+                .isStreaming(buildUriInfo(metadata, odata, "/author", "$orderby=name")));
+        assertFalse(processor(null, null)
+                .isStreaming(buildUriInfo(metadata, odata, "/author", null)));
+    }
+
+    @Test
+    public void createRequest_StreamingPreference_ScrollRequest() throws Exception {
+        PagingProcessor processor = processor(null, "odata.streaming");
+        ESRequest request = processor
+                .createRequest(buildUriInfo(metadata, odata, "/author", null));
+        assertTrue(request instanceof ScrollRequest);
+    }
+
+    @Test
+    public void createRequest_TopZero_CountRequest() throws Exception {
+        PagingProcessor processor = processor("$count=true&$top=0", null);
+        ESRequest request = processor.createRequest(
+                buildUriInfo(metadata, odata, "/author", "$count=true&$top=0"));
+        assertTrue(request instanceof CountRequest);
+        assertNull(request.getPagination());
+        assertNull(processor.createNextLink(response(0)));
+    }
+
+    @Test
+    public void isSourcePassthrough_SelectOrInnerHits_OnlyPlainPage() throws Exception {
+        PagingProcessor processor = processor("$top=2", null);
+        processor.createRequest(buildUriInfo(metadata, odata, "/author", "$top=2"));
+        SearchResponse response = response(2);
+        assertTrue(processor.isSourcePassthrough(response));
+        response.getHits().getAt(1).setInnerHits(Collections.emptyMap());
+        assertFalse(processor.isSourcePassthrough(response));
+
+        processor.createRequest(buildUriInfo(metadata, odata, "/author", "$select=name"));
+        assertFalse(processor.isSourcePassthrough(response(2)));
+    }
+
+    private static class PagingProcessor extends EntityCollectionProcessorImpl {
+        PagingProcessor(ODataRequest request) {
+            this.request = request;
+        }
+    }
+}
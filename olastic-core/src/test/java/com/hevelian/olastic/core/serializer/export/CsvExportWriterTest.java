@@ -0,0 +1,92 @@
+package com.hevelian.olastic.core.serializer.export;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link CsvExportWriter} class.
+ *
+ * @author rdidyk
+ */
+public class CsvExportWriterTest {
+
+    private ElasticOData odata;
+    private ElasticServiceMetadata metadata;
+    private EdmEntityType entityType;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        entityType = metadata.getEdm().getEntityContainer().getEntitySet("author")
+                .getEntityType();
+    }
+
+    private static Entity author() {
+        return new Entity().addProperty(new Property(null, "_id", ValueType.PRIMITIVE, "1"))
+                .addProperty(new Property(null, "age", ValueType.PRIMITIVE, 42L))
+                .addProperty(new Property(null, "name", ValueType.PRIMITIVE, "Doe, \"J\""));
+    }
+
+    private String write(String select) throws Exception {
+        ExportWriter writer = ExportWriter.create(ExportFormat.CSV, odata, metadata, entityType,
+                select == null ? null
+                        : buildUriInfo(metadata, odata, "/author", "$select=" + select)
+                                .getSelectOption());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeHeader(out);
+        writer.writeEntity(author(), out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writeEntity_AllProperties_PrimitiveColumnsWithQuotedValues() throws Exception {
+        assertEquals("name,_id,birthDate,age\r\n\"Doe, \"\"J\"\"\",1,,42\r\n", write(null));
+    }
+
+    @Test
+    public void writeEntity_SelectedProperties_OnlySelectedColumns() throws Exception {
+        assertEquals("name,age\r\n\"Doe, \"\"J\"\"\",42\r\n", write("name,age"));
+    }
+
+    @Test
+    public void writeEntity_Ndjson_EntityPerLine() throws Exception {
+        ExportWriter writer = ExportWriter.create(ExportFormat.NDJSON, odata, metadata,
+                entityType, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeHeader(out);
+        writer.writeEntity(author(), out);
+        writer.writeEntity(author(), out);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"_id\":\"1\",\"age\":42,\"name\":\"Doe, \\\"J\\\"\"}", lines[0]);
+    }
+
+    @Test
+    public void of_ContentTypes_ExportFormats() {
+        assertEquals(ExportFormat.CSV, ExportFormat.of(ContentType.create("text/csv")));
+        assertEquals(ExportFormat.NDJSON,
+                ExportFormat.of(ContentType.create("application/x-ndjson;charset=utf-8")));
+        assertNull(ExportFormat.of(ContentType.JSON));
+    }
+}
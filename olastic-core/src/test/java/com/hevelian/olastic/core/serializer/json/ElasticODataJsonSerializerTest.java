@@ -0,0 +1,136 @@
+package com.hevelian.olastic.core.serializer.json;
+
+import static com.hevelian.olastic.core.processors.BaseProcessorTest.buildUriInfo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.SerializerResult;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hevelian.olastic.core.ElasticOData;
+import com.hevelian.olastic.core.ElasticServiceMetadata;
+import com.hevelian.olastic.core.edm.ElasticEdmEntitySet;
+import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
+import com.hevelian.olastic.core.elastic.parsers.EntityCollectionParser;
+import com.hevelian.olastic.core.elastic.parsers.SourceEntityCollection;
+import com.hevelian.olastic.core.stub.TestProvider;
+
+/**
+ * Tests for {@link ElasticODataJsonSerializer} class.
+ *
+ * @author rdidyk
+ */
+public class ElasticODataJsonSerializerTest {
+
+    private static final URI NEXT = URI.create("http://localhost/author?$skiptoken=abc");
+
+    private ElasticOData odata;
+    private ElasticServiceMetadata metadata;
+    private ElasticEdmEntitySet entitySet;
+    private SearchResponse response;
+
+    @Before
+    public void setUp() throws Exception {
+        odata = ElasticOData.newInstance();
+        metadata = odata.createServiceMetadata(
+                new TestProvider(mock(MappingMetaDataProvider.class)), new ArrayList<>());
+        entitySet = (ElasticEdmEntitySet) metadata.getEdm().getEntityContainer()
+                .getEntitySet("author");
+        SearchHit[] hits = new SearchHit[] {
+                hit("1", "{\"name\":\"D\\\"an \\u00e9\",\"age\":42,"
+                        + "\"birthDate\":\"1982-05-24T10:25:15Z\",\"unknown\":{\"a\":[1]}}"),
+                hit("2", "{\"birthDate\":-19064231665000,\"name\":null,\"age\":7,"
+                        + "\"_dimension\":[{\"name\":\"x\"},{\"name\":\"y\"}]}"),
+                hit("3", "{}") };
+        response = mock(SearchResponse.class);
+        when(response.getHits()).thenReturn(new SearchHits(hits, 10, 0));
+    }
+
+    private static SearchHit hit(String id, String source) {
+        SearchHit hit = new SearchHit(0, id, new Text("author"), null);
+        hit.sourceRef(new BytesArray(source));
+        return hit;
+    }
+
+    private EntityCollectionSerializerOptions options(boolean isCount) throws Exception {
+        return EntityCollectionSerializerOptions.with()
+                .contextURL(ContextURL.with().entitySet(entitySet).build())
+                .count(isCount ? buildUriInfo(metadata, odata, "/author", "$count=true")
+                        .getCountOption() : null)
+                .build();
+    }
+
+    private static String read(SerializerResult result) throws Exception {
+        return IOUtils.toString(result.getContent(), StandardCharsets.UTF_8);
+    }
+
+    private String serializeEntities(ContentType contentType, boolean isCount)
+            throws Exception {
+        EntityCollection entities = (EntityCollection) new EntityCollectionParser(isCount)
+                .parse(response, entitySet).getValue();
+        entities.setNext(NEXT);
+        return read(odata.createSerializer(contentType).entityCollection(metadata,
+                entitySet.getEntityType(), entities, options(isCount)));
+    }
+
+    private String serializeSources(ContentType contentType, boolean isCount) throws Exception {
+        AbstractEntityCollection value = new EntityCollectionParser(isCount)
+                .parseSources(response, entitySet).getValue();
+        SourceEntityCollection entities = (SourceEntityCollection) value;
+        entities.setNext(NEXT);
+        return read(((ElasticODataJsonSerializer) odata.createSerializer(contentType))
+                .sourceEntityCollection(metadata, entities, options(isCount)));
+    }
+
+    @Test
+    public void sourceEntityCollection_MinimalMetadata_SameAsEntityCollection()
+            throws Exception {
+        String expected = serializeEntities(ContentType.JSON, true);
+        assertEquals(expected, serializeSources(ContentType.JSON, true));
+        assertTrue(expected.contains("\"@odata.count\":10"));
+        assertTrue(expected.contains("\"birthDate\":\"1982-05-24T10:25:15Z\""));
+        assertTrue(expected.contains("\"age\":7"));
+        assertTrue(expected.contains("\"_dimension\":[{\"name\":\"x\",\"state\":null}"));
+    }
+
+    @Test
+    public void sourceEntityCollection_NoMetadataWithoutCount_SameAsEntityCollection()
+            throws Exception {
+        assertEquals(serializeEntities(ContentType.JSON_NO_METADATA, false),
+                serializeSources(ContentType.JSON_NO_METADATA, false));
+    }
+
+    @Test
+    public void sourceEntityCollection_IEEE754Compatible_SameAsEntityCollection()
+            throws Exception {
+        ContentType contentType = ContentType.create(ContentType.JSON,
+                ContentType.PARAMETER_IEEE754_COMPATIBLE, "true");
+        String expected = serializeEntities(contentType, true);
+        assertEquals(expected, serializeSources(contentType, true));
+        assertTrue(expected.contains("\"age\":\"42\""));
+    }
+
+    @Test
+    public void sourceEntityCollection_FullMetadata_SerializedByEntities() throws Exception {
+        assertEquals(serializeEntities(ContentType.JSON_FULL_METADATA, true),
+                serializeSources(ContentType.JSON_FULL_METADATA, true));
+    }
+}
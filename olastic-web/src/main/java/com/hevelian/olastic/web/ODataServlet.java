@@ -23,6 +23,7 @@ import com.hevelian.olastic.core.elastic.mappings.MappingMetaDataProvider;
 import com.hevelian.olastic.core.processors.impl.EntityCollectionProcessorHandler;
 import com.hevelian.olastic.core.processors.impl.EntityProcessorHandler;
 import com.hevelian.olastic.core.processors.impl.PrimitiveProcessorImpl;
+import com.hevelian.olastic.core.serializer.export.ExportContentTypeSupport;
 
 /**
  * OData servlet that currently connects to the local instance of the
@@ -97,6 +98,7 @@ public class ODataServlet extends HttpServlet {
         handler.register(new PrimitiveProcessorImpl());
         handler.register(new EntityProcessorHandler());
         handler.register(new EntityCollectionProcessorHandler());
+        handler.register(new ExportContentTypeSupport());
     }
 
     public Client getClient() {